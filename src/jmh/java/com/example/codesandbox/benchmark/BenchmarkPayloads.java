@@ -0,0 +1,156 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.user.entity.Permission;
+import com.example.codesandbox.user.entity.Role;
+import com.example.codesandbox.user.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 基准测试用的数据生成
+ *
+ * 数据尽量接近线上：代码由真实风格的代码行拼成（不是重复的单个字符），
+ * 用户有多个角色、每个角色几十个权限，任务和代码片段的各字段都有值；
+ * 使用固定种子，每次运行生成相同的数据
+ */
+public final class BenchmarkPayloads {
+
+    private static final String[] LANGUAGES = {"python", "java", "cpp", "javascript", "go"};
+
+    private static final String[] CODE_LINES = {
+            "def solve(nums, target):",
+            "    seen = {}",
+            "    for i, n in enumerate(nums):",
+            "        if target - n in seen:",
+            "            return [seen[target - n], i]",
+            "        seen[n] = i",
+            "public static int[] twoSum(int[] nums, int target) {",
+            "    Map<Integer, Integer> seen = new HashMap<>();",
+            "    for (int i = 0; i < nums.length; i++) {",
+            "// 注释：处理边界情况，空数组直接返回",
+            "    std::vector<int> dp(n + 1, 0);",
+            "    for (int j = 1; j <= n; ++j) dp[j] = std::max(dp[j - 1], dp[j] + w[j]);",
+            "const result = input.split('\\n').map(Number).filter(x => x > 0);",
+            "print(sum(int(x) for x in input().split()))",
+    };
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * 约 sizeBytes 字节的源代码
+     */
+    public static String code(int sizeBytes, long seed) {
+        Random random = new Random(seed);
+        StringBuilder code = new StringBuilder(sizeBytes + 128);
+        while (code.length() < sizeBytes) {
+            code.append(CODE_LINES[random.nextInt(CODE_LINES.length)])
+                    .append("  # ").append(random.nextInt(1_000_000))
+                    .append('\n');
+        }
+        return code.toString();
+    }
+
+    /**
+     * 测试用例输入：空格分隔的整数
+     */
+    public static String input(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            input.append(random.nextInt(100_000) - 50_000).append(i % 20 == 19 ? '\n' : ' ');
+        }
+        return input.toString();
+    }
+
+    public static String language(int index) {
+        return LANGUAGES[Math.floorMod(index, LANGUAGES.length)];
+    }
+
+    /**
+     * 拥有 roles 个角色、每个角色 permissionsPerRole 个权限的用户
+     * （只设置 User → Role → Permission 方向，避免 @Data 的 hashCode 在双向关联上递归）
+     */
+    public static User user(long id, int roles, int permissionsPerRole) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        Set<Role> roleSet = new HashSet<>();
+        for (int r = 0; r < roles; r++) {
+            Role role = new Role();
+            role.setId((long) r);
+            role.setRoleName("ROLE_" + r);
+            Set<Permission> permissions = new HashSet<>();
+            for (int p = 0; p < permissionsPerRole; p++) {
+                Permission permission = new Permission();
+                permission.setId((long) (r * 1000 + p));
+                permission.setResource("resource" + p);
+                permission.setAction(p % 2 == 0 ? "read" : "write");
+                permission.setPermissionName(permission.getResource() + ":" + permission.getAction() + ":" + r);
+                permissions.add(permission);
+            }
+            role.setPermissions(permissions);
+            roleSet.add(role);
+        }
+        user.setRoles(roleSet);
+        return user;
+    }
+
+    public static List<ExecutionTask> tasks(int count, long seed) {
+        Random random = new Random(seed);
+        List<ExecutionTask> tasks = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            CodeSnippet snippet = new CodeSnippet();
+            snippet.setId((long) random.nextInt(10_000));
+            ExecutionTask task = new ExecutionTask();
+            task.setId((long) i);
+            task.setSnippet(i % 3 == 0 ? null : snippet);
+            task.setLanguage(language(i));
+            task.setCodeHash(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+            task.setStatus(i % 10 == 0 ? ExecutionTask.Status.FAILED : ExecutionTask.Status.COMPLETED);
+            task.setErrorMessage(i % 10 == 0 ? "Traceback (most recent call last):\n  NameError: name 'x' is not defined" : null);
+            task.setQueueWaitMs(random.nextInt(500));
+            task.setCompileTimeMs(random.nextInt(2000));
+            task.setExecutionTimeMs(random.nextInt(3000));
+            task.setMemoryUsedMb(random.nextInt(256));
+            task.setCreatedAt(now.minusSeconds(random.nextInt(86_400)));
+            task.setStartedAt(task.getCreatedAt().plusNanos(task.getQueueWaitMs() * 1_000_000L));
+            task.setCompletedAt(task.getStartedAt().plusNanos(task.getExecutionTimeMs() * 1_000_000L));
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    public static List<CodeSnippet> snippets(int count, long seed) {
+        Random random = new Random(seed);
+        List<CodeSnippet> snippets = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            User owner = new User();
+            owner.setId((long) random.nextInt(1000));
+            CodeSnippet snippet = new CodeSnippet();
+            snippet.setId((long) i);
+            snippet.setOwner(owner);
+            snippet.setTitle("两数之和 - 解法 " + i);
+            snippet.setDescription("使用哈希表一次遍历，时间复杂度 O(n)，空间复杂度 O(n)。".repeat(1 + random.nextInt(4)));
+            snippet.setLanguage(language(i));
+            snippet.setVisibility(CodeSnippet.Visibility.values()[random.nextInt(3)]);
+            snippet.setTags("algorithm, hash-table, array, leetcode, " + language(i));
+            snippet.setViewCount(random.nextInt(100_000));
+            snippet.setForkCount(random.nextInt(1000));
+            snippet.setCreatedAt(now.minusDays(random.nextInt(365)));
+            snippet.setUpdatedAt(now.minusHours(random.nextInt(24)));
+            snippets.add(snippet);
+        }
+        return snippets;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.execution.support.CodeHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交执行时对 codeContent 计算 SHA-256（缓存 key 和 blob key）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeHashingBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    int codeBytes;
+
+    String code;
+
+    @Setup
+    public void setUp() {
+        code = BenchmarkPayloads.code(codeBytes, 42);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return CodeHasher.sha256(code);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.execution.dto.ExecutionTaskResponse;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到 DTO 的映射：一页（20 条）执行记录和代码片段列表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    List<ExecutionTask> tasks;
+    List<String> outputs;
+    List<CodeSnippet> snippets;
+
+    @Setup
+    public void setUp() {
+        tasks = BenchmarkPayloads.tasks(PAGE_SIZE, 11);
+        snippets = BenchmarkPayloads.snippets(PAGE_SIZE, 13);
+        outputs = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            outputs.add(BenchmarkPayloads.input(200, i));
+        }
+    }
+
+    @Benchmark
+    public List<ExecutionTaskResponse> executionTasks() {
+        List<ExecutionTaskResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < tasks.size(); i++) {
+            page.add(ExecutionTaskResponse.from(tasks.get(i), outputs.get(i)));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<CodeSnippetResponse> codeSnippets() {
+        List<CodeSnippetResponse> page = new ArrayList<>(PAGE_SIZE);
+        for (CodeSnippet snippet : snippets) {
+            page.add(CodeSnippetResponse.from(snippet));
+        }
+        return page;
+    }
+}
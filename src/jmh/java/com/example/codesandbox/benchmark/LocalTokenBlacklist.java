@@ -0,0 +1,38 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.user.entity.TokenBlacklist;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地 Token 黑名单（基准测试用的参考实现，应用中尚未接入鉴权链路）
+ *
+ * 未过期的黑名单记录在本地保存一份（token → 过期时间），检查只查本地，
+ * 用来和逐次查库的方式对比
+ */
+public class LocalTokenBlacklist {
+
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(String token) {
+        LocalDateTime expiresAt = revoked.get(token);
+        return expiresAt != null && expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * 载入黑名单记录，同时丢掉本地已过期的记录
+     */
+    public void load(Iterable<TokenBlacklist> entries) {
+        LocalDateTime now = LocalDateTime.now();
+        for (TokenBlacklist entry : entries) {
+            revoked.put(entry.getToken(), entry.getExpirationTime());
+        }
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+}
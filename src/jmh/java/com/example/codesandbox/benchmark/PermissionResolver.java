@@ -0,0 +1,107 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.security.annotation.RequirePermission;
+import com.example.codesandbox.security.exception.PermissionDeniedException;
+import com.example.codesandbox.user.entity.Permission;
+import com.example.codesandbox.user.entity.Role;
+import com.example.codesandbox.user.entity.User;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @RequirePermission 权限解析（基准测试用的参考实现，应用中尚未接入鉴权链路）
+ *
+ * 每个请求都要做两件事：
+ * 1. 找出方法上要求的权限（反射查注解）：按 Method 缓存，只解析一次
+ * 2. 展开用户的 角色 → 权限 集合（懒加载关联）：按用户ID缓存 "resource:action" 集合，
+ *    最多保留 maxCachedUsers 个最近使用的用户；角色或权限变更后调用 evict / evictAll
+ */
+public class PermissionResolver {
+
+    private static final int DEFAULT_MAX_CACHED_USERS = 10_000;
+
+    private final ConcurrentMap<Method, Optional<RequirePermission>> requirements = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> userPermissions;
+
+    public PermissionResolver() {
+        this(DEFAULT_MAX_CACHED_USERS);
+    }
+
+    public PermissionResolver(int maxCachedUsers) {
+        this.userPermissions = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Set<String>> eldest) {
+                return size() > maxCachedUsers;
+            }
+        });
+    }
+
+    /**
+     * 方法要求的权限，没有标注时为空
+     */
+    public Optional<RequirePermission> requirementOf(Method method) {
+        return requirements.computeIfAbsent(method,
+                key -> Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(key, RequirePermission.class)));
+    }
+
+    /**
+     * 用户拥有的全部权限（resource:action）
+     */
+    public Set<String> permissionsOf(User user) {
+        if (user.getId() == null) {
+            return expand(user);
+        }
+        Set<String> cached = userPermissions.get(user.getId());
+        if (cached == null) {
+            cached = expand(user);
+            userPermissions.put(user.getId(), cached);
+        }
+        return cached;
+    }
+
+    public boolean hasPermission(User user, String resource, String action) {
+        return permissionsOf(user).contains(key(resource, action));
+    }
+
+    /**
+     * 检查用户是否可以调用某个方法，没有权限时抛出 PermissionDeniedException
+     */
+    public void check(User user, Method method) {
+        RequirePermission required = requirementOf(method).orElse(null);
+        if (required != null && !hasPermission(user, required.resource(), required.action())) {
+            throw new PermissionDeniedException("权限不足", required.resource(), required.action(),
+                    user.getUsername());
+        }
+    }
+
+    public void evict(Long userId) {
+        userPermissions.remove(userId);
+    }
+
+    public void evictAll() {
+        userPermissions.clear();
+    }
+
+    private static Set<String> expand(User user) {
+        Set<String> permissions = new HashSet<>();
+        for (Role role : user.getRoles()) {
+            for (Permission permission : role.getPermissions()) {
+                permissions.add(key(permission.getResource(), permission.getAction()));
+            }
+        }
+        return Set.copyOf(permissions);
+    }
+
+    private static String key(String resource, String action) {
+        return resource + ':' + action;
+    }
+}
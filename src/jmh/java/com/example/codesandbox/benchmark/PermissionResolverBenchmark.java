@@ -0,0 +1,67 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.security.annotation.RequirePermission;
+import com.example.codesandbox.user.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @RequirePermission 权限解析：缓存命中（常态）和每次重新展开角色权限（缓存被清空后的第一次请求）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionResolverBenchmark {
+
+    @Param({"3"})
+    int roles;
+
+    @Param({"20", "200"})
+    int permissionsPerRole;
+
+    PermissionResolver resolver;
+    User user;
+    Method method;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        resolver = new PermissionResolver();
+        user = BenchmarkPayloads.user(1L, roles, permissionsPerRole);
+        method = SampleController.class.getMethod("update");
+    }
+
+    @Benchmark
+    public boolean cached() {
+        resolver.check(user, method);
+        return true;
+    }
+
+    @Benchmark
+    public boolean uncached() {
+        resolver.evict(user.getId());
+        resolver.check(user, method);
+        return true;
+    }
+
+    public static class SampleController {
+
+        @RequirePermission(resource = "resource3", action = "write")
+        public void update() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.ratelimit.ExecutionRateLimiter;
+import com.example.codesandbox.execution.ratelimit.LocalSlidingWindowRateLimiter;
+import com.example.codesandbox.execution.ratelimit.RateLimitDecision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交执行前的限流检查（单节点滑动窗口）：users 个用户随机提交，
+ * 一部分语言配置了语言级配额，需要检查两层
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+
+    private static final List<String> ROLES = List.of("USER", "REVIEWER");
+
+    @Param({"100", "10000"})
+    int users;
+
+    ExecutionRateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.getRateLimit().setDefaultLimit(Integer.MAX_VALUE);
+        properties.getRateLimit().getRoleLimits().put("REVIEWER", Integer.MAX_VALUE);
+        properties.getRateLimit().getLanguageLimits().put("cpp", Integer.MAX_VALUE);
+        properties.getRateLimit().getLanguageLimits().put("java", Integer.MAX_VALUE);
+        rateLimiter = new ExecutionRateLimiter(new LocalSlidingWindowRateLimiter(), properties);
+    }
+
+    @Benchmark
+    public RateLimitDecision tryAcquire() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return rateLimiter.tryAcquire((long) random.nextInt(users), ROLES,
+                BenchmarkPayloads.language(random.nextInt(5)));
+    }
+}
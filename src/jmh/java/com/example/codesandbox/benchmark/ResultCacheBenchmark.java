@@ -0,0 +1,72 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.execution.cache.CachedExecutionResult;
+import com.example.codesandbox.execution.cache.ExecutionCacheKey;
+import com.example.codesandbox.execution.cache.ExecutionResultCache;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.support.CodeHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行结果缓存查询（本地一级缓存，不连 Redis）：构造 key + 查询，按 hitRatio 混合命中和未命中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ResultCacheBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    @Param({"0.9", "0.5"})
+    double hitRatio;
+
+    ExecutionResultCache cache;
+    String[] codeHashes;
+    String[] inputHashes;
+
+    @Setup
+    public void setUp() {
+        cache = new ExecutionResultCache(new ExecutionProperties(), null, new SimpleMeterRegistry());
+        codeHashes = new String[KEYS];
+        inputHashes = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            codeHashes[i] = CodeHasher.sha256(BenchmarkPayloads.code(512, i));
+            inputHashes[i] = CodeHasher.sha256(BenchmarkPayloads.input(20, i));
+            if (i < KEYS * hitRatio) {
+                cache.put(key(i), new CachedExecutionResult(ExecutionTask.Status.COMPLETED,
+                        BenchmarkPayloads.input(50, i), null, 42, 16));
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<CachedExecutionResult> lookup() {
+        return cache.get(key(ThreadLocalRandom.current().nextInt(KEYS)));
+    }
+
+    private ExecutionCacheKey key(int i) {
+        String language = BenchmarkPayloads.language(i);
+        return new ExecutionCacheKey(codeHashes[i], language, inputHashes[i], "default");
+    }
+}
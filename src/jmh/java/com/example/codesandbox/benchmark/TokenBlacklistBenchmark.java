@@ -0,0 +1,83 @@
+package com.example.codesandbox.benchmark;
+
+import com.example.codesandbox.user.entity.TokenBlacklist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 黑名单检查：revoked 条黑名单记录，请求中的 Token 绝大多数不在黑名单中
+ * （Token 为 JWT 长度的随机串，黑名单只在 setUp 时加载一次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TokenBlacklistBenchmark {
+
+    private static final int TOKENS = 4096;
+
+    @Param({"1000", "100000"})
+    int revoked;
+
+    LocalTokenBlacklist blacklist;
+    String[] tokens;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+        List<TokenBlacklist> entries = new ArrayList<>(revoked);
+        for (int i = 0; i < revoked; i++) {
+            TokenBlacklist entry = new TokenBlacklist();
+            entry.setToken(jwt(random));
+            entry.setExpirationTime(expiresAt);
+            entries.add(entry);
+        }
+        blacklist = new LocalTokenBlacklist();
+        blacklist.load(entries);
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            // 约 1% 的请求使用已撤销的 Token
+            tokens[i] = i % 100 == 0 ? entries.get(i % revoked).getToken() : jwt(random);
+        }
+    }
+
+    @Benchmark
+    public boolean isRevoked() {
+        return blacklist.isRevoked(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    private static String jwt(Random random) {
+        byte[] header = new byte[27];
+        byte[] payload = new byte[120];
+        byte[] signature = new byte[32];
+        random.nextBytes(header);
+        random.nextBytes(payload);
+        random.nextBytes(signature);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header) + '.' + encoder.encodeToString(payload) + '.'
+                + encoder.encodeToString(signature);
+    }
+}
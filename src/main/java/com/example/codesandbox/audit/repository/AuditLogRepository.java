@@ -2,8 +2,11 @@ package com.example.codesandbox.audit.repository;
 
 import com.example.codesandbox.audit.entity.AuditLog;
 import com.example.codesandbox.user.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -20,6 +23,12 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
      */
     Page<AuditLog> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
 
+    /**
+     * 某个用户的操作日志（游标分页，按 created_at、id 倒序）
+     * 用途：操作历史翻页；使用索引 idx_user_created
+     */
+    Window<AuditLog> findByUserOrderByCreatedAtDescIdDesc(User user, ScrollPosition position, Limit limit);
+
     /**
      * 根据操作类型查找日志
      * 用途：查找所有"删除"操作、"修改"操作等
@@ -51,6 +60,17 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
             Pageable pageable
     );
 
+    /**
+     * 某个时间段内的日志（游标分页，按 created_at、id 倒序）
+     * 用途：生成操作报告时逐页导出；使用索引 idx_created_id
+     */
+    Window<AuditLog> findByCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            ScrollPosition position,
+            Limit limit
+    );
+
     /**
      * 根据IP地址查找日志
      * 用途：追踪某个IP的操作行为（安全审计）
@@ -0,0 +1,193 @@
+package com.example.codesandbox.execution.admission;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dispatcher.ExecutionDispatcher;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.metrics.ExecutionMetrics;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.sandbox.LanguageProfile;
+import com.example.codesandbox.execution.scheduler.FairShareScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行提交的准入控制
+ *
+ * 流量高峰时不能无限制地插入 PENDING 任务和队列消息，否则所有人的延迟都会涨到分钟级。
+ * 定时采样三个信号（提交路径上只读采样结果，不查数据库）：
+ * - 积压：数据库中 PENDING 任务数，不含等待合并结果的跟随任务（查询失败时退化为本节点调度器中排队的任务数）
+ * - 利用率：本节点各语言运行中任务数 / 并发上限
+ * - 延迟：最近一段时间各语言排队耗时的 p95（ExecutionMetrics 的 queue 阶段）
+ *
+ * 压力 = max(积压 / maxQueueDepth, 利用率 ≥ utilizationThreshold 时的 p95 / targetQueueWait)
+ * 压力达到提交者所在通道的阈值时拒绝（默认通道 1.0，ADMIN 等高优先级通道阈值更高，最后才被拒绝）。
+ *
+ * 拒绝时给出预计重试时间：超出的积压按整个集群最近 drainWindow 内的完成速率消化所需的时间，
+ * 与 p95 超出目标的部分取较大值，限制在 [minRetryAfter, maxRetryAfter]。
+ * 积压和完成速率必须是同一范围：查询数据库失败时两者一起退化为本节点的排队数和本节点的完成速率
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final FairShareScheduler scheduler;
+    private final ExecutionDispatcher dispatcher;
+    private final MeterRegistry meterRegistry;
+    private final ExecutionProperties properties;
+    private final ExecutionProperties.Admission config;
+    private final ConcurrentMap<String, Counter> decisions = new ConcurrentHashMap<>();
+
+    private volatile Sample sample = new Sample(0, 0, Map.of(), 0);
+    private long lastCompleted = -1;
+    private double localDrainPerSecond;
+    private long lastSampledAt;
+
+    public AdmissionController(ExecutionTaskRepository taskRepository,
+                               FairShareScheduler scheduler,
+                               ExecutionDispatcher dispatcher,
+                               MeterRegistry meterRegistry,
+                               ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.scheduler = scheduler;
+        this.dispatcher = dispatcher;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.config = properties.getAdmission();
+        Gauge.builder("execution.admission.pressure", this, controller -> controller.pressure(null))
+                .register(meterRegistry);
+    }
+
+    /**
+     * 判定是否接受一次提交，拒绝时抛出 AdmissionRejectedException
+     */
+    public AdmissionDecision admit(Collection<String> roles, String language) {
+        String lane = properties.getScheduler().laneFor(roles);
+        AdmissionDecision decision = evaluate(lane, language);
+        decisions.computeIfAbsent(lane + ':' + decision.admitted(), key -> Counter.builder("execution.admission")
+                        .tag("lane", lane)
+                        .tag("result", decision.admitted() ? "admitted" : "rejected")
+                        .register(meterRegistry))
+                .increment();
+        if (!decision.admitted()) {
+            throw new AdmissionRejectedException(decision);
+        }
+        return decision;
+    }
+
+    AdmissionDecision evaluate(String lane, String language) {
+        if (!config.isEnabled()) {
+            return AdmissionDecision.admit(0, lane);
+        }
+        double pressure = pressure(language);
+        double threshold = config.thresholdFor(lane);
+        if (pressure < threshold) {
+            return AdmissionDecision.admit(pressure, lane);
+        }
+        return AdmissionDecision.reject(pressure, lane, retryAfterMs(language, threshold));
+    }
+
+    /**
+     * 定时采样积压、利用率、排队 p95 和完成速率
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.execution.admission.sample-interval-ms:1000}")
+    public void refresh() {
+        long backlog;
+        Double clusterDrainPerSecond;
+        try {
+            backlog = taskRepository.countByStatusAndCoalescedWithIsNull(ExecutionTask.Status.PENDING);
+            Duration window = config.getDrainWindow();
+            long drained = taskRepository.countByCompletedAtGreaterThanEqualAndStartedAtIsNotNull(
+                    LocalDateTime.now().minus(window));
+            clusterDrainPerSecond = drained * 1000.0 / window.toMillis();
+        } catch (RuntimeException e) {
+            log.debug("查询积压失败，使用本节点排队数", e);
+            backlog = scheduler.queuedCount();
+            clusterDrainPerSecond = null;
+        }
+
+        int running = 0;
+        int capacity = 0;
+        for (LanguageProfile profile : LanguageProfile.values()) {
+            running += dispatcher.getRunningCount(profile.getLanguage());
+            capacity += properties.concurrencyFor(profile.getLanguage());
+        }
+
+        Map<String, Double> p95QueueWaitMs = new HashMap<>();
+        long completed = 0;
+        for (Timer timer : meterRegistry.find(ExecutionMetrics.PHASE_TIMER).timers()) {
+            String phase = timer.getId().getTag("phase");
+            if (ExecutionMetrics.QUEUE.equals(phase)) {
+                for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                    if (percentile.percentile() == 0.95) {
+                        p95QueueWaitMs.put(timer.getId().getTag("language"), percentile.value(TimeUnit.MILLISECONDS));
+                    }
+                }
+            } else if (ExecutionMetrics.RUN.equals(phase)) {
+                completed += timer.count();
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (lastCompleted >= 0 && now > lastSampledAt) {
+            double current = (completed - lastCompleted) * 1000.0 / (now - lastSampledAt);
+            // 平滑一下，避免偶尔一个周期没有任务完成就把速率估成 0
+            localDrainPerSecond = localDrainPerSecond == 0 ? current : 0.3 * current + 0.7 * localDrainPerSecond;
+        }
+        lastCompleted = completed;
+        lastSampledAt = now;
+        double drainPerSecond = clusterDrainPerSecond != null ? clusterDrainPerSecond : localDrainPerSecond;
+        sample = new Sample(backlog, capacity == 0 ? 0 : (double) running / capacity, p95QueueWaitMs, drainPerSecond);
+    }
+
+    /**
+     * 当前压力；language 为 null 时取各语言中最高的排队延迟
+     */
+    public double pressure(String language) {
+        Sample current = sample;
+        double queuePressure = (double) current.backlog() / config.getMaxQueueDepth();
+        if (current.utilization() < config.getUtilizationThreshold()) {
+            return queuePressure;
+        }
+        double p95 = language == null
+                ? current.p95QueueWaitMs().values().stream().mapToDouble(Double::doubleValue).max().orElse(0)
+                : current.p95QueueWaitMs().getOrDefault(ExecutionMetrics.languageTag(language), 0.0);
+        return Math.max(queuePressure, p95 / config.getTargetQueueWait().toMillis());
+    }
+
+    private long retryAfterMs(String language, double threshold) {
+        Sample current = sample;
+        double excessTasks = current.backlog() - config.getMaxQueueDepth() * threshold;
+        double drainMs = excessTasks <= 0 ? 0
+                : current.drainPerSecond() > 0 ? excessTasks / current.drainPerSecond() * 1000
+                : config.getMaxRetryAfter().toMillis();
+        double p95 = current.p95QueueWaitMs().getOrDefault(ExecutionMetrics.languageTag(language), 0.0);
+        double latencyMs = p95 - config.getTargetQueueWait().toMillis() * threshold;
+        long estimate = (long) Math.max(drainMs, latencyMs);
+        return Math.max(config.getMinRetryAfter().toMillis(), Math.min(config.getMaxRetryAfter().toMillis(), estimate));
+    }
+
+    /**
+     * 一次采样的结果
+     *
+     * @param backlog        积压的任务数：集群的 PENDING 数，或退化时本节点调度器中的排队数
+     * @param drainPerSecond 与 backlog 同一范围的每秒完成任务数：集群窗口内的平均值，或退化时本节点的平滑值
+     */
+    record Sample(long backlog, double utilization, Map<String, Double> p95QueueWaitMs, double drainPerSecond) {
+    }
+}
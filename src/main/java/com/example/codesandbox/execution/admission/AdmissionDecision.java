@@ -0,0 +1,20 @@
+package com.example.codesandbox.execution.admission;
+
+/**
+ * 准入判定结果
+ *
+ * @param admitted     是否接受
+ * @param pressure     判定时的系统压力（1.0 表示默认通道的拒绝线）
+ * @param lane         提交者所在通道
+ * @param retryAfterMs 被拒绝时预计积压降到可接受水平所需的时间（毫秒），接受时为 0
+ */
+public record AdmissionDecision(boolean admitted, double pressure, String lane, long retryAfterMs) {
+
+    public static AdmissionDecision admit(double pressure, String lane) {
+        return new AdmissionDecision(true, pressure, lane, 0);
+    }
+
+    public static AdmissionDecision reject(double pressure, String lane, long retryAfterMs) {
+        return new AdmissionDecision(false, pressure, lane, retryAfterMs);
+    }
+}
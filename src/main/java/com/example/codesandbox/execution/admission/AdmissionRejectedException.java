@@ -0,0 +1,17 @@
+package com.example.codesandbox.execution.admission;
+
+import lombok.Getter;
+
+/**
+ * 系统过载，拒绝新的执行提交
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final AdmissionDecision decision;
+
+    public AdmissionRejectedException(AdmissionDecision decision) {
+        super("系统繁忙，请在 " + Math.max(1, (decision.retryAfterMs() + 999) / 1000) + " 秒后重试");
+        this.decision = decision;
+    }
+}
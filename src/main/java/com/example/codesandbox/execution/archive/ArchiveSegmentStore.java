@@ -0,0 +1,251 @@
+package com.example.codesandbox.execution.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 冷数据归档段
+ *
+ * 每次归档写一个只追加、写完不再修改的段：
+ * - xxx.seg：若干个独立 gzip 压缩的块，每块 blockRows 个任务（JSON 行），块内和块间都按 id 升序
+ * - xxx.idx：稀疏索引，每块一条（偏移、长度、首尾 id），另有执行者ID → 块号列表
+ *
+ * 按 id 查找：先按段的 id 范围筛选，再在段内二分块，只解压一个块；
+ * 按执行者查找：只解压索引中列出的块。索引常驻内存，每个块只占几十字节。
+ *
+ * 段文件先写临时文件再改名，.idx 最后落盘，没有 .idx 的段视为未完成、读取时忽略；
+ * 目录可以放在共享存储上，其他节点定时重新扫描即可看到新段
+ */
+@Slf4j
+public class ArchiveSegmentStore {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final Path dir;
+    private final int blockRows;
+    private final ObjectMapper objectMapper;
+    private final List<SegmentIndex> segments = new CopyOnWriteArrayList<>();
+
+    public ArchiveSegmentStore(Path dir, int blockRows, ObjectMapper objectMapper) {
+        this.dir = dir;
+        this.blockRows = blockRows;
+        this.objectMapper = objectMapper;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建归档目录: " + dir, e);
+        }
+        refresh();
+    }
+
+    /**
+     * 把一批任务写成一个新段
+     *
+     * @param tasks 按 id 升序
+     */
+    public void write(List<ArchivedTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        String name = String.format("%013d-%d", System.currentTimeMillis(), tasks.get(0).id());
+        Path segmentFile = dir.resolve(name + SEGMENT_SUFFIX);
+        Path indexFile = dir.resolve(name + INDEX_SUFFIX);
+        List<BlockRef> blocks = new ArrayList<>();
+        Map<Long, List<Integer>> executors = new TreeMap<>();
+        try {
+            Path tmp = Files.createTempFile(dir, name, ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                long offset = 0;
+                for (int from = 0; from < tasks.size(); from += blockRows) {
+                    List<ArchivedTask> block = tasks.subList(from, Math.min(tasks.size(), from + blockRows));
+                    byte[] compressed = compress(block);
+                    ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    int blockNo = blocks.size();
+                    blocks.add(new BlockRef(offset, compressed.length, block.get(0).id(),
+                            block.get(block.size() - 1).id()));
+                    for (ArchivedTask task : block) {
+                        List<Integer> blockNos = executors.computeIfAbsent(task.executorId(), id -> new ArrayList<>());
+                        if (blockNos.isEmpty() || blockNos.get(blockNos.size() - 1) != blockNo) {
+                            blockNos.add(blockNo);
+                        }
+                    }
+                    offset += compressed.length;
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, segmentFile, StandardCopyOption.ATOMIC_MOVE);
+            SegmentIndex index = new SegmentIndex(name, tasks.get(0).id(), tasks.get(tasks.size() - 1).id(),
+                    blocks, executors);
+            Path indexTmp = Files.createTempFile(dir, name, ".tmp");
+            objectMapper.writeValue(indexTmp.toFile(), index);
+            Files.move(indexTmp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+            segments.add(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入归档段失败: " + name, e);
+        }
+    }
+
+    public Optional<ArchivedTask> findById(long id) {
+        for (SegmentIndex segment : segments) {
+            if (id < segment.minId() || id > segment.maxId()) {
+                continue;
+            }
+            int blockNo = segment.blockContaining(id);
+            if (blockNo < 0) {
+                continue;
+            }
+            for (ArchivedTask task : readBlock(segment, blockNo)) {
+                if (task.id() == id) {
+                    return Optional.of(task);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 某个执行者归档的任务，最新的段在前，最多 limit 个
+     */
+    public List<ArchivedTask> findByExecutor(long executorId, int limit) {
+        List<ArchivedTask> result = new ArrayList<>();
+        List<SegmentIndex> newestFirst = new ArrayList<>(segments);
+        newestFirst.sort(Comparator.comparing(SegmentIndex::name).reversed());
+        for (SegmentIndex segment : newestFirst) {
+            List<Integer> blockNos = segment.executors().getOrDefault(executorId, List.of());
+            for (int i = blockNos.size() - 1; i >= 0 && result.size() < limit; i--) {
+                List<ArchivedTask> block = readBlock(segment, blockNos.get(i));
+                for (int j = block.size() - 1; j >= 0 && result.size() < limit; j--) {
+                    if (block.get(j).executorId() == executorId) {
+                        result.add(block.get(j));
+                    }
+                }
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 重新扫描目录，加载其他节点新写入的段
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.execution.archive.refresh-interval-ms:60000}")
+    public void refresh() {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> indexFiles = files.filter(path -> path.getFileName().toString().endsWith(INDEX_SUFFIX))
+                    .sorted()
+                    .toList();
+            for (Path indexFile : indexFiles) {
+                String name = indexFile.getFileName().toString();
+                String segmentName = name.substring(0, name.length() - INDEX_SUFFIX.length());
+                if (segments.stream().anyMatch(segment -> segment.name().equals(segmentName))) {
+                    continue;
+                }
+                segments.add(objectMapper.readValue(indexFile.toFile(), SegmentIndex.class));
+            }
+        } catch (IOException e) {
+            log.warn("扫描归档目录 {} 失败", dir, e);
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private List<ArchivedTask> readBlock(SegmentIndex segment, int blockNo) {
+        BlockRef block = segment.blocks().get(blockNo);
+        Path segmentFile = dir.resolve(segment.name() + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(block.length());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, block.offset() + buffer.position()) < 0) {
+                    throw new EOFException("归档段被截断: " + segment.name());
+                }
+            }
+            List<ArchivedTask> tasks = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    tasks.add(objectMapper.readValue(line, ArchivedTask.class));
+                }
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取归档段失败: " + segment.name(), e);
+        }
+    }
+
+    private byte[] compress(List<ArchivedTask> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            for (ArchivedTask task : block) {
+                out.write(objectMapper.writeValueAsBytes(task));
+                out.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 一个段的稀疏索引（序列化为 .idx 文件）
+     */
+    record SegmentIndex(String name, long minId, long maxId, List<BlockRef> blocks,
+                        Map<Long, List<Integer>> executors) {
+
+        /**
+         * 二分查找 id 所在的块；不在任何块的范围内时返回 -1
+         */
+        int blockContaining(long id) {
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                BlockRef block = blocks.get(mid);
+                if (id < block.firstId()) {
+                    high = mid - 1;
+                } else if (id > block.lastId()) {
+                    low = mid + 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+
+    record BlockRef(long offset, int length, long firstId, long lastId) {
+    }
+}
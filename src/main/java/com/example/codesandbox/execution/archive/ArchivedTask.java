@@ -0,0 +1,35 @@
+package com.example.codesandbox.execution.archive;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档段中的一个执行任务（execution_tasks 一行的全部列，关联只保留外键ID）
+ *
+ * 运行期字段（租约、心跳、执行节点、容器）在任务结束后没有意义，不归档
+ */
+public record ArchivedTask(
+        Long id,
+        Long executorId,
+        Long snippetId,
+        Long batchId,
+        Integer caseIndex,
+        String language,
+        ExecutionTask.Status status,
+        String codeHash,
+        String inputHash,
+        String outputHash,
+        String codeContent,
+        String inputData,
+        String outputData,
+        String errorMessage,
+        Integer executionTimeMs,
+        Integer memoryUsedMb,
+        Integer queueWaitMs,
+        Integer compileTimeMs,
+        Integer attemptCount,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt) {
+}
@@ -0,0 +1,65 @@
+package com.example.codesandbox.execution.archive;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 冷数据归档任务
+ *
+ * 定时把结束超过 olderThan 的任务按 id 顺序分批读出，写成归档段后再从 execution_tasks 删除。
+ * 热表只保留最近的数据，索引、备份和历史查询都只覆盖这部分。
+ *
+ * 先写段再删行：删除前宕机时，下一次会把同一批任务再归档一次，
+ * 读取时先查热表，归档中重复的记录内容相同，不影响结果
+ */
+@Slf4j
+public class ExecutionArchiver {
+
+    private static final int DELETE_CHUNK = 1000;
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ArchiveSegmentStore segmentStore;
+    private final ExecutionProperties.Archive config;
+
+    public ExecutionArchiver(ExecutionTaskRepository taskRepository, ArchiveSegmentStore segmentStore,
+                             ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.segmentStore = segmentStore;
+        this.config = properties.getArchive();
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.execution.archive.interval-ms:3600000}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getOlderThan());
+        int segments = 0;
+        long rows = 0;
+        try {
+            while (segments < config.getMaxSegmentsPerRun()) {
+                List<ArchivedTask> tasks = taskRepository.findArchivable(cutoff, config.getSegmentRows());
+                if (tasks.isEmpty()) {
+                    break;
+                }
+                segmentStore.write(tasks);
+                List<Long> ids = tasks.stream().map(ArchivedTask::id).toList();
+                for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+                    taskRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK)));
+                }
+                segments++;
+                rows += tasks.size();
+                if (tasks.size() < config.getSegmentRows()) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("归档执行任务失败", e);
+        }
+        if (rows > 0) {
+            log.info("归档 {} 个执行任务，写入 {} 个段", rows, segments);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.codesandbox.execution.cache;
+
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存中保存的执行结果（只保存展示给用户需要的字段）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedExecutionResult {
+
+    private ExecutionTask.Status status;
+
+    private String outputData;
+
+    private String errorMessage;
+
+    private Integer executionTimeMs;
+
+    private Integer memoryUsedMb;
+
+    public static CachedExecutionResult from(TaskStateChange change) {
+        return new CachedExecutionResult(change.getStatus(), change.getOutputData(), change.getErrorMessage(),
+                change.getExecutionTimeMs(), change.getMemoryUsedMb());
+    }
+
+    /**
+     * 估算占用的堆内存（字节）：字符按 2 字节计，加上对象头等固定开销
+     */
+    public long estimatedBytes() {
+        long chars = (outputData == null ? 0 : outputData.length())
+                + (errorMessage == null ? 0 : errorMessage.length());
+        return 96 + chars * 2;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.codesandbox.execution.cache;
+
+import com.example.codesandbox.execution.support.CodeHasher;
+
+/**
+ * 执行结果缓存的 key
+ *
+ * 同一段代码只有在语言、输入、运行时版本都相同时才能复用结果，
+ * 只按 code_hash 缓存会让不同 stdin 的执行互相拿到对方的输出
+ *
+ * @param codeHash       代码 SHA-256
+ * @param language       编程语言
+ * @param inputHash      输入数据 SHA-256（无输入时为空串的哈希）
+ * @param runtimeVersion 运行时版本
+ */
+public record ExecutionCacheKey(String codeHash, String language, String inputHash, String runtimeVersion) {
+
+    public static ExecutionCacheKey of(String codeHash, String language, String input, String runtimeVersion) {
+        return new ExecutionCacheKey(codeHash, language, CodeHasher.sha256(input), runtimeVersion);
+    }
+
+    /**
+     * 字符串形式，用作 L1 的 key 和 Redis key 的后缀
+     */
+    public String asString() {
+        return language + ':' + runtimeVersion + ':' + codeHash + ':' + inputHash;
+    }
+}
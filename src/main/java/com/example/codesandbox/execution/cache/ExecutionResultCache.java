@@ -0,0 +1,125 @@
+package com.example.codesandbox.execution.cache;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.support.CodeHasher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级执行结果缓存
+ *
+ * 查询顺序：L1（进程内，按字节 LRU）→ L2（Redis，多节点共享，命中后回填 L1）
+ * 只缓存 COMPLETED 的结果；key 见 {@link ExecutionCacheKey}
+ *
+ * 指标（Micrometer）：
+ * - execution.cache.requests{result=l1_hit|l2_hit|miss}
+ * - execution.cache.evictions
+ * - execution.cache.size{unit=bytes|entries}
+ */
+public class ExecutionResultCache {
+
+    private final ExecutionProperties properties;
+    private final LocalResultCache local;
+    private final RedisResultCache redis;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param redis 为 null 时只使用本地缓存
+     */
+    public ExecutionResultCache(ExecutionProperties properties, RedisResultCache redis, MeterRegistry meterRegistry) {
+        ExecutionProperties.Cache config = properties.getCache();
+        this.properties = properties;
+        this.local = new LocalResultCache(config.getLocalMaxBytes(), config.getLocalMaxEntryBytes());
+        this.redis = redis;
+        registerMetrics(meterRegistry);
+    }
+
+    public ExecutionCacheKey keyFor(String codeHash, String language, String input) {
+        return ExecutionCacheKey.of(codeHash, language, input, properties.runtimeVersionFor(language));
+    }
+
+    /**
+     * 由任务上的哈希直接得到 key，不需要加载输入内容
+     */
+    public ExecutionCacheKey keyFor(ExecutionTask task) {
+        String language = task.getLanguage();
+        String inputHash;
+        if (task.getInputHash() != null) {
+            inputHash = task.getInputHash();
+        } else {
+            inputHash = CodeHasher.sha256(task.getInputData());
+        }
+        return new ExecutionCacheKey(task.getCodeHash(), language, inputHash, properties.runtimeVersionFor(language));
+    }
+
+    public Optional<CachedExecutionResult> get(ExecutionCacheKey key) {
+        if (!properties.getCache().isEnabled()) {
+            return Optional.empty();
+        }
+        String cacheKey = key.asString();
+        CachedExecutionResult result = local.get(cacheKey);
+        if (result != null) {
+            l1Hits.increment();
+            return Optional.of(result);
+        }
+        if (redis != null) {
+            result = redis.get(cacheKey);
+            if (result != null) {
+                l2Hits.increment();
+                local.put(cacheKey, result);
+                return Optional.of(result);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 写入两级缓存，非 COMPLETED 的结果直接忽略
+     */
+    public void put(ExecutionCacheKey key, CachedExecutionResult result) {
+        if (!properties.getCache().isEnabled() || result.getStatus() != ExecutionTask.Status.COMPLETED) {
+            return;
+        }
+        String cacheKey = key.asString();
+        local.put(cacheKey, result);
+        if (redis != null) {
+            redis.put(cacheKey, result);
+        }
+    }
+
+    public long getL1HitCount() {
+        return l1Hits.sum();
+    }
+
+    public long getL2HitCount() {
+        return l2Hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("execution.cache.requests", l1Hits, LongAdder::sum)
+                .tag("result", "l1_hit").register(registry);
+        FunctionCounter.builder("execution.cache.requests", l2Hits, LongAdder::sum)
+                .tag("result", "l2_hit").register(registry);
+        FunctionCounter.builder("execution.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("execution.cache.evictions", local, LocalResultCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("execution.cache.size", local, LocalResultCache::getSizeBytes)
+                .tag("unit", "bytes").register(registry);
+        Gauge.builder("execution.cache.size", local, LocalResultCache::getEntryCount)
+                .tag("unit", "entries").register(registry);
+    }
+}
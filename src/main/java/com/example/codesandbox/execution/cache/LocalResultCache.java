@@ -0,0 +1,134 @@
+package com.example.codesandbox.execution.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内结果缓存（L1）
+ *
+ * 按字节数而不是条数限制容量：一条大输出可能抵得上几千条 "Hello World"。
+ * 分成若干段，每段一个按访问顺序排列的 LinkedHashMap（LRU），各自持锁，减少热点竞争
+ */
+public class LocalResultCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long maxEntryBytes;
+
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalResultCache(long maxBytes, long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxBytes / SEGMENTS));
+        }
+    }
+
+    public CachedExecutionResult get(String key) {
+        return segmentFor(key).get(key);
+    }
+
+    /**
+     * 放入缓存，单条超过 maxEntryBytes 或所在段的容量（maxBytes / 16）时直接忽略
+     */
+    public void put(String key, CachedExecutionResult result) {
+        long weight = weigh(key, result);
+        if (weight > maxEntryBytes) {
+            return;
+        }
+        segmentFor(key).put(key, result, weight);
+    }
+
+    public void invalidate(String key) {
+        segmentFor(key).remove(key);
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getSizeBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.sizeBytes();
+        }
+        return total;
+    }
+
+    public long getEntryCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.entryCount();
+        }
+        return total;
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static long weigh(String key, CachedExecutionResult result) {
+        return result.estimatedBytes() + key.length() * 2L;
+    }
+
+    private record Entry(CachedExecutionResult value, long weight) {
+    }
+
+    private final class Segment {
+
+        private final long maxBytes;
+        private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(64, 0.75f, true);
+        private long currentBytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized CachedExecutionResult get(String key) {
+            Entry entry = map.get(key);
+            return entry == null ? null : entry.value();
+        }
+
+        synchronized void put(String key, CachedExecutionResult value, long weight) {
+            // 放不进本段的条目会挤掉其他所有条目，放进去后本段仍然超出容量
+            if (weight > maxBytes) {
+                return;
+            }
+            Entry previous = map.put(key, new Entry(value, weight));
+            if (previous != null) {
+                currentBytes -= previous.weight();
+            }
+            currentBytes += weight;
+            Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                currentBytes -= eldest.getValue().weight();
+                it.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(String key) {
+            Entry removed = map.remove(key);
+            if (removed != null) {
+                currentBytes -= removed.weight();
+            }
+        }
+
+        synchronized long sizeBytes() {
+            return currentBytes;
+        }
+
+        synchronized int entryCount() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.codesandbox.execution.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Redis 结果缓存（L2），多个节点共享
+ *
+ * Redis 不可用时降级为未命中，不影响提交流程
+ */
+@Slf4j
+public class RedisResultCache {
+
+    private static final String KEY_PREFIX = "codesandbox:exec:result:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public RedisResultCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    public CachedExecutionResult get(String key) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+            return json == null ? null : objectMapper.readValue(json, CachedExecutionResult.class);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("读取 Redis 结果缓存失败: {}", key, e);
+            return null;
+        }
+    }
+
+    public void put(String key, CachedExecutionResult result) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(result), ttl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("写入 Redis 结果缓存失败: {}", key, e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.codesandbox.execution.coalescing;
+
+import com.example.codesandbox.execution.cache.CachedExecutionResult;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dispatcher.TaskStateWriter;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.service.ExecutionQueuePublisher;
+import com.example.codesandbox.execution.stream.ExecutionOutputStreams;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 相同在途执行的合并（single-flight）
+ *
+ * 场景：一个班 200 个学生同时运行同一份起始代码，结果缓存还没有数据，
+ * 只让第一个任务（领头任务）进入队列执行，其余任务作为跟随者等待结果。
+ * 跟随者在 execution_tasks.coalesced_with 中记下领头任务，不进入队列、没有租约，生命周期跟随领头任务：
+ *
+ * - 领头任务正常结束（COMPLETED / FAILED / TIMEOUT）：同一代码 + 输入的结果是确定的，直接扇出给所有跟随者
+ * - 领头任务因执行环境异常失败：结果不可信，从跟随者中重新选出领头任务投递执行，其余改挂到新的领头任务上
+ * - 领头任务所在节点宕机：领头任务的租约过期后被回收器重新排队或标记为 TIMEOUT，
+ *   回收器同时把领头任务已经结束、却没有拿到结果的跟随者补齐（ExecutionTaskRepository.resolveFinishedFollowers）
+ *
+ * 领头登记带过期时间，执行领头任务的节点在心跳中续期，运行时间超过 leaderTtl 也不会选出第二个领头任务
+ */
+@Slf4j
+public class ExecutionCoalescer {
+
+    private final InFlightRegistry registry;
+    private final TaskStateWriter stateWriter;
+    private final ExecutionQueuePublisher publisher;
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionOutputStreams outputStreams;
+    private final ExecutionProperties.Coalescing config;
+
+    /**
+     * 本节点正在执行的领头任务 → 合并 key
+     */
+    private final ConcurrentMap<Long, String> running = new ConcurrentHashMap<>();
+
+    public ExecutionCoalescer(InFlightRegistry registry,
+                              TaskStateWriter stateWriter,
+                              ExecutionQueuePublisher publisher,
+                              ExecutionTaskRepository taskRepository,
+                              ExecutionOutputStreams outputStreams,
+                              ExecutionProperties properties) {
+        this.registry = registry;
+        this.stateWriter = stateWriter;
+        this.publisher = publisher;
+        this.taskRepository = taskRepository;
+        this.outputStreams = outputStreams;
+        this.config = properties.getCoalescing();
+    }
+
+    /**
+     * 尝试把新任务挂到相同 key 的在途任务上
+     *
+     * @return true 表示已作为跟随者挂上（调用方不要再投递）；false 表示该任务是领头任务，需要投递执行
+     */
+    public boolean attach(String key, Long taskId) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        Long leader = registry.joinOrLead(key, taskId);
+        if (leader.equals(taskId)) {
+            return false;
+        }
+        taskRepository.attachFollower(taskId, leader);
+        log.debug("任务 {} 合并到在途任务 {}", taskId, leader);
+        return true;
+    }
+
+    /**
+     * 本节点开始执行某个任务：之后的心跳为它续期领头登记（登记已过期时重新领头）
+     */
+    public void leaderStarted(String key, Long leaderTaskId) {
+        if (config.isEnabled()) {
+            running.put(leaderTaskId, key);
+            registry.renew(key, leaderTaskId);
+        }
+    }
+
+    /**
+     * 为本节点正在执行的领头任务续期（由执行节点心跳调用）
+     */
+    public void renewLeaders() {
+        for (Map.Entry<Long, String> entry : running.entrySet()) {
+            try {
+                registry.renew(entry.getValue(), entry.getKey());
+            } catch (RuntimeException e) {
+                log.warn("续期领头任务 {} 失败", entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 领头任务得到确定结果：扇出给所有跟随者
+     */
+    public void leaderFinished(String key, Long leaderTaskId, CachedExecutionResult result) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running.remove(leaderTaskId);
+        Set<Long> drained = followersOf(key, leaderTaskId);
+        for (Long followerId : drained) {
+            stateWriter.submit(TaskStateChange.finished(followerId, result.getStatus(), result.getOutputData(),
+                    result.getErrorMessage(), result.getExecutionTimeMs(), result.getMemoryUsedMb()));
+            outputStreams.completeWithOutput(followerId, result.getStatus(), result.getOutputData());
+        }
+        if (!drained.isEmpty()) {
+            log.debug("任务 {} 的结果扇出给 {} 个跟随者", leaderTaskId, drained.size());
+        }
+    }
+
+    /**
+     * 领头任务因执行环境异常而没有可信结果（或没能进入队列）：重新选出领头任务
+     */
+    public void leaderAbandoned(String key, Long leaderTaskId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running.remove(leaderTaskId);
+        List<Long> elected = new ArrayList<>();
+        for (Long followerId : followersOf(key, leaderTaskId)) {
+            Long leader = registry.joinOrLead(key, followerId);
+            if (leader.equals(followerId)) {
+                taskRepository.attachFollower(followerId, null);
+                elected.add(followerId);
+            } else {
+                taskRepository.attachFollower(followerId, leader);
+            }
+        }
+        if (!elected.isEmpty()) {
+            taskRepository.findAttributions(elected).forEach(publisher::publish);
+        }
+    }
+
+    /**
+     * 登记表中的跟随者加上数据库中挂在该领头任务上的跟随者（Redis 登记过期或丢失时以数据库为准）
+     */
+    private Set<Long> followersOf(String key, Long leaderTaskId) {
+        Set<Long> followers = new LinkedHashSet<>(registry.drain(key));
+        followers.addAll(taskRepository.findPendingFollowers(leaderTaskId));
+        followers.remove(leaderTaskId);
+        return followers;
+    }
+}
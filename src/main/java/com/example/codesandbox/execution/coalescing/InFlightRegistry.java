@@ -0,0 +1,35 @@
+package com.example.codesandbox.execution.coalescing;
+
+import java.util.List;
+
+/**
+ * 在途执行登记表
+ *
+ * 每个合并 key 最多一个领头任务（真正进入队列执行），其余相同 key 的任务作为跟随者挂在它后面
+ */
+public interface InFlightRegistry {
+
+    /**
+     * 原子地"加入或领头"：
+     * 已有领头任务 → 把 taskId 记为跟随者，返回领头任务ID；
+     * 没有 → taskId 成为领头任务，返回 taskId
+     */
+    Long joinOrLead(String key, Long taskId);
+
+    /**
+     * 续期领头登记：登记仍属于该任务时延长过期时间，登记已经过期时重新由该任务领头
+     *
+     * @return false 表示已经有其他领头任务
+     */
+    boolean renew(String key, Long leaderTaskId);
+
+    /**
+     * 领头任务结束：删除登记并返回所有跟随者
+     */
+    List<Long> drain(String key);
+
+    /**
+     * 该 key 是否还有存活的领头任务
+     */
+    boolean hasLeader(String key);
+}
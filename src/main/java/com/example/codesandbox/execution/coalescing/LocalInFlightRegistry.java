@@ -0,0 +1,54 @@
+package com.example.codesandbox.execution.coalescing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 单节点在途登记表（未启用 Redis 时使用）
+ */
+public class LocalInFlightRegistry implements InFlightRegistry {
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    @Override
+    public Long joinOrLead(String key, Long taskId) {
+        Flight flight = flights.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return new Flight(taskId);
+            }
+            existing.followers.add(taskId);
+            return existing;
+        });
+        return flight.leaderTaskId;
+    }
+
+    @Override
+    public boolean renew(String key, Long leaderTaskId) {
+        // 本地登记不会过期，不需要续期
+        Flight flight = flights.get(key);
+        return flight != null && flight.leaderTaskId.equals(leaderTaskId);
+    }
+
+    @Override
+    public List<Long> drain(String key) {
+        Flight flight = flights.remove(key);
+        return flight == null ? List.of() : flight.followers;
+    }
+
+    @Override
+    public boolean hasLeader(String key) {
+        return flights.containsKey(key);
+    }
+
+    private static final class Flight {
+
+        private final Long leaderTaskId;
+        private final List<Long> followers = new ArrayList<>();
+
+        private Flight(Long leaderTaskId) {
+            this.leaderTaskId = leaderTaskId;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.codesandbox.execution.coalescing;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于 Redis 的跨节点在途登记表
+ *
+ * Redis 数据结构：
+ * - codesandbox:exec:inflight:{key}           → 领头任务ID（带过期时间）
+ * - codesandbox:exec:inflight:{key}:followers → 跟随者任务ID列表
+ *
+ * 加入和清空都用 Lua 脚本完成，保证"领头任务刚结束时有人加入"不会丢失跟随者；
+ * 执行领头任务的节点在心跳中续期，领头任务运行多久登记就保留多久
+ */
+public class RedisInFlightRegistry implements InFlightRegistry {
+
+    private static final String KEY_PREFIX = "codesandbox:exec:inflight:";
+
+    private static final RedisScript<String> JOIN_OR_LEAD = new DefaultRedisScript<>("""
+            local leader = redis.call('GET', KEYS[1])
+            if leader then
+              redis.call('RPUSH', KEYS[2], ARGV[1])
+              redis.call('PEXPIRE', KEYS[2], ARGV[2])
+              return leader
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return ARGV[1]
+            """, String.class);
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            local leader = redis.call('GET', KEYS[1])
+            if not leader then
+              redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+              return 1
+            end
+            if leader ~= ARGV[1] then
+              return 0
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            return 1
+            """, Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN = new DefaultRedisScript<>("""
+            local followers = redis.call('LRANGE', KEYS[2], 0, -1)
+            redis.call('DEL', KEYS[1], KEYS[2])
+            return followers
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration leaderTtl;
+
+    public RedisInFlightRegistry(StringRedisTemplate redisTemplate, Duration leaderTtl) {
+        this.redisTemplate = redisTemplate;
+        this.leaderTtl = leaderTtl;
+    }
+
+    @Override
+    public Long joinOrLead(String key, Long taskId) {
+        String leader = redisTemplate.execute(JOIN_OR_LEAD, List.of(leaderKey(key), followersKey(key)),
+                String.valueOf(taskId), String.valueOf(leaderTtl.toMillis()));
+        return leader == null ? taskId : Long.valueOf(leader);
+    }
+
+    @Override
+    public boolean renew(String key, Long leaderTaskId) {
+        Long renewed = redisTemplate.execute(RENEW, List.of(leaderKey(key), followersKey(key)),
+                String.valueOf(leaderTaskId), String.valueOf(leaderTtl.toMillis()));
+        return renewed != null && renewed == 1L;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> drain(String key) {
+        List<Object> followers = redisTemplate.execute(DRAIN, List.of(leaderKey(key), followersKey(key)));
+        if (followers == null) {
+            return List.of();
+        }
+        return followers.stream().map(id -> Long.valueOf(id.toString())).toList();
+    }
+
+    @Override
+    public boolean hasLeader(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(leaderKey(key)));
+    }
+
+    private static String leaderKey(String key) {
+        return KEY_PREFIX + key;
+    }
+
+    private static String followersKey(String key) {
+        return KEY_PREFIX + key + ":followers";
+    }
+}
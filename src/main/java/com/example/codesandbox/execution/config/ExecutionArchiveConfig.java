@@ -0,0 +1,34 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.archive.ArchiveSegmentStore;
+import com.example.codesandbox.execution.archive.ExecutionArchiver;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 冷数据归档配置
+ *
+ * 所有节点都能读取归档段；归档任务只在 archive.enabled=true 的节点上运行
+ */
+@Configuration
+public class ExecutionArchiveConfig {
+
+    @Bean
+    public ArchiveSegmentStore archiveSegmentStore(ExecutionProperties properties, ObjectMapper objectMapper) {
+        ExecutionProperties.Archive config = properties.getArchive();
+        return new ArchiveSegmentStore(Paths.get(config.getDir()), config.getBlockRows(), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.execution.archive", name = "enabled", havingValue = "true")
+    public ExecutionArchiver executionArchiver(ExecutionTaskRepository taskRepository,
+                                               ArchiveSegmentStore segmentStore,
+                                               ExecutionProperties properties) {
+        return new ExecutionArchiver(taskRepository, segmentStore, properties);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.cache.ExecutionResultCache;
+import com.example.codesandbox.execution.cache.RedisResultCache;
+import com.example.codesandbox.execution.sandbox.CompiledArtifactCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 执行结果缓存和编译产物缓存配置
+ */
+@Configuration
+public class ExecutionCacheConfig {
+
+    @Bean
+    public ExecutionResultCache executionResultCache(ExecutionProperties properties,
+                                                     ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                     ObjectMapper objectMapper,
+                                                     MeterRegistry meterRegistry) {
+        ExecutionProperties.Cache config = properties.getCache();
+        RedisResultCache redis = null;
+        if (config.isRedisEnabled()) {
+            redis = new RedisResultCache(redisTemplate.getObject(), objectMapper, config.getRedisTtl());
+        }
+        return new ExecutionResultCache(properties, redis, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.execution.artifact-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CompiledArtifactCache compiledArtifactCache(ExecutionProperties properties, MeterRegistry meterRegistry) {
+        return new CompiledArtifactCache(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.coalescing.InFlightRegistry;
+import com.example.codesandbox.execution.coalescing.LocalInFlightRegistry;
+import com.example.codesandbox.execution.coalescing.RedisInFlightRegistry;
+import com.example.codesandbox.execution.dispatcher.TaskStateWriter;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.service.ExecutionQueuePublisher;
+import com.example.codesandbox.execution.stream.ExecutionOutputStreams;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 在途执行合并配置
+ */
+@Configuration
+public class ExecutionCoalescingConfig {
+
+    @Bean
+    public ExecutionCoalescer executionCoalescer(ExecutionProperties properties,
+                                                 ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                 TaskStateWriter stateWriter,
+                                                 ExecutionQueuePublisher publisher,
+                                                 ExecutionTaskRepository taskRepository,
+                                                 ExecutionOutputStreams outputStreams) {
+        ExecutionProperties.Coalescing config = properties.getCoalescing();
+        InFlightRegistry registry = config.isRedisEnabled()
+                ? new RedisInFlightRegistry(redisTemplate.getObject(), config.getLeaderTtl())
+                : new LocalInFlightRegistry();
+        return new ExecutionCoalescer(registry, stateWriter, publisher, taskRepository, outputStreams, properties);
+    }
+}
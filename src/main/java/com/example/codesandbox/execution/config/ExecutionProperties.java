@@ -0,0 +1,541 @@
+package com.example.codesandbox.execution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代码执行模块配置（前缀：codesandbox.execution）
+ *
+ * 对应 application.yml 中的 codesandbox.execution 节点
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.execution")
+public class ExecutionProperties {
+
+    /**
+     * 执行任务队列名称
+     */
+    private String queueName = "codesandbox.execution.tasks";
+
+    /**
+     * 每个消费者的预取数量（= 每个消费者最多同时处理的未确认任务数）
+     */
+    private int prefetch = 250;
+
+    /**
+     * 监听容器的消费者数量
+     */
+    private int consumers = 4;
+
+    /**
+     * 每种语言的默认并发上限
+     */
+    private int defaultLanguageConcurrency = 64;
+
+    /**
+     * 按语言覆盖并发上限，例如：cpp: 16
+     */
+    private Map<String, Integer> languageConcurrency = new HashMap<>();
+
+    /**
+     * 状态回写批大小
+     */
+    private int stateBatchSize = 200;
+
+    /**
+     * 状态回写的最长间隔（毫秒）
+     */
+    private long stateFlushIntervalMs = 200;
+
+    private Sandbox sandbox = new Sandbox();
+
+    private Cache cache = new Cache();
+
+    private Coalescing coalescing = new Coalescing();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private Stream stream = new Stream();
+
+    private Lease lease = new Lease();
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Batch batch = new Batch();
+
+    private ArtifactCache artifactCache = new ArtifactCache();
+
+    private Admission admission = new Admission();
+
+    private Stats stats = new Stats();
+
+    private Archive archive = new Archive();
+
+    /**
+     * 各语言运行时版本（参与结果缓存的 key，升级运行时后旧结果自动失效）
+     */
+    private Map<String, String> runtimeVersions = new HashMap<>();
+
+    /**
+     * 获取某种语言的并发上限
+     */
+    public int concurrencyFor(String language) {
+        return languageConcurrency.getOrDefault(language, defaultLanguageConcurrency);
+    }
+
+    public String runtimeVersionFor(String language) {
+        return runtimeVersions.getOrDefault(language, "default");
+    }
+
+    @Data
+    public static class Sandbox {
+
+        /**
+         * 沙箱后端，没有默认值；local（宿主机子进程，无隔离）只允许在 dev / test profile 中使用
+         */
+        private String backend;
+
+        /**
+         * 沙箱工作目录（每个任务一个子目录）
+         */
+        private String workDir = System.getProperty("java.io.tmpdir") + "/codesandbox";
+
+        /**
+         * 单次编译/运行的超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * stdout / stderr 各自最多保留的字节数
+         */
+        private int maxOutputBytes = 64 * 1024;
+
+        /**
+         * 运行期间读取增量输出的间隔（毫秒）
+         */
+        private long streamPollIntervalMs = 50;
+
+        /**
+         * 输出文件超过该大小时直接结束进程，防止死循环打印写满磁盘
+         */
+        private long outputKillBytes = 16L * 1024 * 1024;
+
+        private Pool pool = new Pool();
+    }
+
+    /**
+     * 预热沙箱池：每种语言保留若干空闲沙箱，任务结束后重置再放回
+     */
+    @Data
+    public static class Pool {
+
+        private boolean enabled = true;
+
+        /**
+         * 每种语言至少保留的空闲沙箱数
+         */
+        private int minIdle = 1;
+
+        /**
+         * 每种语言最多保留的空闲沙箱数（放回时超过则直接销毁）
+         */
+        private int maxIdle = 16;
+
+        /**
+         * 一个沙箱最多使用的次数，达到后销毁重建
+         */
+        private int maxUses = 50;
+
+        /**
+         * 按需伸缩的周期（毫秒）：目标空闲数 = 最近使用中沙箱峰值的指数移动平均，限制在 [minIdle, maxIdle]
+         */
+        private long scaleIntervalMs = 5000;
+
+        /**
+         * 峰值移动平均的平滑系数
+         */
+        private double demandEwmaAlpha = 0.3;
+    }
+
+    @Data
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        /**
+         * 本地缓存（L1）总容量（字节，按输出大小估算）
+         */
+        private long localMaxBytes = 64L * 1024 * 1024;
+
+        /**
+         * 单条结果超过该大小时不进入 L1，只放 Redis
+         */
+        private long localMaxEntryBytes = 256L * 1024;
+
+        /**
+         * 是否启用 Redis 二级缓存（L2）
+         */
+        private boolean redisEnabled = true;
+
+        private Duration redisTtl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Coalescing {
+
+        /**
+         * 是否合并相同的在途执行（同一代码 + 语言 + 输入只真正执行一次）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 是否通过 Redis 跨节点合并；关闭时只在本节点内合并
+         */
+        private boolean redisEnabled = true;
+
+        /**
+         * 领头登记的过期时间；执行中的领头任务由节点心跳续期，
+         * 只有排队中或所在节点宕机的领头任务会过期，之后相同的新任务会选出新的领头任务
+         */
+        private Duration leaderTtl = Duration.ofMinutes(2);
+    }
+
+    @Data
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /**
+         * 集群模式：计数放在 Redis 中，所有节点共享配额；关闭时每个节点单独计数
+         */
+        private boolean redisEnabled = false;
+
+        /**
+         * 滑动窗口长度
+         */
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * 没有匹配角色配置时，每个用户每个窗口的执行次数
+         */
+        private int defaultLimit = 10;
+
+        /**
+         * 按角色覆盖（用户有多个角色时取最大值），例如：ADMIN: 120
+         */
+        private Map<String, Integer> roleLimits = new HashMap<>();
+
+        /**
+         * 按语言额外限制（与角色配额同时生效），例如：cpp: 5
+         */
+        private Map<String, Integer> languageLimits = new HashMap<>();
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 每个任务的堆外环形缓冲区大小（字节）
+         */
+        private int ringBufferBytes = 256 * 1024;
+
+        /**
+         * 每个任务缓冲区中最多保留的输出块数
+         */
+        private int maxChunks = 4096;
+
+        /**
+         * 本节点所有任务环形缓冲区的堆外内存总预算（字节），用完后新会话不再缓冲
+         */
+        private long maxTotalBufferBytes = 64L * 1024 * 1024;
+
+        /**
+         * 任务结束后会话的保留时长（供断线重连的客户端续传）
+         */
+        private Duration retention = Duration.ofSeconds(60);
+
+        /**
+         * 未结束的会话多久没有输出就释放（任务丢失或从未开始）
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * 检查其他节点上运行的任务是否结束的间隔（毫秒），结束后用保存的结果补齐本节点的订阅
+         */
+        private long remotePollIntervalMs = 2_000;
+
+        /**
+         * 是否通过 Redis 把运行节点上的输出块（带序号）转发给其他节点的订阅者；
+         * 关闭时其他节点上的订阅者只能在任务结束后读到保存的结果
+         */
+        private boolean redisEnabled = true;
+
+        /**
+         * 等待发布到 Redis 的输出块上限，超出时丢弃，其他节点的订阅者收到缺口
+         */
+        private int relayQueueSize = 1024;
+
+        /**
+         * WebSocket 允许的跨域来源（支持通配模式，如 https://*.example.com）；为空时只允许同源
+         */
+        private String[] allowedOrigins = {};
+    }
+
+    @Data
+    public static class Lease {
+
+        /**
+         * 租约时长：节点失联后最多经过这么久，它名下的任务会被回收
+         */
+        private Duration duration = Duration.ofSeconds(15);
+
+        /**
+         * 心跳（续租）间隔（毫秒），应明显小于租约时长
+         */
+        private long heartbeatIntervalMs = 5_000;
+
+        /**
+         * 回收过期租约的间隔（毫秒）
+         */
+        private long reapIntervalMs = 5_000;
+
+        /**
+         * 每条 UPDATE 最多回收的任务数
+         */
+        private int reapChunkSize = 500;
+
+        /**
+         * 最多执行几次；达到次数仍然失联的任务标记为 TIMEOUT，不再重新排队
+         */
+        private int maxAttempts = 3;
+    }
+
+    @Data
+    public static class Scheduler {
+
+        public static final String DEFAULT_LANE = "default";
+
+        /**
+         * 关闭时按消息到达顺序直接交给调度器（FIFO）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 没有历史数据时的预估执行成本（毫秒）
+         */
+        private long defaultCostMs = 1_000;
+
+        /**
+         * 执行成本指数滑动平均的权重（越大越看重最近几次）
+         */
+        private double costEwmaAlpha = 0.2;
+
+        /**
+         * 初始成本预估读取的历史区间，只统计这段时间内创建的任务
+         */
+        private Duration costHistoryWindow = Duration.ofDays(7);
+
+        /**
+         * 等待读取历史成本的用户数上限，超出时这些用户沿用默认成本
+         */
+        private int costHistoryQueueSize = 1_000;
+
+        /**
+         * 内存中保留的用户 + 语言成本预估个数，超出时淘汰最久未用的
+         */
+        private int maxCostEntries = 10_000;
+
+        /**
+         * 预估成本低于该值的任务算作轻量任务（队列等待时间指标按轻/重分别统计）
+         */
+        private long lightCostThresholdMs = 500;
+
+        /**
+         * 各角色通道的权重，权重为 2 的用户在竞争时获得 2 倍的执行时间份额
+         */
+        private Map<String, Integer> laneWeights = new HashMap<>();
+
+        private int defaultLaneWeight = 1;
+
+        /**
+         * 用户所属的通道：取其角色中权重最高的一个
+         */
+        public String laneFor(Collection<String> roles) {
+            String lane = DEFAULT_LANE;
+            int best = defaultLaneWeight;
+            for (String role : roles) {
+                Integer weight = laneWeights.get(role);
+                if (weight != null && weight > best) {
+                    lane = role;
+                    best = weight;
+                }
+            }
+            return lane;
+        }
+
+        public int weightOf(String lane) {
+            return lane == null ? defaultLaneWeight : laneWeights.getOrDefault(lane, defaultLaneWeight);
+        }
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * 一次批量执行最多的测试用例数
+         */
+        private int maxCases = 200;
+
+        /**
+         * 同一沙箱中同时运行的用例数上限（同时也受语言并发上限约束）
+         */
+        private int maxParallelism = 4;
+    }
+
+    @Data
+    public static class ArtifactCache {
+
+        /**
+         * 是否缓存编译产物（java / cpp / go），源码和工具链相同时跳过编译
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存目录（命中时产物复制进沙箱，沙箱中的用户代码不应能访问这个目录）
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/codesandbox-artifacts";
+
+        /**
+         * 缓存总大小上限（字节），超过后按最近最少使用淘汰
+         */
+        private long maxBytes = 1024L * 1024 * 1024;
+    }
+
+    /**
+     * 提交准入控制：积压、执行节点利用率和排队 p95 超过阈值时拒绝新任务（429），按通道（角色）分级降级
+     */
+    @Data
+    public static class Admission {
+
+        private boolean enabled = true;
+
+        /**
+         * 积压（PENDING 任务数）达到该值时压力为 1.0
+         */
+        private int maxQueueDepth = 500;
+
+        /**
+         * 排队耗时 p95 达到该值时压力为 1.0（只在执行节点接近满载时计入）
+         */
+        private Duration targetQueueWait = Duration.ofSeconds(10);
+
+        /**
+         * 执行节点利用率（运行中 / 并发上限）超过该值时才计入排队延迟
+         */
+        private double utilizationThreshold = 0.8;
+
+        /**
+         * 默认通道的拒绝阈值：压力达到该值时拒绝
+         */
+        private double defaultThreshold = 1.0;
+
+        /**
+         * 各通道（与 scheduler.lane-weights 相同的角色名）的拒绝阈值，越大越晚被拒绝
+         */
+        private Map<String, Double> laneThresholds = new HashMap<>();
+
+        /**
+         * 采样积压、利用率和延迟的周期（毫秒）
+         */
+        private long sampleIntervalMs = 1000;
+
+        /**
+         * 估算集群完成速率的时间窗口：按窗口内全部节点执行完成的任务数计算
+         */
+        private Duration drainWindow = Duration.ofSeconds(30);
+
+        private Duration minRetryAfter = Duration.ofSeconds(1);
+
+        private Duration maxRetryAfter = Duration.ofSeconds(60);
+
+        public double thresholdFor(String lane) {
+            return laneThresholds.getOrDefault(lane, defaultThreshold);
+        }
+    }
+
+    /**
+     * 执行统计汇总（execution_stats_daily / execution_latency_daily）
+     */
+    @Data
+    public static class Stats {
+
+        /**
+         * 增量写入汇总表的间隔（毫秒），统计页面最多落后这么久
+         */
+        private long flushIntervalMs = 5_000;
+
+        /**
+         * 未写入的完成记录上限，数据库长时间不可用时超出的部分丢弃，由每日重建补上
+         */
+        private int maxPending = 100_000;
+
+        /**
+         * 每日重建的时间（cron）
+         */
+        private String rebuildCron = "0 30 3 * * *";
+
+        /**
+         * 每日重建覆盖的天数（不含今天）
+         */
+        private int rebuildDays = 2;
+    }
+
+    /**
+     * 冷数据归档：结束较久的任务从 execution_tasks 移到压缩的归档段
+     */
+    @Data
+    public static class Archive {
+
+        /**
+         * 是否在本节点运行归档任务（只需一个节点开启；其他节点仍可读取归档）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 归档段目录（多节点时放在共享存储上）
+         */
+        private String dir = "data/archive";
+
+        /**
+         * 结束超过这么久的任务才归档
+         */
+        private Duration olderThan = Duration.ofDays(30);
+
+        /**
+         * 每个段最多的任务数
+         */
+        private int segmentRows = 10_000;
+
+        /**
+         * 每个压缩块的任务数（按 id 查找时只解压一个块）
+         */
+        private int blockRows = 256;
+
+        /**
+         * 每次归档最多写的段数，避免一次占用数据库太久
+         */
+        private int maxSegmentsPerRun = 10;
+
+        private long intervalMs = 3_600_000;
+
+        /**
+         * 重新扫描归档目录的间隔（毫秒）
+         */
+        private long refreshIntervalMs = 60_000;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.codesandbox.execution.config;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 执行任务队列配置
+ *
+ * 消费端采用手动确认：任务在沙箱中真正跑完后才 ack，
+ * 因此 prefetch 就是单个消费者"在途任务"的上限，节点宕机时未确认的消息会重新投递。
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ExecutionProperties.class)
+public class ExecutionRabbitConfig {
+
+    @Bean
+    public Queue executionQueue(ExecutionProperties properties) {
+        return QueueBuilder.durable(properties.getQueueName()).build();
+    }
+
+    @Bean
+    public MessageConverter executionMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory executionListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MessageConverter executionMessageConverter,
+            ExecutionProperties properties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(executionMessageConverter);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(properties.getPrefetch());
+        factory.setConcurrentConsumers(properties.getConsumers());
+        return factory;
+    }
+}
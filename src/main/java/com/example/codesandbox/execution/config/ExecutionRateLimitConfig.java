@@ -0,0 +1,32 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.ratelimit.ExecutionRateLimiter;
+import com.example.codesandbox.execution.ratelimit.LocalSlidingWindowRateLimiter;
+import com.example.codesandbox.execution.ratelimit.RateLimiter;
+import com.example.codesandbox.execution.ratelimit.RedisSlidingWindowRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 执行限流配置
+ */
+@Configuration
+public class ExecutionRateLimitConfig {
+
+    @Bean
+    public RateLimiter executionRateLimiterBackend(ExecutionProperties properties,
+                                                   ObjectProvider<StringRedisTemplate> redisTemplate) {
+        if (properties.getRateLimit().isRedisEnabled()) {
+            return new RedisSlidingWindowRateLimiter(redisTemplate.getObject());
+        }
+        return new LocalSlidingWindowRateLimiter();
+    }
+
+    @Bean
+    public ExecutionRateLimiter executionRateLimiter(RateLimiter executionRateLimiterBackend,
+                                                     ExecutionProperties properties) {
+        return new ExecutionRateLimiter(executionRateLimiterBackend, properties);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.sandbox.SandboxFactory;
+import com.example.codesandbox.execution.sandbox.SandboxPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 预热沙箱池配置
+ *
+ * 启用时池作为主 SandboxFactory 注入调度器，实际创建沙箱仍交给后端工厂（@Qualifier(SandboxFactory.BACKEND)）
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "codesandbox.execution.sandbox.pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ExecutionSandboxPoolConfig {
+
+    @Bean
+    @Primary
+    public SandboxPool sandboxPool(@Qualifier(SandboxFactory.BACKEND) SandboxFactory backend,
+                                   ExecutionProperties properties,
+                                   MeterRegistry meterRegistry) {
+        SandboxPool pool = new SandboxPool(backend, properties, meterRegistry);
+        pool.prewarm();
+        return pool;
+    }
+}
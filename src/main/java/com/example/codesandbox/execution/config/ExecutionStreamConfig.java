@@ -0,0 +1,46 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.stream.OutputRelay;
+import com.example.codesandbox.execution.stream.RedisOutputRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 增量输出跨节点转发配置
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "codesandbox.execution.stream", name = "redis-enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ExecutionStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer outputRelayListenerContainer(RedisConnectionFactory connectionFactory) {
+        // 单线程分发：同一任务的输出块按发布顺序交给订阅者
+        ThreadPoolTaskExecutor dispatcher = new ThreadPoolTaskExecutor();
+        dispatcher.setCorePoolSize(1);
+        dispatcher.setMaxPoolSize(1);
+        dispatcher.setThreadNamePrefix("output-relay-");
+        dispatcher.setDaemon(true);
+        dispatcher.initialize();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(dispatcher);
+        return container;
+    }
+
+    @Bean
+    public OutputRelay outputRelay(StringRedisTemplate redisTemplate,
+                                   @Qualifier("outputRelayListenerContainer") RedisMessageListenerContainer container,
+                                   ObjectMapper objectMapper,
+                                   ExecutionProperties properties) {
+        return new RedisOutputRelay(redisTemplate, container, objectMapper, properties.getStream().getRelayQueueSize());
+    }
+}
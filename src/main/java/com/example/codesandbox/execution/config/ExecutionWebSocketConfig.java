@@ -0,0 +1,29 @@
+package com.example.codesandbox.execution.config;
+
+import com.example.codesandbox.execution.stream.ExecutionOutputWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * 执行输出 WebSocket 端点配置
+ */
+@Configuration
+@EnableWebSocket
+public class ExecutionWebSocketConfig implements WebSocketConfigurer {
+
+    private final ExecutionOutputWebSocketHandler outputHandler;
+    private final ExecutionProperties properties;
+
+    public ExecutionWebSocketConfig(ExecutionOutputWebSocketHandler outputHandler, ExecutionProperties properties) {
+        this.outputHandler = outputHandler;
+        this.properties = properties;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(outputHandler, "/ws/executions/*/output")
+                .setAllowedOriginPatterns(properties.getStream().getAllowedOrigins());
+    }
+}
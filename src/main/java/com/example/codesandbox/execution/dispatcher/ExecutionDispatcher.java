@@ -0,0 +1,454 @@
+package com.example.codesandbox.execution.dispatcher;
+
+import com.example.codesandbox.execution.cache.CachedExecutionResult;
+import com.example.codesandbox.execution.cache.ExecutionCacheKey;
+import com.example.codesandbox.execution.cache.ExecutionResultCache;
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionBatch;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.lease.WorkerIdentity;
+import com.example.codesandbox.execution.metrics.ExecutionMetrics;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.sandbox.Sandbox;
+import com.example.codesandbox.execution.sandbox.SandboxFactory;
+import com.example.codesandbox.execution.sandbox.SandboxResult;
+import com.example.codesandbox.execution.sandbox.UnsupportedLanguageException;
+import com.example.codesandbox.execution.service.ExecutionPayloadStore;
+import com.example.codesandbox.execution.stream.ExecutionOutputStreams;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行任务调度器
+ *
+ * 流程：
+ * 1. 队列监听器收到任务ID，交给 dispatch()
+ * 2. 每个任务在独立线程中执行（JDK 21+ 使用虚拟线程，沙箱进程阻塞时不占用平台线程）
+ * 3. 按语言获取并发许可，超过上限的任务在许可上排队
+ * 4. 运行期间的增量输出写入 ExecutionOutputStreams，供 WebSocket 订阅者实时读取
+ * 5. 执行前同步认领（PENDING → RUNNING，记录本节点的租约），认领失败说明消息重复投递，直接跳过；
+ *    节点宕机后由 TaskLeaseReaper 回收。终态变更交给 TaskStateWriter 批量回写，
+ *    只有本节点仍持有任务时才会生效
+ * 6. 成功的结果写入执行结果缓存，并扇出给合并在该任务上的跟随者
+ * 7. 执行结束后回调 onDone（监听器在这里 ack 消息）
+ *
+ * 排队、编译、运行耗时和内存峰值记录到 ExecutionMetrics，排队和编译耗时同时随状态变更落库
+ *
+ * 批量执行（dispatchBatch）：一个沙箱只编译一次，所有测试用例在其中依次或有上限地并行运行，
+ * 占用与并行度相同数量的语言并发许可
+ */
+@Slf4j
+@Component
+public class ExecutionDispatcher {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionBatchRepository batchRepository;
+    private final SandboxFactory sandboxFactory;
+    private final TaskStateWriter stateWriter;
+    private final ExecutionResultCache resultCache;
+    private final ExecutionCoalescer coalescer;
+    private final ExecutionOutputStreams outputStreams;
+    private final ExecutionPayloadStore payloadStore;
+    private final WorkerIdentity workerIdentity;
+    private final ExecutionMetrics metrics;
+    private final ExecutionProperties properties;
+
+    private final SimpleAsyncTaskExecutor executor;
+    private final ConcurrentMap<String, Semaphore> languagePermits = new ConcurrentHashMap<>();
+
+    public ExecutionDispatcher(ExecutionTaskRepository taskRepository,
+                               ExecutionBatchRepository batchRepository,
+                               SandboxFactory sandboxFactory,
+                               TaskStateWriter stateWriter,
+                               ExecutionResultCache resultCache,
+                               ExecutionCoalescer coalescer,
+                               ExecutionOutputStreams outputStreams,
+                               ExecutionPayloadStore payloadStore,
+                               WorkerIdentity workerIdentity,
+                               ExecutionMetrics metrics,
+                               ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.batchRepository = batchRepository;
+        this.sandboxFactory = sandboxFactory;
+        this.stateWriter = stateWriter;
+        this.resultCache = resultCache;
+        this.coalescer = coalescer;
+        this.outputStreams = outputStreams;
+        this.payloadStore = payloadStore;
+        this.workerIdentity = workerIdentity;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.executor = new SimpleAsyncTaskExecutor("execution-");
+        // 虚拟线程需要 JDK 21；低版本 JDK 退化为每任务一个平台线程，在途数量仍受 prefetch 限制
+        this.executor.setVirtualThreads(JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE));
+        this.executor.setTaskTerminationTimeout(properties.getSandbox().getTimeout().toMillis() * 2);
+    }
+
+    /**
+     * 异步执行一个任务
+     *
+     * @param taskId 任务ID
+     * @param onDone 执行结束（无论成功失败）后的回调
+     */
+    public void dispatch(Long taskId, Runnable onDone) {
+        executor.execute(() -> {
+            try {
+                execute(taskId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("任务 {} 等待执行许可时被中断", taskId);
+            } catch (RuntimeException e) {
+                log.error("任务 {} 执行异常", taskId, e);
+                stateWriter.submit(TaskStateChange.finished(taskId, ExecutionTask.Status.FAILED,
+                        null, "执行环境异常: " + e.getMessage(), null, null));
+            } finally {
+                onDone.run();
+            }
+        });
+    }
+
+    /**
+     * 异步执行一个批量（编译一次，在同一个沙箱中运行所有测试用例）
+     *
+     * @param batchId 批量执行ID
+     * @param onDone  执行结束（无论成功失败）后的回调
+     */
+    public void dispatchBatch(Long batchId, Runnable onDone) {
+        executor.execute(() -> {
+            try {
+                executeBatch(batchId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("批量 {} 等待执行许可时被中断", batchId);
+            } catch (RuntimeException e) {
+                log.error("批量 {} 执行异常", batchId, e);
+            } finally {
+                onDone.run();
+            }
+        });
+    }
+
+    /**
+     * 批量执行实际使用的并行度（也是占用的语言并发许可数）：不超过配置上限、用例数和语言并发上限
+     */
+    public int batchParallelismCap(String language, int requested, int caseCount) {
+        int cap = Math.min(properties.getBatch().getMaxParallelism(), properties.concurrencyFor(language));
+        return Math.max(1, Math.min(Math.min(requested, caseCount), cap));
+    }
+
+    /**
+     * 当前某种语言正在执行的任务数
+     */
+    public int getRunningCount(String language) {
+        Semaphore permits = languagePermits.get(language);
+        return permits == null ? 0 : properties.concurrencyFor(language) - permits.availablePermits();
+    }
+
+    private void execute(Long taskId) throws InterruptedException {
+        ExecutionTask task = taskRepository.findWithPayloadById(taskId).orElse(null);
+        // 消息重复投递时任务可能已经执行过（这里只是快速过滤，真正的判定是下面的认领）
+        if (task == null || task.getStatus() != ExecutionTask.Status.PENDING) {
+            log.debug("跳过任务 {}：不存在或不是 PENDING 状态", taskId);
+            return;
+        }
+
+        ExecutionCacheKey cacheKey = resultCache.keyFor(task);
+        Semaphore permits = permitsFor(task.getLanguage());
+        permits.acquire();
+        boolean claimed = false;
+        try (Sandbox sandbox = sandboxFactory.create(task.getLanguage())) {
+            if (!claim(task, sandbox)) {
+                log.debug("跳过任务 {}：已被其他节点认领", taskId);
+                return;
+            }
+            claimed = true;
+            coalescer.leaderStarted(cacheKey.asString(), taskId);
+            outputStreams.open(taskId);
+
+            SandboxResult compiled = sandbox.compile(payloadStore.code(task));
+            metrics.recordCompile(task.getLanguage(), compiled.getTimeMs());
+            if (!compiled.isSuccess()) {
+                finish(task, cacheKey, claimed(toFinished(taskId, compiled, compileError(compiled))),
+                        compiled.getTimeMs());
+                return;
+            }
+            SandboxResult result = sandbox.run(payloadStore.input(task),
+                    (stream, data, offset, length) -> outputStreams.append(taskId, stream, data, offset, length));
+            metrics.recordRun(task.getLanguage(), result.getTimeMs(), result.getMemoryUsedMb());
+            finish(task, cacheKey, claimed(toFinished(taskId, result, result.getStderr())), compiled.getTimeMs());
+        } catch (UnsupportedLanguageException e) {
+            finish(task, cacheKey, TaskStateChange.finished(taskId, ExecutionTask.Status.FAILED,
+                    null, e.getMessage(), null, null), null);
+        } catch (RuntimeException e) {
+            // 执行环境异常不是代码本身的结果，不缓存也不扇出，让跟随者重新选出领头任务
+            log.error("任务 {} 执行异常", taskId, e);
+            TaskStateChange failed = TaskStateChange.finished(taskId, ExecutionTask.Status.FAILED,
+                    null, "执行环境异常: " + e.getMessage(), null, null);
+            stateWriter.submit(claimed ? claimed(failed) : failed);
+            outputStreams.complete(taskId, ExecutionTask.Status.FAILED);
+            coalescer.leaderAbandoned(cacheKey.asString(), taskId);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void executeBatch(Long batchId) throws InterruptedException {
+        ExecutionBatch batch = batchRepository.findById(batchId).orElse(null);
+        // 消息重复投递时只有一个节点能认领成功；认领后批量由本节点的租约保护，宕机后由 TaskLeaseReaper 标记为失败
+        String workerId = workerIdentity.getId();
+        if (batch == null || batchRepository.claim(batchId, workerId,
+                LocalDateTime.now().plus(properties.getLease().getDuration())) == 0) {
+            log.debug("跳过批量 {}：不存在或不是 PENDING 状态", batchId);
+            return;
+        }
+        List<ExecutionTask> cases = taskRepository.findWithPayloadByBatchIdOrderByCaseIndexAsc(batchId);
+        if (cases.isEmpty()) {
+            batchRepository.finish(batchId, workerId, ExecutionBatch.Status.COMPLETED, 0, 0, null, 0, LocalDateTime.now());
+            return;
+        }
+        int parallelism = batchParallelismCap(batch.getLanguage(), batch.getParallelism(), cases.size());
+        BatchRun run = new BatchRun(batch, cases);
+        long start = System.nanoTime();
+
+        Semaphore permits = permitsFor(batch.getLanguage());
+        permits.acquire(parallelism);
+        try (Sandbox sandbox = sandboxFactory.create(batch.getLanguage())) {
+            SandboxResult compiled = sandbox.compile(payloadStore.code(cases.get(0)));
+            metrics.recordCompile(batch.getLanguage(), compiled.getTimeMs());
+            run.compileTimeMs = (int) compiled.getTimeMs();
+            if (compiled.isSuccess()) {
+                run.runAll(sandbox, parallelism);
+            } else {
+                run.failAll(compileError(compiled));
+            }
+        } catch (UnsupportedLanguageException e) {
+            run.failAll(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("批量 {} 执行异常", batchId, e);
+            run.failAll("执行环境异常: " + e.getMessage());
+        } finally {
+            permits.release(parallelism);
+        }
+        int elapsedMs = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (batchRepository.finish(batchId, workerId, run.status(), run.passed.get(), run.failed.get(),
+                run.errorMessage, elapsedMs, LocalDateTime.now()) == 0) {
+            log.warn("批量 {} 的租约已过期，执行结果未生效", batchId);
+        }
+    }
+
+    /**
+     * 记录确定的执行结果：回写状态、写缓存、扇出给跟随者
+     */
+    private void finish(ExecutionTask task, ExecutionCacheKey cacheKey, TaskStateChange change, Long compileTimeMs) {
+        Long taskId = task.getId();
+        attribute(change, task);
+        change.setCompileTimeMs(compileTimeMs == null ? null : compileTimeMs.intValue());
+        stateWriter.submit(change);
+        outputStreams.complete(taskId, change.getStatus());
+        CachedExecutionResult result = CachedExecutionResult.from(change);
+        resultCache.put(cacheKey, result);
+        coalescer.leaderFinished(cacheKey.asString(), taskId, result);
+    }
+
+    /**
+     * 一次批量执行的运行状态
+     *
+     * 并行时多个线程从同一个游标领取下一个用例；需要提前终止时不再领取，
+     * 没有被领取的用例标记为 CANCELLED
+     */
+    private final class BatchRun {
+
+        private final ExecutionBatch batch;
+        private final List<ExecutionTask> cases;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger passed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private int cancelled;
+        private volatile String errorMessage;
+        private Integer compileTimeMs;
+
+        BatchRun(ExecutionBatch batch, List<ExecutionTask> cases) {
+            this.batch = batch;
+            this.cases = cases;
+        }
+
+        void runAll(Sandbox sandbox, int parallelism) {
+            Runnable worker = () -> {
+                int index;
+                while (!aborted.get() && (index = next.getAndIncrement()) < cases.size()) {
+                    runCase(sandbox, cases.get(index));
+                }
+            };
+            List<CompletableFuture<Void>> helpers = new ArrayList<>();
+            for (int i = 1; i < parallelism; i++) {
+                helpers.add(CompletableFuture.runAsync(worker, executor));
+            }
+            worker.run();
+            helpers.forEach(CompletableFuture::join);
+
+            for (int index = next.get(); index < cases.size(); index++) {
+                Long taskId = cases.get(index).getId();
+                stateWriter.submit(TaskStateChange.finished(taskId, ExecutionTask.Status.CANCELLED,
+                        null, "前面的测试用例失败，已跳过", null, null));
+                cancelled++;
+            }
+            next.set(cases.size());
+        }
+
+        void failAll(String message) {
+            errorMessage = message;
+            for (int index = next.get(); index < cases.size(); index++) {
+                Long taskId = cases.get(index).getId();
+                stateWriter.submit(TaskStateChange.finished(taskId, ExecutionTask.Status.FAILED,
+                        null, message, null, null));
+                failed.incrementAndGet();
+            }
+            next.set(cases.size());
+        }
+
+        ExecutionBatch.Status status() {
+            if (cancelled > 0) {
+                return ExecutionBatch.Status.ABORTED;
+            }
+            return failed.get() > 0 ? ExecutionBatch.Status.FAILED : ExecutionBatch.Status.COMPLETED;
+        }
+
+        private void runCase(Sandbox sandbox, ExecutionTask task) {
+            Long taskId = task.getId();
+            if (task.getStatus() != ExecutionTask.Status.PENDING) {
+                return;
+            }
+            ExecutionCacheKey cacheKey = resultCache.keyFor(task);
+            TaskStateChange change;
+            boolean claimed = false;
+            try {
+                change = resultCache.get(cacheKey)
+                        .map(cached -> TaskStateChange.finished(taskId, cached.getStatus(), cached.getOutputData(),
+                                cached.getErrorMessage(), cached.getExecutionTimeMs(), cached.getMemoryUsedMb()))
+                        .orElse(null);
+                if (change == null) {
+                    if (!claim(task, sandbox)) {
+                        log.debug("跳过批量 {} 的用例 {}：已不是 PENDING 状态", batch.getId(), taskId);
+                        return;
+                    }
+                    claimed = true;
+                    outputStreams.open(taskId);
+                    SandboxResult result = sandbox.run(payloadStore.input(task),
+                            (stream, data, offset, length) -> outputStreams.append(taskId, stream, data, offset, length));
+                    metrics.recordRun(task.getLanguage(), result.getTimeMs(), result.getMemoryUsedMb());
+                    change = claimed(toFinished(taskId, result, result.getStderr()));
+                    change.setCompileTimeMs(compileTimeMs);
+                    resultCache.put(cacheKey, CachedExecutionResult.from(change));
+                }
+            } catch (RuntimeException e) {
+                // 沙箱已经不可用，剩余用例不再尝试
+                log.error("批量 {} 的用例 {} 执行异常", batch.getId(), taskId, e);
+                change = TaskStateChange.finished(taskId, ExecutionTask.Status.FAILED,
+                        null, "执行环境异常: " + e.getMessage(), null, null);
+                if (claimed) {
+                    claimed(change);
+                }
+                aborted.set(true);
+            }
+            attribute(change, task);
+            stateWriter.submit(change);
+            outputStreams.complete(taskId, change.getStatus());
+            if (change.getStatus() == ExecutionTask.Status.COMPLETED) {
+                passed.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                if (Boolean.TRUE.equals(batch.getAbortOnFailure())) {
+                    aborted.set(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 同步认领任务（PENDING → RUNNING），带上本节点的租约和排队耗时（创建到此刻）
+     *
+     * @return false 表示任务已经不是 PENDING（已被其他节点认领、已完成或已取消）
+     */
+    private boolean claim(ExecutionTask task, Sandbox sandbox) {
+        TaskStateChange change = TaskStateChange.running(task.getId(), sandbox.getId(),
+                workerIdentity.getId(), properties.getLease().getDuration());
+        if (task.getCreatedAt() != null) {
+            long queueWaitMs = Duration.between(task.getCreatedAt(), change.getStartedAt()).toMillis();
+            change.setQueueWaitMs((int) Math.max(0, queueWaitMs));
+        }
+        if (taskRepository.claim(change) == 0) {
+            return false;
+        }
+        if (change.getQueueWaitMs() != null) {
+            metrics.recordQueueWait(task.getLanguage(), change.getQueueWaitMs());
+        }
+        return true;
+    }
+
+    /**
+     * 认领过的任务的终态变更带上本节点ID，回写时据此 fencing
+     */
+    private TaskStateChange claimed(TaskStateChange change) {
+        change.setWorkerId(workerIdentity.getId());
+        return change;
+    }
+
+    private Semaphore permitsFor(String language) {
+        return languagePermits.computeIfAbsent(language,
+                key -> new Semaphore(properties.concurrencyFor(key), true));
+    }
+
+    /**
+     * 终态变更带上语言和执行者，供耗时统计和统计汇总使用
+     */
+    private static void attribute(TaskStateChange change, ExecutionTask task) {
+        change.setLanguage(task.getLanguage());
+        if (task.getExecutor() != null) {
+            change.setExecutorId(task.getExecutor().getId());
+        }
+    }
+
+    private static TaskStateChange toFinished(Long taskId, SandboxResult result, String errorMessage) {
+        ExecutionTask.Status status;
+        if (result.isTimedOut()) {
+            status = ExecutionTask.Status.TIMEOUT;
+        } else if (result.getExitCode() != 0) {
+            status = ExecutionTask.Status.FAILED;
+        } else {
+            status = ExecutionTask.Status.COMPLETED;
+        }
+        return TaskStateChange.finished(taskId, status, result.getStdout(),
+                errorMessage == null || errorMessage.isEmpty() ? null : errorMessage,
+                (int) result.getTimeMs(), result.getMemoryUsedMb());
+    }
+
+    private static String compileError(SandboxResult compiled) {
+        String stderr = compiled.getStderr() == null ? "" : compiled.getStderr();
+        String stdout = compiled.getStdout() == null ? "" : compiled.getStdout();
+        return "编译失败:\n" + stderr + stdout;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.codesandbox.execution.dispatcher;
+
+import com.example.codesandbox.execution.dto.ExecutionMessage;
+import com.example.codesandbox.execution.scheduler.FairShareScheduler;
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 执行任务队列监听器
+ *
+ * 收到消息后立刻交给公平调度器并返回，任务跑完再手动 ack；
+ * 因此同一消费者最多持有 prefetch 个在途任务，公平调度在这些任务之间重新排序
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutionQueueListener {
+
+    private final FairShareScheduler scheduler;
+
+    @RabbitListener(queues = "${codesandbox.execution.queue-name:codesandbox.execution.tasks}",
+            containerFactory = "executionListenerContainerFactory")
+    public void onMessage(ExecutionMessage message, Channel channel,
+                          @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        scheduler.submit(message, () -> ack(channel, deliveryTag));
+    }
+
+    private void ack(Channel channel, long deliveryTag) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            // 连接已断开，消息会被重新投递，调度器会跳过已完成的任务
+            log.warn("确认消息 {} 失败", deliveryTag, e);
+        }
+    }
+}
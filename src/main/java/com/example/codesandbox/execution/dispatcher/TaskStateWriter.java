@@ -0,0 +1,120 @@
+package com.example.codesandbox.execution.dispatcher;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.metrics.ExecutionMetrics;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.stats.ExecutionStatsRollup;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 任务终态批量回写器
+ *
+ * 执行线程只负责把终态变更放进队列（RUNNING 由调度器同步认领，不经过这里）；
+ * 队列攒够 stateBatchSize 条，或到达 stateFlushIntervalMs 时，合并成一次批量 UPDATE
+ * 终态变更从提交到落库的耗时记为 persist 阶段；只有实际生效的变更计入统计汇总，
+ * 被 fencing 拦下的迟到结果（任务已被回收或已由其他节点完成）不会重复计数
+ */
+@Slf4j
+@Component
+public class TaskStateWriter {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionMetrics metrics;
+    private final ExecutionStatsRollup statsRollup;
+    private final int batchSize;
+
+    private final Queue<TaskStateChange> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public TaskStateWriter(ExecutionTaskRepository taskRepository, ExecutionMetrics metrics,
+                           ExecutionStatsRollup statsRollup, ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.metrics = metrics;
+        this.statsRollup = statsRollup;
+        this.batchSize = properties.getStateBatchSize();
+    }
+
+    /**
+     * 提交一条状态变更
+     * 攒满一批时由当前线程顺带刷新（已有线程在刷新则直接返回）
+     */
+    public void submit(TaskStateChange change) {
+        change.setSubmittedAtNanos(System.nanoTime());
+        pending.add(change);
+        if (pendingCount.incrementAndGet() >= batchSize && flushLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 定时刷新，保证低流量时状态变更也能及时落库
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.execution.state-flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void drain() {
+        while (true) {
+            List<TaskStateChange> batch = new ArrayList<>(batchSize);
+            TaskStateChange change;
+            while (batch.size() < batchSize && (change = pending.poll()) != null) {
+                batch.add(change);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            pendingCount.addAndGet(-batch.size());
+            List<TaskStateChange> applied;
+            try {
+                applied = taskRepository.applyStateChanges(batch);
+            } catch (RuntimeException e) {
+                // 数据库暂时不可用：放回队列，等下一次定时刷新重试
+                log.error("回写 {} 条任务状态失败，稍后重试", batch.size(), e);
+                pending.addAll(batch);
+                pendingCount.addAndGet(batch.size());
+                return;
+            }
+            if (applied.size() < batch.size()) {
+                log.info("{} 条任务终态未生效：任务已不由本节点持有", batch.size() - applied.size());
+            }
+            long now = System.nanoTime();
+            for (TaskStateChange persisted : applied) {
+                if (persisted.getLanguage() != null) {
+                    metrics.recordPersist(persisted.getLanguage(), now - persisted.getSubmittedAtNanos());
+                }
+                statsRollup.record(persisted);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.codesandbox.execution.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 执行任务队列消息
+ *
+ * 只携带任务ID和调度信息，代码和输入由消费者从数据库读取，避免大消息堆积在 RabbitMQ 中
+ *
+ * executorId / language / lane 供公平调度使用；重新排队、合并任务重新选举的消息同样带上执行者和语言，
+ * 只是通道按默认处理。缺少这两项的消息（升级前投递的旧消息）不经过公平调度，直接交给执行调度器
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionMessage {
+
+    private Long taskId;
+
+    /**
+     * 批量执行ID；不为 NULL 时这条消息代表整个批量（taskId 为 NULL）
+     */
+    private Long batchId;
+
+    /**
+     * 批量中的用例数
+     */
+    private Integer caseCount;
+
+    /**
+     * 批量请求的并行度（调度器据此预留执行名额）
+     */
+    private Integer parallelism;
+
+    private Long executorId;
+
+    private String language;
+
+    /**
+     * 调度通道（按角色划分，见 codesandbox.execution.scheduler.lane-weights）
+     */
+    private String lane;
+
+    /**
+     * 投递时间（epoch 毫秒），用于统计排队等待时间
+     */
+    private Long publishedAt;
+
+    public static ExecutionMessage forBatch(Long batchId, int caseCount, int parallelism) {
+        ExecutionMessage message = new ExecutionMessage(null);
+        message.setBatchId(batchId);
+        message.setCaseCount(caseCount);
+        message.setParallelism(parallelism);
+        return message;
+    }
+
+    public ExecutionMessage(Long taskId) {
+        this.taskId = taskId;
+        this.publishedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.codesandbox.execution.dto;
+
+/**
+ * 一个维度值在一段日期内的执行统计
+ *
+ * 分位数由耗时分桶估算（取桶的上界），没有耗时样本时为 null
+ */
+public record ExecutionStatsSummary(
+        String dimension,
+        String key,
+        long totalCount,
+        long completedCount,
+        long failedCount,
+        long timeoutCount,
+        Double averageTimeMs,
+        Long p50Ms,
+        Long p95Ms,
+        Long p99Ms) {
+}
@@ -0,0 +1,90 @@
+package com.example.codesandbox.execution.dto;
+
+import com.example.codesandbox.execution.archive.ArchivedTask;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 返回给前端的执行任务
+ *
+ * 只读取任务本身的列；snippet / batch 只取外键ID（不会触发懒加载），
+ * 输出存在 BlobStore 中，由调用方通过 ExecutionPayloadStore 读取后传入；
+ * error_message 是延迟加载的列，事务外使用时任务需由 findWithOutputById 加载
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionTaskResponse {
+
+    private Long id;
+
+    private Long snippetId;
+
+    private Long batchId;
+
+    private Integer caseIndex;
+
+    private String language;
+
+    private ExecutionTask.Status status;
+
+    private String outputData;
+
+    private String errorMessage;
+
+    private Integer queueWaitMs;
+
+    private Integer compileTimeMs;
+
+    private Integer executionTimeMs;
+
+    private Integer memoryUsedMb;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    public static ExecutionTaskResponse from(ExecutionTask task, String outputData) {
+        return new ExecutionTaskResponse(
+                task.getId(),
+                task.getSnippet() == null ? null : task.getSnippet().getId(),
+                task.getBatch() == null ? null : task.getBatch().getId(),
+                task.getCaseIndex(),
+                task.getLanguage(),
+                task.getStatus(),
+                outputData,
+                task.getErrorMessage(),
+                task.getQueueWaitMs(),
+                task.getCompileTimeMs(),
+                task.getExecutionTimeMs(),
+                task.getMemoryUsedMb(),
+                task.getCreatedAt(),
+                task.getStartedAt(),
+                task.getCompletedAt());
+    }
+
+    public static ExecutionTaskResponse from(ArchivedTask task, String outputData) {
+        return new ExecutionTaskResponse(
+                task.id(),
+                task.snippetId(),
+                task.batchId(),
+                task.caseIndex(),
+                task.language(),
+                task.status(),
+                outputData,
+                task.errorMessage(),
+                task.queueWaitMs(),
+                task.compileTimeMs(),
+                task.executionTimeMs(),
+                task.memoryUsedMb(),
+                task.createdAt(),
+                task.startedAt(),
+                task.completedAt());
+    }
+}
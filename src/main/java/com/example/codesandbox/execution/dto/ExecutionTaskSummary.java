@@ -0,0 +1,27 @@
+package com.example.codesandbox.execution.dto;
+
+import com.example.codesandbox.execution.archive.ArchivedTask;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行历史列表中的一行
+ *
+ * 查询只选出这些列（构造器表达式 / DTO 投影），不会读取代码、输入、输出和错误信息这几个 LONGTEXT 列；
+ * 详情页再按ID加载完整任务
+ */
+public record ExecutionTaskSummary(
+        Long id,
+        String language,
+        ExecutionTask.Status status,
+        Integer executionTimeMs,
+        Integer memoryUsedMb,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt) {
+
+    public static ExecutionTaskSummary from(ArchivedTask task) {
+        return new ExecutionTaskSummary(task.id(), task.language(), task.status(), task.executionTimeMs(),
+                task.memoryUsedMb(), task.createdAt(), task.completedAt());
+    }
+}
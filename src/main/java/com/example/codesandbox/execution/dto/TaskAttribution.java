@@ -0,0 +1,7 @@
+package com.example.codesandbox.execution.dto;
+
+/**
+ * 任务归属（执行者和语言），统计汇总补全没有带上归属的终态变更时使用
+ */
+public record TaskAttribution(Long id, Long executorId, String language) {
+}
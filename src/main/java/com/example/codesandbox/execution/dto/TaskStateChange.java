@@ -0,0 +1,85 @@
+package com.example.codesandbox.execution.dto;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 一次任务状态变更（由调度器产生，批量回写到 execution_tasks）
+ *
+ * RUNNING 变更带 containerId 和租约（执行节点、开始时间、租约到期时间），用于同步认领任务；
+ * 终态（COMPLETED/FAILED/TIMEOUT）变更带输出、错误信息和资源统计，
+ * 认领过的任务的终态变更还带 workerId，只有该节点仍持有任务时才会落库
+ * 分阶段耗时：RUNNING 变更带排队耗时，终态变更带编译耗时；
+ * language 和 submittedAtNanos 只用于统计回写耗时，language 和 executorId 用于统计汇总，都不落库
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStateChange {
+
+    private Long taskId;
+
+    private ExecutionTask.Status status;
+
+    private String containerId;
+
+    private String workerId;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private String outputData;
+
+    private String errorMessage;
+
+    private Integer executionTimeMs;
+
+    private Integer memoryUsedMb;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    private Integer queueWaitMs;
+
+    private Integer compileTimeMs;
+
+    private String language;
+
+    private Long executorId;
+
+    private long submittedAtNanos;
+
+    public static TaskStateChange running(Long taskId, String containerId, String workerId, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        TaskStateChange change = new TaskStateChange();
+        change.setTaskId(taskId);
+        change.setStatus(ExecutionTask.Status.RUNNING);
+        change.setContainerId(containerId);
+        change.setWorkerId(workerId);
+        change.setStartedAt(now);
+        change.setLeaseExpiresAt(now.plus(lease));
+        return change;
+    }
+
+    public static TaskStateChange finished(Long taskId, ExecutionTask.Status status, String outputData,
+                                           String errorMessage, Integer executionTimeMs, Integer memoryUsedMb) {
+        TaskStateChange change = new TaskStateChange();
+        change.setTaskId(taskId);
+        change.setStatus(status);
+        change.setOutputData(outputData);
+        change.setErrorMessage(errorMessage);
+        change.setExecutionTimeMs(executionTimeMs);
+        change.setMemoryUsedMb(memoryUsedMb);
+        change.setCompletedAt(LocalDateTime.now());
+        return change;
+    }
+
+    public boolean isRunning() {
+        return status == ExecutionTask.Status.RUNNING;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.codesandbox.execution.entity;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.user.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * ExecutionBatch 实体 - 批量执行（同一段代码 + 多组测试用例）
+ *
+ * 业务场景（在线判题）：
+ * 1. 用户提交一段代码和 N 组输入
+ * 2. 系统创建一条 ExecutionBatch 记录，以及 N 个子 ExecutionTask（每组输入一个，batch_id 指向这里）
+ * 3. 执行节点只创建一个沙箱、只编译一次，然后在同一个沙箱中依次（或有上限地并行）运行每组输入
+ * 4. 每个子任务各自记录输出和状态；本表记录汇总结果
+ *
+ * 关键字段：
+ * - abort_on_failure: 有用例失败后，未开始的用例不再运行（标记为 CANCELLED）
+ * - parallelism: 同一沙箱中同时运行的用例数
+ */
+@Entity
+@Table(name = "execution_batches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 关联的代码片段（可选）
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "snippet_id")
+    private CodeSnippet snippet;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "executor_id", nullable = false)
+    private User executor;
+
+    @Column(nullable = false, length = 50)
+    private String language;
+
+    /**
+     * 代码哈希值（SHA256），也是代码在 BlobStore 中的 key
+     */
+    @Column(name = "code_hash", length = 64, nullable = false)
+    private String codeHash;
+
+    /**
+     * 测试用例数量
+     */
+    @Column(name = "case_count", nullable = false)
+    private Integer caseCount;
+
+    /**
+     * 同一沙箱中同时运行的用例数（1 表示依次运行）
+     */
+    @Column(nullable = false)
+    private Integer parallelism = 1;
+
+    /**
+     * 有用例失败时是否跳过剩余用例
+     */
+    @Column(name = "abort_on_failure", nullable = false)
+    private Boolean abortOnFailure = false;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "passed_count")
+    private Integer passedCount;
+
+    @Column(name = "failed_count")
+    private Integer failedCount;
+
+    /**
+     * 批量级别的错误（编译失败、执行环境异常）
+     */
+    @Column(name = "error_message", columnDefinition = "LONGTEXT")
+    private String errorMessage;
+
+    /**
+     * 整个批量的执行耗时（毫秒，含编译）
+     */
+    @Column(name = "execution_time_ms")
+    private Integer executionTimeMs;
+
+    /**
+     * 租约：当前执行该批量的节点
+     *
+     * 节点认领批量时写入，心跳续租；节点宕机后租约过期，回收器把批量和未结束的用例标记为 FAILED
+     */
+    @Column(name = "worker_id", length = 100)
+    private String workerId;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * 批量执行状态枚举
+     */
+    public enum Status {
+        PENDING,    // 等待执行
+        RUNNING,    // 正在执行
+        COMPLETED,  // 所有用例都执行成功
+        FAILED,     // 编译失败或有用例失败
+        ABORTED     // 有用例失败，剩余用例已跳过
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.codesandbox.execution.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * ExecutionLatencyDaily 实体 - 执行耗时分布日汇总
+ *
+ * 与 ExecutionStatsDaily 相同的（维度, 维度值, 日期），再按耗时分桶计数（桶的划分见 LatencyHistogram）；
+ * 分桶计数可以直接相加，任意日期范围的 p50 / p95 / p99 由各桶之和估算
+ */
+@Entity
+@Table(name = "execution_latency_daily")
+@IdClass(ExecutionLatencyDaily.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionLatencyDaily {
+
+    @Id
+    @Column(length = 16)
+    private String dimension;
+
+    @Id
+    @Column(name = "dim_key", length = 64)
+    private String dimKey;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    private int bucket;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private String dimension;
+
+        private String dimKey;
+
+        private LocalDate statDate;
+
+        private int bucket;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.codesandbox.execution.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * ExecutionStatsDaily 实体 - 执行统计日汇总
+ *
+ * 每个（维度, 维度值, 日期）一行，按任务完成时间归到某一天：
+ * - dimension = all：全站，dim_key 为空字符串
+ * - dimension = language：按语言，dim_key 为语言名
+ * - dimension = user：按执行者，dim_key 为用户ID
+ *
+ * 由 ExecutionStatsRollup 增量累加（批量 upsert），统计页面读这里而不是扫描 execution_tasks；
+ * 耗时分布见 ExecutionLatencyDaily
+ */
+@Entity
+@Table(name = "execution_stats_daily")
+@IdClass(ExecutionStatsDaily.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionStatsDaily {
+
+    public static final String ALL = "all";
+    public static final String LANGUAGE = "language";
+    public static final String USER = "user";
+
+    @Id
+    @Column(length = 16)
+    private String dimension;
+
+    @Id
+    @Column(name = "dim_key", length = 64)
+    private String dimKey;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    /**
+     * 结束的任务数（COMPLETED + FAILED + TIMEOUT）
+     */
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "timeout_count", nullable = false)
+    private long timeoutCount;
+
+    /**
+     * 执行耗时之和（毫秒），除以 timed_count 得到平均耗时
+     */
+    @Column(name = "total_time_ms", nullable = false)
+    private long totalTimeMs;
+
+    /**
+     * 有执行耗时的任务数（编译失败等没有运行的任务不计入）
+     */
+    @Column(name = "timed_count", nullable = false)
+    private long timedCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private String dimension;
+
+        private String dimKey;
+
+        private LocalDate statDate;
+    }
+}
@@ -24,6 +24,11 @@ import java.time.LocalDateTime;
  * - container_id: 记录在哪个 Docker 容器中执行（方便排查问题）
  * - execution_time_ms: 执行耗时（用于性能统计和限流）
  * - status: 执行状态（前端根据状态显示不同的提示）
+ *
+ * LONGTEXT 列（code_content、input_data、output_data、error_message）延迟加载（依赖字节码增强），
+ * 第一次访问其中任意一列时一起加载；列表页用 ExecutionTaskSummary，不读取这些列，
+ * 需要这些列又不在事务中的地方（执行节点）用 findWithPayloadById。
+ * 这些列不参与 @Data 生成的 toString / equals / hashCode，打日志或放进集合时不会触发加载
  */
 @Entity
 @Table(name = "execution_tasks")
@@ -68,14 +73,20 @@ public class ExecutionTask {
     private String language;
 
     /**
-     * 要执行的代码内容
+     * 要执行的代码内容（旧数据）
      *
      * 为什么保存代码内容而不是只保存 snippet_id？
      * 因为：
      * 1. 用户可能执行临时代码（未保存）
      * 2. 代码片段可能被修改，需要记录执行时的确切代码
+     *
+     * 新任务的代码存在 BlobStore 中（key 为 code_hash），该列为 NULL；
+     * 读取统一走 ExecutionPayloadStore.code()
      */
-    @Column(name = "code_content", columnDefinition = "LONGTEXT", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "code_content", columnDefinition = "LONGTEXT")
     private String codeContent;
 
     /**
@@ -89,6 +100,8 @@ public class ExecutionTask {
      * 4. 无 → 执行代码，并缓存结果（key: code_hash, value: output_data）
      *
      * 例如：100 个用户都执行 print("Hello")，只需真正执行 1 次
+     *
+     * 同时也是代码内容在 BlobStore 中的 key
      */
     @Column(name = "code_hash", length = 64)
     private String codeHash;
@@ -99,20 +112,42 @@ public class ExecutionTask {
      * 例如：
      * - 算法题的测试用例：[1, 5, 3, 2, 4]
      * - 函数的参数：{"n": 10}
+     *
+     * 旧数据；新任务的输入存在 BlobStore 中，见 input_hash
      */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "input_data", columnDefinition = "LONGTEXT")
     private String inputData;
 
+    /**
+     * 输入数据的 SHA-256（BlobStore 的 key），无输入时为 NULL
+     */
+    @Column(name = "input_hash", length = 64)
+    private String inputHash;
+
     /**
      * 输出结果
      *
      * 例如：
      * - 标准输出：Hello World
      * - 函数返回值：55
+     *
+     * 旧数据；新任务的输出存在 BlobStore 中，见 output_hash
      */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "output_data", columnDefinition = "LONGTEXT")
     private String outputData;
 
+    /**
+     * 输出结果的 SHA-256（BlobStore 的 key），无输出时为 NULL
+     */
+    @Column(name = "output_hash", length = 64)
+    private String outputHash;
+
     /**
      * 错误信息
      *
@@ -123,6 +158,9 @@ public class ExecutionTask {
      *     print(x)
      * NameError: name 'x' is not defined
      */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "error_message", columnDefinition = "LONGTEXT")
     private String errorMessage;
 
@@ -161,6 +199,20 @@ public class ExecutionTask {
     @Column(name = "memory_used_mb")
     private Integer memoryUsedMb;
 
+    /**
+     * 排队耗时（毫秒）：从创建到开始执行
+     *
+     * 与 execution_time_ms（运行耗时）、compile_time_ms 一起区分延迟花在哪个阶段
+     */
+    @Column(name = "queue_wait_ms")
+    private Integer queueWaitMs;
+
+    /**
+     * 编译耗时（毫秒），解释型语言和编译产物缓存命中时为 0；批量执行中各用例共用同一次编译
+     */
+    @Column(name = "compile_time_ms")
+    private Integer compileTimeMs;
+
     /**
      * Docker 容器 ID
      *
@@ -172,6 +224,56 @@ public class ExecutionTask {
     @Column(name = "container_id", length = 100)
     private String containerId;
 
+    /**
+     * 所属的批量执行（可选）
+     *
+     * 批量执行时每个测试用例是一个子任务，共用一次编译；单独提交的任务为 NULL
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id")
+    private ExecutionBatch batch;
+
+    /**
+     * 测试用例在批量执行中的序号（从 0 开始）
+     */
+    @Column(name = "case_index")
+    private Integer caseIndex;
+
+    /**
+     * 合并到的领头任务ID（只有跟随者才有）
+     *
+     * 跟随者不进入队列、没有租约，随领头任务一起结束：领头任务结束时按该列找到全部跟随者，
+     * 租约回收器也按该列补齐领头任务已经结束（包括被回收器标记为 TIMEOUT）、却没有拿到结果的跟随者
+     */
+    @Column(name = "coalesced_with")
+    private Long coalescedWith;
+
+    /**
+     * 租约：当前持有该任务的执行节点
+     *
+     * 流程：
+     * 1. 节点开始执行时写入 worker_id、started_at，租约到期时间为当前时间 + 租约时长
+     * 2. 节点定时心跳，一条 UPDATE 为自己名下所有 RUNNING 任务续租
+     * 3. 节点宕机后心跳停止，租约过期，回收器把任务重新排队（或超过重试次数后标记为 TIMEOUT）
+     */
+    @Column(name = "worker_id", length = 100)
+    private String workerId;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 已开始执行的次数（每次进入 RUNNING 加 1）
+     */
+    @Column(name = "attempt_count", nullable = false)
+    private Integer attemptCount = 0;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -191,6 +293,7 @@ public class ExecutionTask {
         RUNNING,    // 正在执行
         COMPLETED,  // 执行成功
         FAILED,     // 执行失败
-        TIMEOUT     // 执行超时
+        TIMEOUT,    // 执行超时
+        CANCELLED   // 已取消（批量执行中前面的用例失败后跳过）
     }
 }
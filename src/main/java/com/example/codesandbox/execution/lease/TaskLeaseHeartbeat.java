@@ -0,0 +1,52 @@
+package com.example.codesandbox.execution.lease;
+
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行节点心跳：定时为本节点名下所有 RUNNING 任务和批量续租，同时为本节点正在执行的领头任务续期合并登记
+ */
+@Slf4j
+@Component
+public class TaskLeaseHeartbeat {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionBatchRepository batchRepository;
+    private final WorkerIdentity workerIdentity;
+    private final ExecutionCoalescer coalescer;
+    private final ExecutionProperties.Lease config;
+
+    public TaskLeaseHeartbeat(ExecutionTaskRepository taskRepository, ExecutionBatchRepository batchRepository,
+                              WorkerIdentity workerIdentity, ExecutionCoalescer coalescer,
+                              ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.batchRepository = batchRepository;
+        this.workerIdentity = workerIdentity;
+        this.coalescer = coalescer;
+        this.config = properties.getLease();
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.execution.lease.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            LocalDateTime leaseExpiresAt = now.plus(config.getDuration());
+            int renewed = taskRepository.renewLeases(workerIdentity.getId(), now, leaseExpiresAt);
+            int batches = batchRepository.renewLeases(workerIdentity.getId(), leaseExpiresAt);
+            if (renewed > 0 || batches > 0) {
+                log.debug("节点 {} 续租 {} 个任务、{} 个批量", workerIdentity.getId(), renewed, batches);
+            }
+        } catch (RuntimeException e) {
+            // 续租失败不影响执行；连续失败超过租约时长时任务会被其他节点回收
+            log.warn("续租失败", e);
+        }
+        coalescer.renewLeaders();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.codesandbox.execution.lease;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.service.ExecutionQueuePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 过期租约回收器
+ *
+ * 每个节点都运行，多节点并发回收也是安全的：
+ * 每条 UPDATE 的 WHERE 条件都要求租约已过期，被一个节点改掉的行不会再被另一个节点选中
+ *
+ * 流程（每轮）：
+ * 1. 用完重试次数的任务：分批 UPDATE 为 TIMEOUT
+ * 2. 其余任务：分批 UPDATE 回 PENDING，由本轮的回收标识临时持有
+ * 3. 查出本轮回收的任务（连同执行者和语言），重新投递到执行队列，再释放临时持有
+ * 4. 领头任务已经结束（包括第 1 步标记为 TIMEOUT 的）、自己仍在 PENDING 的合并跟随者复制领头任务的结果
+ * 5. 租约过期的批量：先把未结束的用例标记为 FAILED，再把批量标记为 FAILED（批量中的用例不参与第 1、2 步）
+ * 第 3 步中途失败时，临时租约过期后任务会在下一轮被再次回收
+ * 第 4 步补齐的跟随者不经过 TaskStateWriter，统计汇总由每日重建补上
+ */
+@Slf4j
+@Component
+public class TaskLeaseReaper {
+
+    static final String LOST_WORKER_MESSAGE = "执行节点失联，已达到最大重试次数";
+    static final String LOST_BATCH_MESSAGE = "执行节点失联，批量执行中断";
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionBatchRepository batchRepository;
+    private final ExecutionQueuePublisher publisher;
+    private final WorkerIdentity workerIdentity;
+    private final ExecutionProperties.Lease config;
+
+    public TaskLeaseReaper(ExecutionTaskRepository taskRepository, ExecutionBatchRepository batchRepository,
+                           ExecutionQueuePublisher publisher, WorkerIdentity workerIdentity,
+                           ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.batchRepository = batchRepository;
+        this.publisher = publisher;
+        this.workerIdentity = workerIdentity;
+        this.config = properties.getLease();
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.execution.lease.reap-interval-ms:5000}")
+    public void reap() {
+        try {
+            int timedOut = timeoutExhausted();
+            int requeued = requeueExpired();
+            int followers = taskRepository.resolveFinishedFollowers(LocalDateTime.now());
+            int batches = failExpiredBatches();
+            if (timedOut > 0 || requeued > 0 || followers > 0 || batches > 0) {
+                log.info("回收过期租约：重新排队 {} 个，标记超时 {} 个，补齐合并跟随者 {} 个，中断批量 {} 个",
+                        requeued, timedOut, followers, batches);
+            }
+        } catch (RuntimeException e) {
+            log.warn("回收过期租约失败", e);
+        }
+    }
+
+    private int failExpiredBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        batchRepository.failCasesOfExpired(now, LOST_BATCH_MESSAGE);
+        return batchRepository.failExpired(now, LOST_BATCH_MESSAGE);
+    }
+
+    private int timeoutExhausted() {
+        int total = 0;
+        int chunk = config.getReapChunkSize();
+        int updated;
+        do {
+            updated = taskRepository.timeoutExpiredLeases(LocalDateTime.now(), config.getMaxAttempts(),
+                    LOST_WORKER_MESSAGE, chunk);
+            total += updated;
+        } while (updated == chunk);
+        return total;
+    }
+
+    private int requeueExpired() {
+        String token = "reaper:" + workerIdentity.getId() + ':' + UUID.randomUUID().toString().substring(0, 8);
+        int chunk = config.getReapChunkSize();
+        int total = 0;
+        int updated;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            updated = taskRepository.reclaimExpiredLeases(token, now, now.plus(config.getDuration()),
+                    config.getMaxAttempts(), chunk);
+            if (updated > 0) {
+                total += republish(token);
+            }
+        } while (updated == chunk);
+        return total;
+    }
+
+    private int republish(String token) {
+        List<TaskAttribution> tasks = taskRepository.findReclaimedTasks(token);
+        for (TaskAttribution task : tasks) {
+            publisher.publish(task);
+        }
+        taskRepository.releaseReclaimed(token);
+        return tasks.size();
+    }
+}
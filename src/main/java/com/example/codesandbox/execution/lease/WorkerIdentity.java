@@ -0,0 +1,34 @@
+package com.example.codesandbox.execution.lease;
+
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * 本节点的执行者标识（写入 execution_tasks.worker_id）
+ *
+ * 主机名 + 进程号 + 随机后缀：同一台机器重启后是新的标识，旧进程遗留的租约不会被误续
+ */
+@Component
+public class WorkerIdentity {
+
+    private final String id;
+
+    public WorkerIdentity() {
+        this.id = hostName() + ':' + ProcessHandle.current().pid() + ':' + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.codesandbox.execution.metrics;
+
+import com.example.codesandbox.execution.sandbox.LanguageProfile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行流水线各阶段的耗时和资源统计
+ *
+ * 指标：
+ * - execution.phase{phase=queue|compile|run|persist, language}：各阶段耗时直方图
+ *   queue   = 任务创建到开始执行（包括 MQ、公平调度和语言并发许可上的等待）
+ *   compile = 编译耗时（解释型语言和编译产物缓存命中时为 0）
+ *   run     = 沙箱中运行耗时
+ *   persist = 结果产生到批量回写落库
+ * - execution.memory{language}：内存峰值（MB），只记录沙箱后端采集到的运行（见 SandboxResult.memoryUsedMb）
+ *
+ * 标签只有阶段和语言，语言限定为 LanguageProfile 中的取值，其他一律记为 other，避免标签基数失控
+ */
+@Component
+public class ExecutionMetrics {
+
+    public static final String PHASE_TIMER = "execution.phase";
+    public static final String MEMORY_SUMMARY = "execution.memory";
+
+    public static final String QUEUE = "queue";
+    public static final String COMPILE = "compile";
+    public static final String RUN = "run";
+    public static final String PERSIST = "persist";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> memory = new ConcurrentHashMap<>();
+
+    public ExecutionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordQueueWait(String language, long millis) {
+        timer(QUEUE, language).record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordCompile(String language, long millis) {
+        timer(COMPILE, language).record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordRun(String language, long millis, Integer memoryUsedMb) {
+        timer(RUN, language).record(millis, TimeUnit.MILLISECONDS);
+        if (memoryUsedMb != null) {
+            memory.computeIfAbsent(languageTag(language), tag -> DistributionSummary.builder(MEMORY_SUMMARY)
+                            .tag("language", tag)
+                            .baseUnit("megabytes")
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(memoryUsedMb);
+        }
+    }
+
+    public void recordPersist(String language, long nanos) {
+        timer(PERSIST, language).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 语言标签：只允许已知语言
+     */
+    public static String languageTag(String language) {
+        if (language == null) {
+            return "other";
+        }
+        return LanguageProfile.of(language)
+                .map(LanguageProfile::getLanguage)
+                .orElse("other");
+    }
+
+    private Timer timer(String phase, String language) {
+        String tag = languageTag(language);
+        return timers.computeIfAbsent(phase + ':' + tag, key -> Timer.builder(PHASE_TIMER)
+                .tag("phase", phase)
+                .tag("language", tag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry));
+    }
+}
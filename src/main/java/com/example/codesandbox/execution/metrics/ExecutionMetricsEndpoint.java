@@ -0,0 +1,90 @@
+package com.example.codesandbox.execution.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行流水线统计：GET /actuator/executions
+ *
+ * 按语言汇总各阶段的次数、平均值、最大值和分位数（毫秒），以及结果缓存、编译产物缓存、沙箱池的命中率；
+ * 原始直方图另外通过 /actuator/prometheus 导出，供容量规划使用
+ */
+@Component
+@Endpoint(id = "executions")
+public class ExecutionMetricsEndpoint {
+
+    private final MeterRegistry registry;
+
+    public ExecutionMetricsEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        Map<String, Map<String, Object>> languages = new TreeMap<>();
+        for (Timer timer : registry.find(ExecutionMetrics.PHASE_TIMER).timers()) {
+            String language = timer.getId().getTag("language");
+            String phase = timer.getId().getTag("phase");
+            languages.computeIfAbsent(language, key -> new LinkedHashMap<>())
+                    .put(phase, describe(timer.takeSnapshot(), TimeUnit.MILLISECONDS));
+        }
+        for (DistributionSummary summary : registry.find(ExecutionMetrics.MEMORY_SUMMARY).summaries()) {
+            languages.computeIfAbsent(summary.getId().getTag("language"), key -> new LinkedHashMap<>())
+                    .put("memoryMb", describe(summary.takeSnapshot(), null));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("languages", languages);
+        result.put("resultCacheHitRatio", ratio(
+                functionCount("execution.cache.requests", "l1_hit") + functionCount("execution.cache.requests", "l2_hit"),
+                functionCount("execution.cache.requests", "miss")));
+        result.put("artifactCacheHitRatio", ratio(
+                count("execution.artifact.cache", "hit"), count("execution.artifact.cache", "miss")));
+        result.put("sandboxPoolHitRatio", ratio(
+                count("execution.sandbox.pool.requests", "hit"), count("execution.sandbox.pool.requests", "miss")));
+        return result;
+    }
+
+    private static Map<String, Object> describe(HistogramSnapshot snapshot, TimeUnit unit) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("mean", round(unit == null ? snapshot.mean() : snapshot.mean(unit)));
+        stats.put("max", round(unit == null ? snapshot.max() : snapshot.max(unit)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100),
+                    round(unit == null ? percentile.value() : percentile.value(unit)));
+        }
+        return stats;
+    }
+
+    private double functionCount(String name, String result) {
+        FunctionCounter counter = registry.find(name).tag("result", result).functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double count(String name, String result) {
+        return registry.find(name).tag("result", result).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static Double ratio(double hits, double misses) {
+        double total = hits + misses;
+        return total == 0 ? null : round(hits / total);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+
+import java.util.Collection;
+
+/**
+ * 代码执行限流
+ *
+ * 两层配额，都通过才放行：
+ * 1. 按语言：user:{id}:lang:{language}，只对配置了 languageLimits 的语言生效（先检查，范围更窄）
+ * 2. 按用户：user:{id}，配额取用户所有角色配置中的最大值，没有配置则用 defaultLimit
+ *
+ * 语言配额通过、用户配额被拒时，语言配额已占用的一次不回退（窗口结束后自然恢复）
+ */
+public class ExecutionRateLimiter {
+
+    private final RateLimiter rateLimiter;
+    private final ExecutionProperties.RateLimit config;
+
+    public ExecutionRateLimiter(RateLimiter rateLimiter, ExecutionProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.config = properties.getRateLimit();
+    }
+
+    public RateLimitDecision tryAcquire(Long userId, Collection<String> roleNames, String language) {
+        if (!config.isEnabled()) {
+            return RateLimitDecision.allow(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        Integer languageLimit = config.getLanguageLimits().get(language);
+        if (languageLimit != null) {
+            RateLimitDecision decision = rateLimiter.tryAcquire("user:" + userId + ":lang:" + language,
+                    new RateLimitRule(languageLimit, config.getWindow()));
+            if (!decision.allowed()) {
+                return decision;
+            }
+        }
+        return rateLimiter.tryAcquire("user:" + userId,
+                new RateLimitRule(limitForRoles(roleNames), config.getWindow()));
+    }
+
+    private int limitForRoles(Collection<String> roleNames) {
+        int limit = -1;
+        for (String roleName : roleNames) {
+            Integer roleLimit = config.getRoleLimits().get(roleName);
+            if (roleLimit != null) {
+                limit = Math.max(limit, roleLimit);
+            }
+        }
+        return limit < 0 ? config.getDefaultLimit() : limit;
+    }
+}
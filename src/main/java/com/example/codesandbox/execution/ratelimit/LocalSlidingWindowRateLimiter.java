@@ -0,0 +1,114 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * 单节点滑动窗口限流器（无锁）
+ *
+ * 算法：滑动窗口计数（近似）
+ * 估算请求数 = 上个窗口计数 × 上个窗口在滑动窗口中剩余的比例 + 当前窗口计数
+ *
+ * 每个 key 的状态是一个不可变对象，用 CAS 替换，热路径上没有锁也不访问数据库
+ */
+public class LocalSlidingWindowRateLimiter implements RateLimiter {
+
+    private final ConcurrentMap<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public LocalSlidingWindowRateLimiter() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 当前时间（毫秒）
+     */
+    LocalSlidingWindowRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, RateLimitRule rule) {
+        long now = clock.getAsLong();
+        long windowMs = rule.window().toMillis();
+        int limit = rule.limit();
+        AtomicReference<Window> ref = windows.computeIfAbsent(key,
+                k -> new AtomicReference<>(new Window(now, windowMs, 0, 0)));
+        while (true) {
+            Window observed = ref.get();
+            Window rolled = observed.rollTo(now);
+            double estimated = rolled.estimate(now);
+            if (estimated + 1 > limit) {
+                if (rolled != observed) {
+                    ref.compareAndSet(observed, rolled);
+                }
+                return RateLimitDecision.reject(limit, retryAfterMs(rolled, now, limit, windowMs));
+            }
+            if (ref.compareAndSet(observed, rolled.increment())) {
+                return RateLimitDecision.allow(limit, (int) Math.floor(limit - estimated - 1));
+            }
+        }
+    }
+
+    /**
+     * 清理两个窗口以上没有请求的 key，防止 map 无限增长
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        windows.values().removeIf(ref -> ref.get().isIdle(now));
+    }
+
+    /**
+     * 计算多久之后估算值能降到 limit - 1 以下
+     */
+    static long retryAfterMs(Window window, long now, int limit, long windowMs) {
+        long elapsed = now - window.start();
+        if (limit <= 0) {
+            return windowMs - elapsed;
+        }
+        if (window.current() + 1 <= limit && window.previous() > 0) {
+            // 当前窗口还有余量，等上个窗口的权重衰减即可
+            double remainingWeight = (double) (limit - 1 - window.current()) / window.previous();
+            return (long) Math.ceil(windowMs * (1 - remainingWeight)) - elapsed;
+        }
+        // 当前窗口已满：等到下一个窗口开始，再等本窗口的计数衰减
+        double remainingWeight = window.current() == 0 ? 1 : (double) (limit - 1) / window.current();
+        return (windowMs - elapsed) + Math.max(0, (long) Math.ceil(windowMs * (1 - remainingWeight)));
+    }
+
+    /**
+     * @param start    当前窗口起点（毫秒）
+     * @param windowMs 窗口长度（毫秒）
+     * @param previous 上个窗口的计数
+     * @param current  当前窗口的计数
+     */
+    record Window(long start, long windowMs, long previous, long current) {
+
+        Window rollTo(long now) {
+            if (now < start + windowMs) {
+                return this;
+            }
+            long windowsPassed = (now - start) / windowMs;
+            long newStart = start + windowsPassed * windowMs;
+            return new Window(newStart, windowMs, windowsPassed == 1 ? current : 0, 0);
+        }
+
+        double estimate(long now) {
+            double previousWeight = 1 - (double) (now - start) / windowMs;
+            return previous * previousWeight + current;
+        }
+
+        Window increment() {
+            return new Window(start, windowMs, previous, current + 1);
+        }
+
+        boolean isIdle(long now) {
+            return now - start > 2 * windowMs;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.codesandbox.execution.ratelimit;
+
+/**
+ * 限流判定结果
+ *
+ * @param allowed      是否放行
+ * @param limit        窗口内的配额
+ * @param remaining    本次之后剩余的配额
+ * @param retryAfterMs 被拒绝时建议多久后重试（毫秒），放行时为 0
+ */
+public record RateLimitDecision(boolean allowed, int limit, int remaining, long retryAfterMs) {
+
+    public static RateLimitDecision allow(int limit, int remaining) {
+        return new RateLimitDecision(true, limit, Math.max(0, remaining), 0);
+    }
+
+    public static RateLimitDecision reject(int limit, long retryAfterMs) {
+        return new RateLimitDecision(false, limit, 0, Math.max(1, retryAfterMs));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * 执行次数超过限流配额
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final RateLimitDecision decision;
+
+    public RateLimitExceededException(RateLimitDecision decision) {
+        super("执行过于频繁，请在 " + Math.max(1, (decision.retryAfterMs() + 999) / 1000) + " 秒后重试");
+        this.decision = decision;
+    }
+}
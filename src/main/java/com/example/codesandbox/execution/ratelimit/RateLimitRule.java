@@ -0,0 +1,9 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * 限流规则：每个 window 内最多 limit 次
+ */
+public record RateLimitRule(int limit, Duration window) {
+}
@@ -0,0 +1,12 @@
+package com.example.codesandbox.execution.ratelimit;
+
+/**
+ * 限流器
+ */
+public interface RateLimiter {
+
+    /**
+     * 尝试为 key 占用一次配额
+     */
+    RateLimitDecision tryAcquire(String key, RateLimitRule rule);
+}
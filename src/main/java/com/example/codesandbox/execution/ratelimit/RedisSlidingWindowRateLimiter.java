@@ -0,0 +1,76 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * 集群滑动窗口限流器（Redis + Lua）
+ *
+ * 与 {@link LocalSlidingWindowRateLimiter} 使用同一算法，窗口按 Redis 服务器时间对齐，
+ * 读计数、判定、自增在一个脚本中原子完成，一次网络往返
+ *
+ * Redis 数据结构：codesandbox:ratelimit:{key} → Hash（start 当前窗口起点、current、previous 两个窗口的计数，
+ * 过期时间两个窗口）。脚本只访问 KEYS 中传入的这一个 key，可以在 Redis Cluster 上运行
+ */
+public class RedisSlidingWindowRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "codesandbox:ratelimit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_WINDOW = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local limit = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local start = now - (now % window)
+            local elapsed = now - start
+            local state = redis.call('HMGET', KEYS[1], 'start', 'current', 'previous')
+            local stored = tonumber(state[1])
+            local current = tonumber(state[2]) or 0
+            local previous = tonumber(state[3]) or 0
+            if stored ~= start then
+              if stored == start - window then previous = current else previous = 0 end
+              current = 0
+            end
+            local estimated = previous * (1 - elapsed / window) + current
+            if estimated + 1 > limit then
+              local retry
+              if limit <= 0 then
+                retry = window - elapsed
+              elseif current + 1 <= limit and previous > 0 then
+                retry = math.ceil(window * (1 - (limit - 1 - current) / previous)) - elapsed
+              else
+                local weight = 1
+                if current > 0 then weight = (limit - 1) / current end
+                retry = (window - elapsed) + math.max(0, math.ceil(window * (1 - weight)))
+              end
+              return {0, 0, math.max(1, retry)}
+            end
+            redis.call('HSET', KEYS[1], 'start', start, 'current', current + 1, 'previous', previous)
+            redis.call('PEXPIRE', KEYS[1], window * 2)
+            return {1, math.floor(limit - estimated - 1), 0}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisSlidingWindowRateLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, RateLimitRule rule) {
+        List<?> result = redisTemplate.execute(SLIDING_WINDOW, List.of(KEY_PREFIX + key),
+                String.valueOf(rule.limit()), String.valueOf(rule.window().toMillis()));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("限流脚本返回异常: " + result);
+        }
+        boolean allowed = ((Number) result.get(0)).longValue() == 1;
+        if (allowed) {
+            return RateLimitDecision.allow(rule.limit(), ((Number) result.get(1)).intValue());
+        }
+        return RateLimitDecision.reject(rule.limit(), ((Number) result.get(2)).longValue());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.entity.ExecutionBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ExecutionBatchRepository extends JpaRepository<ExecutionBatch, Long> {
+
+    /**
+     * 认领批量（PENDING → RUNNING），记录执行节点和租约
+     * 用途：消息重复投递时只有一个节点能认领成功
+     *
+     * @return 1 表示认领成功
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecutionBatch b SET b.status = com.example.codesandbox.execution.entity.ExecutionBatch.Status.RUNNING, b.workerId = :workerId, " +
+            "b.leaseExpiresAt = :leaseExpiresAt WHERE b.id = :id AND b.status = com.example.codesandbox.execution.entity.ExecutionBatch.Status.PENDING")
+    int claim(Long id, String workerId, LocalDateTime leaseExpiresAt);
+
+    /**
+     * 为某个节点名下所有 RUNNING 批量续租
+     * 用途：执行节点心跳
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecutionBatch b SET b.leaseExpiresAt = :leaseExpiresAt " +
+            "WHERE b.workerId = :workerId AND b.status = com.example.codesandbox.execution.entity.ExecutionBatch.Status.RUNNING")
+    int renewLeases(String workerId, LocalDateTime leaseExpiresAt);
+
+    /**
+     * 记录批量执行的汇总结果；只有认领它的节点仍持有租约时才生效（租约过期后已被回收器标记为 FAILED）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecutionBatch b SET b.status = :status, b.passedCount = :passed, b.failedCount = :failed, " +
+            "b.errorMessage = :errorMessage, b.executionTimeMs = :timeMs, b.completedAt = :completedAt, " +
+            "b.leaseExpiresAt = NULL WHERE b.id = :id AND b.workerId = :workerId AND b.status = com.example.codesandbox.execution.entity.ExecutionBatch.Status.RUNNING")
+    int finish(Long id, String workerId, ExecutionBatch.Status status, int passed, int failed, String errorMessage,
+               int timeMs, LocalDateTime completedAt);
+
+    /**
+     * 租约已过期的 RUNNING 批量中，还没结束的用例标记为 FAILED
+     * 用途：租约回收器，先于 failExpired 执行（两步之间失败时下一轮会重做）
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE execution_tasks t JOIN execution_batches b ON b.id = t.batch_id " +
+            "SET t.status = 'FAILED', t.error_message = :errorMessage, t.completed_at = :now, t.lease_expires_at = NULL " +
+            "WHERE b.status = 'RUNNING' AND b.lease_expires_at < :now AND t.status IN ('PENDING', 'RUNNING')",
+            nativeQuery = true)
+    int failCasesOfExpired(LocalDateTime now, String errorMessage);
+
+    /**
+     * 租约已过期的 RUNNING 批量标记为 FAILED
+     * 用途：租约回收器（执行节点宕机后批量不会停留在 RUNNING）
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE execution_batches SET status = 'FAILED', error_message = :errorMessage, " +
+            "completed_at = :now, lease_expires_at = NULL WHERE status = 'RUNNING' AND lease_expires_at < :now",
+            nativeQuery = true)
+    int failExpired(LocalDateTime now, String errorMessage);
+}
@@ -0,0 +1,24 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.entity.ExecutionLatencyDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExecutionLatencyRepository extends JpaRepository<ExecutionLatencyDaily, ExecutionLatencyDaily.Key> {
+
+    /**
+     * 某个维度下日期范围内的耗时分桶
+     * 用途：按语言 / 按用户估算耗时分位数
+     */
+    List<ExecutionLatencyDaily> findByDimensionAndStatDateBetween(String dimension, LocalDate from, LocalDate to);
+
+    /**
+     * 某个维度值在日期范围内的耗时分桶
+     */
+    List<ExecutionLatencyDaily> findByDimensionAndDimKeyAndStatDateBetween(String dimension, String dimKey,
+                                                                          LocalDate from, LocalDate to);
+}
@@ -0,0 +1,37 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.entity.ExecutionStatsDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExecutionStatsRepository extends JpaRepository<ExecutionStatsDaily, ExecutionStatsDaily.Key>,
+        ExecutionStatsRepositoryCustom {
+
+    /**
+     * 某个维度下所有维度值在日期范围内的日汇总
+     * 用途：按语言 / 按用户的统计表
+     */
+    List<ExecutionStatsDaily> findByDimensionAndStatDateBetween(String dimension, LocalDate from, LocalDate to);
+
+    /**
+     * 某个维度值在日期范围内的逐日汇总
+     * 用途：趋势图
+     */
+    List<ExecutionStatsDaily> findByDimensionAndDimKeyAndStatDateBetweenOrderByStatDateAsc(String dimension,
+                                                                                          String dimKey,
+                                                                                          LocalDate from,
+                                                                                          LocalDate to);
+
+    /**
+     * 某个维度值的累计结束任务数
+     * 用途：代替对 execution_tasks 的 COUNT(*)，例如各语言的执行次数
+     */
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0) FROM ExecutionStatsDaily s " +
+            "WHERE s.dimension = :dimension AND s.dimKey = :dimKey")
+    long sumTotalCount(String dimension, String dimKey);
+}
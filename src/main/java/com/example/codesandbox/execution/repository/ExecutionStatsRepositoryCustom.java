@@ -0,0 +1,25 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.stats.ExecutionStatsDelta;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * ExecutionStatsRepository 的自定义扩展（JDBC 批量 upsert 和重建）
+ */
+public interface ExecutionStatsRepositoryCustom {
+
+    /**
+     * 把一批增量累加到 execution_stats_daily / execution_latency_daily
+     * 用途：ExecutionStatsRollup 定时刷新，每张表一次批量 INSERT ... ON DUPLICATE KEY UPDATE
+     */
+    void applyDeltas(Collection<ExecutionStatsDelta> deltas);
+
+    /**
+     * 从 execution_tasks 重新计算 [from, to) 这几天的汇总，覆盖原有的行
+     * 用途：修正节点宕机丢失的增量、租约超时等不经过回写器的终态造成的偏差
+     * 区间内已归档的任务不在 execution_tasks 中，调用方保证 from 不早于归档截止日期（见 ExecutionStatsRollup.rebuild）
+     */
+    void rebuild(LocalDate from, LocalDate to);
+}
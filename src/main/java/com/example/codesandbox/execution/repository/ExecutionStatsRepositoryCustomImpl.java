@@ -0,0 +1,130 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.entity.ExecutionStatsDaily;
+import com.example.codesandbox.execution.stats.ExecutionStatsDelta;
+import com.example.codesandbox.execution.stats.LatencyHistogram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ExecutionStatsRepositoryCustomImpl implements ExecutionStatsRepositoryCustom {
+
+    private static final String UPSERT_STATS_SQL = """
+            INSERT INTO execution_stats_daily
+                (dimension, dim_key, stat_date, total_count, completed_count, failed_count, timeout_count,
+                 total_time_ms, timed_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                total_count = total_count + VALUES(total_count),
+                completed_count = completed_count + VALUES(completed_count),
+                failed_count = failed_count + VALUES(failed_count),
+                timeout_count = timeout_count + VALUES(timeout_count),
+                total_time_ms = total_time_ms + VALUES(total_time_ms),
+                timed_count = timed_count + VALUES(timed_count)
+            """;
+
+    private static final String UPSERT_LATENCY_SQL = """
+            INSERT INTO execution_latency_daily (dimension, dim_key, stat_date, bucket, sample_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE sample_count = sample_count + VALUES(sample_count)
+            """;
+
+    private static final String DELETE_STATS_SQL =
+            "DELETE FROM execution_stats_daily WHERE stat_date >= ? AND stat_date < ?";
+
+    private static final String DELETE_LATENCY_SQL =
+            "DELETE FROM execution_latency_daily WHERE stat_date >= ? AND stat_date < ?";
+
+    /**
+     * 三个维度共用的重建语句，%s 依次为维度名和维度值表达式；
+     * 只统计与回写器相同的三种终态，走 completed_at 索引。
+     * 耗时分桶用二进制位数（CHAR_LENGTH(BIN(ms))），与 LatencyHistogram.bucketOf 完全一致
+     */
+    private static final String REBUILD_STATS_SQL = """
+            INSERT INTO execution_stats_daily
+                (dimension, dim_key, stat_date, total_count, completed_count, failed_count, timeout_count,
+                 total_time_ms, timed_count)
+            SELECT '%s', %s, DATE(completed_at), COUNT(*),
+                   SUM(status = 'COMPLETED'), SUM(status = 'FAILED'), SUM(status = 'TIMEOUT'),
+                   COALESCE(SUM(execution_time_ms), 0), COUNT(execution_time_ms)
+            FROM execution_tasks
+            WHERE completed_at >= ? AND completed_at < ? AND status IN ('COMPLETED', 'FAILED', 'TIMEOUT')
+            GROUP BY 2, 3
+            """;
+
+    private static final String REBUILD_LATENCY_SQL = """
+            INSERT INTO execution_latency_daily (dimension, dim_key, stat_date, bucket, sample_count)
+            SELECT '%s', %s, DATE(completed_at),
+                   CASE WHEN execution_time_ms < 1 THEN 0
+                        ELSE LEAST(%d, CHAR_LENGTH(BIN(execution_time_ms))) END,
+                   COUNT(*)
+            FROM execution_tasks
+            WHERE completed_at >= ? AND completed_at < ? AND status IN ('COMPLETED', 'FAILED', 'TIMEOUT')
+              AND execution_time_ms IS NOT NULL
+            GROUP BY 2, 3, 4
+            """;
+
+    private static final String[][] DIMENSIONS = {
+            {ExecutionStatsDaily.ALL, "''"},
+            {ExecutionStatsDaily.LANGUAGE, "language"},
+            // 与 ExecutionStatsRollup 的 String.valueOf(executorId) 一致，匿名任务记在 "null" 下
+            {ExecutionStatsDaily.USER, "COALESCE(CAST(executor_id AS CHAR), 'null')"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void applyDeltas(Collection<ExecutionStatsDelta> deltas) {
+        List<Object[]> stats = new ArrayList<>(deltas.size());
+        List<Object[]> latency = new ArrayList<>();
+        for (ExecutionStatsDelta delta : deltas) {
+            Date statDate = Date.valueOf(delta.getStatDate());
+            stats.add(new Object[]{
+                    delta.getDimension(),
+                    delta.getDimKey(),
+                    statDate,
+                    delta.getTotalCount(),
+                    delta.getCompletedCount(),
+                    delta.getFailedCount(),
+                    delta.getTimeoutCount(),
+                    delta.getTotalTimeMs(),
+                    delta.getTimedCount()
+            });
+            for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+                long count = delta.getLatency().count(bucket);
+                if (count > 0) {
+                    latency.add(new Object[]{delta.getDimension(), delta.getDimKey(), statDate, bucket, count});
+                }
+            }
+        }
+        if (!stats.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_STATS_SQL, stats);
+        }
+        if (!latency.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_LATENCY_SQL, latency);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(LocalDate from, LocalDate to) {
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        jdbcTemplate.update(DELETE_STATS_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(DELETE_LATENCY_SQL, Date.valueOf(from), Date.valueOf(to));
+        for (String[] dimension : DIMENSIONS) {
+            jdbcTemplate.update(REBUILD_STATS_SQL.formatted(dimension[0], dimension[1]), start, end);
+            jdbcTemplate.update(REBUILD_LATENCY_SQL.formatted(dimension[0], dimension[1], LatencyHistogram.BUCKETS - 1),
+                    start, end);
+        }
+    }
+}
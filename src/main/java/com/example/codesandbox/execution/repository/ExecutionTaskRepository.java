@@ -1,20 +1,27 @@
 package com.example.codesandbox.execution.repository;
 
+import com.example.codesandbox.execution.dto.ExecutionTaskSummary;
+import com.example.codesandbox.execution.dto.TaskAttribution;
 import com.example.codesandbox.execution.entity.ExecutionTask;
 import com.example.codesandbox.snippet.entity.CodeSnippet;
 import com.example.codesandbox.user.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ExecutionTaskRepository extends JpaRepository<ExecutionTask, Long> {
+public interface ExecutionTaskRepository extends JpaRepository<ExecutionTask, Long>, ExecutionTaskRepositoryCustom {
 
     /**
      * 查找某个用户的所有执行任务
@@ -23,20 +30,38 @@ public interface ExecutionTaskRepository extends JpaRepository<ExecutionTask, Lo
     Page<ExecutionTask> findByExecutorOrderByCreatedAtDesc(User executor, Pageable pageable);
 
     /**
-     * 根据状态查找任务
-     * 用途：查找所有正在执行/失败/超时的任务
+     * 某个用户的执行历史（游标分页，按 created_at、id 倒序）
+     * 用途：执行历史翻页，position 由 CursorCodec.decode 得到；使用索引 idx_executor_created
      */
-    List<ExecutionTask> findByStatus(ExecutionTask.Status status);
+    Window<ExecutionTask> findByExecutorOrderByCreatedAtDescIdDesc(User executor, ScrollPosition position, Limit limit);
+
+    /**
+     * 某个用户的执行历史摘要（游标分页，不读取 LONGTEXT 列）
+     * 用途：执行历史列表页
+     */
+    Window<ExecutionTaskSummary> findSummariesByExecutorOrderByCreatedAtDescIdDesc(User executor,
+                                                                                 ScrollPosition position,
+                                                                                 Limit limit);
 
     /**
-     * 根据代码哈希查找最近的执行结果
-     * 用途：缓存命中检查
+     * 加载任务以及代码、输入（一条查询取出延迟加载的大字段）
+     * 用途：执行节点在事务外读取任务的代码和输入
      */
-    @Query("""
-            SELECT et FROM ExecutionTask et WHERE et.codeHash = :codeHash AND et.status = 'COMPLETED' 
-            ORDER BY et.createdAt DESC LIMIT 1
-            """)
-    Optional<ExecutionTask> findLatestCompletedByCodeHash(String codeHash);
+    @EntityGraph(attributePaths = {"codeContent", "inputData"})
+    Optional<ExecutionTask> findWithPayloadById(Long id);
+
+    /**
+     * 加载任务以及输出、错误信息
+     * 用途：任务结束后回放保存的输出
+     */
+    @EntityGraph(attributePaths = {"outputData", "errorMessage"})
+    Optional<ExecutionTask> findWithOutputById(Long id);
+
+    /**
+     * 根据状态查找任务
+     * 用途：查找所有正在执行/失败/超时的任务
+     */
+    List<ExecutionTask> findByStatus(ExecutionTask.Status status);
 
     /**
      * 查找某个代码片段的所有执行记录
@@ -45,28 +70,78 @@ public interface ExecutionTaskRepository extends JpaRepository<ExecutionTask, Lo
     List<ExecutionTask> findBySnippet(CodeSnippet snippet);
 
     /**
-     * 统计某个用户在特定时间段内的执行次数
-     * 用途：限流检查（每分钟最多10次）
+     * 批量执行的全部子任务（按用例顺序）
+     * 用途：执行节点运行批量；查看批量结果
      */
-    @Query("SELECT COUNT(et) FROM ExecutionTask et WHERE et.executor = :executor AND et.createdAt > :since")
-    long countByExecutorSince(User executor, LocalDateTime since);
+    List<ExecutionTask> findByBatchIdOrderByCaseIndexAsc(Long batchId);
 
     /**
-     * 查找超时未完成的任务
-     * 用途：清理僵尸任务
+     * 批量的全部子任务以及代码、输入
+     * 用途：执行节点运行批量
      */
-    @Query("SELECT et FROM ExecutionTask et WHERE et.status IN ('PENDING', 'RUNNING') AND et.createdAt < :timeout")
-    List<ExecutionTask> findStuckTasks(LocalDateTime timeout);
+    @EntityGraph(attributePaths = {"codeContent", "inputData"})
+    List<ExecutionTask> findWithPayloadByBatchIdOrderByCaseIndexAsc(Long batchId);
 
     /**
      * 统计某种语言的执行次数
-     * 用途：统计各语言的使用情况
+     * 用途：统计各语言的使用情况（会扫描 execution_tasks；统计页面用 ExecutionStatsService 读汇总表）
      */
     long countByLanguage(String language);
 
+    /**
+     * 某个状态下真正需要执行的任务数，不含合并到其他任务上等待结果的跟随任务（coalescedWith 非空）
+     * 用途：准入控制用 PENDING 数作为全局积压
+     */
+    long countByStatusAndCoalescedWithIsNull(ExecutionTask.Status status);
+
+    /**
+     * 某个时间之后真正执行完成的任务数（认领过的任务才有 startedAt，不含合并跟随者和命中缓存的任务）
+     * 用途：准入控制估算整个集群消化积压的速率（走 completed_at 索引）
+     */
+    long countByCompletedAtGreaterThanEqualAndStartedAtIsNotNull(LocalDateTime since);
+
     /**
      * 查找某个用户的最近N次执行
      * 用途：显示最近执行记录
      */
     List<ExecutionTask> findTop10ByExecutorOrderByCreatedAtDesc(User executor);
-}
\ No newline at end of file
+
+    /**
+     * 某个用户最近10次执行的摘要（不读取 LONGTEXT 列）
+     * 用途：显示最近执行记录
+     */
+    @Query("SELECT new com.example.codesandbox.execution.dto.ExecutionTaskSummary(" +
+            "et.id, et.language, et.status, et.executionTimeMs, et.memoryUsedMb, et.createdAt, et.completedAt) " +
+            "FROM ExecutionTask et WHERE et.executor = :executor ORDER BY et.createdAt DESC, et.id DESC LIMIT 10")
+    List<ExecutionTaskSummary> findTop10Summaries(User executor);
+
+    /**
+     * 一批任务的执行者和语言
+     * 用途：统计汇总补全合并跟随者等没有带归属的终态变更
+     */
+    @Query("SELECT new com.example.codesandbox.execution.dto.TaskAttribution(et.id, et.executor.id, et.language) " +
+            "FROM ExecutionTask et WHERE et.id IN :ids")
+    List<TaskAttribution> findAttributions(Collection<Long> ids);
+
+    /**
+     * 一批任务中已经结束的任务ID
+     * 用途：其他节点上运行的任务结束后，补齐本节点的输出订阅
+     */
+    @Query("SELECT et.id FROM ExecutionTask et WHERE et.id IN :ids AND et.status NOT IN :active")
+    List<Long> findIdsByIdInAndStatusNotIn(Collection<Long> ids, Collection<ExecutionTask.Status> active);
+
+    /**
+     * 任务是否属于某个用户
+     * 用途：订阅实时输出前校验权限
+     */
+    boolean existsByIdAndExecutorUsername(Long id, String username);
+
+    /**
+     * 某个用户某种语言最近一段时间的平均执行耗时，只扫描 idx_executor_created 上 since 之后的区间
+     * 用途：公平调度器第一次见到该用户时，在后台修正成本预估
+     */
+    @Query("SELECT AVG(et.executionTimeMs) FROM ExecutionTask et " +
+            "WHERE et.executor.id = :executorId AND et.createdAt >= :since " +
+            "AND et.language = :language AND et.executionTimeMs IS NOT NULL")
+    Double averageExecutionTimeMs(Long executorId, String language, LocalDateTime since);
+}
@@ -0,0 +1,95 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.archive.ArchivedTask;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ExecutionTaskRepository 的自定义扩展（JDBC 批量写）
+ */
+public interface ExecutionTaskRepositoryCustom {
+
+    /**
+     * 认领一个 PENDING 任务：改为 RUNNING，记录执行节点和租约
+     * 用途：执行前同步认领，消息被重复投递时只有一个节点能认领成功
+     *
+     * @return 0 表示任务已经不是 PENDING，调用方应放弃执行
+     */
+    int claim(TaskStateChange running);
+
+    /**
+     * 批量回写任务终态
+     * 用途：调度器把多个任务的终态变更合并成一次批量 UPDATE
+     *
+     * 带 workerId 的变更（认领过的任务）只在该节点仍持有任务时生效；
+     * 不带 workerId 的变更只在任务仍为 PENDING 时生效
+     *
+     * @return 实际生效的变更
+     */
+    List<TaskStateChange> applyStateChanges(List<TaskStateChange> changes);
+
+    /**
+     * 为某个节点名下所有 RUNNING 任务续租
+     * 用途：执行节点心跳，一条 UPDATE 覆盖该节点的全部任务（走 worker_id 索引）
+     *
+     * @return 续租的任务数
+     */
+    int renewLeases(String workerId, LocalDateTime now, LocalDateTime leaseExpiresAt);
+
+    /**
+     * 把一批租约已过期、且还没有用完重试次数的任务改回 PENDING，
+     * 并由回收者以 reclaimToken 的名义临时持有（租约到期时间为 reclaimExpiresAt）
+     * 用途：节点宕机后重新排队；回收者自己中途失败时，临时租约过期后会被再次回收
+     *
+     * @return 回收的任务数（最多 limit 个）
+     */
+    int reclaimExpiredLeases(String reclaimToken, LocalDateTime now, LocalDateTime reclaimExpiresAt,
+                             int maxAttempts, int limit);
+
+    /**
+     * 回收者持有的任务，带上执行者和语言，重新投递的消息不需要消费者再查数据库
+     */
+    List<TaskAttribution> findReclaimedTasks(String reclaimToken);
+
+    /**
+     * 任务已经重新投递，释放回收者的临时租约（已被执行节点接手的任务不受影响）
+     */
+    int releaseReclaimed(String reclaimToken);
+
+    /**
+     * 把一批租约已过期、且用完重试次数的任务标记为 TIMEOUT
+     *
+     * @return 标记的任务数（最多 limit 个）
+     */
+    int timeoutExpiredLeases(LocalDateTime now, int maxAttempts, String errorMessage, int limit);
+
+    /**
+     * 把 PENDING 任务记为某个领头任务的跟随者（领头任务为 null 时解除）
+     *
+     * @return 0 表示任务已经不是 PENDING
+     */
+    int attachFollower(Long taskId, Long leaderTaskId);
+
+    /**
+     * 某个领头任务仍在等待结果的跟随者
+     * 用途：领头任务结束时扇出结果，或执行环境异常时重新选举
+     */
+    List<Long> findPendingFollowers(Long leaderTaskId);
+
+    /**
+     * 领头任务已经结束、自己还在 PENDING 的跟随者复制领头任务的结果
+     * 用途：租约回收器兜底（跟随者挂上时领头任务刚结束、扇出前节点宕机、领头任务被回收器标记为 TIMEOUT）
+     *
+     * @return 补齐的跟随者数
+     */
+    int resolveFinishedFollowers(LocalDateTime now);
+
+    /**
+     * 结束时间早于 cutoff 的任务（按 id 升序，最多 limit 个），包含全部大字段
+     * 用途：冷数据归档
+     */
+    List<ArchivedTask> findArchivable(LocalDateTime cutoff, int limit);
+}
@@ -0,0 +1,261 @@
+package com.example.codesandbox.execution.repository;
+
+import com.example.codesandbox.execution.archive.ArchivedTask;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.storage.blob.BlobStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ExecutionTaskRepositoryCustomImpl implements ExecutionTaskRepositoryCustom {
+
+    /**
+     * 认领：只有仍处于 PENDING 的任务才会被标记为 RUNNING，
+     * 同一任务的消息被重复投递到多个节点时只有一个节点的 UPDATE 能命中
+     */
+    private static final String CLAIM_SQL = """
+            UPDATE execution_tasks
+            SET status = 'RUNNING', container_id = ?, worker_id = ?, started_at = ?,
+                heartbeat_at = ?, lease_expires_at = ?, queue_wait_ms = ?, attempt_count = attempt_count + 1
+            WHERE id = ? AND status = 'PENDING'
+            """;
+
+    /**
+     * 认领过的任务：只有仍由本节点持有时才写入终态（fencing），
+     * 租约过期被回收、甚至已经被其他节点重新认领后，迟到的结果不会覆盖新的执行
+     * 输出先写入 BlobStore，行里只保存哈希；blob 先于引用它的行落盘
+     */
+    private static final String FINISH_CLAIMED_SQL = """
+            UPDATE execution_tasks
+            SET status = ?, output_hash = ?, error_message = ?, execution_time_ms = ?, memory_used_mb = ?,
+                compile_time_ms = ?, completed_at = ?, lease_expires_at = NULL
+            WHERE id = ? AND worker_id = ? AND status = 'RUNNING'
+            """;
+
+    /**
+     * 没有认领过的任务（合并跟随者、批量中没有运行的用例、认领前就失败的任务）只在仍为 PENDING 时写入终态
+     */
+    private static final String FINISH_UNCLAIMED_SQL = """
+            UPDATE execution_tasks
+            SET status = ?, output_hash = ?, error_message = ?, execution_time_ms = ?, memory_used_mb = ?,
+                compile_time_ms = ?, completed_at = ?, lease_expires_at = NULL
+            WHERE id = ? AND status = 'PENDING'
+            """;
+
+    private static final String RENEW_LEASES_SQL = """
+            UPDATE execution_tasks SET heartbeat_at = ?, lease_expires_at = ?
+            WHERE worker_id = ? AND status = 'RUNNING'
+            """;
+
+    /**
+     * 正常排队的 PENDING 任务没有租约（lease_expires_at 为 NULL），不会被选中；
+     * 被选中的 PENDING 任务是之前的回收者没来得及重新投递的
+     * 批量中的用例不单独投递，跟随批量的租约一起回收（见 ExecutionBatchRepository.failCasesOfExpired）
+     * ORDER BY + LIMIT 让每条语句只锁住一小段 (status, lease_expires_at) 索引范围
+     */
+    private static final String RECLAIM_EXPIRED_SQL = """
+            UPDATE execution_tasks
+            SET status = 'PENDING', worker_id = ?, lease_expires_at = ?, heartbeat_at = NULL, container_id = NULL
+            WHERE status IN ('PENDING', 'RUNNING') AND lease_expires_at < ? AND attempt_count < ? AND batch_id IS NULL
+            ORDER BY lease_expires_at
+            LIMIT ?
+            """;
+
+    private static final String FIND_RECLAIMED_SQL =
+            "SELECT id, executor_id, language FROM execution_tasks WHERE worker_id = ? AND status = 'PENDING'";
+
+    private static final String RELEASE_RECLAIMED_SQL =
+            "UPDATE execution_tasks SET worker_id = NULL, lease_expires_at = NULL WHERE worker_id = ? AND status = 'PENDING'";
+
+    private static final String TIMEOUT_EXPIRED_SQL = """
+            UPDATE execution_tasks
+            SET status = 'TIMEOUT', error_message = ?, completed_at = ?, lease_expires_at = NULL
+            WHERE status IN ('PENDING', 'RUNNING') AND lease_expires_at < ? AND attempt_count >= ? AND batch_id IS NULL
+            ORDER BY lease_expires_at
+            LIMIT ?
+            """;
+
+    private static final String ATTACH_FOLLOWER_SQL =
+            "UPDATE execution_tasks SET coalesced_with = ? WHERE id = ? AND status = 'PENDING'";
+
+    private static final String FIND_PENDING_FOLLOWERS_SQL =
+            "SELECT id FROM execution_tasks WHERE coalesced_with = ? AND status = 'PENDING'";
+
+    /**
+     * 领头任务已经结束的跟随者直接复制领头任务的结果（输出只复制哈希，blob 共用）
+     * 多表 UPDATE 不支持 LIMIT；被选中的只是领头任务结束后才挂上来、或结束时所在节点宕机的少量跟随者
+     */
+    private static final String RESOLVE_FOLLOWERS_SQL = """
+            UPDATE execution_tasks f JOIN execution_tasks l ON l.id = f.coalesced_with
+            SET f.status = l.status, f.output_hash = l.output_hash, f.error_message = l.error_message,
+                f.execution_time_ms = l.execution_time_ms, f.memory_used_mb = l.memory_used_mb, f.completed_at = ?
+            WHERE f.status = 'PENDING' AND l.status IN ('COMPLETED', 'FAILED', 'TIMEOUT', 'CANCELLED')
+            """;
+
+    private static final String FIND_ARCHIVABLE_SQL = """
+            SELECT id, executor_id, snippet_id, batch_id, case_index, language, status,
+                   code_hash, input_hash, output_hash, code_content, input_data, output_data, error_message,
+                   execution_time_ms, memory_used_mb, queue_wait_ms, compile_time_ms, attempt_count,
+                   created_at, started_at, completed_at
+            FROM execution_tasks
+            WHERE status IN ('COMPLETED', 'FAILED', 'TIMEOUT', 'CANCELLED') AND completed_at < ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+
+    @Override
+    public int claim(TaskStateChange running) {
+        return jdbcTemplate.update(CLAIM_SQL,
+                running.getContainerId(),
+                running.getWorkerId(),
+                timestamp(running.getStartedAt()),
+                timestamp(running.getStartedAt()),
+                timestamp(running.getLeaseExpiresAt()),
+                running.getQueueWaitMs(),
+                running.getTaskId());
+    }
+
+    @Override
+    @Transactional
+    public List<TaskStateChange> applyStateChanges(List<TaskStateChange> changes) {
+        List<TaskStateChange> claimed = new ArrayList<>();
+        List<Object[]> claimedArgs = new ArrayList<>();
+        List<TaskStateChange> unclaimed = new ArrayList<>();
+        List<Object[]> unclaimedArgs = new ArrayList<>();
+        for (TaskStateChange change : changes) {
+            boolean fenced = change.getWorkerId() != null;
+            Object[] args = new Object[fenced ? 9 : 8];
+            args[0] = change.getStatus().name();
+            args[1] = change.getOutputData() == null ? null : blobStore.putText(change.getOutputData());
+            args[2] = change.getErrorMessage();
+            args[3] = change.getExecutionTimeMs();
+            args[4] = change.getMemoryUsedMb();
+            args[5] = change.getCompileTimeMs();
+            args[6] = timestamp(change.getCompletedAt());
+            args[7] = change.getTaskId();
+            if (fenced) {
+                args[8] = change.getWorkerId();
+                claimed.add(change);
+                claimedArgs.add(args);
+            } else {
+                unclaimed.add(change);
+                unclaimedArgs.add(args);
+            }
+        }
+        List<TaskStateChange> applied = new ArrayList<>(changes.size());
+        if (!claimed.isEmpty()) {
+            collectApplied(applied, claimed, jdbcTemplate.batchUpdate(FINISH_CLAIMED_SQL, claimedArgs));
+        }
+        if (!unclaimed.isEmpty()) {
+            collectApplied(applied, unclaimed, jdbcTemplate.batchUpdate(FINISH_UNCLAIMED_SQL, unclaimedArgs));
+        }
+        return applied;
+    }
+
+    /**
+     * batchUpdate 按语句返回影响行数；驱动不返回行数（SUCCESS_NO_INFO）时视为生效
+     */
+    private static void collectApplied(List<TaskStateChange> applied, List<TaskStateChange> changes, int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                applied.add(changes.get(i));
+            }
+        }
+    }
+
+    @Override
+    public int renewLeases(String workerId, LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        return jdbcTemplate.update(RENEW_LEASES_SQL, timestamp(now), timestamp(leaseExpiresAt), workerId);
+    }
+
+    @Override
+    public int reclaimExpiredLeases(String reclaimToken, LocalDateTime now, LocalDateTime reclaimExpiresAt,
+                                    int maxAttempts, int limit) {
+        return jdbcTemplate.update(RECLAIM_EXPIRED_SQL, reclaimToken, timestamp(reclaimExpiresAt), timestamp(now),
+                maxAttempts, limit);
+    }
+
+    @Override
+    public List<TaskAttribution> findReclaimedTasks(String reclaimToken) {
+        return jdbcTemplate.query(FIND_RECLAIMED_SQL, (rs, rowNum) -> new TaskAttribution(
+                rs.getLong("id"), rs.getObject("executor_id", Long.class), rs.getString("language")), reclaimToken);
+    }
+
+    @Override
+    public int releaseReclaimed(String reclaimToken) {
+        return jdbcTemplate.update(RELEASE_RECLAIMED_SQL, reclaimToken);
+    }
+
+    @Override
+    public int timeoutExpiredLeases(LocalDateTime now, int maxAttempts, String errorMessage, int limit) {
+        return jdbcTemplate.update(TIMEOUT_EXPIRED_SQL, errorMessage, timestamp(now), timestamp(now), maxAttempts, limit);
+    }
+
+    @Override
+    public int attachFollower(Long taskId, Long leaderTaskId) {
+        return jdbcTemplate.update(ATTACH_FOLLOWER_SQL, leaderTaskId, taskId);
+    }
+
+    @Override
+    public List<Long> findPendingFollowers(Long leaderTaskId) {
+        return jdbcTemplate.queryForList(FIND_PENDING_FOLLOWERS_SQL, Long.class, leaderTaskId);
+    }
+
+    @Override
+    public int resolveFinishedFollowers(LocalDateTime now) {
+        return jdbcTemplate.update(RESOLVE_FOLLOWERS_SQL, timestamp(now));
+    }
+
+    @Override
+    public List<ArchivedTask> findArchivable(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(FIND_ARCHIVABLE_SQL, (rs, rowNum) -> archivedTask(rs), timestamp(cutoff), limit);
+    }
+
+    private static ArchivedTask archivedTask(ResultSet rs) throws SQLException {
+        return new ArchivedTask(
+                rs.getLong("id"),
+                rs.getObject("executor_id", Long.class),
+                rs.getObject("snippet_id", Long.class),
+                rs.getObject("batch_id", Long.class),
+                rs.getObject("case_index", Integer.class),
+                rs.getString("language"),
+                ExecutionTask.Status.valueOf(rs.getString("status")),
+                rs.getString("code_hash"),
+                rs.getString("input_hash"),
+                rs.getString("output_hash"),
+                rs.getString("code_content"),
+                rs.getString("input_data"),
+                rs.getString("output_data"),
+                rs.getString("error_message"),
+                rs.getObject("execution_time_ms", Integer.class),
+                rs.getObject("memory_used_mb", Integer.class),
+                rs.getObject("queue_wait_ms", Integer.class),
+                rs.getObject("compile_time_ms", Integer.class),
+                rs.getObject("attempt_count", Integer.class),
+                localDateTime(rs.getTimestamp("created_at")),
+                localDateTime(rs.getTimestamp("started_at")),
+                localDateTime(rs.getTimestamp("completed_at")));
+    }
+
+    private static LocalDateTime localDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
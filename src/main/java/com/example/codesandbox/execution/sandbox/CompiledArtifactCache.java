@@ -0,0 +1,301 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.support.CodeHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 编译产物缓存（本地磁盘）
+ *
+ * key = 源码 SHA-256 + 语言 + 工具链版本（配置的运行时版本 + 编译器 --version 输出的哈希），
+ * 输入不同导致执行结果缓存未命中时，仍然可以复用编译结果。
+ *
+ * 布局：dir/{key}/ 下是编译产物（可执行文件或 .class），文件只读
+ * 命中时把产物复制进沙箱工作目录。不用硬链接：用户代码与服务同一个 uid 运行，
+ * 可以 chmod 后改写链接指向的 inode，从而污染其他任务拿到的缓存；复制后沙箱改写的只是自己的副本
+ * 复制在锁外进行，期间条目被引用计数钉住，淘汰会跳过被钉住的条目，不会复制到一半目录被删掉
+ *
+ * 按字节数做 LRU 淘汰，启动时扫描已有目录重建索引（按修改时间排序）
+ */
+@Slf4j
+public class CompiledArtifactCache {
+
+    private final Path root;
+    private final long maxBytes;
+    private final ExecutionProperties properties;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentMap<LanguageProfile, String> toolchainFingerprints = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long totalBytes;
+
+    public CompiledArtifactCache(ExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.root = Paths.get(properties.getArtifactCache().getDir());
+        this.maxBytes = properties.getArtifactCache().getMaxBytes();
+        this.hits = Counter.builder("execution.artifact.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("execution.artifact.cache").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("execution.artifact.cache.evictions").register(meterRegistry);
+        Gauge.builder("execution.artifact.cache.size", this, CompiledArtifactCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        try {
+            Files.createDirectories(root);
+            loadExisting();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法初始化编译产物缓存目录: " + root, e);
+        }
+    }
+
+    public String keyFor(LanguageProfile profile, String sourceCode) {
+        String version = properties.runtimeVersionFor(profile.getLanguage()) + '-' + toolchainFingerprint(profile);
+        return profile.getLanguage() + '-' + CodeHasher.sha256(version + '\n' + sourceCode);
+    }
+
+    /**
+     * 命中时把产物复制进沙箱工作目录
+     *
+     * @return 是否命中
+     */
+    public boolean copyInto(String key, Path workDir) {
+        Entry entry;
+        synchronized (this) {
+            // get 同时刷新 LRU 顺序
+            entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return false;
+            }
+            entry.pins++;
+        }
+        List<Path> copied = new ArrayList<>();
+        boolean complete = false;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root.resolve(key))) {
+            for (Path file : files) {
+                Path target = workDir.resolve(file.getFileName().toString());
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                copied.add(target);
+            }
+            complete = copied.size() == entry.files;
+            if (!complete) {
+                log.warn("编译产物缓存文件数不符（{}/{}），回退为重新编译: {}", copied.size(), entry.files, key);
+            }
+        } catch (IOException e) {
+            log.warn("使用编译产物缓存失败，回退为重新编译: {}", key, e);
+        } finally {
+            synchronized (this) {
+                entry.pins--;
+                if (!complete) {
+                    // 只移除自己钉住的这个条目，期间重新保存的同名条目不受影响
+                    removeEntry(key, entry);
+                }
+                evictIfNeeded();
+            }
+        }
+        if (!complete) {
+            copied.forEach(path -> path.toFile().delete());
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * 编译成功后保存产物
+     */
+    public void store(String key, Path workDir, List<String> artifactGlobs) {
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+        }
+        Path target = root.resolve(key);
+        Path staging = null;
+        try {
+            staging = Files.createTempDirectory(root, ".staging-");
+            long size = 0;
+            int count = 0;
+            for (String glob : artifactGlobs) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(workDir, glob)) {
+                    for (Path file : files) {
+                        Path copy = staging.resolve(file.getFileName().toString());
+                        Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+                        copy.toFile().setWritable(false, false);
+                        size += Files.size(copy);
+                        count++;
+                    }
+                }
+            }
+            if (size == 0 || size > maxBytes) {
+                return;
+            }
+            synchronized (this) {
+                try {
+                    Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+                    staging = null;
+                } catch (FileAlreadyExistsException e) {
+                    return;
+                }
+                entries.put(key, new Entry(size, count));
+                totalBytes += size;
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("保存编译产物失败: {}", key, e);
+        } finally {
+            if (staging != null) {
+                deleteRecursively(staging);
+            }
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 正在被复制的条目跳过，超出的部分等它们复制完再淘汰
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getValue().pins > 0) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            deleteRecursively(root.resolve(eldest.getKey()));
+            evictions.increment();
+        }
+    }
+
+    private void removeEntry(String key, Entry entry) {
+        if (entry.pins == 0 && entries.remove(key, entry)) {
+            totalBytes -= entry.size;
+            deleteRecursively(root.resolve(key));
+        }
+    }
+
+    private void loadExisting() throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(root)) {
+            for (Path child : children) {
+                if (child.getFileName().toString().startsWith(".staging-")) {
+                    deleteRecursively(child);
+                } else if (Files.isDirectory(child)) {
+                    dirs.add(child);
+                }
+            }
+        }
+        dirs.sort(Comparator.comparing(CompiledArtifactCache::lastModified));
+        for (Path dir : dirs) {
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.toList();
+            }
+            long size = files.stream().mapToLong(CompiledArtifactCache::sizeOf).sum();
+            entries.put(dir.getFileName().toString(), new Entry(size, files.size()));
+            totalBytes += size;
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * 编译器版本输出的哈希；探测失败时为 unknown（仍然可以缓存，只是升级编译器后需要同时修改运行时版本配置）
+     */
+    private String toolchainFingerprint(LanguageProfile profile) {
+        return toolchainFingerprints.computeIfAbsent(profile, p -> {
+            if (p.getVersionCommand().isEmpty()) {
+                return "none";
+            }
+            try {
+                Process process = new ProcessBuilder(p.getVersionCommand()).redirectErrorStream(true).start();
+                String output;
+                try (InputStream in = process.getInputStream()) {
+                    output = new String(in.readNBytes(4096), StandardCharsets.UTF_8);
+                }
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    return "unknown";
+                }
+                return CodeHasher.sha256(output).substring(0, 16);
+            } catch (IOException e) {
+                return "unknown";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "unknown";
+            }
+        });
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("删除编译产物目录失败: {}", dir, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long size;
+        private final int files;
+        /**
+         * 正在复制该条目的调用数，大于 0 时不会被淘汰
+         */
+        private int pins;
+
+        private Entry(long size, int files) {
+            this.size = size;
+            this.files = files;
+        }
+    }
+}
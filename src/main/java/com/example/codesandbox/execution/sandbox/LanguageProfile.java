@@ -0,0 +1,56 @@
+package com.example.codesandbox.execution.sandbox;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 各语言的源文件名、编译命令和运行命令
+ *
+ * compileCommand 为空表示解释型语言，无需编译；
+ * artifacts 是编译产物的文件名（支持 * 通配），运行时只依赖这些文件，可以放进编译产物缓存复用；
+ * versionCommand 输出工具链版本，作为编译产物缓存 key 的一部分
+ */
+@Getter
+public enum LanguageProfile {
+
+    PYTHON("python", "main.py", List.of(), List.of("python3", "main.py"), List.of(), List.of()),
+    JAVASCRIPT("javascript", "main.js", List.of(), List.of("node", "main.js"), List.of(), List.of()),
+    JAVA("java", "Main.java", List.of("javac", "-encoding", "UTF-8", "Main.java"), List.of("java", "-cp", ".", "Main"),
+            List.of("*.class"), List.of("javac", "-version")),
+    CPP("cpp", "main.cpp", List.of("g++", "-O2", "-o", "main", "main.cpp"), List.of("./main"),
+            List.of("main"), List.of("g++", "--version")),
+    GO("go", "main.go", List.of("go", "build", "-o", "main", "main.go"), List.of("./main"),
+            List.of("main"), List.of("go", "version"));
+
+    private final String language;
+    private final String sourceFile;
+    private final List<String> compileCommand;
+    private final List<String> runCommand;
+    private final List<String> artifacts;
+    private final List<String> versionCommand;
+
+    LanguageProfile(String language, String sourceFile, List<String> compileCommand, List<String> runCommand,
+                    List<String> artifacts, List<String> versionCommand) {
+        this.language = language;
+        this.sourceFile = sourceFile;
+        this.compileCommand = compileCommand;
+        this.runCommand = runCommand;
+        this.artifacts = artifacts;
+        this.versionCommand = versionCommand;
+    }
+
+    public boolean isCompiled() {
+        return !compileCommand.isEmpty();
+    }
+
+    public static Optional<LanguageProfile> of(String language) {
+        for (LanguageProfile profile : values()) {
+            if (profile.language.equalsIgnoreCase(language)) {
+                return Optional.of(profile);
+            }
+        }
+        return Optional.empty();
+    }
+}
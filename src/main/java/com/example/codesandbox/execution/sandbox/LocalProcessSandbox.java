@@ -0,0 +1,300 @@
+package com.example.codesandbox.execution.sandbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 本地进程沙箱
+ *
+ * 每个沙箱一个临时工作目录；stdout/stderr 重定向到文件，
+ * 避免为每个进程额外占用读管道的线程。
+ * 运行期间由执行线程每隔 streamPollIntervalMs 读取文件新增部分，作为增量输出回调出去；
+ * 最终结果按 maxOutputBytes 截断并附加截断标记
+ * 同一轮询中采样进程树的内存峰值（见 {@link ProcessMemorySampler}）
+ * 每次执行在独立的进程组中运行，结束后连同残留的后台进程一起结束（见 {@link ProcessGroups}）
+ */
+@Slf4j
+public class LocalProcessSandbox implements Sandbox {
+
+    private final LanguageProfile profile;
+    private final Path workDir;
+    private final Duration timeout;
+    private final int maxOutputBytes;
+    private final long pollIntervalMs;
+    private final long outputKillBytes;
+    private final CompiledArtifactCache artifactCache;
+    private final AtomicInteger runs = new AtomicInteger();
+    private final Set<Long> processGroups = ConcurrentHashMap.newKeySet();
+    private volatile boolean tainted;
+
+    /**
+     * @param artifactCache 为 null 时每次都重新编译
+     */
+    public LocalProcessSandbox(LanguageProfile profile, Path workDir, Duration timeout, int maxOutputBytes,
+                               long pollIntervalMs, long outputKillBytes, CompiledArtifactCache artifactCache) {
+        this.profile = profile;
+        this.workDir = workDir;
+        this.timeout = timeout;
+        this.maxOutputBytes = maxOutputBytes;
+        this.pollIntervalMs = pollIntervalMs;
+        this.outputKillBytes = outputKillBytes;
+        this.artifactCache = artifactCache;
+    }
+
+    @Override
+    public String getId() {
+        return "local-" + workDir.getFileName();
+    }
+
+    @Override
+    public String getLanguage() {
+        return profile.getLanguage();
+    }
+
+    public Path getWorkDir() {
+        return workDir;
+    }
+
+    @Override
+    public SandboxResult compile(String code) {
+        try {
+            Files.writeString(workDir.resolve(profile.getSourceFile()), code, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入源码失败", e);
+        }
+        if (!profile.isCompiled()) {
+            return SandboxResult.skipped();
+        }
+        if (artifactCache == null) {
+            return exec(profile.getCompileCommand(), null, OutputListener.NONE);
+        }
+        String key = artifactCache.keyFor(profile, code);
+        if (artifactCache.copyInto(key, workDir)) {
+            return SandboxResult.skipped();
+        }
+        SandboxResult result = exec(profile.getCompileCommand(), null, OutputListener.NONE);
+        if (result.isSuccess()) {
+            artifactCache.store(key, workDir, profile.getArtifacts());
+        }
+        return result;
+    }
+
+    @Override
+    public SandboxResult run(String input, OutputListener listener) {
+        return exec(profile.getRunCommand(), input, listener);
+    }
+
+    private SandboxResult exec(List<String> command, String input, OutputListener listener) {
+        // 每次执行使用独立的重定向文件，同一个沙箱中可以并行运行多个输入
+        int run = runs.incrementAndGet();
+        Path stdout = workDir.resolve(".stdout-" + run);
+        Path stderr = workDir.resolve(".stderr-" + run);
+        Path stdin = workDir.resolve(".stdin-" + run);
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        try {
+            Files.writeString(stdin, input == null ? "" : input, StandardCharsets.UTF_8);
+            ProcessBuilder builder = new ProcessBuilder(ProcessGroups.isolate(command));
+            // 输出重定向到文件时解释器默认全缓冲，关掉缓冲才能实时读到增量输出
+            builder.environment().put("PYTHONUNBUFFERED", "1");
+            Process process = builder
+                    .directory(workDir.toFile())
+                    .redirectInput(stdin.toFile())
+                    .redirectOutput(stdout.toFile())
+                    .redirectError(stderr.toFile())
+                    .start();
+            if (ProcessGroups.supported()) {
+                processGroups.add(process.pid());
+            }
+
+            boolean finished = false;
+            boolean outputLimitExceeded = false;
+            ProcessMemorySampler memory = new ProcessMemorySampler();
+            try (OutputTail outTail = new OutputTail(stdout, OutputStreamType.STDOUT, listener);
+                 OutputTail errTail = new OutputTail(stderr, OutputStreamType.STDERR, listener)) {
+                while (true) {
+                    finished = process.waitFor(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    outTail.pump(finished);
+                    errTail.pump(finished);
+                    if (finished) {
+                        break;
+                    }
+                    memory.sample(process.toHandle());
+                    if (outTail.size() > outputKillBytes || errTail.size() > outputKillBytes) {
+                        outputLimitExceeded = true;
+                        break;
+                    }
+                    if (System.nanoTime() > deadline) {
+                        break;
+                    }
+                }
+            }
+            // 结束程序 fork 出的后台子进程（包括父进程退出后被 init 接管的），避免留到下一个任务
+            if (ProcessGroups.supported()) {
+                ProcessGroups.kill(Set.of(process.pid()), null);
+            } else {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+            }
+            if (!finished) {
+                tainted = true;
+                process.destroyForcibly().waitFor();
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String errorOutput = readCapped(stderr);
+            if (outputLimitExceeded) {
+                errorOutput += "\n[输出超过 " + outputKillBytes + " 字节，进程已被终止]";
+            }
+            boolean timedOut = !finished && !outputLimitExceeded;
+            return new SandboxResult(finished ? process.exitValue() : -1,
+                    readCapped(stdout), errorOutput, timedOut, elapsedMs, memory.peakMb());
+        } catch (IOException e) {
+            tainted = true;
+            throw new UncheckedIOException("启动进程失败: " + command, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("执行被中断", e);
+        } finally {
+            deleteQuietly(stdin);
+            deleteQuietly(stdout);
+            deleteQuietly(stderr);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("删除临时文件失败: {}", file, e);
+        }
+    }
+
+    private String readCapped(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return "";
+        }
+        long size = Files.size(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] bytes = in.readNBytes(maxOutputBytes);
+            String text = new String(bytes, 0, Utf8.boundary(bytes, 0, bytes.length), StandardCharsets.UTF_8);
+            if (size > maxOutputBytes) {
+                text += "\n[输出超过 " + maxOutputBytes + " 字节，已截断]\n";
+            }
+            return text;
+        }
+    }
+
+    /**
+     * 跟踪输出文件新增的部分，只回调前 maxOutputBytes 字节（超出部分由上层截断）
+     */
+    private final class OutputTail implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final OutputStreamType stream;
+        private final OutputListener listener;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private long position;
+
+        OutputTail(Path file, OutputStreamType stream, OutputListener listener) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.stream = stream;
+            this.listener = listener;
+        }
+
+        long size() throws IOException {
+            return channel.size();
+        }
+
+        void pump(boolean last) throws IOException {
+            if (listener == OutputListener.NONE) {
+                return;
+            }
+            while (position <= maxOutputBytes) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    return;
+                }
+                byte[] bytes = buffer.array();
+                // 非最后一次读取时，不完整的多字节字符留到下一轮
+                int emit = last ? read : Utf8.boundary(bytes, 0, read);
+                if (emit == 0) {
+                    return;
+                }
+                listener.onOutput(stream, bytes, 0, emit);
+                position += emit;
+                if (read < buffer.capacity()) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 结束残留进程，删除工作目录中的所有文件（源码、编译产物、程序写出的文件），保留目录本身；
+     * 出现过超时、输出超限或启动失败的沙箱不复用，重置时还有进程残留的沙箱也不复用
+     * （进程可能已经改动了工作目录以外的东西）
+     */
+    @Override
+    public boolean reset() {
+        int leftovers = killLeftovers();
+        if (leftovers > 0) {
+            log.warn("沙箱 {} 重置时仍有 {} 个残留进程，已结束并回收沙箱", getId(), leftovers);
+            return false;
+        }
+        if (tainted || !Files.isDirectory(workDir)) {
+            return false;
+        }
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(workDir))
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("重置沙箱目录失败: {}", workDir, e);
+            return false;
+        }
+        try (Stream<Path> remaining = Files.list(workDir)) {
+            return remaining.findAny().isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        killLeftovers();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("清理沙箱目录失败: {}", workDir, e);
+        }
+    }
+
+    private int killLeftovers() {
+        int killed = ProcessGroups.kill(Set.copyOf(processGroups), workDir);
+        processGroups.clear();
+        return killed;
+    }
+}
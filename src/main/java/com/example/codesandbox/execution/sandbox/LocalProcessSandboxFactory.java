@@ -0,0 +1,53 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 本地进程沙箱工厂
+ *
+ * 直接在宿主机上用子进程执行代码，没有容器隔离，只用于开发和测试环境
+ * 配置：codesandbox.execution.sandbox.backend=local，只在 dev / test profile 中设置；
+ * 不是默认值，没有配置隔离后端时缺少 SandboxFactory，应用启动失败
+ */
+@Component
+@Qualifier(SandboxFactory.BACKEND)
+@ConditionalOnProperty(prefix = "codesandbox.execution.sandbox", name = "backend", havingValue = "local")
+public class LocalProcessSandboxFactory implements SandboxFactory {
+
+    private final ExecutionProperties properties;
+    private final CompiledArtifactCache artifactCache;
+
+    /**
+     * @param artifactCache 编译产物缓存，关闭时为 null
+     */
+    public LocalProcessSandboxFactory(ExecutionProperties properties, @Nullable CompiledArtifactCache artifactCache) {
+        this.properties = properties;
+        this.artifactCache = artifactCache;
+    }
+
+    @Override
+    public Sandbox create(String language) {
+        LanguageProfile profile = LanguageProfile.of(language)
+                .orElseThrow(() -> new UnsupportedLanguageException(language));
+        ExecutionProperties.Sandbox config = properties.getSandbox();
+        try {
+            Path root = Paths.get(config.getWorkDir());
+            Files.createDirectories(root);
+            Path workDir = Files.createTempDirectory(root, profile.getLanguage() + "-");
+            return new LocalProcessSandbox(profile, workDir, config.getTimeout(), config.getMaxOutputBytes(),
+                    config.getStreamPollIntervalMs(), config.getOutputKillBytes(), artifactCache);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建沙箱工作目录失败", e);
+        }
+    }
+}
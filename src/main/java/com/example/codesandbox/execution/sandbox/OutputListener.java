@@ -0,0 +1,15 @@
+package com.example.codesandbox.execution.sandbox;
+
+/**
+ * 运行过程中的增量输出回调
+ *
+ * 沙箱保证每次回调的 data 都在 UTF-8 字符边界上结束
+ */
+@FunctionalInterface
+public interface OutputListener {
+
+    OutputListener NONE = (stream, data, offset, length) -> {
+    };
+
+    void onOutput(OutputStreamType stream, byte[] data, int offset, int length);
+}
@@ -0,0 +1,9 @@
+package com.example.codesandbox.execution.sandbox;
+
+/**
+ * 输出流类型
+ */
+public enum OutputStreamType {
+    STDOUT,
+    STDERR
+}
@@ -0,0 +1,106 @@
+package com.example.codesandbox.execution.sandbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结束沙箱中残留的进程
+ *
+ * 每次执行都通过 setsid 启动，程序自己成为新会话和进程组的首进程（pgid = sid = pid），
+ * fork 出的子进程即使父进程已经退出、被 init 接管，也还留在这个进程组里。
+ * 按 /proc/{pid}/stat 中的进程组和会话找出这些进程；
+ * 自己再调用 setsid 脱离进程组的守护进程，按当前目录仍在沙箱工作目录下找出。
+ * 没有 setsid 或 /proc 的系统（非 Linux）上退化为只结束启动进程的子孙进程
+ */
+final class ProcessGroups {
+
+    private static final Path PROC = Paths.get("/proc");
+    private static final Path SETSID = Paths.get("/usr/bin/setsid");
+    private static final boolean SUPPORTED = Files.isReadable(PROC.resolve("self").resolve("stat"))
+            && Files.isExecutable(SETSID);
+    private static final long KILL_WAIT_MS = 1000;
+
+    private ProcessGroups() {
+    }
+
+    static boolean supported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * 让命令在独立的进程组中运行
+     */
+    static List<String> isolate(List<String> command) {
+        if (!SUPPORTED) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>(command.size() + 1);
+        wrapped.add(SETSID.toString());
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * 强制结束属于这些进程组（或会话）的进程，以及当前目录在 workDir 下的进程
+     *
+     * @param workDir 为 null 时不按目录查找（同一沙箱中可能有其他执行在运行）
+     * @return 找到并结束的进程数
+     */
+    static int kill(Collection<Long> groups, Path workDir) {
+        if (!SUPPORTED || (groups.isEmpty() && workDir == null)) {
+            return 0;
+        }
+        long self = ProcessHandle.current().pid();
+        List<ProcessHandle> survivors = ProcessHandle.allProcesses()
+                .filter(process -> process.pid() != self && belongs(process.pid(), groups, workDir))
+                .toList();
+        survivors.forEach(ProcessHandle::destroyForcibly);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(KILL_WAIT_MS);
+        for (ProcessHandle process : survivors) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                process.onExit().get(Math.max(remainingMs, 1), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // 超时由调用方按返回值处理
+            }
+        }
+        return survivors.size();
+    }
+
+    private static boolean belongs(long pid, Collection<Long> groups, Path workDir) {
+        Path dir = PROC.resolve(Long.toString(pid));
+        try {
+            // 形如 "pid (comm) state ppid pgrp session ..."，comm 中可能有空格和括号
+            String stat = Files.readString(dir.resolve("stat"));
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            if ("Z".equals(fields[0])) {
+                // 已经结束、等待回收的僵尸进程
+                return false;
+            }
+            if (groups.contains(Long.parseLong(fields[2])) || groups.contains(Long.parseLong(fields[3]))) {
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            // 进程刚好结束
+            return false;
+        }
+        if (workDir == null) {
+            return false;
+        }
+        try {
+            return Files.readSymbolicLink(dir.resolve("cwd")).startsWith(workDir);
+        } catch (IOException | RuntimeException e) {
+            // 其他用户的进程没有权限读取
+            return false;
+        }
+    }
+}
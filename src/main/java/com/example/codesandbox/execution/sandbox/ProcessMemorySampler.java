@@ -0,0 +1,58 @@
+package com.example.codesandbox.execution.sandbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 采集一次运行的内存峰值：读取 /proc/{pid}/status 中的 VmHWM（常驻内存峰值）
+ *
+ * 执行线程每轮询一次输出就采样一次，取进程及其所有子进程 VmHWM 之和的最大值。
+ * 进程结束后 /proc 条目随之消失，所以比第一次采样还早结束的程序没有数据；
+ * 没有 /proc 的系统（非 Linux）同样没有数据，此时 memoryUsedMb 为 null，不计入内存指标
+ */
+final class ProcessMemorySampler {
+
+    private static final Path PROC = Paths.get("/proc");
+    private static final boolean SUPPORTED = Files.isReadable(PROC.resolve("self").resolve("status"));
+
+    private long peakKb = -1;
+
+    void sample(ProcessHandle process) {
+        if (!SUPPORTED) {
+            return;
+        }
+        long totalKb = highWaterMarkKb(process.pid());
+        if (totalKb < 0) {
+            return;
+        }
+        for (ProcessHandle child : process.descendants().toList()) {
+            totalKb += Math.max(0, highWaterMarkKb(child.pid()));
+        }
+        peakKb = Math.max(peakKb, totalKb);
+    }
+
+    /**
+     * @return 内存峰值（MB，向上取整），没有采到时为 null
+     */
+    Integer peakMb() {
+        return peakKb < 0 ? null : (int) ((peakKb + 1023) / 1024);
+    }
+
+    private static long highWaterMarkKb(long pid) {
+        try {
+            List<String> lines = Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("status"));
+            for (String line : lines) {
+                if (line.startsWith("VmHWM:")) {
+                    // 形如 "VmHWM:	   12345 kB"
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 进程刚好结束或内核线程没有该字段
+        }
+        return -1;
+    }
+}
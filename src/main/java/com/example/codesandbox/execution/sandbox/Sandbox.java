@@ -0,0 +1,46 @@
+package com.example.codesandbox.execution.sandbox;
+
+/**
+ * 沙箱：一次代码执行所在的隔离环境
+ *
+ * 生命周期：create → compile → run（一次或多次）→ close
+ * 支持复用的沙箱在 close 之前可以 reset，清空后交给下一个任务（见 SandboxPool）
+ * 解释型语言（python/javascript）的 compile 只负责写入源码；
+ * 编译成功后 run 可以被多个线程同时调用（批量执行测试用例时复用同一次编译）
+ */
+public interface Sandbox extends AutoCloseable {
+
+    /**
+     * 沙箱ID（记录到 ExecutionTask.containerId）
+     */
+    String getId();
+
+    String getLanguage();
+
+    /**
+     * 写入源码并编译
+     */
+    SandboxResult compile(String code);
+
+    /**
+     * 运行已编译的程序，input 作为标准输入
+     *
+     * @param listener 运行期间的增量输出回调；返回的结果中仍包含按上限截断后的完整输出
+     */
+    SandboxResult run(String input, OutputListener listener);
+
+    /**
+     * 清空文件系统和进程状态，供下一个任务复用
+     *
+     * @return false 表示不能复用（出现过超时、输出超限等异常，或清理失败），调用方应 close
+     */
+    default boolean reset() {
+        return false;
+    }
+
+    /**
+     * 释放沙箱资源（删除工作目录、结束残留进程）
+     */
+    @Override
+    void close();
+}
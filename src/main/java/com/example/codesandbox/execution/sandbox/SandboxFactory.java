@@ -0,0 +1,19 @@
+package com.example.codesandbox.execution.sandbox;
+
+/**
+ * 沙箱工厂：按语言创建沙箱
+ */
+public interface SandboxFactory {
+
+    /**
+     * 实际创建沙箱的后端工厂的限定名；启用沙箱池时，池作为主工厂包装该后端
+     */
+    String BACKEND = "sandboxBackend";
+
+    /**
+     * 创建一个新的沙箱
+     *
+     * @throws UnsupportedLanguageException 不支持该语言时抛出
+     */
+    Sandbox create(String language);
+}
@@ -0,0 +1,253 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预热沙箱池
+ *
+ * 冷启动一个沙箱（容器）要几百毫秒，比大多数程序的运行时间还长。
+ * 池按语言保留若干空闲沙箱：create 时优先取空闲沙箱（命中），没有才让后端新建（未命中）；
+ * 任务结束 close 时重置沙箱（清空文件、结束残留进程）后放回，下一个任务直接使用。
+ *
+ * 回收（销毁而不是放回）：
+ * - 使用次数达到 maxUses
+ * - 出现过超时、输出超限等异常，或重置失败（reset 返回 false）
+ * - 空闲数已超过 maxIdle
+ *
+ * 按需伸缩：每个周期记录各语言同时在用沙箱数的峰值，目标空闲数取峰值的指数移动平均，
+ * 限制在 [minIdle, maxIdle]；不足时补建，多出的最早放回的沙箱被销毁
+ */
+@Slf4j
+public class SandboxPool implements SandboxFactory {
+
+    private final SandboxFactory backend;
+    private final ExecutionProperties.Pool config;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, LanguagePool> pools = new ConcurrentHashMap<>();
+
+    public SandboxPool(SandboxFactory backend, ExecutionProperties properties, MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.config = properties.getSandbox().getPool();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 为所有支持的语言预热 minIdle 个沙箱
+     */
+    public void prewarm() {
+        for (LanguageProfile profile : LanguageProfile.values()) {
+            LanguagePool pool = poolFor(profile.getLanguage());
+            pool.fill(config.getMinIdle());
+        }
+    }
+
+    @Override
+    public Sandbox create(String language) {
+        LanguageProfile profile = LanguageProfile.of(language)
+                .orElseThrow(() -> new UnsupportedLanguageException(language));
+        LanguagePool pool = poolFor(profile.getLanguage());
+        PooledSandbox sandbox = pool.idle.pollFirst();
+        if (sandbox != null) {
+            pool.hits.increment();
+        } else {
+            pool.misses.increment();
+            sandbox = new PooledSandbox(pool, backend.create(language));
+        }
+        sandbox.borrow();
+        int inUse = pool.inUse.incrementAndGet();
+        pool.peakInUse.accumulateAndGet(inUse, Math::max);
+        return sandbox;
+    }
+
+    /**
+     * 定时按需伸缩各语言的空闲沙箱数
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.execution.sandbox.pool.scale-interval-ms:5000}")
+    public void rebalance() {
+        for (LanguagePool pool : pools.values()) {
+            int peak = pool.peakInUse.getAndSet(pool.inUse.get());
+            pool.demand = pool.demand < 0 ? peak
+                    : config.getDemandEwmaAlpha() * peak + (1 - config.getDemandEwmaAlpha()) * pool.demand;
+            int target = Math.max(config.getMinIdle(), Math.min(config.getMaxIdle(), (int) Math.ceil(pool.demand)));
+            pool.targetIdle = target;
+            pool.trim(target);
+            pool.fill(target);
+        }
+    }
+
+    public Stats getStats(String language) {
+        LanguagePool pool = pools.get(language);
+        if (pool == null) {
+            return new Stats(0, 0, 0, 0, 0, 0);
+        }
+        return new Stats(pool.idle.size(), pool.inUse.get(), pool.targetIdle,
+                (long) pool.hits.count(), (long) pool.misses.count(), pool.recycled.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LanguagePool pool : pools.values()) {
+            PooledSandbox sandbox;
+            while ((sandbox = pool.idle.pollFirst()) != null) {
+                sandbox.delegate.close();
+            }
+        }
+    }
+
+    private LanguagePool poolFor(String language) {
+        return pools.computeIfAbsent(language, LanguagePool::new);
+    }
+
+    /**
+     * 任务结束时归还：能复用的重置后放回，否则销毁
+     */
+    private void release(PooledSandbox sandbox) {
+        LanguagePool pool = sandbox.pool;
+        pool.inUse.decrementAndGet();
+        if (sandbox.uses >= config.getMaxUses()) {
+            pool.recycle(sandbox, "max_uses");
+        } else if (!sandbox.delegate.reset()) {
+            pool.recycle(sandbox, "anomaly");
+        } else if (pool.idle.size() >= config.getMaxIdle()) {
+            pool.recycle(sandbox, "overflow");
+        } else {
+            // 放在队首：最近用过的先被取走，队尾是最久没用的，缩容时从队尾销毁
+            pool.idle.offerFirst(sandbox);
+        }
+    }
+
+    /**
+     * 某种语言的池状态
+     *
+     * @param targetIdle 最近一次伸缩计算出的目标空闲数
+     */
+    public record Stats(int idle, int inUse, int targetIdle, long hits, long misses, long recycled) {
+    }
+
+    private final class LanguagePool {
+
+        private final String language;
+        private final Deque<PooledSandbox> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger peakInUse = new AtomicInteger();
+        private final Counter hits;
+        private final Counter misses;
+        private final AtomicInteger recycled = new AtomicInteger();
+        private final Map<String, Counter> recycleReasons = new ConcurrentHashMap<>();
+        private volatile double demand = -1;
+        private volatile int targetIdle;
+
+        LanguagePool(String language) {
+            this.language = language;
+            this.targetIdle = config.getMinIdle();
+            this.hits = Counter.builder("execution.sandbox.pool.requests")
+                    .tag("language", language).tag("result", "hit").register(meterRegistry);
+            this.misses = Counter.builder("execution.sandbox.pool.requests")
+                    .tag("language", language).tag("result", "miss").register(meterRegistry);
+            Gauge.builder("execution.sandbox.pool.size", idle, Deque::size)
+                    .tag("language", language).tag("state", "idle").register(meterRegistry);
+            Gauge.builder("execution.sandbox.pool.size", inUse, AtomicInteger::get)
+                    .tag("language", language).tag("state", "in_use").register(meterRegistry);
+        }
+
+        void fill(int target) {
+            while (idle.size() < target) {
+                try {
+                    idle.offerLast(new PooledSandbox(this, backend.create(language)));
+                } catch (RuntimeException e) {
+                    log.warn("预热 {} 沙箱失败", language, e);
+                    return;
+                }
+            }
+        }
+
+        void trim(int target) {
+            while (idle.size() > target) {
+                PooledSandbox sandbox = idle.pollLast();
+                if (sandbox == null) {
+                    return;
+                }
+                recycle(sandbox, "scale_down");
+            }
+        }
+
+        void recycle(PooledSandbox sandbox, String reason) {
+            recycled.incrementAndGet();
+            recycleReasons.computeIfAbsent(reason, key -> Counter.builder("execution.sandbox.pool.recycled")
+                    .tag("language", language).tag("reason", key).register(meterRegistry)).increment();
+            try {
+                sandbox.delegate.close();
+            } catch (RuntimeException e) {
+                log.warn("销毁沙箱 {} 失败", sandbox.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 借出的沙箱：close 时归还给池，而不是直接销毁
+     */
+    private final class PooledSandbox implements Sandbox {
+
+        private final LanguagePool pool;
+        private final Sandbox delegate;
+        private int uses;
+        private boolean borrowed;
+
+        PooledSandbox(LanguagePool pool, Sandbox delegate) {
+            this.pool = pool;
+            this.delegate = delegate;
+        }
+
+        void borrow() {
+            uses++;
+            borrowed = true;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String getLanguage() {
+            return delegate.getLanguage();
+        }
+
+        @Override
+        public SandboxResult compile(String code) {
+            return delegate.compile(code);
+        }
+
+        @Override
+        public SandboxResult run(String input, OutputListener listener) {
+            return delegate.run(input, listener);
+        }
+
+        @Override
+        public boolean reset() {
+            return delegate.reset();
+        }
+
+        @Override
+        public void close() {
+            // 重复 close 不能把同一个沙箱放回两次
+            if (borrowed) {
+                borrowed = false;
+                release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.codesandbox.execution.sandbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次编译或运行的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SandboxResult {
+
+    private int exitCode;
+
+    private String stdout;
+
+    private String stderr;
+
+    private boolean timedOut;
+
+    private long timeMs;
+
+    /**
+     * 内存峰值（MB），后端无法采集时为 null
+     */
+    private Integer memoryUsedMb;
+
+    public static SandboxResult skipped() {
+        return new SandboxResult(0, "", "", false, 0, null);
+    }
+
+    public boolean isSuccess() {
+        return !timedOut && exitCode == 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.codesandbox.execution.sandbox;
+
+import lombok.Getter;
+
+/**
+ * 不支持的编程语言
+ */
+@Getter
+public class UnsupportedLanguageException extends RuntimeException {
+
+    private final String language;
+
+    public UnsupportedLanguageException(String language) {
+        super("不支持的编程语言: " + language);
+        this.language = language;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.codesandbox.execution.sandbox;
+
+/**
+ * 按字节截断 UTF-8 输出时使用，保证不切断多字节字符
+ */
+public final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * 返回 bytes[offset, offset + length) 中不切断多字节字符的最大前缀长度
+     */
+    public static int boundary(byte[] bytes, int offset, int length) {
+        int i = length;
+        // 向前跳过最多 3 个续字节（10xxxxxx），找到最后一个字符的首字节
+        while (i > 0 && length - i < 4 && (bytes[offset + i - 1] & 0xC0) == 0x80) {
+            i--;
+        }
+        if (i == 0) {
+            return length;
+        }
+        int lead = bytes[offset + i - 1] & 0xFF;
+        int expected = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return length - (i - 1) >= expected ? length : i - 1;
+    }
+
+    /**
+     * 从 offset 开始跳过的续字节数（从中间截取时，丢掉被切断字符的残余部分）
+     */
+    public static int skipContinuation(byte[] bytes, int offset, int length) {
+        int skipped = 0;
+        while (skipped < length && skipped < 3 && (bytes[offset + skipped] & 0xC0) == 0x80) {
+            skipped++;
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.codesandbox.execution.scheduler;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户 + 语言预估任务的执行成本（毫秒）
+ *
+ * 第一次见到某个用户时先按默认成本调度，同时在后台线程读取最近一段时间的历史平均 execution_time_ms，
+ * 读到时该用户还没有新的执行样本才用它替换初值；之后每执行完一个任务用实际占用执行名额的时长更新指数滑动平均。
+ * 预估值按最近使用顺序保留有限个，超出时淘汰最久未用的
+ */
+@Slf4j
+@Component
+public class CostEstimator {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionProperties.Scheduler config;
+    private final Map<String, Estimate> estimates;
+    private final ThreadPoolExecutor historyLoader;
+
+    public CostEstimator(ExecutionTaskRepository taskRepository, ExecutionProperties properties) {
+        this.taskRepository = taskRepository;
+        this.config = properties.getScheduler();
+        int maxEntries = config.getMaxCostEntries();
+        this.estimates = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Estimate> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        // 单线程 + 有界队列：数据库慢时多出来的读取直接丢弃，对应用户继续用默认成本
+        this.historyLoader = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getCostHistoryQueueSize()), runnable -> {
+                    Thread thread = new Thread(runnable, "cost-history-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public long estimate(Long executorId, String language) {
+        String key = key(executorId, language);
+        synchronized (estimates) {
+            Estimate estimate = estimates.get(key);
+            if (estimate != null) {
+                return Math.round(estimate.value);
+            }
+            estimates.put(key, new Estimate(config.getDefaultCostMs()));
+        }
+        historyLoader.execute(() -> loadHistorical(key, executorId, language));
+        return config.getDefaultCostMs();
+    }
+
+    public void record(Long executorId, String language, long elapsedMs) {
+        double alpha = config.getCostEwmaAlpha();
+        String key = key(executorId, language);
+        synchronized (estimates) {
+            Estimate estimate = estimates.get(key);
+            if (estimate == null) {
+                estimates.put(key, new Estimate(elapsedMs, true));
+            } else {
+                estimate.value += alpha * (elapsedMs - estimate.value);
+                estimate.sampled = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        historyLoader.shutdownNow();
+    }
+
+    private void loadHistorical(String key, Long executorId, String language) {
+        Double average;
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(config.getCostHistoryWindow());
+            average = taskRepository.averageExecutionTimeMs(executorId, language, since);
+        } catch (RuntimeException e) {
+            log.warn("读取用户 {} 的历史执行耗时失败", executorId, e);
+            return;
+        }
+        if (average == null) {
+            return;
+        }
+        synchronized (estimates) {
+            Estimate estimate = estimates.get(key);
+            // 已被淘汰，或者已经有了本节点的实际样本，历史值不再有参考意义
+            if (estimate != null && !estimate.sampled) {
+                estimate.value = average;
+            }
+        }
+    }
+
+    private static String key(Long executorId, String language) {
+        return executorId + ":" + language;
+    }
+
+    private static final class Estimate {
+
+        private double value;
+        private boolean sampled;
+
+        private Estimate(double value) {
+            this(value, false);
+        }
+
+        private Estimate(double value, boolean sampled) {
+            this.value = value;
+            this.sampled = sampled;
+        }
+    }
+}
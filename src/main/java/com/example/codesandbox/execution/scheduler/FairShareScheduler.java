@@ -0,0 +1,137 @@
+package com.example.codesandbox.execution.scheduler;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dispatcher.ExecutionDispatcher;
+import com.example.codesandbox.execution.dto.ExecutionMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公平调度器：位于队列监听器和执行调度器之间
+ *
+ * 流程：
+ * 1. 监听器收到消息后交给 submit()，任务按语言进入各自的加权公平队列（LanguageQueue）
+ * 2. 某种语言有空闲的执行名额时，取出虚拟开始时间最小的任务（或批量）交给 ExecutionDispatcher
+ * 3. 任务执行结束：ack 消息、用实际耗时更新该用户的成本预估、释放名额并继续出队
+ *
+ * 重排序的范围是本节点已经预取（prefetch）但还没开始执行的消息；
+ * 排队等待时间按通道和轻/重任务记录在 execution.queue.wait 指标中
+ */
+@Component
+public class FairShareScheduler {
+
+    private final ExecutionDispatcher dispatcher;
+    private final CostEstimator costEstimator;
+    private final ExecutionProperties properties;
+    private final ExecutionProperties.Scheduler config;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, LanguageQueue> queues = new ConcurrentHashMap<>();
+
+    public FairShareScheduler(ExecutionDispatcher dispatcher,
+                              CostEstimator costEstimator,
+                              ExecutionProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.dispatcher = dispatcher;
+        this.costEstimator = costEstimator;
+        this.properties = properties;
+        this.config = properties.getScheduler();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("execution.scheduler.queued", this, FairShareScheduler::queuedCount)
+                .description("在公平调度器中等待执行的任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交一个待执行的任务
+     *
+     * @param onDone 执行结束（无论成功失败）后的回调
+     */
+    public void submit(ExecutionMessage message, Runnable onDone) {
+        if (!config.isEnabled() || !schedulable(message)) {
+            // 升级前投递的旧消息直接交给调度器；任务不存在时由它跳过并回调 onDone
+            dispatchNow(message.getTaskId(), message.getBatchId(), onDone);
+            return;
+        }
+        String lane = message.getLane() == null ? ExecutionProperties.Scheduler.DEFAULT_LANE : message.getLane();
+        long enqueuedAt = message.getPublishedAt() == null ? System.currentTimeMillis() : message.getPublishedAt();
+        int cases = message.getBatchId() == null ? 1 : Math.max(1, message.getCaseCount());
+        int slots = message.getBatchId() == null ? 1 : batchSlots(message, cases);
+        long costMs = costEstimator.estimate(message.getExecutorId(), message.getLanguage()) * cases;
+        PendingTask task = new PendingTask(message.getTaskId(), message.getBatchId(), message.getExecutorId(),
+                message.getLanguage(), lane, cases, costMs, config.weightOf(lane), slots, enqueuedAt, onDone);
+
+        LanguageQueue queue = queues.computeIfAbsent(task.language(),
+                language -> new LanguageQueue(properties.concurrencyFor(language)));
+        queue.offer(task);
+        drain(queue);
+    }
+
+    /**
+     * 批量占用的名额与调度器实际持有的并发许可一致（按请求的并行度，而不是用例数）；
+     * 旧消息没有并行度时按用例数保守预留
+     */
+    private int batchSlots(ExecutionMessage message, int cases) {
+        int parallelism = message.getParallelism() == null ? cases : message.getParallelism();
+        return dispatcher.batchParallelismCap(message.getLanguage(), parallelism, cases);
+    }
+
+    public int queuedCount() {
+        return queues.values().stream().mapToInt(LanguageQueue::size).sum();
+    }
+
+    private void drain(LanguageQueue queue) {
+        PendingTask task;
+        while ((task = queue.poll()) != null) {
+            start(queue, task);
+        }
+    }
+
+    private void start(LanguageQueue queue, PendingTask task) {
+        long waitMs = Math.max(0, System.currentTimeMillis() - task.enqueuedAt());
+        waitTimer(task).record(waitMs, TimeUnit.MILLISECONDS);
+        long startNanos = System.nanoTime();
+        dispatchNow(task.taskId(), task.batchId(), () -> {
+            try {
+                task.onDone().run();
+            } finally {
+                // 批量按每个用例占用的名额时间折算成单个任务的成本
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                costEstimator.record(task.executorId(), task.language(), elapsedMs * task.slots() / task.cases());
+                queue.release(task.slots());
+                drain(queue);
+            }
+        });
+    }
+
+    private void dispatchNow(Long taskId, Long batchId, Runnable onDone) {
+        if (batchId != null) {
+            dispatcher.dispatchBatch(batchId, onDone);
+        } else {
+            dispatcher.dispatch(taskId, onDone);
+        }
+    }
+
+    private Timer waitTimer(PendingTask task) {
+        String cost = task.costMs() < config.getLightCostThresholdMs() ? "light" : "heavy";
+        return Timer.builder("execution.queue.wait")
+                .description("任务从投递到开始执行的等待时间")
+                .tag("lane", task.lane())
+                .tag("cost", cost)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 消息是否带有公平调度需要的执行者和语言；所有投递路径都会带上，监听线程上不再查数据库
+     */
+    private static boolean schedulable(ExecutionMessage message) {
+        return message.getExecutorId() != null && message.getLanguage() != null;
+    }
+}
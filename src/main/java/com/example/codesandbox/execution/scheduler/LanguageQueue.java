@@ -0,0 +1,104 @@
+package com.example.codesandbox.execution.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 单一语言的加权公平队列（Start-time Fair Queuing）
+ *
+ * 每个用户是一个流，任务到达时打上虚拟开始时间：
+ *   start = max(虚拟时钟, 该用户上一个任务的虚拟结束时间)
+ *   finish = start + 预估成本 / 通道权重
+ * 出队时总是选开始时间最小的流头任务，并把虚拟时钟推进到它的开始时间。
+ *
+ * 效果：连续提交 50 个重任务的用户，虚拟时间越排越靠后；
+ * 之后到达的轻任务用户从当前虚拟时钟开始排，不需要等前面 50 个都执行完。
+ * 刚被服务过的用户短暂空闲后再提交，仍然从它自己的结束时间开始，不会因为空闲而清空欠账。
+ *
+ * 并发上限也在这里控制：正在执行的任务达到上限时不再出队，让排序在队列里生效；
+ * 批量任务按并行度占用多个名额
+ */
+final class LanguageQueue {
+
+    /**
+     * 空闲流超过这个数量时清理已经没有欠账的流
+     */
+    private static final int IDLE_FLOW_PURGE_THRESHOLD = 1024;
+
+    private final int capacity;
+    private final Map<Long, Flow> flows = new HashMap<>();
+    private final PriorityQueue<Flow> backlogged = new PriorityQueue<>(Comparator.comparingDouble(Flow::headStart));
+    private double virtualTime;
+    private int running;
+    private int size;
+
+    LanguageQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void offer(PendingTask task) {
+        Flow flow = flows.computeIfAbsent(task.executorId(), id -> new Flow());
+        double start = Math.max(virtualTime, flow.lastFinish);
+        flow.lastFinish = start + (double) task.costMs() / Math.max(1, task.weight());
+        boolean idle = flow.tasks.isEmpty();
+        flow.tasks.add(new Tagged(task, start));
+        if (idle) {
+            backlogged.add(flow);
+        }
+        size++;
+    }
+
+    /**
+     * 有空闲的执行名额时取出下一个任务，并占用一个名额
+     */
+    synchronized PendingTask poll() {
+        if (running >= capacity || backlogged.isEmpty()) {
+            return null;
+        }
+        // 名额不够时等待正在执行的任务结束；没有任务在执行时总是放行，避免并行度大于上限的批量永远等待
+        int slots = backlogged.peek().tasks.peek().task().slots();
+        if (running > 0 && running + slots > capacity) {
+            return null;
+        }
+        Flow flow = backlogged.poll();
+        Tagged head = flow.tasks.poll();
+        virtualTime = Math.max(virtualTime, head.start());
+        if (!flow.tasks.isEmpty()) {
+            backlogged.add(flow);
+        }
+        if (flows.size() - backlogged.size() > IDLE_FLOW_PURGE_THRESHOLD) {
+            flows.values().removeIf(f -> f.tasks.isEmpty() && f.lastFinish <= virtualTime);
+        }
+        running += slots;
+        size--;
+        return head.task();
+    }
+
+    synchronized void release(int slots) {
+        running -= slots;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    private record Tagged(PendingTask task, double start) {
+    }
+
+    private static final class Flow {
+
+        private final ArrayDeque<Tagged> tasks = new ArrayDeque<>();
+        private double lastFinish;
+
+        double headStart() {
+            return tasks.peek().start();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.codesandbox.execution.scheduler;
+
+/**
+ * 在公平调度器中等待的任务
+ *
+ * @param taskId     任务ID（批量时为 NULL）
+ * @param batchId    批量执行ID（单个任务时为 NULL）
+ * @param executorId 提交者（同一用户的任务属于同一个流）
+ * @param language   编程语言
+ * @param lane       调度通道
+ * @param cases      包含的用例数（单个任务为 1）
+ * @param costMs     预估执行成本
+ * @param weight     通道权重
+ * @param slots      占用的执行名额（批量并行运行时大于 1）
+ * @param enqueuedAt 开始排队的时间（epoch 毫秒，优先取消息的投递时间）
+ * @param onDone     执行结束后的回调（ack 消息）
+ */
+record PendingTask(Long taskId, Long batchId, Long executorId, String language, String lane,
+                   int cases, long costMs, int weight, int slots, long enqueuedAt, Runnable onDone) {
+}
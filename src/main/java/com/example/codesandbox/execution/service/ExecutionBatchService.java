@@ -0,0 +1,128 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.admission.AdmissionController;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionBatch;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.ratelimit.ExecutionRateLimiter;
+import com.example.codesandbox.execution.ratelimit.RateLimitDecision;
+import com.example.codesandbox.execution.ratelimit.RateLimitExceededException;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboard;
+import com.example.codesandbox.user.entity.Role;
+import com.example.codesandbox.user.entity.User;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 批量执行提交服务（同一段代码 + 多组测试用例）
+ *
+ * 1. 先经过准入控制，通过后再做限流检查：整个批量计一次（只编译一次，沙箱开销与单次执行相当）
+ * 2. 在同一个事务中创建 ExecutionBatch 和每组输入对应的子任务（PENDING）
+ * 3. 事务提交后把整个批量作为一条消息投递到执行队列
+ * 4. 关联了片段的批量作为一次执行计入首页排行榜的热度
+ *
+ * 子任务不参与在途合并，但执行时仍会查询和写入执行结果缓存
+ */
+@Service
+public class ExecutionBatchService {
+
+    private final ExecutionBatchRepository batchRepository;
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionQueuePublisher publisher;
+    private final ExecutionRateLimiter rateLimiter;
+    private final AdmissionController admissionController;
+    private final ExecutionPayloadStore payloadStore;
+    private final ExecutionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final SnippetLeaderboard leaderboard;
+
+    public ExecutionBatchService(ExecutionBatchRepository batchRepository,
+                                 ExecutionTaskRepository taskRepository,
+                                 ExecutionQueuePublisher publisher,
+                                 ExecutionRateLimiter rateLimiter,
+                                 AdmissionController admissionController,
+                                 ExecutionPayloadStore payloadStore,
+                                 ExecutionProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 SnippetLeaderboard leaderboard) {
+        this.batchRepository = batchRepository;
+        this.taskRepository = taskRepository;
+        this.publisher = publisher;
+        this.rateLimiter = rateLimiter;
+        this.admissionController = admissionController;
+        this.payloadStore = payloadStore;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * 提交批量执行
+     *
+     * @param inputs         每组测试用例的输入
+     * @param parallelism    同一沙箱中同时运行的用例数（超过配置上限时按上限）
+     * @param abortOnFailure 有用例失败后是否跳过剩余用例
+     */
+    public ExecutionBatch submit(User executor, CodeSnippet snippet, String language, String code,
+                                 List<String> inputs, int parallelism, boolean abortOnFailure) {
+        if (inputs == null || inputs.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一组测试用例");
+        }
+        int maxCases = properties.getBatch().getMaxCases();
+        if (inputs.size() > maxCases) {
+            throw new IllegalArgumentException("测试用例不能超过 " + maxCases + " 组");
+        }
+        Set<String> roles = executor.getRoles().stream().map(Role::getRoleName).collect(Collectors.toSet());
+        // 准入在限流之前：过载拒绝不消耗用户的限流配额
+        admissionController.admit(roles, language);
+        RateLimitDecision decision = rateLimiter.tryAcquire(executor.getId(), roles, language);
+        if (!decision.allowed()) {
+            throw new RateLimitExceededException(decision);
+        }
+
+        String codeHash = payloadStore.storeCode(code);
+        List<String> inputHashes = inputs.stream().map(payloadStore::storeInput).toList();
+
+        ExecutionBatch batch = new ExecutionBatch();
+        batch.setExecutor(executor);
+        batch.setSnippet(snippet);
+        batch.setLanguage(language);
+        batch.setCodeHash(codeHash);
+        batch.setCaseCount(inputs.size());
+        batch.setParallelism(Math.max(1, Math.min(parallelism, properties.getBatch().getMaxParallelism())));
+        batch.setAbortOnFailure(abortOnFailure);
+
+        ExecutionBatch saved = transactionTemplate.execute(status -> {
+            ExecutionBatch created = batchRepository.save(batch);
+            List<ExecutionTask> cases = new ArrayList<>(inputHashes.size());
+            for (int i = 0; i < inputHashes.size(); i++) {
+                ExecutionTask task = new ExecutionTask();
+                task.setExecutor(executor);
+                task.setSnippet(snippet);
+                task.setLanguage(language);
+                task.setCodeHash(codeHash);
+                task.setInputHash(inputHashes.get(i));
+                task.setBatch(created);
+                task.setCaseIndex(i);
+                task.setStatus(ExecutionTask.Status.PENDING);
+                cases.add(task);
+            }
+            taskRepository.saveAll(cases);
+            return created;
+        });
+        publisher.publish(saved, roles);
+        if (snippet != null) {
+            leaderboard.recordExecution(snippet);
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.archive.ArchivedTask;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.storage.blob.BlobNotFoundException;
+import com.example.codesandbox.storage.blob.BlobStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * 执行任务的代码、输入、输出读写
+ *
+ * 新任务的这三部分存在 BlobStore 中，表里只保存哈希：
+ * - 代码：key 就是 code_hash
+ * - 输入：input_hash（同时也是执行结果缓存 key 的一部分）
+ * - 输出：output_hash
+ * 迁移前的旧数据仍在 code_content / input_data / output_data 列中，读取时优先使用
+ *
+ * 只有真正需要内容时才调用这里（执行、查看详情），历史列表只查轻量的行
+ */
+@Component
+public class ExecutionPayloadStore {
+
+    private final BlobStore blobStore;
+
+    public ExecutionPayloadStore(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * 保存代码和输入，并在任务上记录对应的哈希
+     */
+    public void storeCodeAndInput(ExecutionTask task, String code, String input) {
+        task.setCodeHash(storeCode(code));
+        task.setInputHash(storeInput(input));
+    }
+
+    /**
+     * @return 代码的哈希（即 code_hash）
+     */
+    public String storeCode(String code) {
+        return blobStore.putText(code);
+    }
+
+    /**
+     * @return 输入的哈希；没有输入时为 null
+     */
+    public String storeInput(String input) {
+        return input == null ? null : blobStore.putText(input);
+    }
+
+    /**
+     * 保存输出
+     *
+     * @return 输出的哈希；没有输出时为 null
+     */
+    public String storeOutput(String output) {
+        return output == null ? null : blobStore.putText(output);
+    }
+
+    public String code(ExecutionTask task) {
+        if (task.getCodeContent() != null) {
+            return task.getCodeContent();
+        }
+        return load(task.getCodeHash());
+    }
+
+    public String input(ExecutionTask task) {
+        if (task.getInputData() != null || task.getInputHash() == null) {
+            return task.getInputData();
+        }
+        return load(task.getInputHash());
+    }
+
+    public String output(ExecutionTask task) {
+        if (task.getOutputData() != null || task.getOutputHash() == null) {
+            return task.getOutputData();
+        }
+        return load(task.getOutputHash());
+    }
+
+    public String output(ArchivedTask task) {
+        if (task.outputData() != null || task.outputHash() == null) {
+            return task.outputData();
+        }
+        return load(task.outputHash());
+    }
+
+    private String load(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        return blobStore.getText(hash).orElseThrow(() -> new BlobNotFoundException(hash));
+    }
+}
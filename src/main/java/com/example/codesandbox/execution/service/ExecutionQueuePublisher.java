@@ -0,0 +1,55 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.ExecutionMessage;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.entity.ExecutionBatch;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * 把任务投递到执行队列
+ */
+@Component
+@RequiredArgsConstructor
+public class ExecutionQueuePublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ExecutionProperties properties;
+
+    /**
+     * 重新投递（租约回收、合并任务重新选举），带上公平调度需要的用户和语言，通道按默认处理
+     */
+    public void publish(TaskAttribution task) {
+        ExecutionMessage message = new ExecutionMessage(task.id());
+        message.setExecutorId(task.executorId());
+        message.setLanguage(task.language());
+        rabbitTemplate.convertAndSend(properties.getQueueName(), message);
+    }
+
+    /**
+     * 投递新提交的任务，附带公平调度需要的用户、语言和通道
+     */
+    public void publish(ExecutionTask task, Collection<String> roles) {
+        ExecutionMessage message = new ExecutionMessage(task.getId());
+        message.setExecutorId(task.getExecutor().getId());
+        message.setLanguage(task.getLanguage());
+        message.setLane(properties.getScheduler().laneFor(roles));
+        rabbitTemplate.convertAndSend(properties.getQueueName(), message);
+    }
+
+    /**
+     * 投递批量执行（整个批量是一条消息，由同一个节点编译一次后运行所有用例）
+     */
+    public void publish(ExecutionBatch batch, Collection<String> roles) {
+        ExecutionMessage message = ExecutionMessage.forBatch(batch.getId(), batch.getCaseCount(), batch.getParallelism());
+        message.setExecutorId(batch.getExecutor().getId());
+        message.setLanguage(batch.getLanguage());
+        message.setLane(properties.getScheduler().laneFor(roles));
+        rabbitTemplate.convertAndSend(properties.getQueueName(), message);
+    }
+}
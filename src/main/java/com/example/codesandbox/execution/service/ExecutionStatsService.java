@@ -0,0 +1,111 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.dto.ExecutionStatsSummary;
+import com.example.codesandbox.execution.entity.ExecutionLatencyDaily;
+import com.example.codesandbox.execution.entity.ExecutionStatsDaily;
+import com.example.codesandbox.execution.repository.ExecutionLatencyRepository;
+import com.example.codesandbox.execution.repository.ExecutionStatsRepository;
+import com.example.codesandbox.execution.stats.LatencyHistogram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行统计查询
+ *
+ * 只读汇总表（每个维度值每天一行 + 最多 LatencyHistogram.BUCKETS 个分桶行），
+ * 不扫描 execution_tasks；数据最多落后 stats.flush-interval-ms
+ */
+@Service
+@RequiredArgsConstructor
+public class ExecutionStatsService {
+
+    private final ExecutionStatsRepository statsRepository;
+    private final ExecutionLatencyRepository latencyRepository;
+
+    /**
+     * 日期范围内（含两端）全站的统计
+     */
+    public ExecutionStatsSummary overall(LocalDate from, LocalDate to) {
+        return summarize(ExecutionStatsDaily.ALL,
+                statsRepository.findByDimensionAndDimKeyAndStatDateBetweenOrderByStatDateAsc(
+                        ExecutionStatsDaily.ALL, "", from, to),
+                latencyRepository.findByDimensionAndDimKeyAndStatDateBetween(ExecutionStatsDaily.ALL, "", from, to))
+                .getOrDefault("", empty(ExecutionStatsDaily.ALL, ""));
+    }
+
+    /**
+     * 日期范围内各语言的统计，按执行次数从多到少
+     */
+    public List<ExecutionStatsSummary> byLanguage(LocalDate from, LocalDate to) {
+        return summarize(ExecutionStatsDaily.LANGUAGE,
+                statsRepository.findByDimensionAndStatDateBetween(ExecutionStatsDaily.LANGUAGE, from, to),
+                latencyRepository.findByDimensionAndStatDateBetween(ExecutionStatsDaily.LANGUAGE, from, to))
+                .values().stream()
+                .sorted(Comparator.comparingLong(ExecutionStatsSummary::totalCount).reversed())
+                .toList();
+    }
+
+    /**
+     * 日期范围内某个用户的统计
+     */
+    public ExecutionStatsSummary forUser(Long userId, LocalDate from, LocalDate to) {
+        String key = String.valueOf(userId);
+        return summarize(ExecutionStatsDaily.USER,
+                statsRepository.findByDimensionAndDimKeyAndStatDateBetweenOrderByStatDateAsc(
+                        ExecutionStatsDaily.USER, key, from, to),
+                latencyRepository.findByDimensionAndDimKeyAndStatDateBetween(ExecutionStatsDaily.USER, key, from, to))
+                .getOrDefault(key, empty(ExecutionStatsDaily.USER, key));
+    }
+
+    /**
+     * 某个维度值的逐日汇总
+     * 用途：趋势图
+     */
+    public List<ExecutionStatsDaily> daily(String dimension, String key, LocalDate from, LocalDate to) {
+        return statsRepository.findByDimensionAndDimKeyAndStatDateBetweenOrderByStatDateAsc(dimension, key, from, to);
+    }
+
+    /**
+     * 某种语言累计的执行次数（代替 ExecutionTaskRepository.countByLanguage）
+     */
+    public long countByLanguage(String language) {
+        return statsRepository.sumTotalCount(ExecutionStatsDaily.LANGUAGE, language);
+    }
+
+    private static Map<String, ExecutionStatsSummary> summarize(String dimension, List<ExecutionStatsDaily> days,
+                                                                List<ExecutionLatencyDaily> buckets) {
+        Map<String, long[]> counts = new HashMap<>();
+        for (ExecutionStatsDaily day : days) {
+            long[] sum = counts.computeIfAbsent(day.getDimKey(), key -> new long[6]);
+            sum[0] += day.getTotalCount();
+            sum[1] += day.getCompletedCount();
+            sum[2] += day.getFailedCount();
+            sum[3] += day.getTimeoutCount();
+            sum[4] += day.getTotalTimeMs();
+            sum[5] += day.getTimedCount();
+        }
+        Map<String, LatencyHistogram> histograms = new HashMap<>();
+        for (ExecutionLatencyDaily bucket : buckets) {
+            histograms.computeIfAbsent(bucket.getDimKey(), key -> new LatencyHistogram())
+                    .add(bucket.getBucket(), bucket.getSampleCount());
+        }
+        Map<String, ExecutionStatsSummary> summaries = new HashMap<>();
+        counts.forEach((key, sum) -> {
+            LatencyHistogram histogram = histograms.getOrDefault(key, new LatencyHistogram());
+            summaries.put(key, new ExecutionStatsSummary(dimension, key, sum[0], sum[1], sum[2], sum[3],
+                    sum[5] == 0 ? null : (double) sum[4] / sum[5],
+                    histogram.percentile(0.5), histogram.percentile(0.95), histogram.percentile(0.99)));
+        });
+        return summaries;
+    }
+
+    private static ExecutionStatsSummary empty(String dimension, String key) {
+        return new ExecutionStatsSummary(dimension, key, 0, 0, 0, 0, null, null, null, null);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.admission.AdmissionController;
+import com.example.codesandbox.execution.cache.CachedExecutionResult;
+import com.example.codesandbox.execution.cache.ExecutionCacheKey;
+import com.example.codesandbox.execution.cache.ExecutionResultCache;
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.ratelimit.ExecutionRateLimiter;
+import com.example.codesandbox.execution.ratelimit.RateLimitDecision;
+import com.example.codesandbox.execution.ratelimit.RateLimitExceededException;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.stats.ExecutionStatsRollup;
+import com.example.codesandbox.execution.support.CodeHasher;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboard;
+import com.example.codesandbox.user.entity.Role;
+import com.example.codesandbox.user.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 代码执行提交服务
+ *
+ * 0. 限流检查（内存/Redis 滑动窗口，不查数据库），超限抛出 RateLimitExceededException
+ * 1. 先查执行结果缓存（代码 + 语言 + 输入 + 运行时版本）；未命中时先经过准入控制
+ *    （系统过载时抛出 AdmissionRejectedException，不创建任务，也不占用限流配额），然后才扣减限流配额
+ * 2. 命中则直接记录一条 COMPLETED 任务，否则创建 PENDING 状态的 ExecutionTask；
+ *    代码、输入、输出存入 BlobStore，任务行只保存哈希
+ * 3. 已有相同的在途执行时挂到它上面等待结果，否则把任务ID投递到执行队列
+ * 4. 关联了片段的执行（包括命中缓存的）计入首页排行榜的热度
+ */
+@Service
+@RequiredArgsConstructor
+public class ExecutionSubmissionService {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionQueuePublisher publisher;
+    private final ExecutionResultCache resultCache;
+    private final ExecutionCoalescer coalescer;
+    private final ExecutionRateLimiter rateLimiter;
+    private final AdmissionController admissionController;
+    private final ExecutionPayloadStore payloadStore;
+    private final ExecutionStatsRollup statsRollup;
+    private final SnippetLeaderboard leaderboard;
+
+    public ExecutionTask submit(User executor, CodeSnippet snippet, String language, String code, String input) {
+        Set<String> roles = executor.getRoles().stream().map(Role::getRoleName).collect(Collectors.toSet());
+        ExecutionCacheKey cacheKey = resultCache.keyFor(CodeHasher.sha256(code), language, input);
+        Optional<CachedExecutionResult> cached = resultCache.get(cacheKey);
+        if (cached.isEmpty()) {
+            // 准入在限流之前：过载拒绝不消耗用户的限流配额，按 Retry-After 重试时不会再被限流
+            admissionController.admit(roles, language);
+        }
+        RateLimitDecision decision = rateLimiter.tryAcquire(executor.getId(), roles, language);
+        if (!decision.allowed()) {
+            throw new RateLimitExceededException(decision);
+        }
+
+        ExecutionTask task = new ExecutionTask();
+        task.setExecutor(executor);
+        task.setSnippet(snippet);
+        task.setLanguage(language);
+        payloadStore.storeCodeAndInput(task, code, input);
+
+        if (cached.isPresent()) {
+            ExecutionTask completed = taskRepository.save(completeFromCache(task, cached.get()));
+            statsRollup.record(completed);
+            recordExecution(snippet);
+            return completed;
+        }
+
+        task.setStatus(ExecutionTask.Status.PENDING);
+        ExecutionTask saved = taskRepository.save(task);
+        recordExecution(snippet);
+        String coalescingKey = cacheKey.asString();
+        if (coalescer.attach(coalescingKey, saved.getId())) {
+            return saved;
+        }
+        try {
+            publisher.publish(saved, roles);
+        } catch (RuntimeException e) {
+            // 领头任务没能进入队列，让已经挂上来的跟随者重新选举
+            coalescer.leaderAbandoned(coalescingKey, saved.getId());
+            throw e;
+        }
+        return saved;
+    }
+
+    private void recordExecution(CodeSnippet snippet) {
+        if (snippet != null) {
+            leaderboard.recordExecution(snippet);
+        }
+    }
+
+    private ExecutionTask completeFromCache(ExecutionTask task, CachedExecutionResult cached) {
+        task.setStatus(cached.getStatus());
+        task.setOutputHash(payloadStore.storeOutput(cached.getOutputData()));
+        task.setErrorMessage(cached.getErrorMessage());
+        task.setExecutionTimeMs(cached.getExecutionTimeMs());
+        task.setMemoryUsedMb(cached.getMemoryUsedMb());
+        task.setCompletedAt(LocalDateTime.now());
+        return task;
+    }
+}
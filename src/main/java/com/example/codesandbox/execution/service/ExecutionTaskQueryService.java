@@ -0,0 +1,64 @@
+package com.example.codesandbox.execution.service;
+
+import com.example.codesandbox.execution.archive.ArchiveSegmentStore;
+import com.example.codesandbox.execution.dto.ExecutionTaskResponse;
+import com.example.codesandbox.execution.dto.ExecutionTaskSummary;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.user.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 执行任务查询（不区分热表和归档）
+ *
+ * 先查 execution_tasks，找不到或不够时再查归档段；调用方不需要知道任务在哪一层
+ */
+@Service
+@RequiredArgsConstructor
+public class ExecutionTaskQueryService {
+
+    private final ExecutionTaskRepository taskRepository;
+    private final ArchiveSegmentStore archive;
+    private final ExecutionPayloadStore payloadStore;
+
+    /**
+     * 任务详情（含输出）
+     */
+    public Optional<ExecutionTaskResponse> findById(Long id) {
+        Optional<ExecutionTaskResponse> hot = taskRepository.findWithOutputById(id)
+                .map(task -> ExecutionTaskResponse.from(task, payloadStore.output(task)));
+        if (hot.isPresent()) {
+            return hot;
+        }
+        return archive.findById(id).map(task -> ExecutionTaskResponse.from(task, payloadStore.output(task)));
+    }
+
+    /**
+     * 某个用户最近的执行记录，热表不足 limit 条时用归档补齐
+     */
+    public List<ExecutionTaskSummary> recentByExecutor(User executor, int limit) {
+        List<ExecutionTaskSummary> result = new ArrayList<>(taskRepository
+                .findSummariesByExecutorOrderByCreatedAtDescIdDesc(executor, ScrollPosition.keyset(), Limit.of(limit))
+                .getContent());
+        if (result.size() < limit) {
+            // 归档后还没来得及删除的行两层都有，以热表为准
+            Set<Long> hotIds = result.stream().map(ExecutionTaskSummary::id).collect(Collectors.toSet());
+            archive.findByExecutor(executor.getId(), limit - result.size()).stream()
+                    .filter(task -> !hotIds.contains(task.id()))
+                    .map(ExecutionTaskSummary::from)
+                    .sorted(Comparator.comparing(ExecutionTaskSummary::createdAt,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .forEach(result::add);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.codesandbox.execution.stats;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * 一个（维度, 维度值, 日期）在一次刷新周期内的增量，刷新时整体 upsert 到汇总表
+ */
+@Getter
+public class ExecutionStatsDelta {
+
+    private final String dimension;
+
+    private final String dimKey;
+
+    private final LocalDate statDate;
+
+    private long totalCount;
+
+    private long completedCount;
+
+    private long failedCount;
+
+    private long timeoutCount;
+
+    private long totalTimeMs;
+
+    private long timedCount;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public ExecutionStatsDelta(String dimension, String dimKey, LocalDate statDate) {
+        this.dimension = dimension;
+        this.dimKey = dimKey;
+        this.statDate = statDate;
+    }
+
+    public void add(ExecutionTask.Status status, Integer executionTimeMs) {
+        totalCount++;
+        switch (status) {
+            case COMPLETED -> completedCount++;
+            case FAILED -> failedCount++;
+            case TIMEOUT -> timeoutCount++;
+            default -> {
+            }
+        }
+        if (executionTimeMs != null) {
+            totalTimeMs += executionTimeMs;
+            timedCount++;
+            latency.record(executionTimeMs);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.codesandbox.execution.stats;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionStatsDaily;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionStatsRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 执行统计的增量汇总
+ *
+ * 终态变更落库后由 TaskStateWriter 交给这里（结果缓存命中的任务由提交服务直接交给这里），
+ * 只记下归属、状态、耗时和日期；定时刷新时按（全站 / 语言 / 用户, 日期）合并成增量，
+ * 每张汇总表一次批量 upsert。统计页面读汇总表，行数与天数 × 维度值成正比，与执行次数无关
+ *
+ * 偏差来源：刷新前节点宕机丢失的增量、租约超时直接在数据库里标记的 TIMEOUT；
+ * 每天定时从 execution_tasks 重建最近几天的汇总来修正
+ */
+@Slf4j
+@Component
+public class ExecutionStatsRollup {
+
+    private final ExecutionStatsRepository statsRepository;
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionProperties.Stats config;
+    private final ExecutionProperties.Archive archiveConfig;
+
+    private final Queue<Completion> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ExecutionStatsRollup(ExecutionStatsRepository statsRepository,
+                                ExecutionTaskRepository taskRepository,
+                                ExecutionProperties properties) {
+        this.statsRepository = statsRepository;
+        this.taskRepository = taskRepository;
+        this.config = properties.getStats();
+        this.archiveConfig = properties.getArchive();
+    }
+
+    /**
+     * 记录一条已落库的终态变更（RUNNING、CANCELLED 等不计入）
+     */
+    public void record(TaskStateChange change) {
+        record(change.getTaskId(), change.getExecutorId(), change.getLanguage(), change.getStatus(),
+                change.getExecutionTimeMs(), change.getCompletedAt());
+    }
+
+    /**
+     * 记录一个直接以终态保存的任务（结果缓存命中）
+     */
+    public void record(ExecutionTask task) {
+        record(task.getId(), task.getExecutor() == null ? null : task.getExecutor().getId(), task.getLanguage(),
+                task.getStatus(), task.getExecutionTimeMs(), task.getCompletedAt());
+    }
+
+    /**
+     * 定时把积累的完成记录合并后写入汇总表
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.execution.stats.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Completion> batch = new ArrayList<>();
+            Completion completion;
+            while ((completion = pending.poll()) != null) {
+                batch.add(completion);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            pendingCount.addAndGet(-batch.size());
+            try {
+                statsRepository.applyDeltas(aggregate(resolve(batch)));
+            } catch (RuntimeException e) {
+                // 数据库暂时不可用：放回队列，下一次刷新重试
+                log.error("写入 {} 条执行统计失败，稍后重试", batch.size(), e);
+                pending.addAll(batch);
+                pendingCount.addAndGet(batch.size());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 每天重建最近 rebuildDays 天（不含今天）的汇总
+     */
+    @Scheduled(cron = "${codesandbox.execution.stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuildRecent() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(config.getRebuildDays()), today);
+    }
+
+    /**
+     * 从 execution_tasks 重建 [from, to) 的汇总
+     * 用途：每日修正；首次上线或长时间停机后手动重建
+     *
+     * 重建会先删除区间内的汇总行，而结束超过 archive.older-than 的任务已经（或随时会被）归档移出热表，
+     * 这部分日期只剩汇总表里的数据。因此 from 最早只能到归档截止日的第二天（截止当天的任务部分已归档），
+     * 更早的部分被跳过，原有汇总保持不变
+     */
+    public void rebuild(LocalDate from, LocalDate to) {
+        LocalDate earliest = LocalDateTime.now().minus(archiveConfig.getOlderThan()).toLocalDate().plusDays(1);
+        if (from.isBefore(earliest)) {
+            log.warn("重建执行统计的起始日期 {} 早于归档截止日期，改为从 {} 开始", from, earliest);
+            from = earliest;
+        }
+        if (!from.isBefore(to)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            statsRepository.rebuild(from, to);
+            log.info("重建执行统计 [{}, {}) 完成，耗时 {} ms", from, to, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("重建执行统计 [{}, {}) 失败", from, to, e);
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void record(Long taskId, Long executorId, String language, ExecutionTask.Status status,
+                        Integer executionTimeMs, LocalDateTime completedAt) {
+        if (status != ExecutionTask.Status.COMPLETED && status != ExecutionTask.Status.FAILED
+                && status != ExecutionTask.Status.TIMEOUT) {
+            return;
+        }
+        // 长时间写不进数据库时不再积累，缺的部分由每日重建补上
+        if (pendingCount.get() >= config.getMaxPending()) {
+            return;
+        }
+        LocalDate statDate = (completedAt == null ? LocalDateTime.now() : completedAt).toLocalDate();
+        pending.add(new Completion(taskId, executorId, language, status, executionTimeMs, statDate));
+        pendingCount.incrementAndGet();
+    }
+
+    /**
+     * 合并跟随者、执行环境异常等变更不带归属，一次查询补全
+     */
+    private List<Completion> resolve(List<Completion> batch) {
+        List<Long> unresolved = batch.stream()
+                .filter(completion -> completion.executorId() == null || completion.language() == null)
+                .map(Completion::taskId)
+                .toList();
+        if (unresolved.isEmpty()) {
+            return batch;
+        }
+        Map<Long, TaskAttribution> attributions = new HashMap<>();
+        for (TaskAttribution attribution : taskRepository.findAttributions(unresolved)) {
+            attributions.put(attribution.id(), attribution);
+        }
+        List<Completion> resolved = new ArrayList<>(batch.size());
+        for (Completion completion : batch) {
+            if (completion.executorId() != null && completion.language() != null) {
+                resolved.add(completion);
+                continue;
+            }
+            TaskAttribution attribution = attributions.get(completion.taskId());
+            if (attribution != null) {
+                resolved.add(new Completion(completion.taskId(), attribution.executorId(), attribution.language(),
+                        completion.status(), completion.executionTimeMs(), completion.statDate()));
+            }
+        }
+        return resolved;
+    }
+
+    private static List<ExecutionStatsDelta> aggregate(List<Completion> completions) {
+        Map<String, ExecutionStatsDelta> deltas = new HashMap<>();
+        for (Completion completion : completions) {
+            delta(deltas, ExecutionStatsDaily.ALL, "", completion.statDate())
+                    .add(completion.status(), completion.executionTimeMs());
+            delta(deltas, ExecutionStatsDaily.LANGUAGE, completion.language(), completion.statDate())
+                    .add(completion.status(), completion.executionTimeMs());
+            delta(deltas, ExecutionStatsDaily.USER, String.valueOf(completion.executorId()), completion.statDate())
+                    .add(completion.status(), completion.executionTimeMs());
+        }
+        return new ArrayList<>(deltas.values());
+    }
+
+    private static ExecutionStatsDelta delta(Map<String, ExecutionStatsDelta> deltas, String dimension,
+                                             String dimKey, LocalDate statDate) {
+        return deltas.computeIfAbsent(dimension + '|' + dimKey + '|' + statDate,
+                key -> new ExecutionStatsDelta(dimension, dimKey, statDate));
+    }
+
+    /**
+     * 一个结束的任务（不保留输出等大字段）
+     */
+    private record Completion(Long taskId, Long executorId, String language, ExecutionTask.Status status,
+                              Integer executionTimeMs, LocalDate statDate) {
+    }
+}
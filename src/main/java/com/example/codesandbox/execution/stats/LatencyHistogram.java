@@ -0,0 +1,73 @@
+package com.example.codesandbox.execution.stats;
+
+/**
+ * 按 2 的幂分桶的耗时直方图
+ *
+ * 桶 0 为 [0, 1) 毫秒，桶 i 为 [2^(i-1), 2^i) 毫秒，最后一个桶收纳所有更长的耗时；
+ * 分位数取所在桶的上界，误差不超过 2 倍，但不同节点、不同日期的直方图可以直接相加。
+ * 桶号就是耗时的二进制位数，重建统计的 SQL 用 CHAR_LENGTH(BIN(ms)) 得到同样的桶号
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 桶数；最后一个桶从 2^20 毫秒（约 17 分钟）开始
+     */
+    public static final int BUCKETS = 22;
+
+    private final long[] counts = new long[BUCKETS];
+
+    public static int bucketOf(long ms) {
+        if (ms < 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(ms));
+    }
+
+    /**
+     * 桶的上界（毫秒），即落在该桶里的耗时的估计值
+     */
+    public static long upperBoundMs(int bucket) {
+        return 1L << bucket;
+    }
+
+    public void record(long ms) {
+        counts[bucketOf(ms)]++;
+    }
+
+    public void add(int bucket, long count) {
+        counts[bucket] += count;
+    }
+
+    public long count(int bucket) {
+        return counts[bucket];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 估算分位数（毫秒）；没有样本时返回 null
+     *
+     * @param quantile 0 到 1 之间，例如 0.95
+     */
+    public Long percentile(double quantile) {
+        long total = total();
+        if (total == 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= Math.max(rank, 1)) {
+                return upperBoundMs(bucket);
+            }
+        }
+        return upperBoundMs(BUCKETS - 1);
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import com.example.codesandbox.execution.sandbox.Utf8;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 运行中任务的增量输出登记表
+ *
+ * 流程：
+ * 1. 调度器开始运行任务时 open()，沙箱每读到一段输出就 append()
+ * 2. WebSocket 订阅者 subscribe(taskId, fromSeq) 先拿到缓冲区中的历史块，之后实时接收新块
+ * 3. 输出总量超过上限时追加一个截断标记块，之后的输出丢弃（沙箱持久化的结果也按同一上限截断，
+ *    截断点落在字符边界上）
+ * 4. 任务结束时 complete()，会话保留 retention 时长供迟到的订阅者读取，之后释放堆外内存
+ *
+ * 会话的缓冲区只存在于运行任务的节点上。配置了 {@link OutputRelay} 时，运行节点把每个块连同序号发布出去；
+ * 订阅落到其他节点时，那个节点的会话监听该任务，把收到的块原样（序号不变）推给订阅者，
+ * 监听开始前已经产生的块通过缺口告知。收到结束事件后会话立即释放，之后的订阅者读数据库中保存的结果。
+ * 没有转发或结束事件丢失时，由 {@link RemoteOutputResolver} 在任务结束后用保存的结果补齐并结束会话
+ *
+ * 所有会话的环形缓冲区共用 maxTotalBufferBytes 的堆外内存预算；预算用完后新会话不再缓冲，
+ * 只把输出推给已连接的订阅者，迟到的订阅者收到缺口，任务结束后可从保存的结果中读取完整输出
+ */
+@Slf4j
+@Component
+public class ExecutionOutputStreams {
+
+    private final ExecutionProperties.Stream config;
+    private final int maxOutputBytes;
+    private final ConcurrentMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong reservedBufferBytes = new AtomicLong();
+    private final OutputRelay relay;
+
+    @Autowired
+    public ExecutionOutputStreams(ExecutionProperties properties, ObjectProvider<OutputRelay> relay) {
+        this(properties, relay.getIfAvailable());
+    }
+
+    /**
+     * @param relay 为 null 时不跨节点转发输出
+     */
+    public ExecutionOutputStreams(ExecutionProperties properties, OutputRelay relay) {
+        this.config = properties.getStream();
+        this.maxOutputBytes = properties.getSandbox().getMaxOutputBytes();
+        this.relay = relay;
+    }
+
+    public ExecutionOutputStreams(ExecutionProperties properties) {
+        this(properties, (OutputRelay) null);
+    }
+
+    public void open(Long taskId) {
+        Session session = sessions.computeIfAbsent(taskId, Session::new);
+        session.local = true;
+        // 排队时在本节点订阅、最后又由本节点运行：不再需要其他节点的转发
+        stopListening(session);
+    }
+
+    public void append(Long taskId, OutputStreamType stream, byte[] data, int offset, int length) {
+        Session session = sessions.get(taskId);
+        if (session != null) {
+            session.append(stream, data, offset, length);
+        }
+    }
+
+    /**
+     * 一次性写入完整输出（合并执行的跟随者没有自己的沙箱，结束时直接拿到领头任务的结果），
+     * 并转发给其他节点上的订阅者
+     */
+    public void completeWithOutput(Long taskId, ExecutionTask.Status status, String output) {
+        Session session = sessions.get(taskId);
+        if (session == null) {
+            if (relay != null) {
+                boolean hasOutput = output != null && !output.isEmpty();
+                if (hasOutput) {
+                    relay.publishChunk(taskId, new OutputChunk(1, OutputStreamType.STDOUT, output));
+                }
+                relay.publishComplete(taskId, status, hasOutput ? 1 : 0);
+            }
+            return;
+        }
+        session.local = true;
+        stopListening(session);
+        appendAndComplete(session, status, output);
+    }
+
+    /**
+     * 用数据库中保存的结果结束其他节点上运行的任务的会话（{@link RemoteOutputResolver} 兜底用，不再转发）
+     *
+     * 已经收到过转发块的会话只发送结束帧，订阅者需要完整输出时重连读取保存的结果
+     */
+    public void completeFromStore(Long taskId, ExecutionTask.Status status, String output) {
+        Session session = sessions.get(taskId);
+        if (session == null) {
+            return;
+        }
+        if (session.relayed) {
+            session.complete(status);
+        } else {
+            appendAndComplete(session, status, output);
+        }
+        release(taskId, session);
+    }
+
+    public void complete(Long taskId, ExecutionTask.Status status) {
+        Session session = sessions.get(taskId);
+        if (session != null) {
+            session.complete(status);
+        }
+    }
+
+    /**
+     * 本节点是否有该任务的输出会话（运行中，或结束后仍在保留期内）
+     */
+    public boolean hasSession(Long taskId) {
+        return sessions.containsKey(taskId);
+    }
+
+    /**
+     * 只有订阅者、本节点没有在运行的未结束会话（任务在其他节点运行或还在排队）
+     */
+    public List<Long> awaitingRemote() {
+        List<Long> taskIds = new ArrayList<>();
+        sessions.forEach((taskId, session) -> {
+            if (session.awaitingRemote()) {
+                taskIds.add(taskId);
+            }
+        });
+        return taskIds;
+    }
+
+    /**
+     * 当前环形缓冲区占用的堆外内存预算（字节）
+     */
+    public long reservedBufferBytes() {
+        return reservedBufferBytes.get();
+    }
+
+    /**
+     * 订阅任务输出；任务还没开始运行时先建立会话等待
+     *
+     * @return 用于取消订阅的句柄
+     */
+    public Runnable subscribe(Long taskId, long fromSeq, OutputSubscriber subscriber) {
+        Session session = sessions.computeIfAbsent(taskId, Session::new);
+        session.subscribe(fromSeq, subscriber);
+        if (relay != null) {
+            session.startListening();
+        }
+        return () -> session.subscribers.remove(subscriber);
+    }
+
+    /**
+     * 释放已结束且超过保留时长的会话，以及长时间没有任何输出的会话（后者的订阅者收到结束帧后断开）
+     */
+    @Scheduled(fixedDelay = 10_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, Session>> it = sessions.entrySet().iterator();
+        while (it.hasNext()) {
+            Session session = it.next().getValue();
+            if (session.isExpired(now)) {
+                it.remove();
+                session.evict();
+                stopListening(session);
+            }
+        }
+    }
+
+    private void appendAndComplete(Session session, ExecutionTask.Status status, String output) {
+        if (output != null && !output.isEmpty()) {
+            byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+            session.append(OutputStreamType.STDOUT, bytes, 0, bytes.length);
+        }
+        session.complete(status);
+    }
+
+    /**
+     * 其他节点运行的任务已经结束：释放会话，之后的订阅者直接读保存的结果
+     */
+    private void release(Long taskId, Session session) {
+        if (sessions.remove(taskId, session)) {
+            session.evict();
+        }
+        stopListening(session);
+    }
+
+    private void stopListening(Session session) {
+        if (relay != null) {
+            session.stopListening();
+        }
+    }
+
+    /**
+     * 把其他节点转发来的块和结束事件交给本节点的会话
+     */
+    private final class RelayListener implements OutputSubscriber {
+
+        private final Long taskId;
+        private final Session session;
+
+        RelayListener(Long taskId, Session session) {
+            this.taskId = taskId;
+            this.session = session;
+        }
+
+        @Override
+        public void onChunk(OutputChunk chunk) {
+            session.acceptRelayed(chunk);
+        }
+
+        @Override
+        public void onGap(long requestedSeq, long oldestSeq) {
+        }
+
+        @Override
+        public void onComplete(ExecutionTask.Status status, long lastSeq) {
+            if (session.completeRelayed(status, lastSeq)) {
+                release(taskId, session);
+            }
+        }
+
+        @Override
+        public void onExpired(long lastSeq) {
+        }
+    }
+
+    private final class Session {
+
+        private final Long taskId;
+        private final List<OutputSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        private volatile boolean local;
+        private boolean listening;
+        private volatile boolean relayed;
+        private OutputRingBuffer ring;
+        private boolean bufferDenied;
+        private long unbufferedSeq;
+        private long totalBytes;
+        private boolean truncated;
+        private ExecutionTask.Status status;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        Session(Long taskId) {
+            this.taskId = taskId;
+        }
+
+        synchronized void append(OutputStreamType stream, byte[] data, int offset, int length) {
+            if (truncated || status != null) {
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            long remaining = maxOutputBytes - totalBytes;
+            if (length > remaining) {
+                length = Utf8.boundary(data, offset, (int) Math.max(0, remaining));
+                truncated = true;
+            }
+            if (length > 0) {
+                totalBytes += length;
+                publish(stream, data, offset, length);
+            }
+            if (truncated) {
+                byte[] marker = ("\n[输出超过 " + maxOutputBytes + " 字节，已截断]\n").getBytes(StandardCharsets.UTF_8);
+                publish(OutputStreamType.STDERR, marker, 0, marker.length);
+            }
+        }
+
+        synchronized void complete(ExecutionTask.Status finalStatus) {
+            if (status != null) {
+                return;
+            }
+            finish(finalStatus, lastSeq());
+            if (local && relay != null) {
+                relay.publishComplete(taskId, finalStatus, lastSeq());
+            }
+        }
+
+        /**
+         * 其他节点转发来的块：序号不变地推给订阅者，不进缓冲区；序号不连续（监听开始前的块或发布时被丢弃的块）时先发缺口
+         */
+        synchronized void acceptRelayed(OutputChunk chunk) {
+            if (local || status != null || chunk.seq() <= unbufferedSeq) {
+                return;
+            }
+            relayed = true;
+            lastActivity = System.currentTimeMillis();
+            if (chunk.seq() > unbufferedSeq + 1) {
+                for (OutputSubscriber subscriber : subscribers) {
+                    subscriber.onGap(unbufferedSeq + 1, chunk.seq());
+                }
+            }
+            unbufferedSeq = chunk.seq();
+            for (OutputSubscriber subscriber : subscribers) {
+                subscriber.onChunk(chunk);
+            }
+        }
+
+        /**
+         * @return 会话是否因此结束（本节点自己运行的任务忽略转发的结束事件）
+         */
+        synchronized boolean completeRelayed(ExecutionTask.Status finalStatus, long lastSeq) {
+            if (local || status != null) {
+                return false;
+            }
+            finish(finalStatus, Math.max(lastSeq, unbufferedSeq));
+            return true;
+        }
+
+        synchronized void startListening() {
+            if (local || listening || status != null) {
+                return;
+            }
+            listening = true;
+            relay.listen(taskId, new RelayListener(taskId, this));
+        }
+
+        synchronized void stopListening() {
+            if (listening) {
+                listening = false;
+                relay.unlisten(taskId);
+            }
+        }
+
+        private void finish(ExecutionTask.Status finalStatus, long lastSeq) {
+            status = finalStatus;
+            lastActivity = System.currentTimeMillis();
+            for (OutputSubscriber subscriber : subscribers) {
+                subscriber.onComplete(finalStatus, lastSeq);
+            }
+            subscribers.clear();
+        }
+
+        synchronized void evict() {
+            if (status == null) {
+                long lastSeq = lastSeq();
+                for (OutputSubscriber subscriber : subscribers) {
+                    subscriber.onExpired(lastSeq);
+                }
+            }
+            subscribers.clear();
+            if (ring != null) {
+                ring = null;
+                reservedBufferBytes.addAndGet(-config.getRingBufferBytes());
+            }
+        }
+
+        synchronized boolean awaitingRemote() {
+            return !local && status == null && !subscribers.isEmpty();
+        }
+
+        synchronized void subscribe(long fromSeq, OutputSubscriber subscriber) {
+            if (ring != null) {
+                long oldest = ring.oldestSeq();
+                if (fromSeq < oldest && fromSeq <= ring.lastSeq()) {
+                    subscriber.onGap(fromSeq, oldest);
+                }
+                ring.readFrom(fromSeq).forEach(subscriber::onChunk);
+            } else if (fromSeq <= unbufferedSeq) {
+                subscriber.onGap(fromSeq, unbufferedSeq + 1);
+            }
+            if (status != null) {
+                subscriber.onComplete(status, lastSeq());
+                return;
+            }
+            subscribers.add(subscriber);
+        }
+
+        private long lastSeq() {
+            return ring == null ? unbufferedSeq : ring.lastSeq();
+        }
+
+        private void publish(OutputStreamType stream, byte[] data, int offset, int length) {
+            if (ring == null && !bufferDenied) {
+                int size = config.getRingBufferBytes();
+                if (reservedBufferBytes.addAndGet(size) <= config.getMaxTotalBufferBytes()) {
+                    ring = new OutputRingBuffer(size, config.getMaxChunks());
+                } else {
+                    reservedBufferBytes.addAndGet(-size);
+                    bufferDenied = true;
+                }
+            }
+            long seq = ring != null ? ring.append(stream, data, offset, length) : ++unbufferedSeq;
+            boolean relaying = local && relay != null;
+            if (subscribers.isEmpty() && !relaying) {
+                return;
+            }
+            OutputChunk chunk = new OutputChunk(seq, stream, new String(data, offset, length, StandardCharsets.UTF_8));
+            if (relaying) {
+                relay.publishChunk(taskId, chunk);
+            }
+            for (OutputSubscriber subscriber : subscribers) {
+                subscriber.onChunk(chunk);
+            }
+        }
+
+        boolean isExpired(long now) {
+            long idle = now - lastActivity;
+            if (status != null) {
+                return idle > config.getRetention().toMillis();
+            }
+            return idle > config.getIdleTimeout().toMillis();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import com.example.codesandbox.execution.service.ExecutionPayloadStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实时输出 WebSocket：/ws/executions/{id}/output?fromSeq=N
+ *
+ * 服务端推送的消息（JSON）：
+ * - {"type":"chunk","seq":3,"stream":"STDOUT","data":"..."}
+ * - {"type":"gap","requestedSeq":1,"oldestSeq":120}：请求的序号已被淘汰，从 oldestSeq 开始
+ * - {"type":"end","status":"COMPLETED","lastSeq":130}：任务结束，服务端随后关闭连接
+ * - {"type":"expired","lastSeq":42}：任务长时间没有输出、会话被释放，服务端随后关闭连接；
+ *   客户端稍后带 lastSeq + 1 重连，任务已结束时会收到保存的完整输出
+ *
+ * 客户端断线后带上最后收到的 seq + 1 重连即可续传
+ */
+@Slf4j
+@Component
+public class ExecutionOutputWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String SUBSCRIPTION = "outputSubscription";
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+    private final ExecutionOutputStreams outputStreams;
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionPayloadStore payloadStore;
+    private final ObjectMapper objectMapper;
+
+    public ExecutionOutputWebSocketHandler(ExecutionOutputStreams outputStreams,
+                                           ExecutionTaskRepository taskRepository,
+                                           ExecutionPayloadStore payloadStore,
+                                           ObjectMapper objectMapper) {
+        this.outputStreams = outputStreams;
+        this.taskRepository = taskRepository;
+        this.payloadStore = payloadStore;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession rawSession) throws Exception {
+        // 慢客户端只会占满自己的发送缓冲区，超限后连接被关闭，不会阻塞沙箱读取输出的线程
+        WebSocketSession session = new ConcurrentWebSocketSessionDecorator(rawSession, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        UriComponents uri = UriComponentsBuilder.fromUri(rawSession.getUri()).build();
+        Long taskId = parseTaskId(uri.getPathSegments());
+        Principal principal = rawSession.getPrincipal();
+        if (taskId == null || principal == null
+                || !taskRepository.existsByIdAndExecutorUsername(taskId, principal.getName())) {
+            rawSession.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        long fromSeq = parseFromSeq(uri.getQueryParams().getFirst("fromSeq"));
+
+        // 本节点没有会话且任务已结束：直接回放数据库中保存的输出
+        if (!outputStreams.hasSession(taskId)) {
+            ExecutionTask task = taskRepository.findWithOutputById(taskId).orElse(null);
+            if (task != null && isFinished(task.getStatus())) {
+                replayStored(session, task);
+                return;
+            }
+        }
+        Runnable unsubscribe = outputStreams.subscribe(taskId, fromSeq, new SessionSubscriber(session));
+        rawSession.getAttributes().put(SUBSCRIPTION, unsubscribe);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object unsubscribe = session.getAttributes().remove(SUBSCRIPTION);
+        if (unsubscribe instanceof Runnable runnable) {
+            runnable.run();
+        }
+    }
+
+    private void replayStored(WebSocketSession session, ExecutionTask task) throws IOException {
+        String output = payloadStore.output(task);
+        if (output != null && !output.isEmpty()) {
+            send(session, chunk(new OutputChunk(1, OutputStreamType.STDOUT, output)));
+        }
+        send(session, end(task.getStatus(), output == null || output.isEmpty() ? 0 : 1));
+        session.close(CloseStatus.NORMAL);
+    }
+
+    private void send(WebSocketSession session, Map<String, Object> payload) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+    }
+
+    private static Map<String, Object> chunk(OutputChunk chunk) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "chunk");
+        payload.put("seq", chunk.seq());
+        payload.put("stream", chunk.stream());
+        payload.put("data", chunk.data());
+        return payload;
+    }
+
+    private static Map<String, Object> end(ExecutionTask.Status status, long lastSeq) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "end");
+        payload.put("status", status);
+        payload.put("lastSeq", lastSeq);
+        return payload;
+    }
+
+    private static boolean isFinished(ExecutionTask.Status status) {
+        return status != ExecutionTask.Status.PENDING && status != ExecutionTask.Status.RUNNING;
+    }
+
+    /**
+     * 路径形如 /ws/executions/{id}/output
+     */
+    private static Long parseTaskId(List<String> segments) {
+        int index = segments.indexOf("executions");
+        if (index < 0 || index + 1 >= segments.size()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(segments.get(index + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long parseFromSeq(String value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * 把输出事件转成 WebSocket 消息；发送失败只记录日志，连接关闭时会取消订阅
+     */
+    private final class SessionSubscriber implements OutputSubscriber {
+
+        private final WebSocketSession session;
+
+        SessionSubscriber(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onChunk(OutputChunk chunk) {
+            trySend(chunk(chunk));
+        }
+
+        @Override
+        public void onGap(long requestedSeq, long oldestSeq) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("type", "gap");
+            payload.put("requestedSeq", requestedSeq);
+            payload.put("oldestSeq", oldestSeq);
+            trySend(payload);
+        }
+
+        @Override
+        public void onComplete(ExecutionTask.Status status, long lastSeq) {
+            trySend(end(status, lastSeq));
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void onExpired(long lastSeq) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("type", "expired");
+            payload.put("lastSeq", lastSeq);
+            trySend(payload);
+            close(CloseStatus.GOING_AWAY);
+        }
+
+        private void close(CloseStatus status) {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.debug("关闭输出连接失败: {}", session.getId(), e);
+            }
+        }
+
+        private void trySend(Map<String, Object> payload) {
+            if (!session.isOpen()) {
+                return;
+            }
+            try {
+                send(session, payload);
+            } catch (JsonProcessingException e) {
+                log.warn("序列化输出消息失败", e);
+            } catch (IOException | RuntimeException e) {
+                log.debug("推送输出失败: {}", session.getId(), e);
+            }
+        }
+    }
+}
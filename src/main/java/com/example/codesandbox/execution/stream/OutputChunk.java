@@ -0,0 +1,13 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+
+/**
+ * 一段增量输出
+ *
+ * @param seq    序号（每个任务从 1 开始递增，客户端断线后用它续传）
+ * @param stream stdout / stderr
+ * @param data   文本内容
+ */
+public record OutputChunk(long seq, OutputStreamType stream, String data) {
+}
@@ -0,0 +1,26 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+
+/**
+ * 跨节点转发增量输出
+ *
+ * 运行任务的节点把每个输出块（带序号）和结束事件按任务发布出去；
+ * 订阅落在其他节点时，那个节点按任务监听并把收到的块推给本地订阅者
+ */
+public interface OutputRelay {
+
+    /**
+     * 发布一个输出块；不能阻塞沙箱读取输出的线程，发布不出去时直接丢弃
+     */
+    void publishChunk(Long taskId, OutputChunk chunk);
+
+    void publishComplete(Long taskId, ExecutionTask.Status status, long lastSeq);
+
+    /**
+     * 开始监听任务的输出；同一任务同一时刻只有一个监听者。只会回调 onChunk 和 onComplete
+     */
+    void listen(Long taskId, OutputSubscriber listener);
+
+    void unlisten(Long taskId);
+}
@@ -0,0 +1,123 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import com.example.codesandbox.execution.sandbox.Utf8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 堆外环形缓冲区，保存一个任务最近的输出块
+ *
+ * - 字节数据放在 DirectByteBuffer 中，不占用堆，也不会让大输出进入老年代
+ * - 块的元数据（序号、位置、长度、流类型）放在定长数组里
+ * - 空间或块数不够时淘汰最旧的块，订阅者续传的序号早于最旧块时会收到"缺口"
+ */
+public class OutputRingBuffer {
+
+    private static final OutputStreamType[] STREAM_TYPES = OutputStreamType.values();
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int maxChunks;
+
+    private final long[] seqs;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final byte[] streams;
+
+    private int head;
+    private int count;
+    private int writePos;
+    private int usedBytes;
+    private long nextSeq = 1;
+
+    public OutputRingBuffer(int capacityBytes, int maxChunks) {
+        this.buffer = ByteBuffer.allocateDirect(capacityBytes);
+        this.capacity = capacityBytes;
+        this.maxChunks = maxChunks;
+        this.seqs = new long[maxChunks];
+        this.offsets = new int[maxChunks];
+        this.lengths = new int[maxChunks];
+        this.streams = new byte[maxChunks];
+    }
+
+    /**
+     * 追加一个块，返回它的序号；超过整个缓冲区容量的块只保留末尾部分（从完整字符开始）
+     */
+    public synchronized long append(OutputStreamType stream, byte[] data, int offset, int length) {
+        if (length > capacity) {
+            offset += length - capacity;
+            length = capacity;
+            int skipped = Utf8.skipContinuation(data, offset, length);
+            offset += skipped;
+            length -= skipped;
+        }
+        while (count > 0 && (count == maxChunks || capacity - usedBytes < length)) {
+            evictOldest();
+        }
+        int pos = writePos;
+        int firstPart = Math.min(length, capacity - pos);
+        buffer.put(pos, data, offset, firstPart);
+        if (firstPart < length) {
+            buffer.put(0, data, offset + firstPart, length - firstPart);
+        }
+        int slot = (head + count) % maxChunks;
+        seqs[slot] = nextSeq;
+        offsets[slot] = pos;
+        lengths[slot] = length;
+        streams[slot] = (byte) stream.ordinal();
+        count++;
+        usedBytes += length;
+        writePos = (pos + length) % capacity;
+        return nextSeq++;
+    }
+
+    /**
+     * 读取序号 >= fromSeq 的所有块
+     */
+    public synchronized List<OutputChunk> readFrom(long fromSeq) {
+        List<OutputChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % maxChunks;
+            if (seqs[slot] >= fromSeq) {
+                chunks.add(new OutputChunk(seqs[slot], STREAM_TYPES[streams[slot]], read(slot)));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 缓冲区中最旧块的序号；为空时返回下一个将要分配的序号
+     */
+    public synchronized long oldestSeq() {
+        return count == 0 ? nextSeq : seqs[head];
+    }
+
+    public synchronized long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    private String read(int slot) {
+        byte[] bytes = new byte[lengths[slot]];
+        int pos = offsets[slot];
+        int firstPart = Math.min(bytes.length, capacity - pos);
+        buffer.get(pos, bytes, 0, firstPart);
+        if (firstPart < bytes.length) {
+            buffer.get(0, bytes, firstPart, bytes.length - firstPart);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void evictOldest() {
+        usedBytes -= lengths[head];
+        head = (head + 1) % maxChunks;
+        count--;
+        if (count == 0) {
+            writePos = 0;
+            usedBytes = 0;
+        }
+    }
+}
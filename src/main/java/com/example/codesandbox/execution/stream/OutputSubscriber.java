@@ -0,0 +1,23 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+
+/**
+ * 增量输出订阅者（WebSocket 连接）
+ */
+public interface OutputSubscriber {
+
+    void onChunk(OutputChunk chunk);
+
+    /**
+     * 请求续传的序号已经被环形缓冲区淘汰，只能从 oldestSeq 开始
+     */
+    void onGap(long requestedSeq, long oldestSeq);
+
+    void onComplete(ExecutionTask.Status status, long lastSeq);
+
+    /**
+     * 任务还没结束，但会话长时间没有输出被释放；订阅者应结束连接，由客户端稍后重连
+     */
+    void onExpired(long lastSeq);
+}
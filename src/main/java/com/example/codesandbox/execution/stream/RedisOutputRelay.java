@@ -0,0 +1,130 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis pub/sub 的输出转发，每个任务一个频道：codesandbox:execution:output:{taskId}
+ *
+ * 发布走单线程 + 有界队列，保持块的顺序且不阻塞沙箱读取输出的线程；队列满时丢弃，
+ * 接收方按序号发现缺口后通知订阅者。结束事件丢失时由 {@link RemoteOutputResolver} 按数据库中的状态兜底。
+ * 监听容器须用单线程分发消息，否则同一任务的块可能乱序到达
+ */
+@Slf4j
+public class RedisOutputRelay implements OutputRelay {
+
+    public static final String CHANNEL_PREFIX = "codesandbox:execution:output:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor publisher;
+    private final ConcurrentMap<Long, MessageListener> listeners = new ConcurrentHashMap<>();
+
+    public RedisOutputRelay(StringRedisTemplate redisTemplate,
+                            RedisMessageListenerContainer container,
+                            ObjectMapper objectMapper,
+                            int queueSize) {
+        this.redisTemplate = redisTemplate;
+        this.container = container;
+        this.objectMapper = objectMapper;
+        this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "output-relay-publisher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void publishChunk(Long taskId, OutputChunk chunk) {
+        publish(taskId, new RelayMessage(chunk.seq(), chunk.stream(), chunk.data(), null));
+    }
+
+    @Override
+    public void publishComplete(Long taskId, ExecutionTask.Status status, long lastSeq) {
+        publish(taskId, new RelayMessage(lastSeq, null, null, status));
+    }
+
+    @Override
+    public void listen(Long taskId, OutputSubscriber listener) {
+        MessageListener messageListener = (message, pattern) -> {
+            RelayMessage relayed;
+            try {
+                relayed = objectMapper.readValue(message.getBody(), RelayMessage.class);
+            } catch (IOException e) {
+                log.warn("无法解析任务 {} 的输出转发消息", taskId, e);
+                return;
+            }
+            if (relayed.status() != null) {
+                listener.onComplete(relayed.status(), relayed.seq());
+            } else {
+                listener.onChunk(new OutputChunk(relayed.seq(), relayed.stream(), relayed.data()));
+            }
+        };
+        if (listeners.putIfAbsent(taskId, messageListener) == null) {
+            try {
+                container.addMessageListener(messageListener, new ChannelTopic(CHANNEL_PREFIX + taskId));
+            } catch (RuntimeException e) {
+                listeners.remove(taskId, messageListener);
+                log.warn("监听任务 {} 的输出转发失败，任务结束后由保存的结果补齐", taskId, e);
+            }
+        }
+    }
+
+    @Override
+    public void unlisten(Long taskId) {
+        MessageListener messageListener = listeners.remove(taskId);
+        if (messageListener == null) {
+            return;
+        }
+        try {
+            container.removeMessageListener(messageListener, new ChannelTopic(CHANNEL_PREFIX + taskId));
+        } catch (RuntimeException e) {
+            log.debug("取消监听任务 {} 的输出转发失败", taskId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    private void publish(Long taskId, RelayMessage message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.warn("序列化任务 {} 的输出转发消息失败", taskId, e);
+            return;
+        }
+        publisher.execute(() -> {
+            try {
+                redisTemplate.convertAndSend(CHANNEL_PREFIX + taskId, payload);
+            } catch (RuntimeException e) {
+                log.debug("发布任务 {} 的输出失败", taskId, e);
+            }
+        });
+    }
+
+    /**
+     * 转发消息：status 为空时是输出块；不为空时是结束事件，seq 为最后一个块的序号
+     */
+    record RelayMessage(long seq, OutputStreamType stream, String data, ExecutionTask.Status status) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.service.ExecutionPayloadStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * 补齐落在非运行节点上的输出订阅（兜底）
+ *
+ * 实时输出由 {@link OutputRelay} 从运行节点转发过来，收到结束事件后会话即释放。
+ * 没有开启转发、订阅时任务已经结束、或者结束事件丢失时，会话会一直等待；
+ * 这里定期检查这些任务是否已经结束，只对已结束的任务用数据库中保存的结果写入会话并发送结束帧
+ */
+@Slf4j
+@Component
+public class RemoteOutputResolver {
+
+    private static final EnumSet<ExecutionTask.Status> ACTIVE =
+            EnumSet.of(ExecutionTask.Status.PENDING, ExecutionTask.Status.RUNNING);
+
+    private final ExecutionOutputStreams outputStreams;
+    private final ExecutionTaskRepository taskRepository;
+    private final ExecutionPayloadStore payloadStore;
+
+    public RemoteOutputResolver(ExecutionOutputStreams outputStreams,
+                                ExecutionTaskRepository taskRepository,
+                                ExecutionPayloadStore payloadStore) {
+        this.outputStreams = outputStreams;
+        this.taskRepository = taskRepository;
+        this.payloadStore = payloadStore;
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.execution.stream.remote-poll-interval-ms:2000}")
+    public void resolveFinished() {
+        List<Long> waiting = outputStreams.awaitingRemote();
+        if (waiting.isEmpty()) {
+            return;
+        }
+        for (Long taskId : taskRepository.findIdsByIdInAndStatusNotIn(waiting, ACTIVE)) {
+            taskRepository.findWithOutputById(taskId).ifPresent(task ->
+                    outputStreams.completeFromStore(taskId, task.getStatus(), payloadStore.output(task)));
+        }
+    }
+}
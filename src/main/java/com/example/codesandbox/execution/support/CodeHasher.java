@@ -0,0 +1,28 @@
+package com.example.codesandbox.execution.support;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 代码哈希工具（SHA-256，输出 64 位小写十六进制，对应 execution_tasks.code_hash）
+ */
+public final class CodeHasher {
+
+    private CodeHasher() {
+    }
+
+    public static String sha256(String content) {
+        return sha256(content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.codesandbox.execution.web;
+
+import com.example.codesandbox.execution.admission.AdmissionDecision;
+import com.example.codesandbox.execution.admission.AdmissionRejectedException;
+import com.example.codesandbox.execution.ratelimit.RateLimitDecision;
+import com.example.codesandbox.execution.ratelimit.RateLimitExceededException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 执行模块异常 → HTTP 响应
+ */
+@RestControllerAdvice
+public class ExecutionExceptionHandler {
+
+    /**
+     * 限流：429 + Retry-After（秒）+ X-RateLimit-* 头
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimitExceeded(RateLimitExceededException e) {
+        RateLimitDecision decision = e.getDecision();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(decision.retryAfterMs())))
+                .header("X-RateLimit-Limit", String.valueOf(decision.limit()))
+                .header("X-RateLimit-Remaining", String.valueOf(decision.remaining()))
+                .body(Map.of(
+                        "message", e.getMessage(),
+                        "retryAfterMs", decision.retryAfterMs()));
+    }
+
+    /**
+     * 过载：429 + Retry-After（秒），客户端按预计时间延后重试
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmissionRejected(AdmissionRejectedException e) {
+        AdmissionDecision decision = e.getDecision();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(decision.retryAfterMs())))
+                .body(Map.of(
+                        "message", e.getMessage(),
+                        "retryAfterMs", decision.retryAfterMs()));
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.codesandbox.pagination;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 游标（继续令牌）编解码
+ *
+ * 列表统一按 (created_at DESC, id DESC) 排序，游标就是上一页最后一行的这两个值；
+ * 编码为 base64url 字符串交给客户端，客户端只能原样传回，不需要也不应该解析。
+ * 格式带版本号，以后调整编码时旧游标可以给出明确的错误
+ */
+public final class CursorCodec {
+
+    public static final String CREATED_AT = "createdAt";
+    public static final String ID = "id";
+
+    private static final String VERSION = "v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 把 Window.positionAt(...) 得到的位置编码为游标
+     */
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.isInitial()) {
+            throw new IllegalArgumentException("只支持非初始的 keyset 位置");
+        }
+        Map<String, ?> keys = keyset.getKeys();
+        Object createdAt = keys.get(CREATED_AT);
+        Object id = keys.get(ID);
+        if (!(createdAt instanceof LocalDateTime) || !(id instanceof Number)) {
+            throw new IllegalArgumentException("游标需要 createdAt 和 id: " + keys);
+        }
+        String raw = VERSION + '|' + createdAt + '|' + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标；为空时返回第一页的位置
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("无效的游标");
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(CREATED_AT, LocalDateTime.parse(parts[1]));
+            keys.put(ID, Long.parseLong(parts[2]));
+            return ScrollPosition.forward(keys);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Base64 解码失败和 NumberFormatException 都是 IllegalArgumentException
+            throw new IllegalArgumentException("无效的游标", e);
+        }
+    }
+}
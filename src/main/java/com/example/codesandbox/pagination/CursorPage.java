@@ -0,0 +1,36 @@
+package com.example.codesandbox.pagination;
+
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的一页
+ *
+ * 不做 COUNT，也不用 OFFSET：第 N 页和第 1 页一样只扫描 (过滤列, created_at, id) 索引上的 size + 1 行
+ *
+ * @param items      本页数据
+ * @param nextCursor 下一页的游标，没有下一页时为 null
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static <T> CursorPage<T> of(Window<T> window) {
+        return of(window, Function.identity());
+    }
+
+    /**
+     * @param mapper 实体 → DTO
+     */
+    public static <E, T> CursorPage<T> of(Window<E> window, Function<? super E, ? extends T> mapper) {
+        List<T> items = window.getContent().stream().<T>map(mapper).toList();
+        String next = window.hasNext() && !window.isEmpty()
+                ? CursorCodec.encode(window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPage<>(items, next);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
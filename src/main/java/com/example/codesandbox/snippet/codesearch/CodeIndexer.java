@@ -0,0 +1,108 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.snippet.service.CodeVersionContentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+
+/**
+ * 代码内容索引的维护
+ *
+ * - 保存新版本时（CodeVersionStore）立即更新该片段的三元组
+ * - 定时把增量或日志较多的分片合并进基础段
+ * - 索引为空而数据库里有片段时，按片段ID游标分批读取最新版本补建索引
+ *
+ * 只有本节点保存的版本会更新本节点的索引，多节点部署时各节点的索引互不同步（见 TrigramIndex）
+ */
+@Slf4j
+public class CodeIndexer {
+
+    private final TrigramIndex index;
+    private final CodeSnippetRepository snippetRepository;
+    private final CodeVersionRepository versionRepository;
+    private final CodeVersionContentStore contentStore;
+    private final SnippetSearchProperties.Code config;
+
+    private volatile Long backfillCursor;
+
+    public CodeIndexer(TrigramIndex index,
+                       CodeSnippetRepository snippetRepository,
+                       CodeVersionRepository versionRepository,
+                       CodeVersionContentStore contentStore,
+                       SnippetSearchProperties properties) {
+        this.index = index;
+        this.snippetRepository = snippetRepository;
+        this.versionRepository = versionRepository;
+        this.contentStore = contentStore;
+        this.config = properties.getCode();
+    }
+
+    /**
+     * 片段保存了新版本
+     */
+    public void versionSaved(Long snippetId, String content) {
+        index.update(snippetId, content);
+    }
+
+    public void reindexAll() {
+        backfillCursor = 0L;
+    }
+
+    public boolean isBackfilling() {
+        return backfillCursor != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!config.isBackfillOnStartup()) {
+            return;
+        }
+        try {
+            if (index.isEmpty() && snippetRepository.count() > 0) {
+                log.info("代码内容索引为空，开始全量补建");
+                reindexAll();
+            }
+        } catch (RuntimeException e) {
+            log.warn("检查代码内容索引失败，跳过全量补建", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.search.code.merge-interval-ms:30000}")
+    public void merge() {
+        index.mergeIfNeeded(config.getMergeThreshold(), config.getMergeJournalRecords(), config.getMergeJournalBytes());
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.search.code.backfill-interval-ms:1000}")
+    public void backfill() {
+        Long cursor = backfillCursor;
+        if (cursor == null) {
+            return;
+        }
+        try {
+            List<Long> ids = snippetRepository.findIdsAfter(cursor, Limit.of(config.getBackfillBatchSize()));
+            if (ids.isEmpty()) {
+                backfillCursor = null;
+                log.info("代码内容索引全量补建完成");
+                return;
+            }
+            for (CodeVersion version : versionRepository.findLatestVersionsBySnippetIds(ids)) {
+                String content = contentStore.content(version);
+                if (content != null) {
+                    index.updateIfAbsent(version.getSnippet().getId(), content);
+                }
+            }
+            backfillCursor = ids.get(ids.size() - 1);
+        } catch (RuntimeException e) {
+            // 游标不前进，下个周期重试同一批
+            log.error("代码内容索引全量补建在ID {} 之后失败，稍后重试", cursor, e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import com.example.codesandbox.snippet.dto.CodeSearchHit;
+import com.example.codesandbox.snippet.dto.CodeSearchResult;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.snippet.service.CodeVersionContentStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 按代码内容搜索公开片段（子串或正则）
+ *
+ * 先由三元组索引求出候选片段（每个分支的三元组取交集），再读出候选的最新版本用真实的匹配验证；
+ * 候选按片段ID从新到旧分批验证，凑够 maxResults 条或验证完 maxCandidates 个候选为止
+ */
+@Slf4j
+public class CodeSearchService {
+
+    private static final int VERIFY_BATCH = 100;
+    private static final int MAX_LINE_CHARS = 200;
+
+    private final TrigramIndex index;
+    private final CodeSnippetRepository snippetRepository;
+    private final CodeVersionRepository versionRepository;
+    private final CodeVersionContentStore contentStore;
+    private final SnippetSearchProperties.Code config;
+
+    public CodeSearchService(TrigramIndex index,
+                             CodeSnippetRepository snippetRepository,
+                             CodeVersionRepository versionRepository,
+                             CodeVersionContentStore contentStore,
+                             SnippetSearchProperties properties) {
+        this.index = index;
+        this.snippetRepository = snippetRepository;
+        this.versionRepository = versionRepository;
+        this.contentStore = contentStore;
+        this.config = properties.getCode();
+    }
+
+    /**
+     * @param regex      pattern 是否为正则（否则按普通子串）
+     * @param ignoreCase 是否忽略大小写
+     * @param language   只看某种语言，为 null 不过滤
+     * @throws IllegalArgumentException 正则语法错误，或查询里没有连续 3 个字符的固定文本（无法利用索引）
+     */
+    public CodeSearchResult search(String pattern, boolean regex, boolean ignoreCase, String language) {
+        if (pattern == null || pattern.isEmpty()) {
+            throw new IllegalArgumentException("搜索内容不能为空");
+        }
+        int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        Pattern compiled = Pattern.compile(regex ? pattern : Pattern.quote(pattern), flags | Pattern.MULTILINE);
+        TrigramQuery query = regex ? TrigramQuery.regex(pattern) : TrigramQuery.literal(pattern);
+        if (query.matchesAll()) {
+            throw new IllegalArgumentException("搜索内容中至少要有一段连续 3 个字符的固定文本");
+        }
+
+        long[] candidates = index.candidates(query);
+        int limit = Math.min(candidates.length, config.getMaxCandidates());
+        List<CodeSearchHit> hits = new ArrayList<>();
+        int verified = 0;
+        while (verified < limit && hits.size() < config.getMaxResults()) {
+            int end = Math.min(verified + VERIFY_BATCH, limit);
+            List<Long> batch = new ArrayList<>(end - verified);
+            for (int i = verified; i < end; i++) {
+                batch.add(candidates[i]);
+            }
+            verify(batch, compiled, language, hits);
+            verified = end;
+        }
+        return new CodeSearchResult(hits, candidates.length, verified < candidates.length);
+    }
+
+    private void verify(List<Long> ids, Pattern pattern, String language, List<CodeSearchHit> hits) {
+        Map<Long, CodeSnippet> snippets = snippetRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CodeSnippet::getId, Function.identity()));
+        List<Long> eligible = new ArrayList<>();
+        for (Long id : ids) {
+            CodeSnippet snippet = snippets.get(id);
+            if (snippet == null) {
+                // 片段已被删除：顺便从索引中去掉
+                index.remove(id);
+            } else if (snippet.getVisibility() == CodeSnippet.Visibility.PUBLIC
+                    && (language == null || language.equalsIgnoreCase(snippet.getLanguage()))) {
+                eligible.add(id);
+            }
+        }
+        if (eligible.isEmpty()) {
+            return;
+        }
+        Map<Long, CodeVersion> versions = versionRepository.findLatestVersionsBySnippetIds(eligible).stream()
+                .collect(Collectors.toMap(version -> version.getSnippet().getId(), Function.identity()));
+        for (Long id : eligible) {
+            CodeVersion version = versions.get(id);
+            if (version == null || hits.size() >= config.getMaxResults()) {
+                continue;
+            }
+            CodeSnippet snippet = snippets.get(id);
+            String content = contentStore.content(version);
+            int at = find(pattern, content, id);
+            if (at >= 0) {
+                hits.add(hit(snippet, content, at));
+            }
+        }
+    }
+
+    private int find(Pattern pattern, String content, Long snippetId) {
+        if (content == null) {
+            return -1;
+        }
+        Matcher matcher = pattern.matcher(new DeadlineCharSequence(content,
+                System.nanoTime() + config.getRegexTimeout().toNanos()));
+        try {
+            return matcher.find() ? matcher.start() : -1;
+        } catch (MatchTimeoutException e) {
+            log.debug("片段 {} 正则匹配超时，按不匹配处理", snippetId);
+            return -1;
+        }
+    }
+
+    private static CodeSearchHit hit(CodeSnippet snippet, String content, int at) {
+        int lineStart = content.lastIndexOf('\n', at - 1) + 1;
+        int lineEnd = content.indexOf('\n', at);
+        if (lineEnd < 0) {
+            lineEnd = content.length();
+        }
+        int lineNumber = 1;
+        for (int i = 0; i < lineStart; i++) {
+            if (content.charAt(i) == '\n') {
+                lineNumber++;
+            }
+        }
+        String line = content.substring(lineStart, Math.min(lineEnd, lineStart + MAX_LINE_CHARS));
+        return new CodeSearchHit(snippet.getId(), snippet.getTitle(), snippet.getLanguage(), lineNumber, line);
+    }
+
+    private static final class MatchTimeoutException extends RuntimeException {
+
+        MatchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 正则引擎每读若干个字符检查一次是否超时
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+
+        private final CharSequence text;
+        private final long deadline;
+        private int reads;
+
+        DeadlineCharSequence(CharSequence text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & 0xFFF) == 0 && System.nanoTime() > deadline) {
+                throw new MatchTimeoutException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(text.subSequence(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+
+/**
+ * 片段最新代码内容的三元组倒排索引
+ *
+ * 按片段ID取模分成若干分片，每个分片由两部分组成：
+ * - 基础段（shard-N.tri）：不可变的倒排表文件，只读内存映射，重启后直接映射使用
+ * - 增量：合并之后更新过的片段（片段ID → 三元组），内存中保存，同时追加写入 shard-N.journal，
+ *   重启时重放；增量中的片段覆盖基础段中的同一片段（空三元组表示删除）
+ *
+ * 增量的片段数、日志记录数或日志字节数任一达到阈值时合并（同一片段反复保存时增量片段数不变，日志仍在增长）：
+ * 基础段和增量按三元组顺序归并写出新文件，原子替换后重新映射，日志截断为合并期间新到的更新。
+ * 读者每次查询拿到的（基础段, 增量）是同一代的快照，不受合并影响
+ *
+ * 索引只负责给出候选片段（可能多、不会少），由调用方用真实内容验证。
+ * 索引文件在本节点本地，只包含本节点保存的版本和补建时读到的内容：多节点部署时，
+ * 其他节点保存的新版本不会进入本节点的索引，本节点按旧内容给出候选，新内容可能搜不到，
+ * 直到本节点重建（清空索引目录后重启触发全量补建，或调用 CodeIndexer.reindexAll）
+ */
+@Slf4j
+public class TrigramIndex implements Closeable {
+
+    private final Path dir;
+    private final Shard[] shards;
+
+    public TrigramIndex(Path dir, int shardCount) {
+        this.dir = dir;
+        this.shards = new Shard[shardCount];
+        try {
+            Files.createDirectories(dir);
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new Shard(i);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开三元组索引目录 " + dir, e);
+        }
+    }
+
+    /**
+     * 更新某个片段的内容
+     */
+    public void update(long snippetId, String content) {
+        shardOf(snippetId).put(snippetId, Trigrams.of(content), true);
+    }
+
+    /**
+     * 索引中还没有这个片段的增量时才写入（全量补建用，不覆盖补建期间新保存的版本）
+     */
+    public void updateIfAbsent(long snippetId, String content) {
+        shardOf(snippetId).put(snippetId, Trigrams.of(content), false);
+    }
+
+    public void remove(long snippetId) {
+        shardOf(snippetId).put(snippetId, Trigrams.NONE, true);
+    }
+
+    /**
+     * 可能匹配的片段ID（降序，即新建的片段在前）
+     */
+    long[] candidates(TrigramQuery query) {
+        LongStream ids = LongStream.empty();
+        for (Shard shard : shards) {
+            Generation generation = shard.generation;
+            for (long[] branch : query.branches()) {
+                ids = LongStream.concat(ids, Arrays.stream(generation.match(branch)));
+            }
+        }
+        long[] sorted = ids.distinct().sorted().toArray();
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            long swap = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = swap;
+        }
+        return sorted;
+    }
+
+    public int getPendingCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.generation.pending.size();
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (Shard shard : shards) {
+            Generation generation = shard.generation;
+            if (!generation.pending.isEmpty() || (generation.base != null && generation.base.termCount() > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 合并增量片段数、日志记录数或日志字节数达到阈值的分片
+     */
+    public void mergeIfNeeded(int threshold, int maxJournalRecords, long maxJournalBytes) {
+        for (Shard shard : shards) {
+            if (shard.generation.pending.size() >= threshold || shard.journalExceeds(maxJournalRecords, maxJournalBytes)) {
+                try {
+                    shard.merge();
+                } catch (IOException | RuntimeException e) {
+                    log.error("合并三元组索引分片 {} 失败", shard.number, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Shard shard : shards) {
+            shard.journal.close();
+        }
+    }
+
+    private Shard shardOf(long snippetId) {
+        return shards[(int) Math.floorMod(snippetId, (long) shards.length)];
+    }
+
+    /**
+     * 一代索引：基础段 + 之后的增量
+     */
+    private record Generation(TrigramSegment base, ConcurrentHashMap<Long, long[]> pending) {
+
+        /**
+         * 同时包含 branch 中所有三元组的片段（升序）
+         */
+        long[] match(long[] branch) {
+            if (branch.length == 0) {
+                return Trigrams.NONE;
+            }
+            // 先取片段最少的三元组，交集尽早变小
+            long[] order = branch.clone();
+            if (base != null) {
+                order = Arrays.stream(branch).boxed()
+                        .sorted((a, b) -> Integer.compare(base.count(a), base.count(b)))
+                        .mapToLong(Long::longValue)
+                        .toArray();
+            }
+            long[] result = null;
+            for (long trigram : order) {
+                long[] ids = postings(trigram);
+                result = result == null ? ids : intersect(result, ids);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private long[] postings(long trigram) {
+            long[] fromBase = base == null ? Trigrams.NONE : base.postings(trigram);
+            if (pending.isEmpty()) {
+                return fromBase;
+            }
+            LongStream.Builder ids = LongStream.builder();
+            for (long id : fromBase) {
+                if (!pending.containsKey(id)) {
+                    ids.add(id);
+                }
+            }
+            pending.forEach((id, trigrams) -> {
+                if (Arrays.binarySearch(trigrams, trigram) >= 0) {
+                    ids.add(id);
+                }
+            });
+            return ids.build().sorted().toArray();
+        }
+
+        private static long[] intersect(long[] a, long[] b) {
+            long[] out = new long[Math.min(a.length, b.length)];
+            int n = 0;
+            for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+    private final class Shard {
+
+        private final int number;
+        private final Path segmentPath;
+        private final Path journalPath;
+        private final ReentrantLock mergeLock = new ReentrantLock();
+        private volatile Generation generation;
+        private FileChannel journal;
+        private int journalRecords;
+        private long journalBytes;
+
+        Shard(int number) throws IOException {
+            this.number = number;
+            this.segmentPath = dir.resolve("shard-" + number + ".tri");
+            this.journalPath = dir.resolve("shard-" + number + ".journal");
+            TrigramSegment base = Files.exists(segmentPath) ? TrigramSegment.open(segmentPath) : null;
+            this.generation = new Generation(base, replay());
+            this.journal = openJournal();
+            this.journalBytes = journal.size();
+        }
+
+        synchronized boolean journalExceeds(int maxRecords, long maxBytes) {
+            return journalRecords >= maxRecords || journalBytes >= maxBytes;
+        }
+
+        synchronized void put(long snippetId, long[] trigrams, boolean overwrite) {
+            if (!overwrite && generation.pending.containsKey(snippetId)) {
+                return;
+            }
+            try {
+                ByteBuffer record = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + trigrams.length * Long.BYTES);
+                record.putLong(snippetId).putInt(trigrams.length);
+                for (long trigram : trigrams) {
+                    record.putLong(trigram);
+                }
+                record.flip();
+                while (record.hasRemaining()) {
+                    journalBytes += journal.write(record);
+                }
+                journalRecords++;
+            } catch (IOException e) {
+                // 日志写不进去只影响重启后的恢复，内存中的增量照常生效
+                log.warn("写入三元组索引日志失败: 分片 {}", number, e);
+            }
+            generation.pending.put(snippetId, trigrams);
+        }
+
+        void merge() throws IOException {
+            mergeLock.lock();
+            try {
+                Map<Long, long[]> snapshot;
+                TrigramSegment base;
+                synchronized (this) {
+                    snapshot = new HashMap<>(generation.pending);
+                    base = generation.base;
+                }
+                Path tmp = dir.resolve(segmentPath.getFileName() + ".tmp");
+                try (TrigramSegment.Writer writer = new TrigramSegment.Writer(tmp)) {
+                    write(writer, base, snapshot);
+                    writer.finish();
+                }
+                Files.move(tmp, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                TrigramSegment merged = TrigramSegment.open(segmentPath);
+                synchronized (this) {
+                    // 合并期间又更新过的片段留在增量里
+                    ConcurrentHashMap<Long, long[]> remaining = new ConcurrentHashMap<>();
+                    generation.pending.forEach((id, trigrams) -> {
+                        if (snapshot.get(id) != trigrams) {
+                            remaining.put(id, trigrams);
+                        }
+                    });
+                    rewriteJournal(remaining);
+                    generation = new Generation(merged, remaining);
+                }
+                log.info("三元组索引分片 {} 合并了 {} 个片段，{} 个三元组", number, snapshot.size(), merged.termCount());
+            } finally {
+                mergeLock.unlock();
+            }
+        }
+
+        /**
+         * 基础段去掉被覆盖的片段，再并入增量，按三元组升序写出
+         */
+        private void write(TrigramSegment.Writer writer, TrigramSegment base, Map<Long, long[]> snapshot)
+                throws IOException {
+            TreeMap<Long, List<Long>> added = new TreeMap<>();
+            snapshot.forEach((id, trigrams) -> {
+                for (long trigram : trigrams) {
+                    added.computeIfAbsent(trigram, key -> new ArrayList<>()).add(id);
+                }
+            });
+            int term = 0;
+            int termCount = base == null ? 0 : base.termCount();
+            while (term < termCount || !added.isEmpty()) {
+                long key = term < termCount ? base.key(term) : Long.MAX_VALUE;
+                Map.Entry<Long, List<Long>> next = added.firstEntry();
+                if (next != null && next.getKey() <= key) {
+                    long[] ids = next.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                    if (next.getKey() == key) {
+                        ids = LongStream.concat(Arrays.stream(kept(base.postingsAt(term), snapshot)), Arrays.stream(ids))
+                                .sorted().toArray();
+                        term++;
+                    }
+                    writer.add(next.getKey(), ids);
+                    added.pollFirstEntry();
+                } else {
+                    writer.add(key, kept(base.postingsAt(term), snapshot));
+                    term++;
+                }
+            }
+        }
+
+        private long[] kept(long[] ids, Map<Long, long[]> snapshot) {
+            return Arrays.stream(ids).filter(id -> !snapshot.containsKey(id)).toArray();
+        }
+
+        private ConcurrentHashMap<Long, long[]> replay() throws IOException {
+            ConcurrentHashMap<Long, long[]> pending = new ConcurrentHashMap<>();
+            if (!Files.exists(journalPath)) {
+                return pending;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+                while (true) {
+                    long snippetId = in.readLong();
+                    long[] trigrams = new long[in.readInt()];
+                    for (int i = 0; i < trigrams.length; i++) {
+                        trigrams[i] = in.readLong();
+                    }
+                    pending.put(snippetId, trigrams);
+                    journalRecords++;
+                }
+            } catch (EOFException e) {
+                // 正常结束，或者宕机时最后一条只写了一半
+            }
+            return pending;
+        }
+
+        private void rewriteJournal(Map<Long, long[]> remaining) throws IOException {
+            Path tmp = dir.resolve(journalPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                for (Map.Entry<Long, long[]> entry : remaining.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    for (long trigram : entry.getValue()) {
+                        out.writeLong(trigram);
+                    }
+                }
+            }
+            journal.close();
+            Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal = openJournal();
+            journalRecords = remaining.size();
+            journalBytes = journal.size();
+        }
+
+        private FileChannel openJournal() throws IOException {
+            return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 由查询串推导出的必要三元组：若干分支取并集，每个分支内的三元组必须同时出现
+ *
+ * 只用于缩小候选范围，必须是保守的（宁可多给候选，不能漏掉真正匹配的片段），
+ * 候选最终都要用真实的子串 / 正则匹配验证
+ */
+final class TrigramQuery {
+
+    private static final Pattern INLINE_COMMENTS = Pattern.compile("\\(\\?[a-zA-Z-]*x");
+
+    private final List<long[]> branches;
+
+    private TrigramQuery(List<long[]> branches) {
+        this.branches = branches;
+    }
+
+    List<long[]> branches() {
+        return branches;
+    }
+
+    /**
+     * 是否有分支推导不出任何三元组（此时索引无法缩小范围）
+     */
+    boolean matchesAll() {
+        return branches.stream().anyMatch(branch -> branch.length == 0);
+    }
+
+    static TrigramQuery literal(String text) {
+        return new TrigramQuery(List.of(Trigrams.of(text)));
+    }
+
+    /**
+     * 正则：按顶层 | 拆成分支，每个分支取一定会原样出现的字面量片段的三元组。
+     * 分组、字符类、转义类（\d、\w 等）、. ^ $ 都会打断字面量；
+     * 后面跟 ? * {n,m} 的字符可能不出现，从字面量中去掉
+     */
+    static TrigramQuery regex(String regex) {
+        if (INLINE_COMMENTS.matcher(regex).find()) {
+            // 注释模式下空白和 # 之后的内容不是字面量，不做推导
+            return new TrigramQuery(List.of(Trigrams.NONE));
+        }
+        List<long[]> branches = new ArrayList<>();
+        for (String branch : splitTopLevel(regex)) {
+            branches.add(branchTrigrams(branch));
+        }
+        return new TrigramQuery(branches);
+    }
+
+    private static long[] branchTrigrams(String branch) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+        while (i < branch.length()) {
+            char c = branch.charAt(i);
+            switch (c) {
+                case '\\' -> {
+                    if (i + 1 < branch.length() && !Character.isLetterOrDigit(branch.charAt(i + 1))) {
+                        run.append(branch.charAt(i + 1));
+                        i += 2;
+                    } else {
+                        cut(literals, run);
+                        i = skipEscape(branch, i);
+                    }
+                    continue;
+                }
+                case '[' -> {
+                    cut(literals, run);
+                    i = skipClass(branch, i);
+                    continue;
+                }
+                case '(' -> {
+                    cut(literals, run);
+                    i = skipGroup(branch, i);
+                    continue;
+                }
+                case '?', '*' -> {
+                    dropLast(run);
+                    cut(literals, run);
+                }
+                case '{' -> {
+                    dropLast(run);
+                    cut(literals, run);
+                    int end = branch.indexOf('}', i);
+                    i = end < 0 ? branch.length() : end + 1;
+                    continue;
+                }
+                case '+', '.', '^', '$' -> cut(literals, run);
+                default -> run.append(c);
+            }
+            i++;
+        }
+        cut(literals, run);
+        return literals.stream()
+                .map(Trigrams::of)
+                .flatMapToLong(Arrays::stream)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * 跳过反斜杠加字母或数字的转义及其参数（十六进制、Unicode 转义、字符属性、命名引用、反向引用等）
+     */
+    private static int skipEscape(String regex, int start) {
+        int i = start + 2;
+        if (i > regex.length()) {
+            return regex.length();
+        }
+        char kind = regex.charAt(start + 1);
+        switch (kind) {
+            case 'x', 'p', 'P', 'N' -> {
+                if (i < regex.length() && regex.charAt(i) == '{') {
+                    int end = regex.indexOf('}', i);
+                    return end < 0 ? regex.length() : end + 1;
+                }
+                return Math.min(regex.length(), i + (kind == 'x' ? 2 : 1));
+            }
+            case 'u' -> {
+                return Math.min(regex.length(), i + 4);
+            }
+            case 'c' -> {
+                return Math.min(regex.length(), i + 1);
+            }
+            case 'k' -> {
+                int end = regex.indexOf('>', i);
+                return end < 0 ? regex.length() : end + 1;
+            }
+            default -> {
+                if (Character.isDigit(kind)) {
+                    while (i < regex.length() && Character.isDigit(regex.charAt(i))) {
+                        i++;
+                    }
+                }
+                return i;
+            }
+        }
+    }
+
+    private static void cut(List<String> literals, StringBuilder run) {
+        if (run.length() >= 3) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    private static void dropLast(StringBuilder run) {
+        if (!run.isEmpty()) {
+            run.setLength(run.length() - 1);
+        }
+    }
+
+    private static int skipClass(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        // 紧跟在 [ 或 [^ 后面的 ] 是普通字符
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == ']') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static List<String> splitTopLevel(String regex) {
+        List<String> branches = new ArrayList<>();
+        int depth = 0;
+        int from = 0;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                branches.add(regex.substring(from, i));
+                from = i + 1;
+            }
+            i++;
+        }
+        branches.add(regex.substring(from));
+        return branches;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 一个分片的不可变倒排表文件，只读内存映射
+ *
+ * 文件格式：
+ * <pre>
+ * magic(int) termCount(int) keysOffset(int) reserved(int)
+ * postings：每个三元组一段，varint 个数 + 按升序的片段ID差值（varint）
+ * keys：termCount 个 long，三元组升序
+ * offsets：termCount 个 int，对应 postings 段的起始位置
+ * </pre>
+ * 查询时在 keys 上二分，只解码命中的 postings 段；单个文件不能超过 2 GB（分片数调大即可）
+ */
+final class TrigramSegment {
+
+    private static final int MAGIC = 0x54524931;
+    private static final int HEADER_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int termCount;
+    private final int keysOffset;
+    private final int offsetsOffset;
+
+    private TrigramSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("不是三元组索引文件");
+        }
+        this.termCount = buffer.getInt(4);
+        this.keysOffset = buffer.getInt(8);
+        this.offsetsOffset = keysOffset + termCount * Long.BYTES;
+    }
+
+    static TrigramSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new TrigramSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long key(int term) {
+        return buffer.getLong(keysOffset + term * Long.BYTES);
+    }
+
+    /**
+     * 某个三元组的片段数（只读段头），不存在时为 0
+     */
+    int count(long trigram) {
+        int term = find(trigram);
+        return term < 0 ? 0 : (int) readVarint(cursor(term));
+    }
+
+    /**
+     * 包含某个三元组的片段ID（升序），不存在时为空数组
+     */
+    long[] postings(long trigram) {
+        int term = find(trigram);
+        return term < 0 ? Trigrams.NONE : postingsAt(term);
+    }
+
+    long[] postingsAt(int term) {
+        ByteBuffer in = cursor(term);
+        long[] ids = new long[(int) readVarint(in)];
+        long previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            previous += readVarint(in);
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private ByteBuffer cursor(int term) {
+        return buffer.duplicate().position(buffer.getInt(offsetsOffset + term * Integer.BYTES));
+    }
+
+    private int find(long trigram) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = key(mid);
+            if (key < trigram) {
+                low = mid + 1;
+            } else if (key > trigram) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * 按三元组升序写入一个新文件
+     */
+    static final class Writer implements Closeable {
+
+        private final Path path;
+        private final DataOutputStream out;
+        private long position = HEADER_BYTES;
+        private long[] keys = new long[1024];
+        private int[] offsets = new int[1024];
+        private int termCount;
+
+        Writer(Path path) throws IOException {
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.write(new byte[HEADER_BYTES]);
+        }
+
+        void add(long trigram, long[] ids) throws IOException {
+            if (ids.length == 0) {
+                return;
+            }
+            if (termCount == keys.length) {
+                keys = Arrays.copyOf(keys, termCount * 2);
+                offsets = Arrays.copyOf(offsets, termCount * 2);
+            }
+            keys[termCount] = trigram;
+            offsets[termCount] = checkedPosition();
+            termCount++;
+            writeVarint(ids.length);
+            long previous = 0;
+            for (long id : ids) {
+                writeVarint(id - previous);
+                previous = id;
+            }
+        }
+
+        void finish() throws IOException {
+            int keysOffset = checkedPosition();
+            for (int i = 0; i < termCount; i++) {
+                out.writeLong(keys[i]);
+            }
+            for (int i = 0; i < termCount; i++) {
+                out.writeInt(offsets[i]);
+            }
+            position += (long) termCount * (Long.BYTES + Integer.BYTES);
+            checkedPosition();
+            out.close();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC).putInt(termCount).putInt(keysOffset).putInt(0)
+                        .flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private int checkedPosition() {
+            if (position > Integer.MAX_VALUE) {
+                throw new IllegalStateException("三元组索引分片超过 2 GB，请调大分片数");
+            }
+            return (int) position;
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+                position++;
+            }
+            out.write((int) value);
+            position++;
+        }
+    }
+}
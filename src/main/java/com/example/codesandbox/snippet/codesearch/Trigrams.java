@@ -0,0 +1,44 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import java.util.Arrays;
+
+/**
+ * 三元组编码：连续 3 个字符（逐字符转小写）拼成一个 long，高位在前，按数值排序即按字典序排序
+ *
+ * 逐字符转小写保持长度不变，子串的三元组一定是原文三元组的子集，大小写敏感和不敏感的查询都能用同一份索引
+ */
+final class Trigrams {
+
+    static final long[] NONE = new long[0];
+
+    private Trigrams() {
+    }
+
+    /**
+     * 文本中出现的所有三元组（升序、去重）
+     */
+    static long[] of(CharSequence text) {
+        int count = text.length() - 2;
+        if (count <= 0) {
+            return NONE;
+        }
+        long[] trigrams = new long[count];
+        for (int i = 0; i < count; i++) {
+            trigrams[i] = encode(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+        }
+        Arrays.sort(trigrams);
+        int unique = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[unique - 1]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    static long encode(char a, char b, char c) {
+        return ((long) Character.toLowerCase(a) << 32)
+                | ((long) Character.toLowerCase(b) << 16)
+                | Character.toLowerCase(c);
+    }
+}
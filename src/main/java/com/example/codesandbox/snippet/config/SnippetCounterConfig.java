@@ -0,0 +1,32 @@
+package com.example.codesandbox.snippet.config;
+
+import com.example.codesandbox.snippet.counter.LocalSnippetCounterBuffer;
+import com.example.codesandbox.snippet.counter.RedisSnippetCounterBuffer;
+import com.example.codesandbox.snippet.counter.SnippetCounterBuffer;
+import com.example.codesandbox.snippet.counter.SnippetCounters;
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboard;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 片段计数配置
+ */
+@Configuration
+@EnableConfigurationProperties(SnippetCounterProperties.class)
+public class SnippetCounterConfig {
+
+    @Bean
+    public SnippetCounters snippetCounters(SnippetCounterProperties properties,
+                                           ObjectProvider<StringRedisTemplate> redisTemplate,
+                                           CodeSnippetRepository snippetRepository,
+                                           SnippetLeaderboard leaderboard) {
+        SnippetCounterBuffer buffer = properties.isRedisEnabled()
+                ? new RedisSnippetCounterBuffer(redisTemplate.getObject(), properties.getFlushLockTtl())
+                : new LocalSnippetCounterBuffer();
+        return new SnippetCounters(buffer, snippetRepository, properties, leaderboard);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.codesandbox.snippet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 片段计数配置（前缀：codesandbox.snippet.counters）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.snippet.counters")
+public class SnippetCounterProperties {
+
+    /**
+     * 多节点部署时开启，计数缓冲放在 Redis 中，节点宕机不丢计数
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * 刷新间隔，也是单节点模式下宕机最多丢失的计数时长
+     */
+    private long flushIntervalMs = 5000;
+
+    /**
+     * 每次刷新最多更新的片段数，剩下的留给下个周期
+     */
+    private int maxRowsPerFlush = 5000;
+
+    private int batchSize = 500;
+
+    /**
+     * Redis 刷新锁的过期时间，持锁节点宕机后其他节点最多等这么久接手
+     */
+    private Duration flushLockTtl = Duration.ofSeconds(60);
+}
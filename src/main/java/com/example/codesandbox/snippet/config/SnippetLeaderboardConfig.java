@@ -0,0 +1,32 @@
+package com.example.codesandbox.snippet.config;
+
+import com.example.codesandbox.snippet.leaderboard.LeaderboardStore;
+import com.example.codesandbox.snippet.leaderboard.LocalLeaderboardStore;
+import com.example.codesandbox.snippet.leaderboard.RedisLeaderboardStore;
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboard;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 首页排行榜配置
+ */
+@Configuration
+@EnableConfigurationProperties(SnippetLeaderboardProperties.class)
+public class SnippetLeaderboardConfig {
+
+    @Bean
+    public SnippetLeaderboard snippetLeaderboard(SnippetLeaderboardProperties properties,
+                                                 ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                 ObjectMapper objectMapper,
+                                                 CodeSnippetRepository snippetRepository) {
+        LeaderboardStore store = properties.isRedisEnabled()
+                ? new RedisLeaderboardStore(redisTemplate.getObject(), objectMapper, properties.getCapacity())
+                : new LocalLeaderboardStore(properties.getCapacity());
+        return new SnippetLeaderboard(store, snippetRepository, properties);
+    }
+}
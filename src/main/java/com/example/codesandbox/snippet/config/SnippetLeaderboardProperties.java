@@ -0,0 +1,45 @@
+package com.example.codesandbox.snippet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 首页排行榜配置（前缀：codesandbox.snippet.leaderboard）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.snippet.leaderboard")
+public class SnippetLeaderboardProperties {
+
+    /**
+     * 多节点部署时开启，排行榜放在 Redis 有序集合中，各节点看到同一份榜单
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * 每种语言（以及全部语言）每个榜单保留的片段数，也是 top 查询 k 的上限
+     */
+    private int capacity = 200;
+
+    /**
+     * 热度的半衰期：一次事件的贡献每经过这么久减半
+     */
+    private Duration trendingHalfLife = Duration.ofHours(6);
+
+    private double viewWeight = 1.0;
+
+    private double forkWeight = 5.0;
+
+    private double executionWeight = 2.0;
+
+    /**
+     * 启动时榜单为空则从数据库按浏览量装入（只在启动时查询一次）
+     */
+    private boolean seedOnStartup = true;
+
+    /**
+     * Redis 模式下清理已经掉出所有榜单的片段快照的间隔
+     */
+    private long sweepIntervalMs = 300000;
+}
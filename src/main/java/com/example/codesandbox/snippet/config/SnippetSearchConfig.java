@@ -0,0 +1,80 @@
+package com.example.codesandbox.snippet.config;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.example.codesandbox.snippet.codesearch.CodeIndexer;
+import com.example.codesandbox.snippet.codesearch.CodeSearchService;
+import com.example.codesandbox.snippet.codesearch.TrigramIndex;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.snippet.search.ElasticsearchSnippetSearchEngine;
+import com.example.codesandbox.snippet.search.LuceneSnippetSearchEngine;
+import com.example.codesandbox.snippet.search.SnippetIndexer;
+import com.example.codesandbox.snippet.search.SnippetSearchEngine;
+import com.example.codesandbox.snippet.service.CodeVersionContentStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 代码片段搜索配置
+ *
+ * 按 codesandbox.snippet.search.engine 选择搜索后端；engine=none（默认）时没有索引管道，
+ * 搜索直接走 MySQL 全文索引。lucene 索引只在本节点，只应在单节点部署中显式开启。代码内容搜索（三元组索引）由 search.code.enabled 单独开关，
+ * 同样只在本节点、只收到本节点保存的版本，默认关闭，只应在单节点部署中显式开启
+ */
+@Configuration
+@EnableConfigurationProperties(SnippetSearchProperties.class)
+public class SnippetSearchConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.search", name = "engine", havingValue = "lucene")
+    public LuceneSnippetSearchEngine luceneSnippetSearchEngine(SnippetSearchProperties properties) {
+        return new LuceneSnippetSearchEngine(Paths.get(properties.getLucene().getDir()), properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.search", name = "engine", havingValue = "elasticsearch")
+    public ElasticsearchSnippetSearchEngine elasticsearchSnippetSearchEngine(ElasticsearchClient client,
+                                                                             SnippetSearchProperties properties) {
+        return new ElasticsearchSnippetSearchEngine(client, properties);
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${codesandbox.snippet.search.engine:none}' != 'none'")
+    public SnippetIndexer snippetIndexer(CodeSnippetRepository snippetRepository,
+                                         SnippetSearchEngine searchEngine,
+                                         SnippetSearchProperties properties) {
+        return new SnippetIndexer(snippetRepository, searchEngine, properties);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.search.code", name = "enabled", havingValue = "true")
+    public TrigramIndex trigramIndex(SnippetSearchProperties properties) {
+        SnippetSearchProperties.Code config = properties.getCode();
+        return new TrigramIndex(Paths.get(config.getDir()), config.getShards());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.search.code", name = "enabled", havingValue = "true")
+    public CodeIndexer codeIndexer(TrigramIndex trigramIndex,
+                                   CodeSnippetRepository snippetRepository,
+                                   CodeVersionRepository versionRepository,
+                                   CodeVersionContentStore contentStore,
+                                   SnippetSearchProperties properties) {
+        return new CodeIndexer(trigramIndex, snippetRepository, versionRepository, contentStore, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.search.code", name = "enabled", havingValue = "true")
+    public CodeSearchService codeSearchService(TrigramIndex trigramIndex,
+                                               CodeSnippetRepository snippetRepository,
+                                               CodeVersionRepository versionRepository,
+                                               CodeVersionContentStore contentStore,
+                                               SnippetSearchProperties properties) {
+        return new CodeSearchService(trigramIndex, snippetRepository, versionRepository, contentStore, properties);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.codesandbox.snippet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 代码片段搜索配置（前缀：codesandbox.snippet.search）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.snippet.search")
+public class SnippetSearchProperties {
+
+    /**
+     * 搜索后端：none（默认，只用 MySQL 全文索引）、lucene（内嵌，索引只在本节点，仅限单节点部署）、
+     * elasticsearch（多节点共用）
+     */
+    private String engine = "none";
+
+    /**
+     * 每次批量写入索引的片段数
+     */
+    private int batchSize = 500;
+
+    private long flushIntervalMs = 1000;
+
+    /**
+     * 待索引的片段ID上限，超出后丢弃并在下次启动时由全量补建修正
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * 最多能翻到的结果数（offset + size），同时也是总数精确统计的上限
+     */
+    private int maxResultWindow = 10_000;
+
+    /**
+     * 索引为空而数据库里有片段时，启动后在后台全量补建
+     */
+    private boolean backfillOnStartup = true;
+
+    private Ranking ranking = new Ranking();
+
+    private Lucene lucene = new Lucene();
+
+    private Elasticsearch elasticsearch = new Elasticsearch();
+
+    private Code code = new Code();
+
+    /**
+     * 各字段的相关度权重
+     */
+    @Data
+    public static class Ranking {
+
+        private float title = 3.0f;
+
+        private float tags = 2.0f;
+
+        private float language = 2.0f;
+
+        private float description = 1.0f;
+    }
+
+    @Data
+    public static class Lucene {
+
+        private String dir = "data/search/snippets";
+    }
+
+    @Data
+    public static class Elasticsearch {
+
+        private String index = "code_snippets";
+    }
+
+    /**
+     * 代码内容搜索（三元组索引）
+     */
+    @Data
+    public static class Code {
+
+        /**
+         * 索引在本节点本地，只包含本节点保存的版本；多节点部署时其他节点的修改在本节点搜不到，
+         * 因此默认关闭，只应在单节点部署中显式开启
+         */
+        private boolean enabled = false;
+
+        private String dir = "data/search/code";
+
+        /**
+         * 分片数：按片段ID取模，每个分片一个内存映射文件（单个不超过 2 GB），合并时只重写一个分片
+         */
+        private int shards = 8;
+
+        /**
+         * 单个分片的增量达到这个片段数时合并进基础段
+         */
+        private int mergeThreshold = 1000;
+
+        /**
+         * 单个分片的日志达到这个记录数时合并（同一片段反复保存时增量片段数不变，日志仍在增长）
+         */
+        private int mergeJournalRecords = 10_000;
+
+        /**
+         * 单个分片的日志达到这个字节数时合并
+         */
+        private long mergeJournalBytes = 64L * 1024 * 1024;
+
+        private long mergeIntervalMs = 30_000;
+
+        private boolean backfillOnStartup = true;
+
+        private int backfillBatchSize = 200;
+
+        private long backfillIntervalMs = 1000;
+
+        /**
+         * 最多验证的候选片段数（从最新的片段开始），超出时结果标记为不完整
+         */
+        private int maxCandidates = 5000;
+
+        private int maxResults = 50;
+
+        /**
+         * 单个片段上正则匹配的最长时间，超时视为不匹配（防止回溯爆炸）
+         */
+        private Duration regexTimeout = Duration.ofMillis(50);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.codesandbox.snippet.config;
+
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.tag.TagIndex;
+import com.example.codesandbox.snippet.tag.TagIndexer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 标签索引配置
+ */
+@Configuration
+@EnableConfigurationProperties(SnippetTagProperties.class)
+public class SnippetTagConfig {
+
+    @Bean
+    public TagIndex tagIndex(SnippetTagProperties properties) {
+        return new TagIndex(properties);
+    }
+
+    @Bean
+    public TagIndexer tagIndexer(CodeSnippetRepository snippetRepository,
+                                 TagIndex tagIndex,
+                                 SnippetTagProperties properties,
+                                 ObjectProvider<StringRedisTemplate> redisTemplate) {
+        return new TagIndexer(snippetRepository, tagIndex, properties,
+                properties.isRedisEnabled() ? redisTemplate.getObject() : null);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.snippet.tags", name = "redis-enabled", havingValue = "true")
+    public RedisMessageListenerContainer tagListenerContainer(RedisConnectionFactory connectionFactory,
+                                                              TagIndexer tagIndexer) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> tagIndexer.onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TagIndexer.CHANGED_CHANNEL));
+        return container;
+    }
+}
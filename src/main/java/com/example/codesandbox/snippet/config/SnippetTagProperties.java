@@ -0,0 +1,58 @@
+package com.example.codesandbox.snippet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 标签索引配置（前缀：codesandbox.snippet.tags）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.snippet.tags")
+public class SnippetTagProperties {
+
+    /**
+     * 多节点部署时开启：本节点写入的变更通过 Redis 频道通知其他节点重新读取
+     */
+    private boolean redisEnabled = false;
+
+    /**
+     * 变更同步到索引的间隔
+     */
+    private long flushIntervalMs = 500;
+
+    /**
+     * 每次同步最多从数据库读取的变更片段数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 启动装入时每批读取的片段数
+     */
+    private int loadBatchSize = 10000;
+
+    private int maxPending = 100000;
+
+    /**
+     * 一次最多返回的分面数，也是缓存的分面数
+     */
+    private int maxFacets = 100;
+
+    /**
+     * 不带标签条件时分面结果的缓存时间（计数本身实时维护，只是排序结果最多滞后这么久）
+     */
+    private Duration facetCacheTtl = Duration.ofSeconds(1);
+
+    /**
+     * 带标签条件时，结果不超过这个数就逐个统计精确分面
+     */
+    private int facetScanLimit = 50000;
+
+    /**
+     * 结果更多时参与求交集基数的候选标签数
+     */
+    private int facetCandidates = 1000;
+
+    private int maxPageSize = 100;
+}
@@ -0,0 +1,12 @@
+package com.example.codesandbox.snippet.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码版本存储配置
+ */
+@Configuration
+@EnableConfigurationProperties(VersionStorageProperties.class)
+public class SnippetVersionConfig {
+}
@@ -0,0 +1,37 @@
+package com.example.codesandbox.snippet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 代码版本存储配置（前缀：codesandbox.snippet.versions）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.snippet.versions")
+public class VersionStorageProperties {
+
+    /**
+     * 还原一个版本时最多重放的字符数：关键帧间隔 K ≈ maxReplayChars / 文件大小，
+     * 小文件间隔长、省空间，大文件间隔短、还原快
+     */
+    private int maxReplayChars = 1_000_000;
+
+    private int minKeyframeInterval = 4;
+
+    private int maxKeyframeInterval = 64;
+
+    /**
+     * 增量超过原文的这个比例时直接存完整内容（改动太大，增量不划算）
+     */
+    private double maxDeltaRatio = 0.5;
+
+    /**
+     * 还原结果缓存的总字符数上限（最近最少使用淘汰）
+     */
+    private long cacheMaxChars = 16L * 1024 * 1024;
+
+    public int keyframeInterval(int contentLength) {
+        int interval = maxReplayChars / Math.max(contentLength, 1);
+        return Math.max(minKeyframeInterval, Math.min(maxKeyframeInterval, interval));
+    }
+}
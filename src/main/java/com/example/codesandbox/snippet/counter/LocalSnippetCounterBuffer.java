@@ -0,0 +1,123 @@
+package com.example.codesandbox.snippet.counter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单节点的内存写缓冲
+ *
+ * 每个片段一组分段累加器，不同线程落在不同分段上，热门片段的并发浏览不会争用同一个变量。
+ * 刷新时把条目从表中摘下、标记作废，再逐段 getAndSet(0) 取走；
+ * 摘下之前拿到旧条目的线程加完之后发现条目已作废，会把自己那份取回来加到新条目上，不会丢也不会重复
+ *
+ * 节点宕机会丢失最近一个刷新周期内的计数
+ */
+public class LocalSnippetCounterBuffer implements SnippetCounterBuffer {
+
+    private static final int STRIPES = 8;
+    private static final int VIEWS = 0;
+    private static final int FORKS = 1;
+
+    private final ConcurrentMap<Long, Counts> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(Long snippetId, long views, long forks) {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        while (views != 0 || forks != 0) {
+            Counts entry = counts.computeIfAbsent(snippetId, id -> new Counts());
+            entry.add(stripe, views, forks);
+            if (!entry.retired) {
+                return;
+            }
+            // 条目已被刷新线程摘下：它可能已经取走了这份增量，也可能没有，取回多少就重新加多少
+            views = entry.take(stripe, VIEWS);
+            forks = entry.take(stripe, FORKS);
+        }
+    }
+
+    @Override
+    public List<SnippetCounterDelta> drain(int maxRows) {
+        List<SnippetCounterDelta> deltas = new ArrayList<>();
+        Iterator<Map.Entry<Long, Counts>> iterator = counts.entrySet().iterator();
+        while (iterator.hasNext() && deltas.size() < maxRows) {
+            Map.Entry<Long, Counts> next = iterator.next();
+            Counts entry = next.getValue();
+            if (!counts.remove(next.getKey(), entry)) {
+                continue;
+            }
+            entry.retired = true;
+            SnippetCounterDelta delta = new SnippetCounterDelta(next.getKey(), entry.takeAll(VIEWS),
+                    entry.takeAll(FORKS));
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    @Override
+    public void acknowledge(List<SnippetCounterDelta> deltas) {
+    }
+
+    @Override
+    public void restore(List<SnippetCounterDelta> deltas) {
+        for (SnippetCounterDelta delta : deltas) {
+            add(delta.snippetId(), delta.views(), delta.forks());
+        }
+    }
+
+    @Override
+    public Map<Long, SnippetCounterDelta> pending(Collection<Long> snippetIds) {
+        Map<Long, SnippetCounterDelta> pending = new HashMap<>();
+        for (Long snippetId : snippetIds) {
+            Counts entry = counts.get(snippetId);
+            if (entry != null) {
+                pending.put(snippetId, new SnippetCounterDelta(snippetId, entry.sum(VIEWS), entry.sum(FORKS)));
+            }
+        }
+        return pending;
+    }
+
+    private static final class Counts {
+
+        // 下标 stripe * 2 + 计数类型；相邻分段会落在同一缓存行，换来的是条目足够小
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * 2);
+        private volatile boolean retired;
+
+        void add(int stripe, long views, long forks) {
+            if (views != 0) {
+                cells.addAndGet(stripe * 2 + VIEWS, views);
+            }
+            if (forks != 0) {
+                cells.addAndGet(stripe * 2 + FORKS, forks);
+            }
+        }
+
+        long take(int stripe, int kind) {
+            return cells.getAndSet(stripe * 2 + kind, 0);
+        }
+
+        long takeAll(int kind) {
+            long total = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                total += take(stripe, kind);
+            }
+            return total;
+        }
+
+        long sum(int kind) {
+            long total = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                total += cells.get(stripe * 2 + kind);
+            }
+            return total;
+        }
+    }
+}
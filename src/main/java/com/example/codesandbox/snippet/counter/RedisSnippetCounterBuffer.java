@@ -0,0 +1,229 @@
+package com.example.codesandbox.snippet.counter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 多节点共用的 Redis 写缓冲
+ *
+ * Redis 数据结构：
+ * - codesandbox:snippet:counters:pending     → 哈希表，字段 {片段ID}:v / {片段ID}:f，HINCRBY 累加
+ * - codesandbox:snippet:counters:flushing    → 正在刷新的一批（由 pending 整体改名而来）
+ * - codesandbox:snippet:counters:flush-lock  → 刷新锁，同一时刻只有一个节点在刷新
+ *
+ * 刷新时 flushing 不存在才把 pending 改名过来，之后按 HSCAN 分批读出、写库、HDEL；
+ * 写库失败或节点宕机时 flushing 原样保留，下一次刷新（任何节点）接着处理。
+ *
+ * 刷新锁带过期时间，持锁节点卡住时其他节点可以接手同一批。为避免两个节点都把这一批写进数据库：
+ * 写库前检查锁仍属于本节点并续期（retain），失效时放弃写库；写库后在同一个脚本里确认锁的归属、HDEL 并释放锁，
+ * 锁已易主时不删除字段，交给接手的节点。
+ * 任何节点宕机都不丢计数；写库成功后、HDEL 之前宕机的那一批，以及写库耗时超过锁的过期时间的那一批，会被重复累加一次
+ */
+@Slf4j
+public class RedisSnippetCounterBuffer implements SnippetCounterBuffer {
+
+    private static final String PENDING_KEY = "codesandbox:snippet:counters:pending";
+    private static final String FLUSHING_KEY = "codesandbox:snippet:counters:flushing";
+    private static final String LOCK_KEY = "codesandbox:snippet:counters:flush-lock";
+    private static final String VIEWS = ":v";
+    private static final String FORKS = ":f";
+
+    private static final RedisScript<Long> PREPARE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 0 and redis.call('EXISTS', KEYS[1]) == 1 then
+              redis.call('RENAME', KEYS[1], KEYS[2])
+            end
+            return redis.call('HLEN', KEYS[2])
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 锁仍属于本节点时删除已写库的字段并释放锁；HDEL 按 1000 个字段一组，避免 unpack 超出 Lua 栈的限制
+     */
+    private static final RedisScript<Long> ACKNOWLEDGE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+              return 0
+            end
+            for i = 2, #ARGV, 1000 do
+              redis.call('HDEL', KEYS[2], unpack(ARGV, i, math.min(i + 999, #ARGV)))
+            end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * 上一次 drain 读出的字段，写库成功后从 flushing 中删除（只有持锁的刷新线程访问）
+     */
+    private List<String> drainedFields = List.of();
+
+    public RedisSnippetCounterBuffer(StringRedisTemplate redisTemplate, Duration lockTtl) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+    }
+
+    @Override
+    public void add(Long snippetId, long views, long forks) {
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        if (views != 0) {
+            hash.increment(PENDING_KEY, snippetId + VIEWS, views);
+        }
+        if (forks != 0) {
+            hash.increment(PENDING_KEY, snippetId + FORKS, forks);
+        }
+    }
+
+    @Override
+    public List<SnippetCounterDelta> drain(int maxRows) {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, lockTtl);
+        if (!Boolean.TRUE.equals(locked)) {
+            return List.of();
+        }
+        try {
+            Long size = redisTemplate.execute(PREPARE, List.of(PENDING_KEY, FLUSHING_KEY));
+            List<SnippetCounterDelta> deltas = size == null || size == 0 ? List.of() : scan(maxRows);
+            if (deltas.isEmpty()) {
+                deleteDrained();
+                unlock();
+            }
+            return deltas;
+        } catch (RuntimeException e) {
+            unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean retain() {
+        Long renewed = redisTemplate.execute(RENEW, List.of(LOCK_KEY), owner, String.valueOf(lockTtl.toMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    @Override
+    public void acknowledge(List<SnippetCounterDelta> deltas) {
+        List<String> args = new ArrayList<>(drainedFields.size() + 1);
+        args.add(owner);
+        args.addAll(drainedFields);
+        drainedFields = List.of();
+        Long acknowledged;
+        try {
+            acknowledged = redisTemplate.execute(ACKNOWLEDGE, List.of(LOCK_KEY, FLUSHING_KEY), args.toArray());
+        } catch (RuntimeException e) {
+            unlock();
+            throw e;
+        }
+        if (acknowledged == null || acknowledged != 1) {
+            log.warn("写库期间刷新锁已过期，{} 个片段的计数留在缓冲中，可能被再次累加", deltas.size());
+        }
+    }
+
+    @Override
+    public void restore(List<SnippetCounterDelta> deltas) {
+        // 增量还在 flushing 里，下一次刷新重新读取
+        drainedFields = List.of();
+        unlock();
+    }
+
+    @Override
+    public Map<Long, SnippetCounterDelta> pending(Collection<Long> snippetIds) {
+        if (snippetIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = List.copyOf(snippetIds);
+        List<String> fields = new ArrayList<>(ids.size() * 2);
+        for (Long id : ids) {
+            fields.add(id + VIEWS);
+            fields.add(id + FORKS);
+        }
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        List<String> pending = hash.multiGet(PENDING_KEY, fields);
+        List<String> flushing = hash.multiGet(FLUSHING_KEY, fields);
+        Map<Long, SnippetCounterDelta> result = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            long views = parse(pending.get(i * 2)) + parse(flushing.get(i * 2));
+            long forks = parse(pending.get(i * 2 + 1)) + parse(flushing.get(i * 2 + 1));
+            if (views != 0 || forks != 0) {
+                result.put(ids.get(i), new SnippetCounterDelta(ids.get(i), views, forks));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从 flushing 中读出最多 maxRows 个片段的字段（HSCAN 可能重复返回同一字段，按字段去重）
+     */
+    private List<SnippetCounterDelta> scan(int maxRows) {
+        Map<Long, long[]> counts = new LinkedHashMap<>();
+        Set<String> fields = new HashSet<>();
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        ScanOptions options = ScanOptions.scanOptions().count(Math.max(maxRows, 100)).build();
+        try (Cursor<Map.Entry<String, String>> cursor = hash.scan(FLUSHING_KEY, options)) {
+            while (cursor.hasNext()) {
+                Map.Entry<String, String> field = cursor.next();
+                String name = field.getKey();
+                Long snippetId = Long.valueOf(name.substring(0, name.length() - 2));
+                if (!counts.containsKey(snippetId) && counts.size() >= maxRows) {
+                    break;
+                }
+                fields.add(name);
+                long[] values = counts.computeIfAbsent(snippetId, id -> new long[2]);
+                values[name.endsWith(VIEWS) ? 0 : 1] = parse(field.getValue());
+            }
+        }
+        drainedFields = List.copyOf(fields);
+        List<SnippetCounterDelta> deltas = new ArrayList<>(counts.size());
+        counts.forEach((id, values) -> {
+            SnippetCounterDelta delta = new SnippetCounterDelta(id, values[0], values[1]);
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        });
+        return deltas;
+    }
+
+    private void deleteDrained() {
+        if (!drainedFields.isEmpty()) {
+            redisTemplate.opsForHash().delete(FLUSHING_KEY, drainedFields.toArray());
+            drainedFields = List.of();
+        }
+    }
+
+    private void unlock() {
+        redisTemplate.execute(UNLOCK, List.of(LOCK_KEY), owner);
+    }
+
+    private static long parse(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+}
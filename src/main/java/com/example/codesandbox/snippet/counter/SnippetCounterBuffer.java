@@ -0,0 +1,43 @@
+package com.example.codesandbox.snippet.counter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 片段计数的写缓冲
+ *
+ * 刷新流程：drain 取出一批增量 → retain 确认仍由本节点负责 → 写入数据库 → 成功时 acknowledge，失败时 restore
+ */
+public interface SnippetCounterBuffer {
+
+    void add(Long snippetId, long views, long forks);
+
+    /**
+     * 取出最多 maxRows 个片段的增量（同一个片段只出现一次）
+     */
+    List<SnippetCounterDelta> drain(int maxRows);
+
+    /**
+     * 写库前确认上一次 drain 的增量仍由本节点负责；返回 false 时不能写库（另一个节点可能已经接手），直接 restore
+     * 本地缓冲只有本节点刷新，总是 true
+     */
+    default boolean retain() {
+        return true;
+    }
+
+    /**
+     * 上一次 drain 的增量已经写入数据库
+     */
+    void acknowledge(List<SnippetCounterDelta> deltas);
+
+    /**
+     * 上一次 drain 的增量没能写入数据库，放回缓冲区
+     */
+    void restore(List<SnippetCounterDelta> deltas);
+
+    /**
+     * 尚未写入数据库的增量（没有增量的片段不在结果中）
+     */
+    Map<Long, SnippetCounterDelta> pending(Collection<Long> snippetIds);
+}
@@ -0,0 +1,13 @@
+package com.example.codesandbox.snippet.counter;
+
+/**
+ * 某个片段尚未写入数据库的计数增量
+ */
+public record SnippetCounterDelta(Long snippetId, long views, long forks) {
+
+    public static final SnippetCounterDelta NONE = new SnippetCounterDelta(null, 0, 0);
+
+    public boolean isEmpty() {
+        return views == 0 && forks == 0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.codesandbox.snippet.counter;
+
+import com.example.codesandbox.snippet.config.SnippetCounterProperties;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboard;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 片段浏览数、复刻数的写缓冲计数
+ *
+ * 浏览、复刻只在缓冲区里累加（本地分段累加器或 Redis），不直接更新 code_snippets 的热点行；
+ * 定时把同一片段的增量合并后批量执行 view_count = view_count + ?，
+ * 每次最多 maxRowsPerFlush 行，按片段ID排序写入（多节点同时刷新时加锁顺序一致，不会死锁）。
+ * 写库失败时增量放回缓冲区，下个周期重试
+ *
+ * 读取计数时把数据库中的值加上尚未写入的增量；
+ * 传入片段实体的 recordView / recordFork 同时更新首页排行榜
+ */
+@Slf4j
+public class SnippetCounters {
+
+    private static final int SHUTDOWN_FLUSH_ROUNDS = 100;
+
+    private final SnippetCounterBuffer buffer;
+    private final CodeSnippetRepository snippetRepository;
+    private final SnippetCounterProperties config;
+    private final SnippetLeaderboard leaderboard;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public SnippetCounters(SnippetCounterBuffer buffer,
+                           CodeSnippetRepository snippetRepository,
+                           SnippetCounterProperties config,
+                           SnippetLeaderboard leaderboard) {
+        this.buffer = buffer;
+        this.snippetRepository = snippetRepository;
+        this.config = config;
+        this.leaderboard = leaderboard;
+    }
+
+    public void recordView(Long snippetId) {
+        buffer.add(snippetId, 1, 0);
+    }
+
+    public void recordFork(Long snippetId) {
+        buffer.add(snippetId, 0, 1);
+    }
+
+    public void recordView(CodeSnippet snippet) {
+        recordView(snippet.getId());
+        if (leaderboard != null && leaderboard.tracks(snippet)) {
+            leaderboard.recordView(snippet, viewCount(snippet));
+        }
+    }
+
+    public void recordFork(CodeSnippet snippet) {
+        recordFork(snippet.getId());
+        if (leaderboard != null) {
+            leaderboard.recordFork(snippet);
+        }
+    }
+
+    /**
+     * 数据库中的计数加上尚未写入的增量
+     */
+    public CodeSnippetResponse withPending(CodeSnippetResponse response) {
+        return withPending(List.of(response)).get(0);
+    }
+
+    public List<CodeSnippetResponse> withPending(List<CodeSnippetResponse> responses) {
+        if (responses.isEmpty()) {
+            return responses;
+        }
+        Map<Long, SnippetCounterDelta> pending = buffer.pending(
+                responses.stream().map(CodeSnippetResponse::getId).toList());
+        for (CodeSnippetResponse response : responses) {
+            SnippetCounterDelta delta = pending.getOrDefault(response.getId(), SnippetCounterDelta.NONE);
+            response.setViewCount(add(response.getViewCount(), delta.views()));
+            response.setForkCount(add(response.getForkCount(), delta.forks()));
+        }
+        return responses;
+    }
+
+    public long viewCount(CodeSnippet snippet) {
+        return add(snippet.getViewCount(), pendingOf(snippet).views());
+    }
+
+    public long forkCount(CodeSnippet snippet) {
+        return add(snippet.getForkCount(), pendingOf(snippet).forks());
+    }
+
+    /**
+     * 定时把缓冲的增量批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.counters.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<SnippetCounterDelta> deltas = buffer.drain(config.getMaxRowsPerFlush());
+            if (deltas.isEmpty()) {
+                return;
+            }
+            if (!buffer.retain()) {
+                log.warn("计数缓冲的刷新锁已失效，放弃写入 {} 个片段的计数", deltas.size());
+                buffer.restore(deltas);
+                return;
+            }
+            try {
+                snippetRepository.addCounters(sortedById(deltas), config.getBatchSize());
+                buffer.acknowledge(deltas);
+            } catch (RuntimeException e) {
+                log.error("写入 {} 个片段的计数失败，稍后重试", deltas.size(), e);
+                buffer.restore(deltas);
+            }
+        } catch (RuntimeException e) {
+            log.error("读取计数缓冲失败", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 正常停机时把缓冲区写空（每轮仍受 maxRowsPerFlush 限制）
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (int round = 0; round < SHUTDOWN_FLUSH_ROUNDS; round++) {
+            List<SnippetCounterDelta> pending = buffer.drain(config.getMaxRowsPerFlush());
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (!buffer.retain()) {
+                buffer.restore(pending);
+                return;
+            }
+            try {
+                snippetRepository.addCounters(sortedById(pending), config.getBatchSize());
+                buffer.acknowledge(pending);
+            } catch (RuntimeException e) {
+                log.error("停机时写入 {} 个片段的计数失败", pending.size(), e);
+                buffer.restore(pending);
+                return;
+            }
+        }
+    }
+
+    private static List<SnippetCounterDelta> sortedById(List<SnippetCounterDelta> deltas) {
+        return deltas.stream().sorted(Comparator.comparing(SnippetCounterDelta::snippetId)).toList();
+    }
+
+    private SnippetCounterDelta pendingOf(CodeSnippet snippet) {
+        return buffer.pending(List.of(snippet.getId())).getOrDefault(snippet.getId(), SnippetCounterDelta.NONE);
+    }
+
+    private static int add(Integer persisted, long pending) {
+        return (int) Math.min(Integer.MAX_VALUE, (persisted == null ? 0 : persisted) + pending);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.codesandbox.snippet.dto;
+
+/**
+ * 代码内容搜索的一条结果：片段和第一处匹配所在的行
+ *
+ * @param lineNumber 从 1 开始
+ * @param line       匹配所在行的内容（过长时截断）
+ */
+public record CodeSearchHit(Long snippetId,
+                            String title,
+                            String language,
+                            int lineNumber,
+                            String line) {
+}
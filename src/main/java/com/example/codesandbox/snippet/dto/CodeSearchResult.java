@@ -0,0 +1,12 @@
+package com.example.codesandbox.snippet.dto;
+
+import java.util.List;
+
+/**
+ * 代码内容搜索结果
+ *
+ * @param candidateCount 索引给出的候选片段数
+ * @param truncated      候选超过上限或结果数达到上限，还有片段没有验证
+ */
+public record CodeSearchResult(List<CodeSearchHit> hits, int candidateCount, boolean truncated) {
+}
@@ -0,0 +1,68 @@
+package com.example.codesandbox.snippet.dto;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 返回给前端的代码片段（列表和详情共用，不含代码内容）
+ *
+ * owner 只取ID（不会触发懒加载），tags 从逗号分隔的字符串拆成列表
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeSnippetResponse {
+
+    private Long id;
+
+    private Long ownerId;
+
+    private String title;
+
+    private String description;
+
+    private String language;
+
+    private CodeSnippet.Visibility visibility;
+
+    private List<String> tags;
+
+    private Integer viewCount;
+
+    private Integer forkCount;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public static CodeSnippetResponse from(CodeSnippet snippet) {
+        return new CodeSnippetResponse(
+                snippet.getId(),
+                snippet.getOwner() == null ? null : snippet.getOwner().getId(),
+                snippet.getTitle(),
+                snippet.getDescription(),
+                snippet.getLanguage(),
+                snippet.getVisibility(),
+                splitTags(snippet.getTags()),
+                snippet.getViewCount(),
+                snippet.getForkCount(),
+                snippet.getCreatedAt(),
+                snippet.getUpdatedAt());
+    }
+
+    private static List<String> splitTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(tags.split(","))
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.codesandbox.snippet.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 版本历史列表中的一行
+ *
+ * 只选出版本号、作者、提交说明和时间，不读取 content / delta_content；
+ * 查看或回滚到某个版本时再用 CodeVersionStore.content 还原内容
+ */
+public record CodeVersionSummary(
+        Long id,
+        Integer versionNumber,
+        Long authorId,
+        String commitMessage,
+        LocalDateTime createdAt) {
+}
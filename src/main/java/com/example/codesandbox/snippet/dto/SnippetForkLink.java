@@ -0,0 +1,10 @@
+package com.example.codesandbox.snippet.dto;
+
+/**
+ * 片段的复刻关系（建立后不再变化）
+ *
+ * @param forkedFromId      复刻来源，不是复刻时为 null
+ * @param forkVersionNumber 与来源共享的最大版本号
+ */
+public record SnippetForkLink(Long snippetId, Long forkedFromId, Integer forkVersionNumber) {
+}
@@ -0,0 +1,11 @@
+package com.example.codesandbox.snippet.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * 标签浏览页：一页片段加上满足条件的片段的标签分面
+ */
+public record TagBrowseResult(Page<CodeSnippetResponse> snippets, List<TagFacet> facets) {
+}
@@ -0,0 +1,7 @@
+package com.example.codesandbox.snippet.dto;
+
+/**
+ * 标签分面：某个标签下的片段数，例如 python (1,204)
+ */
+public record TagFacet(String tag, long count) {
+}
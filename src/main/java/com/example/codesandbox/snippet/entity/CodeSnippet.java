@@ -1,5 +1,9 @@
 package com.example.codesandbox.snippet.entity;
 
+import com.example.codesandbox.snippet.leaderboard.SnippetLeaderboardListener;
+import com.example.codesandbox.snippet.search.SnippetIndexListener;
+import com.example.codesandbox.snippet.tag.TagIndexListener;
+import com.example.codesandbox.snippet.tag.Tags;
 import com.example.codesandbox.user.entity.User;  // 导入User实体
 import jakarta.persistence.*;                // JPA注解
 import lombok.*;                                    // Lombok注解
@@ -7,6 +11,7 @@ import java.time.LocalDateTime;                     // 时间类
 
 @Entity
 @Table(name = "code_snippets")
+@EntityListeners({SnippetIndexListener.class, SnippetLeaderboardListener.class, TagIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,15 +44,43 @@ public class CodeSnippet {
     @Column(nullable = false)
     private Visibility visibility = Visibility.PRIVATE;
 
+    /**
+     * 逗号分隔的标签，保存时规范化（见 Tags）
+     */
     @Column(length = 500)
     private String tags;
 
-    @Column(name = "view_count")
+    /**
+     * 浏览 / 复刻计数只由 SnippetCounters 的批量回写（view_count = view_count + ?）维护，
+     * 新建时取列默认值 0；实体保存时不写这两列，避免用加载时的旧值覆盖期间回写的增量
+     */
+    @Column(name = "view_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
     private Integer viewCount = 0;
 
-    @Column(name = "fork_count")
+    @Column(name = "fork_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
     private Integer forkCount = 0;
 
+    /**
+     * 复刻来源：复刻共享来源片段 1..forkVersionNumber 的版本（不复制），之后的版本才存在自己名下。
+     * 外键是 RESTRICT，被复刻的片段删除前要先用 SnippetForkService.detachForks 把共享的版本复制到复刻名下
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "forked_from_id", updatable = false)
+    private CodeSnippet forkedFrom;
+
+    @Column(name = "fork_version_number", updatable = false)
+    private Integer forkVersionNumber;
+
+    /**
+     * 最新版本所在的 code_versions 行（没有自己版本的复刻指向来源片段的行），
+     * 只由 CodeVersionStore 通过单独的 UPDATE 维护，实体保存时不会覆盖
+     */
+    @Column(name = "head_version_id", insertable = false, updatable = false)
+    private Long headVersionId;
+
+    @Column(name = "head_version_number", insertable = false, updatable = false)
+    private Integer headVersionNumber;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -58,10 +91,12 @@ public class CodeSnippet {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        tags = Tags.normalizeColumn(tags);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        tags = Tags.normalizeColumn(tags);
     }
 }
\ No newline at end of file
@@ -28,9 +28,24 @@ public class CodeVersion {
     @Column(name = "version_number", nullable = false)
     private Integer versionNumber;
 
+    // 最新版本（以及旧数据）的完整内容；关键帧的内容存在 BlobStore 中，见 contentHash；
+    // 其余历史版本只存 deltaContent，由 CodeVersionStore 还原
+    // 大字段延迟加载（依赖字节码增强），版本列表用 CodeVersionSummary，不读取该列；
+    // 不参与 toString / equals / hashCode，否则打日志或比较时会触发加载
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "LONGTEXT")
     private String content;
 
+    // 内容的 SHA-256（BlobStore 的 key），与执行任务的 code_hash 共用同一份存储
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // 相对下一个版本的反向增量（LineDelta 格式）；为 NULL 表示本版本存有完整内容
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "delta_content", columnDefinition = "LONGTEXT")
     private String deltaContent;
 
@@ -42,6 +57,9 @@ public class CodeVersion {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // 解除复刻时复制的版本保留原来的创建时间
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+/**
+ * 榜单类型
+ */
+public enum LeaderboardKind {
+
+    /**
+     * 累计浏览量
+     */
+    VIEWS,
+
+    /**
+     * 按时间衰减的浏览、复刻、执行加权热度
+     */
+    TRENDING
+}
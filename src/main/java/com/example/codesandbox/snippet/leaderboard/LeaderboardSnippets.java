@@ -0,0 +1,24 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+
+/**
+ * 榜单快照的公共判断
+ */
+final class LeaderboardSnippets {
+
+    private LeaderboardSnippets() {
+    }
+
+    /**
+     * 只有公开片段上榜
+     */
+    static boolean isRanked(CodeSnippetResponse snippet) {
+        return snippet.getVisibility() == CodeSnippet.Visibility.PUBLIC;
+    }
+
+    static int viewCount(CodeSnippetResponse snippet) {
+        return snippet.getViewCount() == null ? 0 : snippet.getViewCount();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+
+import java.util.List;
+
+/**
+ * 排行榜存储
+ *
+ * 每个片段同时进入本语言和全部语言（language 为 null）两个分组；每个分组每种榜单最多保留 capacity 个片段，
+ * 榜单中的片段连同展示用的快照一起保存，查询 top k 不需要再查数据库
+ *
+ * 热度分数取以 2 为底的对数：一次权重为 w 的事件记为 log2(w) + t / 半衰期，
+ * 累加用 log2(2^a + 2^b)。分数只随新事件增长，排序与按当前时间衰减后的热度一致，不需要定时重算
+ */
+public interface LeaderboardStore {
+
+    /**
+     * 记录片段当前的累计浏览量（只会增大）
+     */
+    void offerViews(CodeSnippetResponse snippet, double views);
+
+    /**
+     * 为片段的热度累加一次事件（对数分数）
+     */
+    void addTrending(CodeSnippetResponse snippet, double logScore);
+
+    /**
+     * 片段在榜时更新快照；不再公开时移出，换了语言时移到新语言的分组（热度重新累计）
+     */
+    void refresh(CodeSnippetResponse snippet);
+
+    void remove(Long snippetId);
+
+    /**
+     * 分数从高到低的前 k 个片段
+     *
+     * @param language null 表示全部语言
+     */
+    List<CodeSnippetResponse> top(LeaderboardKind kind, String language, int k);
+
+    boolean isEmpty();
+
+    /**
+     * 清理不在任何榜单中的快照
+     */
+    default void sweep() {
+    }
+
+    /**
+     * 对数域上的 log2(2^a + 2^b)
+     */
+    static double logAdd(double a, double b) {
+        double high = Math.max(a, b);
+        double low = Math.min(a, b);
+        return high + Math.log1p(Math.pow(2, low - high)) / Math.log(2);
+    }
+}
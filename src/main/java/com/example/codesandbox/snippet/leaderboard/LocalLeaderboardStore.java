@@ -0,0 +1,243 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 单节点的内存排行榜
+ *
+ * 每个（榜单，语言）分组是一个有上限的有序集合（分数 → 片段ID 的 TreeSet 加上 ID → 分数的索引），
+ * 插入、更新、淘汰都是 O(log capacity)，取前 k 个是 O(k)。
+ * 小顶堆无法就地调整已有元素的分数，所以这里用平衡树代替堆
+ *
+ * 淘汰规则：
+ * - 浏览量榜：分数是准确的累计值，满了以后只接受比榜尾大的片段，淘汰榜尾
+ * - 热度榜：Space-Saving —— 满了以后新片段顶替榜尾，并继承榜尾的分数再累加，
+ *   持续有事件的片段一定能进榜，代价是刚进榜时的分数偏高（不超过被顶替的榜尾分数）
+ *
+ * 所有操作在同一把锁内完成；每次操作只涉及两个分组，持锁时间很短
+ */
+public class LocalLeaderboardStore implements LeaderboardStore {
+
+    private static final Comparator<Scored> ORDER = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(Scored::snippetId);
+
+    private final int capacity;
+    private final Map<Group, BoundedBoard> boards = new HashMap<>();
+    private final Map<Long, CodeSnippetResponse> snapshots = new HashMap<>();
+
+    public LocalLeaderboardStore(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void offerViews(CodeSnippetResponse snippet, double views) {
+        List<Long> evicted = new ArrayList<>(2);
+        boolean kept = false;
+        for (String group : groupsOf(snippet.getLanguage())) {
+            BoundedBoard board = board(LeaderboardKind.VIEWS, group);
+            Double current = board.score(snippet.getId());
+            if (current != null) {
+                board.put(snippet.getId(), Math.max(current, views));
+                kept = true;
+            } else if (board.size() < capacity || views > board.lowest().score()) {
+                board.put(snippet.getId(), views);
+                addIfNotNull(evicted, board.evictOver(capacity));
+                kept = true;
+            }
+        }
+        if (kept) {
+            keepSnapshot(snippet, true);
+        }
+        evicted.forEach(this::dropIfUnranked);
+    }
+
+    @Override
+    public synchronized void addTrending(CodeSnippetResponse snippet, double logScore) {
+        List<Long> evicted = new ArrayList<>(2);
+        for (String group : groupsOf(snippet.getLanguage())) {
+            BoundedBoard board = board(LeaderboardKind.TRENDING, group);
+            Double current = board.score(snippet.getId());
+            if (current != null) {
+                board.put(snippet.getId(), LeaderboardStore.logAdd(current, logScore));
+            } else if (board.size() < capacity) {
+                board.put(snippet.getId(), logScore);
+            } else {
+                Scored lowest = board.lowest();
+                board.remove(lowest.snippetId());
+                evicted.add(lowest.snippetId());
+                board.put(snippet.getId(), LeaderboardStore.logAdd(lowest.score(), logScore));
+            }
+        }
+        keepSnapshot(snippet, false);
+        evicted.forEach(this::dropIfUnranked);
+    }
+
+    @Override
+    public synchronized void refresh(CodeSnippetResponse snippet) {
+        CodeSnippetResponse previous = snapshots.get(snippet.getId());
+        if (previous == null) {
+            return;
+        }
+        if (!LeaderboardSnippets.isRanked(snippet)) {
+            remove(snippet.getId());
+        } else if (previous.getLanguage().equals(snippet.getLanguage())) {
+            keepSnapshot(snippet, true);
+        } else {
+            Double views = board(LeaderboardKind.VIEWS, previous.getLanguage()).score(snippet.getId());
+            remove(snippet.getId());
+            snippet.setViewCount(Math.max(LeaderboardSnippets.viewCount(previous), LeaderboardSnippets.viewCount(snippet)));
+            offerViews(snippet, views == null ? snippet.getViewCount() : views);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long snippetId) {
+        CodeSnippetResponse snapshot = snapshots.remove(snippetId);
+        if (snapshot == null) {
+            return;
+        }
+        for (LeaderboardKind kind : LeaderboardKind.values()) {
+            for (String group : groupsOf(snapshot.getLanguage())) {
+                board(kind, group).remove(snippetId);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<CodeSnippetResponse> top(LeaderboardKind kind, String language, int k) {
+        BoundedBoard board = boards.get(new Group(kind, language));
+        if (board == null) {
+            return List.of();
+        }
+        List<CodeSnippetResponse> result = new ArrayList<>(Math.min(k, board.size()));
+        Iterator<Scored> iterator = board.order.iterator();
+        while (result.size() < k && iterator.hasNext()) {
+            Scored scored = iterator.next();
+            CodeSnippetResponse copy = copyOf(snapshots.get(scored.snippetId()));
+            if (kind == LeaderboardKind.VIEWS) {
+                copy.setViewCount((int) Math.min(Integer.MAX_VALUE, (long) scored.score()));
+            }
+            result.add(copy);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return snapshots.isEmpty();
+    }
+
+    private void keepSnapshot(CodeSnippetResponse snippet, boolean replace) {
+        CodeSnippetResponse previous = snapshots.get(snippet.getId());
+        if (previous == null) {
+            snapshots.put(snippet.getId(), snippet);
+        } else if (replace) {
+            // 快照里的浏览量可能来自已经包含未落库增量的浏览事件，不能被数据库里的旧值覆盖
+            snippet.setViewCount(Math.max(LeaderboardSnippets.viewCount(previous), LeaderboardSnippets.viewCount(snippet)));
+            snapshots.put(snippet.getId(), snippet);
+        }
+    }
+
+    private void dropIfUnranked(Long snippetId) {
+        CodeSnippetResponse snapshot = snapshots.get(snippetId);
+        if (snapshot == null) {
+            return;
+        }
+        for (LeaderboardKind kind : LeaderboardKind.values()) {
+            for (String group : groupsOf(snapshot.getLanguage())) {
+                BoundedBoard board = boards.get(new Group(kind, group));
+                if (board != null && board.score(snippetId) != null) {
+                    return;
+                }
+            }
+        }
+        snapshots.remove(snippetId);
+    }
+
+    private BoundedBoard board(LeaderboardKind kind, String language) {
+        return boards.computeIfAbsent(new Group(kind, language), group -> new BoundedBoard());
+    }
+
+    private static String[] groupsOf(String language) {
+        return new String[]{language, null};
+    }
+
+    private static void addIfNotNull(List<Long> ids, Long id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private static CodeSnippetResponse copyOf(CodeSnippetResponse snapshot) {
+        return new CodeSnippetResponse(snapshot.getId(), snapshot.getOwnerId(), snapshot.getTitle(),
+                snapshot.getDescription(), snapshot.getLanguage(), snapshot.getVisibility(), snapshot.getTags(),
+                snapshot.getViewCount(), snapshot.getForkCount(), snapshot.getCreatedAt(), snapshot.getUpdatedAt());
+    }
+
+    /**
+     * @param language null 表示全部语言
+     */
+    private record Group(LeaderboardKind kind, String language) {
+    }
+
+    private record Scored(Long snippetId, double score) {
+    }
+
+    /**
+     * 有上限的有序集合：order 从高到低排列，末尾是榜尾
+     */
+    private static final class BoundedBoard {
+
+        private final Map<Long, Double> scores = new HashMap<>();
+        private final TreeSet<Scored> order = new TreeSet<>(ORDER);
+
+        Double score(Long snippetId) {
+            return scores.get(snippetId);
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        Scored lowest() {
+            return order.last();
+        }
+
+        void put(Long snippetId, double score) {
+            Double previous = scores.put(snippetId, score);
+            if (previous != null) {
+                order.remove(new Scored(snippetId, previous));
+            }
+            order.add(new Scored(snippetId, score));
+        }
+
+        void remove(Long snippetId) {
+            Double previous = scores.remove(snippetId);
+            if (previous != null) {
+                order.remove(new Scored(snippetId, previous));
+            }
+        }
+
+        /**
+         * 超出上限时淘汰榜尾
+         *
+         * @return 被淘汰的片段ID，没有淘汰时为 null
+         */
+        Long evictOver(int capacity) {
+            if (scores.size() <= capacity) {
+                return null;
+            }
+            Scored lowest = order.pollLast();
+            scores.remove(lowest.snippetId());
+            return lowest.snippetId();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 多节点共用的 Redis 排行榜
+ *
+ * Redis 数据结构：
+ * - codesandbox:leaderboard:{views|trending}:{语言}  → 有序集合，成员是片段ID；全部语言的分组记为 *
+ * - codesandbox:leaderboard:snippets                 → 哈希表，片段ID → 快照 JSON
+ * - codesandbox:leaderboard:languages                → 出现过的语言
+ *
+ * 每次事件用一个 Lua 脚本同时更新本语言和全部语言两个有序集合，淘汰规则与 LocalLeaderboardStore 相同。
+ * 被淘汰片段的快照由 sweep 定时清理；清理和新事件并发时快照可能被误删，
+ * 这期间查询会跳过没有快照的片段，直到它的下一次事件重新写入
+ */
+@Slf4j
+public class RedisLeaderboardStore implements LeaderboardStore {
+
+    private static final String PREFIX = "codesandbox:leaderboard:";
+    private static final String SNAPSHOTS_KEY = PREFIX + "snippets";
+    private static final String LANGUAGES_KEY = PREFIX + "languages";
+    private static final String ALL_LANGUAGES = "*";
+
+    private static final RedisScript<Long> OFFER_VIEWS = new DefaultRedisScript<>("""
+            local views = tonumber(ARGV[2])
+            local capacity = tonumber(ARGV[3])
+            local kept = 0
+            for i = 1, 2 do
+              local current = redis.call('ZSCORE', KEYS[i], ARGV[1])
+              if current then
+                if views > tonumber(current) then
+                  redis.call('ZADD', KEYS[i], ARGV[2], ARGV[1])
+                end
+                kept = 1
+              else
+                local size = redis.call('ZCARD', KEYS[i])
+                local lowest = redis.call('ZRANGE', KEYS[i], 0, 0, 'WITHSCORES')
+                if size < capacity or views > tonumber(lowest[2]) then
+                  redis.call('ZADD', KEYS[i], ARGV[2], ARGV[1])
+                  if size >= capacity then
+                    redis.call('ZPOPMIN', KEYS[i])
+                  end
+                  kept = 1
+                end
+              end
+            end
+            if kept == 1 then
+              redis.call('HSET', KEYS[3], ARGV[1], ARGV[4])
+              redis.call('SADD', KEYS[4], ARGV[5])
+            end
+            return kept
+            """, Long.class);
+
+    private static final RedisScript<Long> ADD_TRENDING = new DefaultRedisScript<>("""
+            local function logadd(a, b)
+              local high = math.max(a, b)
+              local low = math.min(a, b)
+              return high + math.log(1 + 2 ^ (low - high)) / math.log(2)
+            end
+            local score = tonumber(ARGV[2])
+            local capacity = tonumber(ARGV[3])
+            for i = 1, 2 do
+              local current = redis.call('ZSCORE', KEYS[i], ARGV[1])
+              local updated = score
+              if current then
+                updated = logadd(tonumber(current), score)
+              elseif redis.call('ZCARD', KEYS[i]) >= capacity then
+                local lowest = redis.call('ZPOPMIN', KEYS[i])
+                updated = logadd(tonumber(lowest[2]), score)
+              end
+              redis.call('ZADD', KEYS[i], string.format('%.17g', updated), ARGV[1])
+            end
+            redis.call('HSETNX', KEYS[3], ARGV[1], ARGV[4])
+            redis.call('SADD', KEYS[4], ARGV[5])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+
+    public RedisLeaderboardStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, int capacity) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void offerViews(CodeSnippetResponse snippet, double views) {
+        redisTemplate.execute(OFFER_VIEWS, keysFor(LeaderboardKind.VIEWS, snippet.getLanguage()),
+                snippet.getId().toString(), Double.toString(views), Integer.toString(capacity),
+                toJson(snippet), snippet.getLanguage());
+    }
+
+    @Override
+    public void addTrending(CodeSnippetResponse snippet, double logScore) {
+        redisTemplate.execute(ADD_TRENDING, keysFor(LeaderboardKind.TRENDING, snippet.getLanguage()),
+                snippet.getId().toString(), Double.toString(logScore), Integer.toString(capacity),
+                toJson(snippet), snippet.getLanguage());
+    }
+
+    @Override
+    public void refresh(CodeSnippetResponse snippet) {
+        String member = snippet.getId().toString();
+        Object json = redisTemplate.opsForHash().get(SNAPSHOTS_KEY, member);
+        if (json == null) {
+            return;
+        }
+        CodeSnippetResponse previous = fromJson(json.toString());
+        if (!LeaderboardSnippets.isRanked(snippet)) {
+            remove(snippet.getId());
+            return;
+        }
+        if (previous != null) {
+            snippet.setViewCount(Math.max(LeaderboardSnippets.viewCount(previous), LeaderboardSnippets.viewCount(snippet)));
+        }
+        if (previous == null || previous.getLanguage().equals(snippet.getLanguage())) {
+            redisTemplate.opsForHash().put(SNAPSHOTS_KEY, member, toJson(snippet));
+            return;
+        }
+        Double views = redisTemplate.opsForZSet().score(boardKey(LeaderboardKind.VIEWS, previous.getLanguage()), member);
+        remove(snippet.getId());
+        offerViews(snippet, views == null ? snippet.getViewCount() : views);
+    }
+
+    @Override
+    public void remove(Long snippetId) {
+        String member = snippetId.toString();
+        Object json = redisTemplate.opsForHash().get(SNAPSHOTS_KEY, member);
+        CodeSnippetResponse snapshot = json == null ? null : fromJson(json.toString());
+        Set<String> languages = snapshot == null ? languages() : Set.of(snapshot.getLanguage());
+        for (String language : languages) {
+            for (LeaderboardKind kind : LeaderboardKind.values()) {
+                redisTemplate.opsForZSet().remove(boardKey(kind, language), member);
+            }
+        }
+        for (LeaderboardKind kind : LeaderboardKind.values()) {
+            redisTemplate.opsForZSet().remove(boardKey(kind, null), member);
+        }
+        redisTemplate.opsForHash().delete(SNAPSHOTS_KEY, member);
+    }
+
+    @Override
+    public List<CodeSnippetResponse> top(LeaderboardKind kind, String language, int k) {
+        Set<ZSetOperations.TypedTuple<String>> ranked =
+                redisTemplate.opsForZSet().reverseRangeWithScores(boardKey(kind, language), 0, k - 1L);
+        if (ranked == null || ranked.isEmpty()) {
+            return List.of();
+        }
+        List<Object> members = ranked.stream().<Object>map(ZSetOperations.TypedTuple::getValue).toList();
+        List<Object> snapshots = redisTemplate.opsForHash().multiGet(SNAPSHOTS_KEY, members);
+        List<CodeSnippetResponse> result = new ArrayList<>(ranked.size());
+        int i = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : ranked) {
+            Object json = snapshots.get(i++);
+            CodeSnippetResponse snippet = json == null ? null : fromJson(json.toString());
+            if (snippet == null) {
+                continue;
+            }
+            if (kind == LeaderboardKind.VIEWS && tuple.getScore() != null) {
+                snippet.setViewCount((int) Math.min(Integer.MAX_VALUE, tuple.getScore().longValue()));
+            }
+            result.add(snippet);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Long size = redisTemplate.opsForHash().size(SNAPSHOTS_KEY);
+        return size == null || size == 0;
+    }
+
+    @Override
+    public void sweep() {
+        Set<String> ranked = new HashSet<>();
+        Set<String> groups = new HashSet<>(languages());
+        groups.add(null);
+        for (String language : groups) {
+            for (LeaderboardKind kind : LeaderboardKind.values()) {
+                Set<String> members = redisTemplate.opsForZSet().range(boardKey(kind, language), 0, -1);
+                if (members != null) {
+                    ranked.addAll(members);
+                }
+            }
+        }
+        Object[] unranked = redisTemplate.opsForHash().keys(SNAPSHOTS_KEY).stream()
+                .filter(member -> !ranked.contains(member.toString()))
+                .toArray();
+        if (unranked.length > 0) {
+            redisTemplate.opsForHash().delete(SNAPSHOTS_KEY, unranked);
+            log.debug("清理 {} 个已掉出榜单的片段快照", unranked.length);
+        }
+    }
+
+    private Set<String> languages() {
+        Set<String> languages = redisTemplate.opsForSet().members(LANGUAGES_KEY);
+        return languages == null ? Set.of() : languages;
+    }
+
+    private static List<String> keysFor(LeaderboardKind kind, String language) {
+        return List.of(boardKey(kind, language), boardKey(kind, null), SNAPSHOTS_KEY, LANGUAGES_KEY);
+    }
+
+    /**
+     * @param language null 表示全部语言
+     */
+    private static String boardKey(LeaderboardKind kind, String language) {
+        return PREFIX + kind.name().toLowerCase() + ":" + (language == null ? ALL_LANGUAGES : language);
+    }
+
+    private String toJson(CodeSnippetResponse snippet) {
+        try {
+            return objectMapper.writeValueAsString(snippet);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("无法序列化片段快照: " + snippet.getId(), e);
+        }
+    }
+
+    private CodeSnippetResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, CodeSnippetResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("无法解析排行榜快照: {}", json, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.config.SnippetLeaderboardProperties;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+
+/**
+ * 首页排行榜：浏览量榜和热度榜
+ *
+ * 由浏览、复刻、执行事件增量维护（见 SnippetCounters、ExecutionSubmissionService、ExecutionBatchService），
+ * 片段修改或删除时由 SnippetLeaderboardListener 同步；查询前 k 个是 O(k)，不查数据库。
+ * 只有公开片段上榜，按语言分组，另有一个全部语言的分组
+ *
+ * 热度 = Σ 权重 × 2^(-(当前时间 - 事件时间) / 半衰期)，以对数分数保存（见 LeaderboardStore）
+ *
+ * 排行榜是派生数据：更新失败只记日志，不影响浏览和执行本身；查询失败时退回数据库按浏览量排序
+ */
+@Slf4j
+public class SnippetLeaderboard {
+
+    private static final double LOG_2 = Math.log(2);
+
+    private final LeaderboardStore store;
+    private final CodeSnippetRepository snippetRepository;
+    private final SnippetLeaderboardProperties config;
+
+    public SnippetLeaderboard(LeaderboardStore store,
+                              CodeSnippetRepository snippetRepository,
+                              SnippetLeaderboardProperties config) {
+        this.store = store;
+        this.snippetRepository = snippetRepository;
+        this.config = config;
+    }
+
+    /**
+     * 片段是否参与排行
+     */
+    public boolean tracks(CodeSnippet snippet) {
+        return snippet.getVisibility() == CodeSnippet.Visibility.PUBLIC;
+    }
+
+    /**
+     * @param totalViews 包含本次浏览和尚未落库增量的累计浏览量
+     */
+    public void recordView(CodeSnippet snippet, long totalViews) {
+        if (!tracks(snippet)) {
+            return;
+        }
+        CodeSnippetResponse snapshot = CodeSnippetResponse.from(snippet);
+        snapshot.setViewCount((int) Math.min(Integer.MAX_VALUE, totalViews));
+        try {
+            store.offerViews(snapshot, totalViews);
+            store.addTrending(snapshot, trendingScore(config.getViewWeight()));
+        } catch (RuntimeException e) {
+            log.warn("更新片段 {} 的排行失败", snippet.getId(), e);
+        }
+    }
+
+    public void recordFork(CodeSnippet snippet) {
+        addTrending(snippet, config.getForkWeight());
+    }
+
+    public void recordExecution(CodeSnippet snippet) {
+        addTrending(snippet, config.getExecutionWeight());
+    }
+
+    /**
+     * 片段被修改：更新在榜片段的快照，不再公开的移出榜单
+     */
+    public void snippetChanged(CodeSnippet snippet) {
+        try {
+            store.refresh(CodeSnippetResponse.from(snippet));
+        } catch (RuntimeException e) {
+            log.warn("同步片段 {} 的排行快照失败", snippet.getId(), e);
+        }
+    }
+
+    public void snippetRemoved(Long snippetId) {
+        try {
+            store.remove(snippetId);
+        } catch (RuntimeException e) {
+            log.warn("从排行榜移除片段 {} 失败", snippetId, e);
+        }
+    }
+
+    /**
+     * 排行榜前 k 个片段
+     *
+     * @param language null 表示全部语言
+     * @param k        不超过 capacity
+     */
+    public List<CodeSnippetResponse> top(LeaderboardKind kind, String language, int k) {
+        int limit = Math.max(0, Math.min(k, config.getCapacity()));
+        try {
+            return store.top(kind, language, limit);
+        } catch (RuntimeException e) {
+            log.warn("读取排行榜失败，退回数据库查询", e);
+            return fallback(language, limit);
+        }
+    }
+
+    /**
+     * 启动时榜单为空（首次部署、单节点重启）则按语言从数据库装入浏览量最高的片段；
+     * 热度榜没有历史数据，从空榜开始累计
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        if (!config.isSeedOnStartup()) {
+            return;
+        }
+        try {
+            if (!store.isEmpty()) {
+                return;
+            }
+            int seeded = 0;
+            for (String language : snippetRepository.findPublicLanguages()) {
+                List<CodeSnippet> snippets = snippetRepository.findByVisibilityAndLanguageOrderByViewCountDesc(
+                        CodeSnippet.Visibility.PUBLIC, language, Limit.of(config.getCapacity()));
+                for (CodeSnippet snippet : snippets) {
+                    store.offerViews(CodeSnippetResponse.from(snippet),
+                            snippet.getViewCount() == null ? 0 : snippet.getViewCount());
+                }
+                seeded += snippets.size();
+            }
+            log.info("排行榜已从数据库装入 {} 个片段", seeded);
+        } catch (RuntimeException e) {
+            log.warn("装入排行榜失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.leaderboard.sweep-interval-ms:300000}")
+    public void sweep() {
+        try {
+            store.sweep();
+        } catch (RuntimeException e) {
+            log.warn("清理排行榜快照失败", e);
+        }
+    }
+
+    private void addTrending(CodeSnippet snippet, double weight) {
+        if (!tracks(snippet)) {
+            return;
+        }
+        try {
+            store.addTrending(CodeSnippetResponse.from(snippet), trendingScore(weight));
+        } catch (RuntimeException e) {
+            log.warn("更新片段 {} 的热度失败", snippet.getId(), e);
+        }
+    }
+
+    /**
+     * 当前时刻一次权重为 weight 的事件的对数分数：log2(weight) + t / 半衰期
+     */
+    private double trendingScore(double weight) {
+        return Math.log(weight) / LOG_2
+                + (double) System.currentTimeMillis() / config.getTrendingHalfLife().toMillis();
+    }
+
+    private List<CodeSnippetResponse> fallback(String language, int limit) {
+        if (limit == 0) {
+            return List.of();
+        }
+        List<CodeSnippet> snippets = language == null
+                ? snippetRepository.findTopByViewCount(PageRequest.of(0, limit)).getContent()
+                : snippetRepository.findByVisibilityAndLanguageOrderByViewCountDesc(
+                        CodeSnippet.Visibility.PUBLIC, language, Limit.of(limit));
+        return snippets.stream().map(CodeSnippetResponse::from).toList();
+    }
+}
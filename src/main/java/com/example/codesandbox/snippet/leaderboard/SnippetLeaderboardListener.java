@@ -0,0 +1,53 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * CodeSnippet 的 JPA 监听器：在榜片段被修改（标题、可见性、语言等）或删除时同步排行榜
+ *
+ * 新建的片段还没有浏览和执行事件，不需要处理。
+ * 在事务中时等提交后再同步，否则回滚的修改或删除会写进排行榜（Redis 模式下发布到所有节点），见 TagIndexListener
+ */
+public class SnippetLeaderboardListener {
+
+    private final ObjectProvider<SnippetLeaderboard> leaderboard;
+
+    public SnippetLeaderboardListener(ObjectProvider<SnippetLeaderboard> leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @PostUpdate
+    public void updated(CodeSnippet snippet) {
+        afterCommit(it -> it.snippetChanged(snippet));
+    }
+
+    @PostRemove
+    public void removed(CodeSnippet snippet) {
+        Long snippetId = snippet.getId();
+        afterCommit(it -> it.snippetRemoved(snippetId));
+    }
+
+    private void afterCommit(Consumer<SnippetLeaderboard> action) {
+        SnippetLeaderboard target = leaderboard.getIfAvailable();
+        if (target == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(target);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.accept(target);
+            }
+        });
+    }
+}
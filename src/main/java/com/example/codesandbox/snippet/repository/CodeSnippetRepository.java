@@ -1,17 +1,25 @@
 package com.example.codesandbox.snippet.repository;
 
+import com.example.codesandbox.snippet.dto.SnippetForkLink;
 import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.tag.SnippetTagRow;
 import com.example.codesandbox.user.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CodeSnippetRepository extends JpaRepository<CodeSnippet, Long> {
+public interface CodeSnippetRepository extends JpaRepository<CodeSnippet, Long>, CodeSnippetRepositoryCustom {
 
     /**
      * 查找某个用户的所有代码片段
@@ -19,6 +27,12 @@ public interface CodeSnippetRepository extends JpaRepository<CodeSnippet, Long>
      */
     Page<CodeSnippet> findByOwner(User owner, Pageable pageable);
 
+    /**
+     * 某个用户的代码片段（游标分页，按 created_at、id 倒序）
+     * 用途：用户代码列表翻页；使用索引 idx_owner_created
+     */
+    Window<CodeSnippet> findByOwnerOrderByCreatedAtDescIdDesc(User owner, ScrollPosition position, Limit limit);
+
     /**
      * 根据可见性查找代码片段
      * 用途：查找所有公开的代码
@@ -31,9 +45,29 @@ public interface CodeSnippetRepository extends JpaRepository<CodeSnippet, Long>
      */
     Page<CodeSnippet> findByLanguage(String language, Pageable pageable);
 
+    /**
+     * 公开代码的全文搜索（按相关度排序），language 为 null 时不过滤语言
+     * 用途：搜索后端不可用时的降级方案；使用 FULLTEXT 索引 ft_title_description
+     */
+    @Query(value = "SELECT * FROM code_snippets WHERE visibility = 'PUBLIC' " +
+            "AND (:language IS NULL OR language = :language) " +
+            "AND MATCH(title, description) AGAINST (:keyword IN NATURAL LANGUAGE MODE)",
+            countQuery = "SELECT COUNT(*) FROM code_snippets WHERE visibility = 'PUBLIC' " +
+                    "AND (:language IS NULL OR language = :language) " +
+                    "AND MATCH(title, description) AGAINST (:keyword IN NATURAL LANGUAGE MODE)",
+            nativeQuery = true)
+    Page<CodeSnippet> searchPublicByFullText(String keyword, String language, Pageable pageable);
+
+    /**
+     * 按ID顺序取下一批片段ID
+     * 用途：搜索索引全量补建（按主键游标，不做 OFFSET）
+     */
+    @Query("SELECT cs.id FROM CodeSnippet cs WHERE cs.id > :after ORDER BY cs.id")
+    List<Long> findIdsAfter(Long after, Limit limit);
+
     /**
      * 根据标题模糊搜索
-     * 用途：基础搜索功能（Elasticsearch不可用时的降级方案）
+     * 用途：基础搜索功能（不走索引，只适合小数据量；搜索请用 SnippetSearchService）
      */
     @Query("SELECT cs FROM CodeSnippet cs WHERE cs.title LIKE %:keyword% OR cs.description LIKE %:keyword%")
     Page<CodeSnippet> searchByKeyword(String keyword, Pageable pageable);
@@ -46,11 +80,96 @@ public interface CodeSnippetRepository extends JpaRepository<CodeSnippet, Long>
 
     /**
      * 查找热门代码（按浏览量排序）
-     * 用途：首页推荐
+     * 用途：排行榜不可用时的首页推荐（正常情况下首页读 SnippetLeaderboard，不查数据库）
      */
     @Query("SELECT cs FROM CodeSnippet cs WHERE cs.visibility = 'PUBLIC' ORDER BY cs.viewCount DESC")
     Page<CodeSnippet> findTopByViewCount(Pageable pageable);
 
+    /**
+     * 某种语言浏览量最高的片段（走 idx_visibility_language_views）
+     * 用途：启动时装入排行榜
+     */
+    List<CodeSnippet> findByVisibilityAndLanguageOrderByViewCountDesc(CodeSnippet.Visibility visibility,
+                                                                      String language, Limit limit);
+
+    /**
+     * 公开片段用到的所有语言
+     */
+    @Query("SELECT DISTINCT cs.language FROM CodeSnippet cs WHERE cs.visibility = 'PUBLIC'")
+    List<String> findPublicLanguages();
+
+    /**
+     * 按ID游标分批读取标签索引需要的列
+     * 用途：启动时装入标签索引
+     */
+    @Query("SELECT new com.example.codesandbox.snippet.tag.SnippetTagRow(cs.id, cs.language, cs.visibility, cs.tags) " +
+            "FROM CodeSnippet cs WHERE cs.id > :after ORDER BY cs.id")
+    List<SnippetTagRow> findTagRowsAfter(Long after, Limit limit);
+
+    /**
+     * 用途：同步变更的片段到标签索引
+     */
+    @Query("SELECT new com.example.codesandbox.snippet.tag.SnippetTagRow(cs.id, cs.language, cs.visibility, cs.tags) " +
+            "FROM CodeSnippet cs WHERE cs.id IN :ids")
+    List<SnippetTagRow> findTagRowsByIds(Collection<Long> ids);
+
+    /**
+     * 片段的复刻来源和复刻点
+     * 用途：沿复刻链查找共享版本所在的片段
+     */
+    @Query("SELECT new com.example.codesandbox.snippet.dto.SnippetForkLink(cs.id, p.id, cs.forkVersionNumber) " +
+            "FROM CodeSnippet cs LEFT JOIN cs.forkedFrom p WHERE cs.id = :snippetId")
+    Optional<SnippetForkLink> findForkLink(Long snippetId);
+
+    /**
+     * 直接复刻某个片段的片段
+     * 用途：删除片段前解除复刻
+     */
+    List<CodeSnippet> findByForkedFrom(CodeSnippet source);
+
+    /**
+     * 复刻来源属于某个用户的片段（包括该用户复刻自己的片段）
+     * 用途：删除用户前解除复刻，否则级联删除该用户的片段时被外键 RESTRICT 拦下
+     */
+    List<CodeSnippet> findByForkedFromOwnerOrderByIdAsc(User owner);
+
+    /**
+     * 清除复刻关系（实体上这两列不可更新，只能在解除复刻时通过这里修改）
+     */
+    @Modifying
+    @Query(value = "UPDATE code_snippets SET forked_from_id = NULL, fork_version_number = NULL WHERE id = :snippetId",
+            nativeQuery = true)
+    int clearForkLink(Long snippetId);
+
+    /**
+     * 其中被某个片段当作最新版本指向的版本行
+     * 用途：解除复刻时找出需要改指向副本的最新版本指针
+     */
+    @Query("SELECT DISTINCT cs.headVersionId FROM CodeSnippet cs WHERE cs.headVersionId IN :versionIds")
+    List<Long> findPinnedHeadVersionIds(Collection<Long> versionIds);
+
+    /**
+     * 把指向某个版本行的最新版本指针改指向另一行（版本行所在的片段自己除外）
+     */
+    @Modifying
+    @Query(value = "UPDATE code_snippets SET head_version_id = :toVersionId " +
+            "WHERE head_version_id = :fromVersionId AND id <> :ownerId", nativeQuery = true)
+    int repointHead(Long fromVersionId, Long toVersionId, Long ownerId);
+
+    /**
+     * 更新最新版本指针（不经过实体，不触发实体监听器，也不会被实体保存覆盖）
+     */
+    @Modifying
+    @Query(value = "UPDATE code_snippets SET head_version_id = :versionId, head_version_number = :versionNumber " +
+            "WHERE id = :snippetId", nativeQuery = true)
+    int updateHead(Long snippetId, Long versionId, Integer versionNumber);
+
+    /**
+     * 是否有其他片段（复刻）以这个版本行作为最新版本
+     * 用途：这样的版本被替换时存为关键帧，复刻读取最新版本仍只需一次读取
+     */
+    boolean existsByHeadVersionIdAndIdNot(Long headVersionId, Long snippetId);
+
     /**
      * 统计某个用户的代码数量
      */
@@ -0,0 +1,17 @@
+package com.example.codesandbox.snippet.repository;
+
+import com.example.codesandbox.snippet.counter.SnippetCounterDelta;
+
+import java.util.List;
+
+/**
+ * CodeSnippetRepository 的自定义扩展（JDBC 批量更新）
+ */
+public interface CodeSnippetRepositoryCustom {
+
+    /**
+     * 把一批计数增量累加到 view_count / fork_count，每 batchSize 行一个 JDBC 批次
+     * 用途：SnippetCounters 定时刷新；不经过实体，不会改动 updated_at
+     */
+    void addCounters(List<SnippetCounterDelta> deltas, int batchSize);
+}
@@ -0,0 +1,34 @@
+package com.example.codesandbox.snippet.repository;
+
+import com.example.codesandbox.snippet.counter.SnippetCounterDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CodeSnippetRepositoryCustomImpl implements CodeSnippetRepositoryCustom {
+
+    /**
+     * updated_at 定义了 ON UPDATE CURRENT_TIMESTAMP，显式赋原值才不会被计数回写刷新
+     */
+    private static final String ADD_COUNTERS_SQL = """
+            UPDATE code_snippets
+            SET view_count = COALESCE(view_count, 0) + ?, fork_count = COALESCE(fork_count, 0) + ?,
+                updated_at = updated_at
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void addCounters(List<SnippetCounterDelta> deltas, int batchSize) {
+        jdbcTemplate.batchUpdate(ADD_COUNTERS_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.views());
+            ps.setLong(2, delta.forks());
+            ps.setLong(3, delta.snippetId());
+        });
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.codesandbox.snippet.repository;
 
+import com.example.codesandbox.snippet.dto.CodeVersionSummary;
 import com.example.codesandbox.snippet.entity.CodeSnippet;
 import com.example.codesandbox.snippet.entity.CodeVersion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,15 +23,27 @@ public interface CodeVersionRepository extends JpaRepository<CodeVersion, Long>
     List<CodeVersion> findBySnippetOrderByVersionNumberDesc(CodeSnippet snippet);
 
     /**
-     * 获取某个代码片段的特定版本
-     * 用途：回滚到指定版本
+     * 某个代码片段的版本历史摘要（按版本号倒序，不读取 content / delta_content）
+     * 用途：显示版本历史列表
+     */
+    @Query("SELECT new com.example.codesandbox.snippet.dto.CodeVersionSummary(" +
+            "cv.id, cv.versionNumber, cv.author.id, cv.commitMessage, cv.createdAt) " +
+            "FROM CodeVersion cv WHERE cv.snippet = :snippet ORDER BY cv.versionNumber DESC")
+    List<CodeVersionSummary> findSummariesBySnippet(CodeSnippet snippet);
+
+    /**
+     * 获取某个代码片段自己名下的特定版本行
+     * 注意：历史版本可能只存有增量，复刻的早期版本在来源片段名下；
+     * 查看或回滚到某个版本的内容要用 CodeVersionStore.content(snippet, versionNumber)
      */
+    @EntityGraph(attributePaths = {"content", "deltaContent"})
     Optional<CodeVersion> findBySnippetAndVersionNumber(CodeSnippet snippet, Integer versionNumber);
 
     /**
      * 获取某个代码片段的最新版本
      * 用途：显示当前代码内容
      */
+    @EntityGraph(attributePaths = {"content", "deltaContent"})
     @Query("SELECT cv FROM CodeVersion cv WHERE cv.snippet = :snippet ORDER BY cv.versionNumber DESC LIMIT 1")
     Optional<CodeVersion> findLatestVersion(CodeSnippet snippet);
 
@@ -43,4 +59,56 @@ public interface CodeVersionRepository extends JpaRepository<CodeVersion, Long>
      */
     @Query("SELECT MAX(cv.versionNumber) FROM CodeVersion cv WHERE cv.snippet = :snippet")
     Integer findMaxVersionNumber(CodeSnippet snippet);
+
+    /**
+     * 从某个版本开始往后的若干个版本（含内容和增量）
+     * 用途：沿增量链还原历史版本，直到遇到存有完整内容的版本；
+     * 按片段ID查询，复刻共享的版本直接查来源片段，不需要加载来源片段实体
+     */
+    @EntityGraph(attributePaths = {"content", "deltaContent"})
+    List<CodeVersion> findBySnippetIdAndVersionNumberGreaterThanEqualOrderByVersionNumberAsc(Long snippetId,
+                                                                                           Integer versionNumber,
+                                                                                           Limit limit);
+
+    /**
+     * 某个片段不超过某个版本号的版本（含内容和增量，按版本号正序）
+     * 用途：解除复刻时把共享的版本复制到复刻名下
+     */
+    @EntityGraph(attributePaths = {"content", "deltaContent"})
+    List<CodeVersion> findBySnippetIdAndVersionNumberLessThanEqualOrderByVersionNumberAsc(Long snippetId,
+                                                                                        Integer maxVersion);
+
+    /**
+     * 按主键读取版本（含内容和增量）
+     * 用途：按片段的最新版本指针读取最新内容
+     */
+    @EntityGraph(attributePaths = {"content", "deltaContent"})
+    Optional<CodeVersion> findWithContentById(Long id);
+
+    /**
+     * 某个片段不超过某个版本号的版本历史摘要（按版本号倒序）
+     * 用途：复刻的版本历史中，来源片段在复刻点之前的部分
+     */
+    @Query("SELECT new com.example.codesandbox.snippet.dto.CodeVersionSummary(" +
+            "cv.id, cv.versionNumber, cv.author.id, cv.commitMessage, cv.createdAt) " +
+            "FROM CodeVersion cv WHERE cv.snippet.id = :snippetId AND cv.versionNumber <= :maxVersion " +
+            "ORDER BY cv.versionNumber DESC")
+    List<CodeVersionSummary> findSummariesBySnippetIdUpTo(Long snippetId, Integer maxVersion);
+
+    /**
+     * 某个版本之前最近的一个完整版本（关键帧）的版本号
+     * 用途：保存新版本时决定上一个版本存为关键帧还是增量
+     */
+    @Query("SELECT MAX(cv.versionNumber) FROM CodeVersion cv " +
+            "WHERE cv.snippet = :snippet AND cv.versionNumber < :before AND cv.deltaContent IS NULL")
+    Integer findLastFullVersionBefore(CodeSnippet snippet, Integer before);
+
+    /**
+     * 一批片段各自的最新版本（含内容）
+     * 用途：代码内容索引的全量补建、代码搜索结果验证；使用唯一索引 uq_snippet_version
+     */
+    @EntityGraph(attributePaths = {"content"})
+    @Query("SELECT cv FROM CodeVersion cv WHERE cv.snippet.id IN :snippetIds AND cv.versionNumber = " +
+            "(SELECT MAX(v.versionNumber) FROM CodeVersion v WHERE v.snippet = cv.snippet)")
+    List<CodeVersion> findLatestVersionsBySnippetIds(Collection<Long> snippetIds);
 }
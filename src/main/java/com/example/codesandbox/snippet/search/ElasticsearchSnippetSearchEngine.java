@@ -0,0 +1,178 @@
+package com.example.codesandbox.snippet.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Elasticsearch 搜索后端
+ *
+ * 多个节点共用同一个索引；每批变更用一次 bulk 请求写入。
+ * 相关度与 Lucene 后端一致：cross_fields + AND，标题、标签、语言、描述按配置加权
+ */
+@Slf4j
+public class ElasticsearchSnippetSearchEngine implements SnippetSearchEngine {
+
+    private final ElasticsearchClient client;
+    private final SnippetSearchProperties config;
+    private final String index;
+
+    public ElasticsearchSnippetSearchEngine(ElasticsearchClient client, SnippetSearchProperties config) {
+        this.client = client;
+        this.config = config;
+        this.index = config.getElasticsearch().getIndex();
+    }
+
+    /**
+     * 索引不存在时按映射创建；Elasticsearch 暂时不可用只记录日志，搜索会降级到数据库
+     */
+    @PostConstruct
+    public void ensureIndex() {
+        try {
+            if (client.indices().exists(e -> e.index(index)).value()) {
+                return;
+            }
+            client.indices().create(c -> c.index(index)
+                    .settings(s -> s.maxResultWindow(config.getMaxResultWindow()))
+                    .mappings(m -> m
+                            .properties("ownerId", p -> p.long_(l -> l))
+                            .properties("title", p -> p.text(t -> t))
+                            .properties("description", p -> p.text(t -> t))
+                            .properties("tags", p -> p.text(t -> t))
+                            .properties("language", p -> p.text(t -> t.fields("raw", f -> f.keyword(k -> k))))
+                            .properties("visibility", p -> p.keyword(k -> k))
+                            .properties("updatedAt", p -> p.long_(l -> l))));
+            log.info("已创建搜索索引 {}", index);
+        } catch (IOException | RuntimeException e) {
+            log.warn("检查搜索索引 {} 失败", index, e);
+        }
+    }
+
+    @Override
+    public void index(List<SnippetDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        bulk(documents.stream()
+                .map(document -> BulkOperation.of(b -> b.index(i -> i
+                        .index(index)
+                        .id(document.id().toString())
+                        .document(toSource(document)))))
+                .toList());
+    }
+
+    @Override
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        bulk(ids.stream()
+                .map(id -> BulkOperation.of(b -> b.delete(d -> d.index(index).id(id.toString()))))
+                .toList());
+    }
+
+    @Override
+    public SnippetSearchHits search(SnippetSearchQuery query) {
+        int window = Math.min(query.offset() + query.size(), config.getMaxResultWindow());
+        if (query.offset() >= window) {
+            return SnippetSearchHits.empty();
+        }
+        try {
+            SearchResponse<Void> response = client.search(s -> {
+                s.index(index)
+                        .query(q -> q.bool(b -> filter(b, query)))
+                        .from(query.offset())
+                        .size(window - query.offset())
+                        .trackTotalHits(t -> t.count(config.getMaxResultWindow()))
+                        .source(src -> src.fetch(false));
+                if (query.hasKeyword()) {
+                    s.sort(o -> o.score(sc -> sc.order(SortOrder.Desc)));
+                }
+                return s.sort(o -> o.field(f -> f.field("updatedAt").order(SortOrder.Desc)));
+            }, Void.class);
+            List<Long> ids = response.hits().hits().stream()
+                    .map(Hit::id)
+                    .map(Long::valueOf)
+                    .toList();
+            long total = response.hits().total() == null ? ids.size() : response.hits().total().value();
+            return new SnippetSearchHits(ids, total);
+        } catch (IOException e) {
+            throw new UncheckedIOException("搜索失败", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try {
+            return client.count(c -> c.index(index)).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取搜索索引失败", e);
+        }
+    }
+
+    private BoolQuery.Builder filter(BoolQuery.Builder bool, SnippetSearchQuery query) {
+        SnippetSearchProperties.Ranking ranking = config.getRanking();
+        if (query.hasKeyword()) {
+            bool.must(m -> m.multiMatch(mm -> mm
+                    .query(query.keyword())
+                    .type(TextQueryType.CrossFields)
+                    .operator(Operator.And)
+                    .fields("title^" + ranking.getTitle(), "tags^" + ranking.getTags(),
+                            "language^" + ranking.getLanguage(), "description^" + ranking.getDescription())));
+        } else {
+            bool.must(m -> m.matchAll(a -> a));
+        }
+        if (query.language() != null) {
+            bool.filter(f -> f.term(t -> t.field("language.raw").value(query.language().toLowerCase(Locale.ROOT))));
+        }
+        if (query.visibility() != null) {
+            bool.filter(f -> f.term(t -> t.field("visibility").value(query.visibility().name())));
+        }
+        return bool;
+    }
+
+    private void bulk(List<BulkOperation> operations) {
+        try {
+            BulkResponse response = client.bulk(b -> b.index(index).operations(operations));
+            if (response.errors()) {
+                // 整批重试：写入按ID覆盖，重复写入没有副作用
+                throw new IllegalStateException("批量写入搜索索引部分失败: " + response.items().stream()
+                        .filter(item -> item.error() != null && item.status() != 404)
+                        .map(item -> item.id() + " " + item.error().reason())
+                        .findFirst()
+                        .orElse("未知原因"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("批量写入搜索索引失败", e);
+        }
+    }
+
+    private static Map<String, Object> toSource(SnippetDocument document) {
+        Map<String, Object> source = new HashMap<>();
+        source.put("ownerId", document.ownerId());
+        source.put("title", document.title());
+        source.put("description", document.description());
+        source.put("tags", document.tags());
+        source.put("language", document.language() == null ? null : document.language().toLowerCase(Locale.ROOT));
+        source.put("visibility", document.visibility() == null ? null : document.visibility().name());
+        source.put("updatedAt", document.updatedAt());
+        return source;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 内嵌 Lucene 搜索后端
+ *
+ * 索引放在本地目录，每批写入后提交并刷新搜索视图，写入到可搜索的延迟约为一个刷新周期。
+ * 索引只包含本节点观察到的变更，只适合单节点部署（engine=lucene 显式开启）；
+ * 多节点时各节点的索引互不同步，其他节点上的修改在本节点搜不到，请使用 elasticsearch 后端
+ *
+ * 相关度：关键词切成词项后每个词项都必须命中（可以分别落在不同字段），
+ * 单个词项取标题、标签、语言、描述中得分最高的字段（按配置加权），BM25 打分
+ */
+public class LuceneSnippetSearchEngine implements SnippetSearchEngine, Closeable {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String TAGS = "tags";
+    private static final String LANGUAGE = "language";
+    private static final String VISIBILITY = "visibility";
+    private static final String UPDATED_AT = "updated_at";
+    private static final int MAX_TERMS = 16;
+
+    private static final Sort RANKING = new Sort(SortField.FIELD_SCORE,
+            new SortField(UPDATED_AT, SortField.Type.LONG, true));
+    private static final Sort NEWEST = new Sort(new SortField(UPDATED_AT, SortField.Type.LONG, true));
+
+    private final SnippetSearchProperties config;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public LuceneSnippetSearchEngine(Path dir, SnippetSearchProperties config) {
+        this.config = config;
+        try {
+            Files.createDirectories(dir);
+            this.directory = FSDirectory.open(dir);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开搜索索引目录 " + dir, e);
+        }
+    }
+
+    @Override
+    public void index(List<SnippetDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            for (SnippetDocument document : documents) {
+                writer.updateDocument(new Term(ID, document.id().toString()), toDocument(document));
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入搜索索引失败", e);
+        }
+    }
+
+    @Override
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(ids.stream().map(id -> new Term(ID, id.toString())).toArray(Term[]::new));
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除搜索索引失败", e);
+        }
+    }
+
+    @Override
+    public SnippetSearchHits search(SnippetSearchQuery query) {
+        int window = Math.min(query.offset() + query.size(), config.getMaxResultWindow());
+        if (query.offset() >= window) {
+            return SnippetSearchHits.empty();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs top = searcher.search(toQuery(query),
+                        new TopFieldCollectorManager(query.hasKeyword() ? RANKING : NEWEST, window, null,
+                                config.getMaxResultWindow()));
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                ScoreDoc[] docs = top.scoreDocs;
+                for (int i = query.offset(); i < docs.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(docs[i].doc, Set.of(ID)).get(ID)));
+                }
+                return new SnippetSearchHits(ids, top.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("搜索失败", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取搜索索引失败", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private Document toDocument(SnippetDocument snippet) {
+        Document document = new Document();
+        document.add(new StringField(ID, snippet.id().toString(), Field.Store.YES));
+        document.add(new TextField(TITLE, nullToEmpty(snippet.title()), Field.Store.NO));
+        document.add(new TextField(DESCRIPTION, nullToEmpty(snippet.description()), Field.Store.NO));
+        document.add(new TextField(TAGS, String.join(" ", snippet.tags()), Field.Store.NO));
+        if (snippet.language() != null) {
+            document.add(new StringField(LANGUAGE, snippet.language().toLowerCase(Locale.ROOT), Field.Store.NO));
+        }
+        if (snippet.visibility() != null) {
+            document.add(new StringField(VISIBILITY, snippet.visibility().name(), Field.Store.NO));
+        }
+        document.add(new NumericDocValuesField(UPDATED_AT, snippet.updatedAt()));
+        return document;
+    }
+
+    private Query toQuery(SnippetSearchQuery query) throws IOException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        List<String> terms = query.hasKeyword() ? analyze(query.keyword()) : List.of();
+        if (terms.isEmpty()) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        SnippetSearchProperties.Ranking ranking = config.getRanking();
+        for (String term : terms) {
+            builder.add(new DisjunctionMaxQuery(List.of(
+                    new BoostQuery(new TermQuery(new Term(TITLE, term)), ranking.getTitle()),
+                    new BoostQuery(new TermQuery(new Term(TAGS, term)), ranking.getTags()),
+                    new BoostQuery(new TermQuery(new Term(LANGUAGE, term)), ranking.getLanguage()),
+                    new BoostQuery(new TermQuery(new Term(DESCRIPTION, term)), ranking.getDescription())),
+                    0.1f), BooleanClause.Occur.MUST);
+        }
+        if (query.language() != null) {
+            builder.add(new TermQuery(new Term(LANGUAGE, query.language().toLowerCase(Locale.ROOT))),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (query.visibility() != null) {
+            builder.add(new TermQuery(new Term(VISIBILITY, query.visibility().name())), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && terms.size() < MAX_TERMS) {
+                if (!terms.contains(term.toString())) {
+                    terms.add(term.toString());
+                }
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 写入搜索索引的片段字段
+ *
+ * @param updatedAt 毫秒时间戳（UTC），用于相关度相同时的排序
+ */
+public record SnippetDocument(Long id,
+                              Long ownerId,
+                              String title,
+                              String description,
+                              List<String> tags,
+                              String language,
+                              CodeSnippet.Visibility visibility,
+                              long updatedAt) {
+
+    public static SnippetDocument from(CodeSnippet snippet) {
+        return new SnippetDocument(
+                snippet.getId(),
+                snippet.getOwner() == null ? null : snippet.getOwner().getId(),
+                snippet.getTitle(),
+                snippet.getDescription(),
+                splitTags(snippet.getTags()),
+                snippet.getLanguage(),
+                snippet.getVisibility(),
+                snippet.getUpdatedAt() == null ? 0 : snippet.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static List<String> splitTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(tags.split(","))
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CodeSnippet 的 JPA 监听器：把变更的片段ID交给索引管道
+ *
+ * 由 Hibernate 通过 Spring 容器创建；没有配置搜索后端时不做任何事。
+ * 在事务中时等提交后再交给索引管道：提交前入队的话，定时刷新可能先于提交读到旧数据，
+ * 把旧状态写进索引后不会再有变更来修正；事务回滚的变更不入队
+ */
+public class SnippetIndexListener {
+
+    private final ObjectProvider<SnippetIndexer> indexer;
+
+    public SnippetIndexListener(ObjectProvider<SnippetIndexer> indexer) {
+        this.indexer = indexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(CodeSnippet snippet) {
+        SnippetIndexer target = indexer.getIfAvailable();
+        if (target == null) {
+            return;
+        }
+        Long snippetId = snippet.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            target.snippetChanged(snippetId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                target.snippetChanged(snippetId);
+            }
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 搜索索引管道
+ *
+ * 片段保存、删除的事务提交后（SnippetIndexListener）只记下片段ID，同一片段在一个周期内多次变更只索引一次；
+ * 定时刷新时按ID从数据库读出最新状态，一次批量写入搜索后端，读不到的ID从索引中删除。
+ * 写入失败时ID放回队列，下个周期重试
+ *
+ * 全量补建：没有待索引的变更时，按ID游标从数据库分批读出所有片段写入索引，
+ * 用于首次上线、更换后端或丢失变更后的修正
+ */
+@Slf4j
+public class SnippetIndexer {
+
+    private final CodeSnippetRepository snippetRepository;
+    private final SnippetSearchEngine searchEngine;
+    private final SnippetSearchProperties config;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Long backfillCursor;
+
+    public SnippetIndexer(CodeSnippetRepository snippetRepository,
+                          SnippetSearchEngine searchEngine,
+                          SnippetSearchProperties config) {
+        this.snippetRepository = snippetRepository;
+        this.searchEngine = searchEngine;
+        this.config = config;
+    }
+
+    /**
+     * 记录一个新增、修改或删除的片段
+     */
+    public void snippetChanged(Long snippetId) {
+        if (snippetId == null) {
+            return;
+        }
+        if (pending.size() >= config.getMaxPending()) {
+            log.warn("待索引片段超过 {}，丢弃片段 {} 的变更", config.getMaxPending(), snippetId);
+            return;
+        }
+        pending.add(snippetId);
+    }
+
+    /**
+     * 从头开始全量补建（在后台分批进行）
+     */
+    public void reindexAll() {
+        backfillCursor = 0L;
+    }
+
+    public boolean isBackfilling() {
+        return backfillCursor != null;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!config.isBackfillOnStartup()) {
+            return;
+        }
+        try {
+            if (searchEngine.count() == 0 && snippetRepository.count() > 0) {
+                log.info("搜索索引为空，开始全量补建");
+                reindexAll();
+            }
+        } catch (RuntimeException e) {
+            log.warn("检查搜索索引失败，跳过全量补建", e);
+        }
+    }
+
+    /**
+     * 定时把积累的变更批量写入索引；没有变更时推进全量补建
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.search.flush-interval-ms:1000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Long> batch = drain();
+            if (!batch.isEmpty()) {
+                try {
+                    apply(batch);
+                } catch (RuntimeException e) {
+                    log.error("写入 {} 个片段的搜索索引失败，稍后重试", batch.size(), e);
+                    pending.addAll(batch);
+                }
+                return;
+            }
+            Long cursor = backfillCursor;
+            if (cursor != null) {
+                backfill(cursor);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<Long> drain() {
+        List<Long> batch = new ArrayList<>();
+        Iterator<Long> iterator = pending.iterator();
+        while (iterator.hasNext() && batch.size() < config.getBatchSize()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private void backfill(Long cursor) {
+        try {
+            List<Long> ids = snippetRepository.findIdsAfter(cursor, Limit.of(config.getBatchSize()));
+            if (ids.isEmpty()) {
+                backfillCursor = null;
+                log.info("搜索索引全量补建完成");
+                return;
+            }
+            apply(ids);
+            backfillCursor = ids.get(ids.size() - 1);
+        } catch (RuntimeException e) {
+            // 游标不前进，下个周期重试同一批
+            log.error("搜索索引全量补建在ID {} 之后失败，稍后重试", cursor, e);
+        }
+    }
+
+    private void apply(List<Long> ids) {
+        List<CodeSnippet> snippets = snippetRepository.findAllById(ids);
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        List<SnippetDocument> documents = new ArrayList<>(snippets.size());
+        for (CodeSnippet snippet : snippets) {
+            missing.remove(snippet.getId());
+            documents.add(SnippetDocument.from(snippet));
+        }
+        searchEngine.index(documents);
+        searchEngine.delete(missing);
+    }
+}
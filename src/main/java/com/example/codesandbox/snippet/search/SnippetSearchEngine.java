@@ -0,0 +1,33 @@
+package com.example.codesandbox.snippet.search;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 代码片段搜索后端
+ *
+ * 只负责索引和检索片段ID，片段本身仍从数据库读取；
+ * 写入由 SnippetIndexer 批量调用，实现需要保证同一ID重复写入是覆盖（幂等）
+ */
+public interface SnippetSearchEngine {
+
+    /**
+     * 写入或覆盖一批片段
+     */
+    void index(List<SnippetDocument> documents);
+
+    /**
+     * 删除一批片段（不存在的ID忽略）
+     */
+    void delete(Collection<Long> ids);
+
+    /**
+     * 按相关度检索，相关度相同时较新的在前
+     */
+    SnippetSearchHits search(SnippetSearchQuery query);
+
+    /**
+     * 索引中的片段数
+     */
+    long count();
+}
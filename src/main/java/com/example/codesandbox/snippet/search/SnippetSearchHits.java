@@ -0,0 +1,16 @@
+package com.example.codesandbox.snippet.search;
+
+import java.util.List;
+
+/**
+ * 一页搜索结果
+ *
+ * @param ids       按相关度排好序的片段ID
+ * @param totalHits 命中总数，最多精确统计到 maxResultWindow
+ */
+public record SnippetSearchHits(List<Long> ids, long totalHits) {
+
+    public static SnippetSearchHits empty() {
+        return new SnippetSearchHits(List.of(), 0);
+    }
+}
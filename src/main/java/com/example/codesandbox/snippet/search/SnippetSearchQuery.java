@@ -0,0 +1,23 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+
+/**
+ * 搜索条件
+ *
+ * @param keyword    关键词，为空时按更新时间倒序列出
+ * @param language   只看某种语言，为 null 不过滤
+ * @param visibility 只看某种可见性，为 null 不过滤
+ * @param offset     跳过的结果数
+ * @param size       每页结果数
+ */
+public record SnippetSearchQuery(String keyword,
+                                 String language,
+                                 CodeSnippet.Visibility visibility,
+                                 int offset,
+                                 int size) {
+
+    public boolean hasKeyword() {
+        return keyword != null && !keyword.isBlank();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.storage.blob.BlobNotFoundException;
+import com.example.codesandbox.storage.blob.BlobStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * 代码版本内容读写
+ *
+ * 关键帧版本的内容存在 BlobStore 中，同一段代码在版本表和执行任务表里只存一份；
+ * 旧数据仍在 content 列中，读取时优先使用。
+ * 只能读取存有完整内容的行（最新版本、关键帧、旧数据）；
+ * 只存增量的历史版本必须通过 CodeVersionStore.content(snippet, versionNumber) 还原
+ */
+@Component
+public class CodeVersionContentStore {
+
+    private final BlobStore blobStore;
+
+    public CodeVersionContentStore(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    public void store(CodeVersion version, String content) {
+        version.setContentHash(blobStore.putText(content));
+        version.setContent(null);
+    }
+
+    /**
+     * @throws IllegalStateException 该版本只存有增量（delta_content）
+     */
+    public String content(CodeVersion version) {
+        if (version.getDeltaContent() != null) {
+            throw new IllegalStateException("版本 " + version.getVersionNumber()
+                    + " 只存有增量，需通过 CodeVersionStore.content 还原");
+        }
+        if (version.getContent() != null || version.getContentHash() == null) {
+            return version.getContent();
+        }
+        String hash = version.getContentHash();
+        return blobStore.getText(hash).orElseThrow(() -> new BlobNotFoundException(hash));
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.codesearch.CodeIndexer;
+import com.example.codesandbox.snippet.config.VersionStorageProperties;
+import com.example.codesandbox.snippet.dto.CodeVersionSummary;
+import com.example.codesandbox.snippet.dto.SnippetForkLink;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.user.entity.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 代码版本存储（关键帧 + 反向增量）
+ *
+ * - 最新版本总是在 content 列中存完整内容，读取最新版本只查一行
+ * - 保存新版本时，上一个版本改存为相对新版本的反向增量（delta_content），
+ *   或者在距离上一个关键帧已满 K 个版本、增量不划算时，把完整内容移到 BlobStore 作为关键帧
+ * - 还原版本 N：从 N 往后找到第一个存有完整内容的版本（关键帧或最新版本），
+ *   依次反向应用增量，最多 K - 1 步；还原结果按字符数做 LRU 缓存（版本内容不会再变）
+ *
+ * K 按文件大小自适应（VersionStorageProperties.keyframeInterval），限制每次还原重放的字符数。
+ * 只存 content / content_hash 的旧数据都视为完整版本，不需要迁移
+ *
+ * 复刻（写时复制）：
+ * - 复刻不复制任何版本，只记下来源片段和复刻点 F，版本 1..F 沿复刻链到来源片段（或更上层）中读取，
+ *   自己名下的版本从 F + 1 开始；复刻关系建立后不再变化，按片段ID缓存，沿链查找不访问数据库
+ * - 片段上的最新版本指针（head_version_id）使读取最新版本是一次按主键的查询，
+ *   没有自己版本的复刻直接指向来源片段的行
+ * - 被其他片段当作最新版本指向的版本被替换时存为关键帧而不是增量，复刻读取最新版本仍不需要重放增量
+ * - 删除来源片段前解除复刻（detach）：共享的版本复制到复刻名下，复刻关系清空。
+ *   其他节点缓存的复刻关系此时已过期，沿链查不到版本时清空缓存重新读取
+ */
+@Service
+public class CodeVersionStore {
+
+    private static final int MAX_FORK_LINKS = 10_000;
+
+    private final CodeVersionRepository versionRepository;
+    private final CodeSnippetRepository snippetRepository;
+    private final CodeVersionContentStore contentStore;
+    private final VersionStorageProperties config;
+    private final ObjectProvider<CodeIndexer> codeIndexer;
+
+    private final Map<VersionKey, String> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedChars;
+    private final Map<Long, SnippetForkLink> forkLinks = new ConcurrentHashMap<>();
+
+    public CodeVersionStore(CodeVersionRepository versionRepository, CodeSnippetRepository snippetRepository,
+                            CodeVersionContentStore contentStore, VersionStorageProperties config,
+                            ObjectProvider<CodeIndexer> codeIndexer) {
+        this.versionRepository = versionRepository;
+        this.snippetRepository = snippetRepository;
+        this.contentStore = contentStore;
+        this.config = config;
+        this.codeIndexer = codeIndexer;
+    }
+
+    /**
+     * 保存新版本，并把上一个版本转为增量或关键帧
+     */
+    @Transactional
+    public CodeVersion append(CodeSnippet snippet, User author, String content, String commitMessage) {
+        // 只处理自己名下的版本，来源片段的版本是共享的，不能改动
+        Optional<CodeVersion> head = versionRepository.findLatestVersion(snippet);
+        head.ifPresent(previous -> demote(snippet, previous, content));
+
+        CodeVersion version = new CodeVersion();
+        version.setSnippet(snippet);
+        version.setAuthor(author);
+        version.setVersionNumber(head.map(previous -> previous.getVersionNumber() + 1).orElse(forkPoint(snippet) + 1));
+        version.setContent(content);
+        version.setCommitMessage(commitMessage);
+        CodeVersion saved = versionRepository.save(version);
+        pointHead(snippet, new Head(saved.getId(), saved.getVersionNumber()));
+        indexAfterCommit(snippet.getId(), content);
+        return saved;
+    }
+
+    /**
+     * 索引更新会替换片段原有的三元组，必须等提交后再做：
+     * 事务回滚时提前写入的未提交内容会顶掉仍然有效的旧内容，搜索真实代码时漏掉这个片段
+     */
+    private void indexAfterCommit(Long snippetId, String content) {
+        CodeIndexer indexer = codeIndexer.getIfAvailable();
+        if (indexer == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            indexer.versionSaved(snippetId, content);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexer.versionSaved(snippetId, content);
+            }
+        });
+    }
+
+    /**
+     * 解除复刻：把与来源共享的版本 1..F 复制到复刻名下，清除复刻关系，之后来源片段可以删除
+     *
+     * 增量原样复制（内容相同，相对的下一个版本也相同）；每一级复刻点上的版本改存完整内容，
+     * 那一行的增量相对的是所在片段自己的下一个版本，与复刻的下一个版本不一定相同。
+     * 指向被复制行的最新版本指针（这个复刻和它的下游复刻）改指向副本
+     */
+    @Transactional
+    public void detach(CodeSnippet fork) {
+        if (fork.getForkedFrom() == null) {
+            return;
+        }
+        boolean hasOwnVersions = versionRepository.findLatestVersion(fork).isPresent();
+        int forkPoint = forkPoint(fork);
+        Map<Long, CodeVersion> sharedById = new LinkedHashMap<>();
+        Map<Long, CodeVersion> copyBySharedId = new HashMap<>();
+        Long owner = fork.getForkedFrom().getId();
+        int bound = forkPoint;
+        while (owner != null && bound > 0) {
+            for (CodeVersion shared : versionRepository
+                    .findBySnippetIdAndVersionNumberLessThanEqualOrderByVersionNumberAsc(owner, bound)) {
+                int number = shared.getVersionNumber();
+                String full = number == bound && shared.getDeltaContent() != null
+                        ? content(fork, number).orElseThrow()
+                        : null;
+                sharedById.put(shared.getId(), shared);
+                copyBySharedId.put(shared.getId(),
+                        versionRepository.save(copyOf(fork, shared, full, !hasOwnVersions && number == forkPoint)));
+            }
+            SnippetForkLink link = forkLink(owner);
+            if (link == null || link.forkedFromId() == null) {
+                break;
+            }
+            owner = link.forkedFromId();
+            bound = Math.min(bound, link.forkVersionNumber());
+        }
+
+        if (!sharedById.isEmpty()) {
+            for (Long pinned : snippetRepository.findPinnedHeadVersionIds(sharedById.keySet())) {
+                snippetRepository.repointHead(pinned, copyBySharedId.get(pinned).getId(),
+                        sharedById.get(pinned).getSnippet().getId());
+            }
+        }
+        snippetRepository.clearForkLink(fork.getId());
+        fork.setForkedFrom(null);
+        fork.setForkVersionNumber(null);
+        forkLinks.remove(fork.getId());
+
+        if (!hasOwnVersions) {
+            versionRepository.findLatestVersion(fork).ifPresent(head -> {
+                pointHead(fork, new Head(head.getId(), head.getVersionNumber()));
+                // 没有自己版本的复刻没有进代码索引（内容就是来源片段的），来源删除后要补上
+                indexAfterCommit(fork.getId(), contentStore.content(head));
+            });
+        }
+    }
+
+    private CodeVersion copyOf(CodeSnippet fork, CodeVersion shared, String full, boolean latest) {
+        CodeVersion copy = new CodeVersion();
+        copy.setSnippet(fork);
+        copy.setAuthor(shared.getAuthor());
+        copy.setVersionNumber(shared.getVersionNumber());
+        copy.setCommitMessage(shared.getCommitMessage());
+        copy.setCreatedAt(shared.getCreatedAt());
+        if (full == null) {
+            copy.setContent(shared.getContent());
+            copy.setContentHash(shared.getContentHash());
+            copy.setDeltaContent(shared.getDeltaContent());
+        } else if (latest) {
+            copy.setContent(full);
+        } else {
+            contentStore.store(copy, full);
+        }
+        return copy;
+    }
+
+    /**
+     * 最新版本的内容（按最新版本指针的一次主键查询）
+     */
+    public Optional<String> latestContent(CodeSnippet snippet) {
+        if (snippet.getHeadVersionId() == null) {
+            // 还没有指针的旧数据
+            return versionRepository.findLatestVersion(snippet).map(contentStore::content);
+        }
+        return versionRepository.findWithContentById(snippet.getHeadVersionId())
+                .flatMap(head -> head.getDeltaContent() == null
+                        ? Optional.ofNullable(contentStore.content(head))
+                        // 复刻时来源片段恰好在保存新版本，指向的行已转为增量
+                        : content(snippet, head.getVersionNumber()));
+    }
+
+    /**
+     * 最新版本的位置，可能在复刻来源片段名下
+     */
+    public Optional<Head> head(CodeSnippet snippet) {
+        if (snippet.getHeadVersionId() != null) {
+            return Optional.of(new Head(snippet.getHeadVersionId(), snippet.getHeadVersionNumber()));
+        }
+        return versionRepository.findLatestVersion(snippet)
+                .map(version -> new Head(version.getId(), version.getVersionNumber()));
+    }
+
+    /**
+     * 版本历史摘要（按版本号倒序），复刻包含来源片段在复刻点之前的版本
+     */
+    public List<CodeVersionSummary> history(CodeSnippet snippet) {
+        List<CodeVersionSummary> own = versionRepository.findSummariesBySnippet(snippet);
+        if (snippet.getForkedFrom() == null) {
+            return own;
+        }
+        List<CodeVersionSummary> history = withShared(snippet, own);
+        if (history.size() < forkPoint(snippet) + own.size()) {
+            // 链上的片段已被解除复刻，缓存的复刻关系过期
+            forkLinks.clear();
+            history = withShared(snippet, own);
+        }
+        return history;
+    }
+
+    private List<CodeVersionSummary> withShared(CodeSnippet snippet, List<CodeVersionSummary> own) {
+        List<CodeVersionSummary> history = new ArrayList<>(own);
+        Long owner = snippet.getForkedFrom().getId();
+        int bound = forkPoint(snippet);
+        while (owner != null && bound > 0) {
+            history.addAll(versionRepository.findSummariesBySnippetIdUpTo(owner, bound));
+            SnippetForkLink link = forkLink(owner);
+            if (link == null || link.forkedFromId() == null) {
+                break;
+            }
+            owner = link.forkedFromId();
+            bound = Math.min(bound, link.forkVersionNumber());
+        }
+        return history;
+    }
+
+    /**
+     * 更新最新版本指针；复刻创建时指向来源片段的最新版本
+     */
+    void pointHead(CodeSnippet snippet, Head head) {
+        snippetRepository.updateHead(snippet.getId(), head.versionId(), head.versionNumber());
+        snippet.setHeadVersionId(head.versionId());
+        snippet.setHeadVersionNumber(head.versionNumber());
+    }
+
+    /**
+     * 某个版本的内容
+     *
+     * @throws IllegalStateException 增量链比 maxKeyframeInterval 还长（数据损坏或调小了配置）
+     */
+    public Optional<String> content(CodeSnippet snippet, int versionNumber) {
+        Long owner = ownerOf(snippet, versionNumber);
+        Optional<String> content = content(owner, versionNumber);
+        if (content.isEmpty() && !owner.equals(snippet.getId())) {
+            // 链上的片段可能已被其他节点解除复刻（来源随后被删除），缓存的复刻关系过期
+            forkLinks.clear();
+            content = content(ownerOf(snippet, versionNumber), versionNumber);
+        }
+        return content;
+    }
+
+    private Optional<String> content(Long owner, int versionNumber) {
+        // 共享的版本按来源片段缓存，同一来源的复刻共用缓存
+        VersionKey key = new VersionKey(owner, versionNumber);
+        String cached = cached(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        List<CodeVersion> chain = versionRepository.findBySnippetIdAndVersionNumberGreaterThanEqualOrderByVersionNumberAsc(
+                owner, versionNumber, Limit.of(config.getMaxKeyframeInterval() + 1));
+        if (chain.isEmpty() || chain.get(0).getVersionNumber() != versionNumber) {
+            return Optional.empty();
+        }
+        return Optional.of(reconstruct(owner, chain));
+    }
+
+    /**
+     * 版本所在的片段：沿复刻链往上，直到版本号超过某一级的复刻点
+     * 复刻来源总是更早创建的片段，链上不会有环
+     */
+    private Long ownerOf(CodeSnippet snippet, int versionNumber) {
+        if (snippet.getForkedFrom() == null || versionNumber > forkPoint(snippet)) {
+            return snippet.getId();
+        }
+        Long owner = snippet.getForkedFrom().getId();
+        SnippetForkLink link = forkLink(owner);
+        while (link != null && link.forkedFromId() != null && versionNumber <= link.forkVersionNumber()) {
+            owner = link.forkedFromId();
+            link = forkLink(owner);
+        }
+        return owner;
+    }
+
+    private SnippetForkLink forkLink(Long snippetId) {
+        SnippetForkLink link = forkLinks.get(snippetId);
+        if (link != null) {
+            return link;
+        }
+        link = snippetRepository.findForkLink(snippetId).orElse(null);
+        if (link != null) {
+            if (forkLinks.size() >= MAX_FORK_LINKS) {
+                forkLinks.clear();
+            }
+            forkLinks.put(snippetId, link);
+        }
+        return link;
+    }
+
+    private static int forkPoint(CodeSnippet snippet) {
+        return snippet.getForkVersionNumber() == null ? 0 : snippet.getForkVersionNumber();
+    }
+
+    private String reconstruct(Long snippetId, List<CodeVersion> chain) {
+        String text = null;
+        int anchor = 0;
+        for (; anchor < chain.size(); anchor++) {
+            CodeVersion version = chain.get(anchor);
+            text = cached(new VersionKey(snippetId, version.getVersionNumber()));
+            if (text == null && version.getDeltaContent() == null) {
+                text = contentStore.content(version);
+            }
+            if (text != null) {
+                break;
+            }
+        }
+        if (text == null) {
+            throw new IllegalStateException("版本 " + chain.get(0).getVersionNumber() + " 的增量链过长");
+        }
+        for (int i = anchor - 1; i >= 0; i--) {
+            CodeVersion version = chain.get(i);
+            text = LineDelta.apply(text, version.getDeltaContent());
+            cache(new VersionKey(snippetId, version.getVersionNumber()), text);
+        }
+        return text;
+    }
+
+    private void demote(CodeSnippet snippet, CodeVersion head, String next) {
+        // 已经是关键帧（只有 content_hash）或已经是增量的版本不用处理
+        if (head.getContent() == null || head.getDeltaContent() != null) {
+            return;
+        }
+        String text = head.getContent();
+        Integer lastFull = versionRepository.findLastFullVersionBefore(snippet, head.getVersionNumber());
+        // 复刻自己的增量链从复刻点之后开始
+        int distance = head.getVersionNumber() - Math.max(lastFull == null ? 0 : lastFull, forkPoint(snippet));
+        String delta = LineDelta.encode(next, text);
+        if (snippetRepository.existsByHeadVersionIdAndIdNot(head.getId(), snippet.getId())
+                || distance >= config.keyframeInterval(text.length())
+                || delta.length() > text.length() * config.getMaxDeltaRatio()) {
+            contentStore.store(head, text);
+        } else {
+            head.setDeltaContent(delta);
+            head.setContent(null);
+        }
+        versionRepository.save(head);
+        // 刚被替换的版本最可能马上被查看（对比、撤销）
+        cache(new VersionKey(snippet.getId(), head.getVersionNumber()), text);
+    }
+
+    private synchronized String cached(VersionKey key) {
+        return cache.get(key);
+    }
+
+    private synchronized void cache(VersionKey key, String text) {
+        if (text.length() > config.getCacheMaxChars()) {
+            return;
+        }
+        String previous = cache.put(key, text);
+        cachedChars += text.length() - (previous == null ? 0 : previous.length());
+        Iterator<String> eldest = cache.values().iterator();
+        while (cachedChars > config.getCacheMaxChars() && eldest.hasNext()) {
+            cachedChars -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * 最新版本所在的行和版本号
+     */
+    public record Head(Long versionId, int versionNumber) {
+    }
+
+    private record VersionKey(Long snippetId, int versionNumber) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.codesandbox.snippet.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按行的增量编码（copy / insert）
+ *
+ * 把 target 表示成对 base 的若干操作：
+ * - c起始行,行数：从 base 复制连续的行
+ * - i字符数：后面紧跟这么多字符的原文
+ * 行包含换行符，最后一行可以没有换行符，所以还原结果与原文逐字符一致。
+ *
+ * 对 target 的每一行，在 base 中找相同的行并向后尽量延长，取最长的一段复制；
+ * 相同内容的行（空行、单独的括号）只看前 MAX_CANDIDATES 个位置，避免退化成平方复杂度
+ */
+public final class LineDelta {
+
+    private static final String HEADER = "d1\n";
+    private static final int MAX_CANDIDATES = 16;
+
+    private LineDelta() {
+    }
+
+    public static String encode(String base, String target) {
+        List<String> baseLines = lines(base);
+        List<String> targetLines = lines(target);
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < baseLines.size(); i++) {
+            List<Integer> list = positions.computeIfAbsent(baseLines.get(i), line -> new ArrayList<>());
+            if (list.size() < MAX_CANDIDATES) {
+                list.add(i);
+            }
+        }
+
+        StringBuilder delta = new StringBuilder(HEADER);
+        StringBuilder pending = new StringBuilder();
+        int j = 0;
+        while (j < targetLines.size()) {
+            int bestStart = -1;
+            int bestLength = 0;
+            for (int start : positions.getOrDefault(targetLines.get(j), List.of())) {
+                int length = 0;
+                while (start + length < baseLines.size() && j + length < targetLines.size()
+                        && baseLines.get(start + length).equals(targetLines.get(j + length))) {
+                    length++;
+                }
+                if (length > bestLength) {
+                    bestStart = start;
+                    bestLength = length;
+                }
+            }
+            if (bestLength == 0) {
+                pending.append(targetLines.get(j));
+                j++;
+                continue;
+            }
+            flushInsert(delta, pending);
+            delta.append('c').append(bestStart).append(',').append(bestLength).append('\n');
+            j += bestLength;
+        }
+        flushInsert(delta, pending);
+        return delta.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException 增量格式不正确或与 base 不匹配
+     */
+    public static String apply(String base, String delta) {
+        if (!delta.startsWith(HEADER)) {
+            throw new IllegalArgumentException("无法识别的增量格式");
+        }
+        List<String> baseLines = lines(base);
+        StringBuilder result = new StringBuilder(base.length());
+        int pos = HEADER.length();
+        while (pos < delta.length()) {
+            char op = delta.charAt(pos);
+            int end = delta.indexOf('\n', pos);
+            if (end < 0) {
+                throw new IllegalArgumentException("增量被截断");
+            }
+            String args = delta.substring(pos + 1, end);
+            pos = end + 1;
+            if (op == 'c') {
+                int comma = args.indexOf(',');
+                int start = Integer.parseInt(args.substring(0, comma));
+                int count = Integer.parseInt(args.substring(comma + 1));
+                if (start < 0 || start + count > baseLines.size()) {
+                    throw new IllegalArgumentException("复制范围超出原文: " + args);
+                }
+                for (int i = start; i < start + count; i++) {
+                    result.append(baseLines.get(i));
+                }
+            } else if (op == 'i') {
+                int length = Integer.parseInt(args);
+                if (pos + length > delta.length()) {
+                    throw new IllegalArgumentException("增量被截断");
+                }
+                result.append(delta, pos, pos + length);
+                pos += length;
+            } else {
+                throw new IllegalArgumentException("未知的增量操作: " + op);
+            }
+        }
+        return result.toString();
+    }
+
+    private static void flushInsert(StringBuilder delta, StringBuilder pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        delta.append('i').append(pending.length()).append('\n').append(pending);
+        pending.setLength(0);
+    }
+
+    /**
+     * 拆成行，每行保留自己的换行符
+     */
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            end = end < 0 ? text.length() : end + 1;
+            lines.add(text.substring(start, end));
+            start = end;
+        }
+        return lines;
+    }
+}
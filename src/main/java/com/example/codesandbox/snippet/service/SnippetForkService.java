@@ -0,0 +1,74 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.counter.SnippetCounters;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.user.entity.User;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 复刻片段（写时复制）
+ *
+ * 复刻只插入一行片段记录，不复制任何版本：与来源片段共享到来源当前最新版本为止的历史，
+ * 最新版本指针直接指向来源片段的行，耗时和占用空间与历史长度无关。
+ * 之后在复刻上保存的版本才存在复刻自己名下（见 CodeVersionStore）
+ *
+ * forked_from_id 外键是 RESTRICT，被复刻过的片段（以及级联删除这些片段的用户）删除前要先解除复刻，
+ * 把共享的版本复制到各个复刻名下；复刻因此保留完整的历史，不会随来源一起消失
+ */
+@Service
+public class SnippetForkService {
+
+    private final CodeSnippetRepository snippetRepository;
+    private final CodeVersionStore versionStore;
+    private final SnippetCounters counters;
+
+    public SnippetForkService(CodeSnippetRepository snippetRepository,
+                              CodeVersionStore versionStore,
+                              SnippetCounters counters) {
+        this.snippetRepository = snippetRepository;
+        this.versionStore = versionStore;
+        this.counters = counters;
+    }
+
+    /**
+     * 复刻的片段默认私有，标题、描述、语言和标签取自来源片段
+     */
+    @Transactional
+    public CodeSnippet fork(CodeSnippet source, User owner) {
+        Optional<CodeVersionStore.Head> head = versionStore.head(source);
+
+        CodeSnippet fork = new CodeSnippet();
+        fork.setOwner(owner);
+        fork.setTitle(source.getTitle());
+        fork.setDescription(source.getDescription());
+        fork.setLanguage(source.getLanguage());
+        fork.setTags(source.getTags());
+        fork.setForkedFrom(source);
+        fork.setForkVersionNumber(head.map(CodeVersionStore.Head::versionNumber).orElse(0));
+        CodeSnippet saved = snippetRepository.save(fork);
+        head.ifPresent(it -> versionStore.pointHead(saved, it));
+
+        counters.recordFork(source);
+        return saved;
+    }
+
+    /**
+     * 删除片段前调用：解除它的所有直接复刻（复刻的复刻改为从直接复刻读取共享的版本）
+     */
+    @Transactional
+    public void detachForks(CodeSnippet source) {
+        snippetRepository.findByForkedFrom(source).forEach(versionStore::detach);
+    }
+
+    /**
+     * 删除用户前调用：该用户名下被复刻过的片段都先解除复刻，包括被该用户自己复刻的
+     */
+    @Transactional
+    public void detachForks(User owner) {
+        snippetRepository.findByForkedFromOwnerOrderByIdAsc(owner).forEach(versionStore::detach);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.counter.SnippetCounters;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.search.SnippetSearchEngine;
+import com.example.codesandbox.snippet.search.SnippetSearchHits;
+import com.example.codesandbox.snippet.search.SnippetSearchQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 公开代码片段搜索
+ *
+ * 搜索后端只返回按相关度排好序的ID，片段按ID从数据库批量读取（一次 IN 查询）后按原顺序返回；
+ * 索引稍有滞后时，已删除或不再公开的片段会被过滤掉。
+ * 没有配置搜索后端或后端出错时降级到 MySQL 全文索引。
+ * 返回的浏览数、复刻数包含尚未写入数据库的增量
+ */
+@Slf4j
+@Service
+public class SnippetSearchService {
+
+    private final CodeSnippetRepository snippetRepository;
+    private final ObjectProvider<SnippetSearchEngine> searchEngine;
+    private final SnippetCounters counters;
+
+    public SnippetSearchService(CodeSnippetRepository snippetRepository,
+                                ObjectProvider<SnippetSearchEngine> searchEngine,
+                                SnippetCounters counters) {
+        this.snippetRepository = snippetRepository;
+        this.searchEngine = searchEngine;
+        this.counters = counters;
+    }
+
+    /**
+     * @param keyword  关键词，为空时按更新时间倒序列出
+     * @param language 只看某种语言，为 null 不过滤
+     */
+    public Page<CodeSnippetResponse> search(String keyword, String language, Pageable pageable) {
+        Page<CodeSnippetResponse> page = find(keyword, language, pageable);
+        counters.withPending(page.getContent());
+        return page;
+    }
+
+    private Page<CodeSnippetResponse> find(String keyword, String language, Pageable pageable) {
+        SnippetSearchEngine engine = searchEngine.getIfAvailable();
+        if (engine != null) {
+            try {
+                SnippetSearchHits hits = engine.search(new SnippetSearchQuery(keyword, language,
+                        CodeSnippet.Visibility.PUBLIC, (int) pageable.getOffset(), pageable.getPageSize()));
+                return new PageImpl<>(load(hits.ids()), pageable, hits.totalHits());
+            } catch (RuntimeException e) {
+                log.warn("搜索后端不可用，降级到数据库全文搜索", e);
+            }
+        }
+        if (keyword == null || keyword.isBlank()) {
+            return snippetRepository.findByVisibility(CodeSnippet.Visibility.PUBLIC, pageable)
+                    .map(CodeSnippetResponse::from);
+        }
+        return snippetRepository.searchPublicByFullText(keyword, language, pageable).map(CodeSnippetResponse::from);
+    }
+
+    private List<CodeSnippetResponse> load(List<Long> ids) {
+        Map<Long, CodeSnippet> snippets = snippetRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CodeSnippet::getId, Function.identity()));
+        return ids.stream()
+                .map(snippets::get)
+                .filter(Objects::nonNull)
+                .filter(snippet -> snippet.getVisibility() == CodeSnippet.Visibility.PUBLIC)
+                .map(CodeSnippetResponse::from)
+                .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.config.SnippetTagProperties;
+import com.example.codesandbox.snippet.counter.SnippetCounters;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.dto.TagBrowseResult;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.tag.TagIndex;
+import com.example.codesandbox.snippet.tag.TagQuery;
+import com.example.codesandbox.snippet.tag.TagSearchResult;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 按标签浏览片段
+ *
+ * 过滤和分面计数都在内存标签索引（TagIndex）中完成，只有当前页的片段按ID从数据库批量读取；
+ * 索引稍有滞后时，已删除的片段会被过滤掉。
+ * 返回的浏览数、复刻数包含尚未写入数据库的增量
+ */
+@Service
+public class TagBrowseService {
+
+    private final TagIndex tagIndex;
+    private final CodeSnippetRepository snippetRepository;
+    private final SnippetCounters counters;
+    private final SnippetTagProperties config;
+
+    public TagBrowseService(TagIndex tagIndex,
+                            CodeSnippetRepository snippetRepository,
+                            SnippetCounters counters,
+                            SnippetTagProperties config) {
+        this.tagIndex = tagIndex;
+        this.snippetRepository = snippetRepository;
+        this.counters = counters;
+        this.config = config;
+    }
+
+    /**
+     * @param facetLimit 返回的分面数，0 表示不需要分面
+     */
+    public TagBrowseResult browse(TagQuery query, Pageable pageable, int facetLimit) {
+        Pageable page = pageable.getPageSize() > config.getMaxPageSize()
+                ? PageRequest.of(pageable.getPageNumber(), config.getMaxPageSize())
+                : pageable;
+        TagSearchResult result = tagIndex.search(query, (int) page.getOffset(), page.getPageSize(), facetLimit);
+        List<CodeSnippetResponse> snippets = counters.withPending(load(result.snippetIds()));
+        return new TagBrowseResult(new PageImpl<>(snippets, page, result.total()), result.facets());
+    }
+
+    private List<CodeSnippetResponse> load(List<Long> ids) {
+        Map<Long, CodeSnippet> snippets = snippetRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CodeSnippet::getId, Function.identity()));
+        return ids.stream()
+                .map(snippets::get)
+                .filter(Objects::nonNull)
+                .map(CodeSnippetResponse::from)
+                .toList();
+    }
+}
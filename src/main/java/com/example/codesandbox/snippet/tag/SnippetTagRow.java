@@ -0,0 +1,9 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+
+/**
+ * 标签索引需要的片段列（不加载描述等大字段）
+ */
+public record SnippetTagRow(Long id, String language, CodeSnippet.Visibility visibility, String tags) {
+}
@@ -0,0 +1,346 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.config.SnippetTagProperties;
+import com.example.codesandbox.snippet.dto.TagFacet;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 标签倒排索引（内存）
+ *
+ * 标签、语言、可见性各自映射到片段ID的压缩位图（RoaringBitmap），
+ * 浏览时按基数从小到大依次求交（OR 条件先合并成一个位图），一页结果用 select 从高位取，新建的片段在前。
+ * 位图使用 int 下标：片段ID超过 Integer.MAX_VALUE 时不进索引（记警告日志），到那时需要换成 64 位位图
+ *
+ * 分面计数：
+ * - 公开片段（全部语言和每种语言）的标签计数在更新时增量维护，排好序的前若干名缓存 facetCacheTtl，
+ *   不带标签条件的浏览页直接读缓存
+ * - 带标签条件时，结果不超过 facetScanLimit 个就逐个累加这些片段的标签；
+ *   更多时只对同一范围内计数最高的 facetCandidates 个标签求交集基数（近似：冷门标签可能漏掉）
+ *
+ * 读多写少，用读写锁保护；数据来源是数据库，见 TagIndexer
+ */
+@Slf4j
+public class TagIndex {
+
+    private static final String ALL_LANGUAGES = "*";
+    private static final int DOC_PAGE_BITS = 12;
+    private static final int DOC_PAGE_SIZE = 1 << DOC_PAGE_BITS;
+    private static final Comparator<TagFacet> FACET_ORDER = Comparator.comparingLong(TagFacet::count).reversed()
+            .thenComparing(TagFacet::tag);
+
+    private final SnippetTagProperties config;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap indexed = new RoaringBitmap();
+    private final Map<String, Integer> tagIds = new HashMap<>();
+    private final List<String> tagNames = new ArrayList<>();
+    private final List<RoaringBitmap> postings = new ArrayList<>();
+    private final Map<String, RoaringBitmap> languages = new HashMap<>();
+    private final Map<CodeSnippet.Visibility, RoaringBitmap> visibilities = new EnumMap<>(CodeSnippet.Visibility.class);
+
+    /**
+     * 片段ID → 标签ID，按 4096 个ID一页分配（ID 连续增长，稀疏时也不会整段占用内存）
+     */
+    private final Map<Integer, int[][]> docTags = new HashMap<>();
+
+    /**
+     * 公开片段的标签计数：范围（语言，全部语言为 *）→ 按标签ID下标的计数
+     */
+    private final Map<String, int[]> publicCounts = new HashMap<>();
+    private final Map<String, CachedFacets> facetCache = new ConcurrentHashMap<>();
+
+    public TagIndex(SnippetTagProperties config) {
+        this.config = config;
+        for (CodeSnippet.Visibility visibility : CodeSnippet.Visibility.values()) {
+            visibilities.put(visibility, new RoaringBitmap());
+        }
+    }
+
+    /**
+     * 写入片段的最新状态（覆盖旧状态）
+     */
+    public void update(SnippetTagRow row) {
+        if (row.id() > Integer.MAX_VALUE) {
+            log.warn("片段ID {} 超出标签索引的范围，跳过", row.id());
+            return;
+        }
+        int id = row.id().intValue();
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long snippetId) {
+        if (snippetId > Integer.MAX_VALUE) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked((int) snippetId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询一页片段和分面
+     *
+     * @param facetLimit 返回的分面数，不超过 maxFacets
+     */
+    public TagSearchResult search(TagQuery query, int offset, int size, int facetLimit) {
+        int limit = Math.min(facetLimit, config.getMaxFacets());
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matched = match(query);
+            int total = matched.getCardinality();
+            List<Long> ids = new ArrayList<>(Math.max(0, Math.min(size, total - offset)));
+            for (int i = offset; i < total && i < offset + size; i++) {
+                ids.add((long) matched.select(total - 1 - i));
+            }
+            String scope = query.language() == null ? ALL_LANGUAGES : query.language();
+            List<TagFacet> facets = query.isPublicScope()
+                    ? cachedFacets(scope, limit)
+                    : facetsOf(matched, scope, limit);
+            return new TagSearchResult(ids, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(int id, SnippetTagRow row) {
+        indexed.add(id);
+        if (row.language() != null) {
+            languages.computeIfAbsent(row.language(), language -> new RoaringBitmap()).add(id);
+        }
+        if (row.visibility() != null) {
+            visibilities.get(row.visibility()).add(id);
+        }
+        List<String> tags = Tags.normalize(row.tags());
+        if (tags.isEmpty()) {
+            return;
+        }
+        int[] ids = new int[tags.size()];
+        boolean isPublic = row.visibility() == CodeSnippet.Visibility.PUBLIC;
+        for (int i = 0; i < ids.length; i++) {
+            int tagId = tagIdOf(tags.get(i));
+            ids[i] = tagId;
+            postings.get(tagId).add(id);
+            if (isPublic) {
+                addCount(ALL_LANGUAGES, tagId, 1);
+                if (row.language() != null) {
+                    addCount(row.language(), tagId, 1);
+                }
+            }
+        }
+        docTagsPage(id, true)[id & (DOC_PAGE_SIZE - 1)] = ids;
+    }
+
+    private void removeLocked(int id) {
+        if (!indexed.checkedRemove(id)) {
+            return;
+        }
+        String language = null;
+        for (Map.Entry<String, RoaringBitmap> entry : languages.entrySet()) {
+            if (entry.getValue().checkedRemove(id)) {
+                language = entry.getKey();
+                break;
+            }
+        }
+        boolean wasPublic = visibilities.get(CodeSnippet.Visibility.PUBLIC).contains(id);
+        for (RoaringBitmap bitmap : visibilities.values()) {
+            bitmap.remove(id);
+        }
+        int[][] page = docTagsPage(id, false);
+        int[] ids = page == null ? null : page[id & (DOC_PAGE_SIZE - 1)];
+        if (ids == null) {
+            return;
+        }
+        page[id & (DOC_PAGE_SIZE - 1)] = null;
+        for (int tagId : ids) {
+            postings.get(tagId).remove(id);
+            if (wasPublic) {
+                addCount(ALL_LANGUAGES, tagId, -1);
+                if (language != null) {
+                    addCount(language, tagId, -1);
+                }
+            }
+        }
+    }
+
+    private RoaringBitmap match(TagQuery query) {
+        List<RoaringBitmap> required = new ArrayList<>();
+        for (String tag : query.allOf()) {
+            Integer tagId = tagIds.get(tag);
+            if (tagId == null) {
+                return new RoaringBitmap();
+            }
+            required.add(postings.get(tagId));
+        }
+        if (!query.anyOf().isEmpty()) {
+            List<RoaringBitmap> any = new ArrayList<>();
+            for (String tag : query.anyOf()) {
+                Integer tagId = tagIds.get(tag);
+                if (tagId != null) {
+                    any.add(postings.get(tagId));
+                }
+            }
+            if (any.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            required.add(FastAggregation.or(any.iterator()));
+        }
+        if (query.language() != null) {
+            RoaringBitmap language = languages.get(query.language());
+            if (language == null) {
+                return new RoaringBitmap();
+            }
+            required.add(language);
+        }
+        if (query.visibility() != null) {
+            required.add(visibilities.get(query.visibility()));
+        }
+        if (required.isEmpty()) {
+            return indexed.clone();
+        }
+        required.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = required.get(0).clone();
+        for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+            result.and(required.get(i));
+        }
+        return result;
+    }
+
+    private List<TagFacet> cachedFacets(String scope, int limit) {
+        long now = System.currentTimeMillis();
+        CachedFacets cached = facetCache.get(scope);
+        if (cached == null || now - cached.computedAt() >= config.getFacetCacheTtl().toMillis()) {
+            int[] counts = publicCounts.get(scope);
+            List<TagFacet> facets = counts == null
+                    ? List.of()
+                    : topFacets(counts.length, tagId -> counts[tagId], config.getMaxFacets());
+            cached = new CachedFacets(now, facets);
+            facetCache.put(scope, cached);
+        }
+        return cached.facets().subList(0, Math.min(limit, cached.facets().size()));
+    }
+
+    private List<TagFacet> facetsOf(RoaringBitmap matched, String scope, int limit) {
+        if (matched.getCardinality() <= config.getFacetScanLimit()) {
+            int[] counts = new int[tagNames.size()];
+            IntIterator iterator = matched.getIntIterator();
+            while (iterator.hasNext()) {
+                int id = iterator.next();
+                int[][] page = docTagsPage(id, false);
+                int[] ids = page == null ? null : page[id & (DOC_PAGE_SIZE - 1)];
+                if (ids != null) {
+                    for (int tagId : ids) {
+                        counts[tagId]++;
+                    }
+                }
+            }
+            return topFacets(counts.length, tagId -> counts[tagId], limit);
+        }
+        int[] scopeCounts = publicCounts.getOrDefault(scope, publicCounts.get(ALL_LANGUAGES));
+        if (scopeCounts == null) {
+            return List.of();
+        }
+        List<TagFacet> candidates = topFacets(scopeCounts.length, tagId -> scopeCounts[tagId],
+                config.getFacetCandidates());
+        List<TagFacet> facets = new ArrayList<>(candidates.size());
+        for (TagFacet candidate : candidates) {
+            long count = RoaringBitmap.andCardinality(postings.get(tagIds.get(candidate.tag())), matched);
+            if (count > 0) {
+                facets.add(new TagFacet(candidate.tag(), count));
+            }
+        }
+        facets.sort(FACET_ORDER);
+        return facets.subList(0, Math.min(limit, facets.size()));
+    }
+
+    /**
+     * 计数最高的 limit 个标签（跳过计数为 0 的）
+     */
+    private List<TagFacet> topFacets(int tagCount, IntUnaryOperator countOf, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<TagFacet> top = new PriorityQueue<>(limit + 1, FACET_ORDER.reversed());
+        for (int tagId = 0; tagId < tagCount; tagId++) {
+            int count = countOf.applyAsInt(tagId);
+            if (count <= 0) {
+                continue;
+            }
+            if (top.size() < limit || count > top.peek().count()) {
+                top.add(new TagFacet(tagNames.get(tagId), count));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<TagFacet> facets = new ArrayList<>(top);
+        facets.sort(FACET_ORDER);
+        return facets;
+    }
+
+    private int tagIdOf(String tag) {
+        Integer tagId = tagIds.get(tag);
+        if (tagId == null) {
+            tagId = tagNames.size();
+            tagIds.put(tag, tagId);
+            tagNames.add(tag);
+            postings.add(new RoaringBitmap());
+        }
+        return tagId;
+    }
+
+    private void addCount(String scope, int tagId, int delta) {
+        int[] counts = publicCounts.get(scope);
+        if (counts == null || counts.length <= tagId) {
+            int[] grown = new int[Math.max(tagId + 1, counts == null ? 16 : counts.length * 2)];
+            if (counts != null) {
+                System.arraycopy(counts, 0, grown, 0, counts.length);
+            }
+            counts = grown;
+            publicCounts.put(scope, counts);
+        }
+        counts[tagId] += delta;
+    }
+
+    private int[][] docTagsPage(int id, boolean create) {
+        int pageNumber = id >>> DOC_PAGE_BITS;
+        return create
+                ? docTags.computeIfAbsent(pageNumber, number -> new int[DOC_PAGE_SIZE][])
+                : docTags.get(pageNumber);
+    }
+
+    private record CachedFacets(long computedAt, List<TagFacet> facets) {
+    }
+}
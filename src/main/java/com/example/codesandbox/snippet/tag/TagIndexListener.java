@@ -0,0 +1,44 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CodeSnippet 的 JPA 监听器：把变更的片段ID交给标签索引同步管道
+ *
+ * 在事务中时等提交后再入队，否则定时刷新可能先于提交读到旧数据（见 SnippetIndexListener）
+ */
+public class TagIndexListener {
+
+    private final ObjectProvider<TagIndexer> indexer;
+
+    public TagIndexListener(ObjectProvider<TagIndexer> indexer) {
+        this.indexer = indexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(CodeSnippet snippet) {
+        TagIndexer target = indexer.getIfAvailable();
+        if (target == null) {
+            return;
+        }
+        Long snippetId = snippet.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            target.snippetChanged(snippetId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                target.snippetChanged(snippetId);
+            }
+        });
+    }
+}
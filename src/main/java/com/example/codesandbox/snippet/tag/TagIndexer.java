@@ -0,0 +1,192 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.config.SnippetTagProperties;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 标签索引的同步管道
+ *
+ * 片段保存、删除的事务提交后（TagIndexListener）才记下片段ID；定时按ID从数据库读出标签、语言、可见性写入索引，
+ * 读不到的ID从索引中删除，失败时ID放回队列。入队时变更已经提交，刷新读到的一定是新状态；
+ * 回滚的事务不入队
+ *
+ * 启动装入：索引在内存中，启动后按ID游标从数据库分批装入全部片段，期间优先处理新的变更
+ *
+ * 多节点：开启 redis-enabled 后，本节点处理完的变更ID通过 Redis 频道广播，其他节点收到后同样从数据库重新读取
+ */
+@Slf4j
+public class TagIndexer {
+
+    public static final String CHANGED_CHANNEL = "codesandbox:snippet:tags:changed";
+
+    private final CodeSnippetRepository snippetRepository;
+    private final TagIndex index;
+    private final SnippetTagProperties config;
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Set<Long> localPending = ConcurrentHashMap.newKeySet();
+    private final Set<Long> remotePending = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Long loadCursor;
+
+    /**
+     * @param redisTemplate 为 null 时不广播变更
+     */
+    public TagIndexer(CodeSnippetRepository snippetRepository,
+                      TagIndex index,
+                      SnippetTagProperties config,
+                      StringRedisTemplate redisTemplate) {
+        this.snippetRepository = snippetRepository;
+        this.index = index;
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 记录本节点上新增、修改或删除的片段
+     */
+    public void snippetChanged(Long snippetId) {
+        if (snippetId != null) {
+            enqueue(localPending, List.of(snippetId));
+        }
+    }
+
+    /**
+     * 收到其他节点广播的变更：{节点ID}:{片段ID,片段ID,...}
+     */
+    public void onRemoteChange(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (String id : message.substring(separator + 1).split(",")) {
+                ids.add(Long.parseLong(id));
+            }
+            enqueue(remotePending, ids);
+        } catch (NumberFormatException e) {
+            log.warn("无法解析标签变更消息: {}", message);
+        }
+    }
+
+    public boolean isLoading() {
+        return loadCursor != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        loadCursor = 0L;
+    }
+
+    /**
+     * 定时同步积累的变更；没有变更时推进启动装入
+     */
+    @Scheduled(fixedDelayString = "${codesandbox.snippet.tags.flush-interval-ms:500}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Long> local = drain(localPending);
+            if (!local.isEmpty() && apply(local, localPending)) {
+                broadcast(local);
+            }
+            List<Long> remote = drain(remotePending);
+            if (!remote.isEmpty()) {
+                apply(remote, remotePending);
+            }
+            while (loadCursor != null && localPending.isEmpty() && remotePending.isEmpty()) {
+                if (!load(loadCursor)) {
+                    break;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void enqueue(Set<Long> queue, List<Long> ids) {
+        if (queue.size() + ids.size() > config.getMaxPending()) {
+            log.warn("待同步的标签变更超过 {}，丢弃 {} 个片段的变更", config.getMaxPending(), ids.size());
+            return;
+        }
+        queue.addAll(ids);
+    }
+
+    private List<Long> drain(Set<Long> queue) {
+        List<Long> batch = new ArrayList<>();
+        Iterator<Long> iterator = queue.iterator();
+        while (iterator.hasNext() && batch.size() < config.getBatchSize()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private boolean apply(List<Long> ids, Set<Long> queue) {
+        try {
+            Set<Long> missing = new LinkedHashSet<>(ids);
+            for (SnippetTagRow row : snippetRepository.findTagRowsByIds(ids)) {
+                missing.remove(row.id());
+                index.update(row);
+            }
+            missing.forEach(index::remove);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("同步 {} 个片段的标签索引失败，稍后重试", ids.size(), e);
+            queue.addAll(ids);
+            return false;
+        }
+    }
+
+    /**
+     * @return 是否可以继续装入下一批
+     */
+    private boolean load(Long cursor) {
+        try {
+            List<SnippetTagRow> rows = snippetRepository.findTagRowsAfter(cursor, Limit.of(config.getLoadBatchSize()));
+            if (rows.isEmpty()) {
+                loadCursor = null;
+                log.info("标签索引装入完成，共 {} 个片段", index.size());
+                return false;
+            }
+            rows.forEach(index::update);
+            loadCursor = rows.get(rows.size() - 1).id();
+            return true;
+        } catch (RuntimeException e) {
+            // 游标不前进，下个周期重试同一批
+            log.error("标签索引装入在ID {} 之后失败，稍后重试", cursor, e);
+            return false;
+        }
+    }
+
+    private void broadcast(List<Long> ids) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            String message = nodeId + ":" + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+            redisTemplate.convertAndSend(CHANGED_CHANNEL, message);
+        } catch (RuntimeException e) {
+            log.warn("广播 {} 个片段的标签变更失败", ids.size(), e);
+        }
+    }
+}
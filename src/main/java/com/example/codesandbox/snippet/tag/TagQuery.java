@@ -0,0 +1,33 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+
+import java.util.Set;
+
+/**
+ * 标签浏览条件，各条件之间是 AND
+ *
+ * @param allOf      必须同时带有的标签
+ * @param anyOf      至少带有其中一个的标签，为空不过滤
+ * @param language   为 null 不过滤
+ * @param visibility 为 null 不过滤
+ */
+public record TagQuery(Set<String> allOf, Set<String> anyOf, String language, CodeSnippet.Visibility visibility) {
+
+    public TagQuery {
+        allOf = Tags.normalize(allOf);
+        anyOf = Tags.normalize(anyOf);
+        language = language == null || language.isBlank() ? null : language;
+    }
+
+    public static TagQuery publicSnippets(Set<String> allOf, Set<String> anyOf, String language) {
+        return new TagQuery(allOf, anyOf, language, CodeSnippet.Visibility.PUBLIC);
+    }
+
+    /**
+     * 没有标签条件的公开片段浏览，分面计数可以直接用增量维护的结果
+     */
+    boolean isPublicScope() {
+        return allOf.isEmpty() && anyOf.isEmpty() && visibility == CodeSnippet.Visibility.PUBLIC;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.dto.TagFacet;
+
+import java.util.List;
+
+/**
+ * @param snippetIds 当前页的片段ID（新建的在前）
+ * @param total      满足条件的片段总数
+ * @param facets     满足条件的片段中各标签的数量（从多到少）
+ */
+public record TagSearchResult(List<Long> snippetIds, long total, List<TagFacet> facets) {
+}
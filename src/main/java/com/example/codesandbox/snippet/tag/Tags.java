@@ -0,0 +1,60 @@
+package com.example.codesandbox.snippet.tag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 标签规范化
+ *
+ * code_snippets.tags 是逗号分隔的自由文本，规范化后 "Python, #python ,Machine Learning"
+ * 变成 [python, machine-learning]：去掉首尾空白和开头的 #，转小写，中间的空白换成 -，去重并保留原顺序
+ */
+public final class Tags {
+
+    private Tags() {
+    }
+
+    public static List<String> normalize(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return List.of();
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        for (String part : raw.split(",")) {
+            String tag = normalizeTag(part);
+            if (!tag.isEmpty()) {
+                tags.add(tag);
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    public static Set<String> normalize(Collection<String> raw) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (raw != null) {
+            for (String part : raw) {
+                tags.addAll(normalize(part));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * 规范化后重新拼成逗号分隔的列值，没有标签时为 null
+     */
+    public static String normalizeColumn(String raw) {
+        List<String> tags = normalize(raw);
+        return tags.isEmpty() ? null : String.join(",", tags);
+    }
+
+    private static String normalizeTag(String part) {
+        String tag = part.strip();
+        while (tag.startsWith("#")) {
+            tag = tag.substring(1).strip();
+        }
+        return tag.toLowerCase(Locale.ROOT).replaceAll("\\s+", "-");
+    }
+}
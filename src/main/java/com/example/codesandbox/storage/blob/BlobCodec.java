@@ -0,0 +1,94 @@
+package com.example.codesandbox.storage.blob;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * blob 的存储格式，本地文件和数据库两种后端共用
+ *
+ * 格式：1 字节编码（0 = 原文，1 = deflate） + 4 字节原始长度 + 内容
+ */
+final class BlobCodec {
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER_BYTES = 5;
+
+    private BlobCodec() {
+    }
+
+    static byte[] encode(byte[] content, int compressThresholdBytes) {
+        byte[] payload = content;
+        byte codec = RAW;
+        if (content.length >= compressThresholdBytes) {
+            byte[] compressed = deflate(content);
+            // 压缩率不到 10% 的内容（已压缩的数据、很短的文本）按原文存
+            if (compressed.length < content.length * 0.9) {
+                payload = compressed;
+                codec = DEFLATE;
+            }
+        }
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .put(codec)
+                .putInt(content.length)
+                .put(payload)
+                .array();
+    }
+
+    static byte[] decode(ByteBuffer buffer, String hash) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES) {
+            throw new IOException("blob 内容不完整: " + hash);
+        }
+        byte codec = buffer.get();
+        int length = buffer.getInt();
+        if (length < 0 || (codec == RAW && buffer.remaining() != length)) {
+            throw new IOException("blob 内容不完整: " + hash);
+        }
+        byte[] content = new byte[length];
+        if (codec == RAW) {
+            buffer.get(content);
+            return content;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(content, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IOException("blob 内容不完整: " + hash);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IOException("blob 内容损坏: " + hash, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
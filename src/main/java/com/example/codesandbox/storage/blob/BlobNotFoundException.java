@@ -0,0 +1,11 @@
+package com.example.codesandbox.storage.blob;
+
+/**
+ * 数据库引用的 blob 在存储中不存在
+ */
+public class BlobNotFoundException extends RuntimeException {
+
+    public BlobNotFoundException(String hash) {
+        super("blob 不存在: " + hash);
+    }
+}
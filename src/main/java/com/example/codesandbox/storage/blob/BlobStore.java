@@ -0,0 +1,32 @@
+package com.example.codesandbox.storage.blob;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * 内容寻址的大字段存储
+ *
+ * key 是原始内容的 SHA-256（64 位小写十六进制），相同内容只存一份；
+ * 代码、输入、输出这类大文本不再直接放在数据库行里，表中只保存 key
+ */
+public interface BlobStore {
+
+    /**
+     * 保存内容，已存在时直接返回 key
+     *
+     * @return 内容的 SHA-256
+     */
+    String put(byte[] content);
+
+    Optional<byte[]> get(String hash);
+
+    boolean contains(String hash);
+
+    default String putText(String text) {
+        return put(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    default Optional<String> getText(String hash) {
+        return get(hash).map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+}
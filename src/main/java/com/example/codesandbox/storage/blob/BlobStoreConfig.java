@@ -0,0 +1,33 @@
+package com.example.codesandbox.storage.blob;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Paths;
+
+/**
+ * 大字段存储配置
+ *
+ * 按 codesandbox.storage.blob.backend 选择后端：jdbc（默认）存在共享数据库里；
+ * local 存在本节点目录，任务分发到其他节点后读不到代码和输入，只应在单节点部署中显式开启
+ */
+@Configuration
+@EnableConfigurationProperties(BlobStoreProperties.class)
+public class BlobStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.storage.blob", name = "backend", havingValue = "jdbc",
+            matchIfMissing = true)
+    public BlobStore jdbcBlobStore(JdbcTemplate jdbcTemplate, BlobStoreProperties properties) {
+        return new JdbcBlobStore(jdbcTemplate, properties.getCompressThresholdBytes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "codesandbox.storage.blob", name = "backend", havingValue = "local")
+    public BlobStore localFileBlobStore(BlobStoreProperties properties) {
+        return new LocalFileBlobStore(Paths.get(properties.getRoot()), properties.getCompressThresholdBytes());
+    }
+}
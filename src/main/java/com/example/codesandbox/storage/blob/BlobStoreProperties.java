@@ -0,0 +1,27 @@
+package com.example.codesandbox.storage.blob;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 大字段存储配置（codesandbox.storage.blob.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "codesandbox.storage.blob")
+public class BlobStoreProperties {
+
+    /**
+     * 存储后端：jdbc（blobs 表，所有节点共享）或 local（本节点目录，只适用于单节点部署）
+     */
+    private String backend = "jdbc";
+
+    /**
+     * 本地文件存储的根目录（backend=local）
+     */
+    private String root = "data/blobs";
+
+    /**
+     * 超过这个大小的内容才尝试压缩（小内容压缩收益抵不过头部开销）
+     */
+    private int compressThresholdBytes = 512;
+}
@@ -0,0 +1,66 @@
+package com.example.codesandbox.storage.blob;
+
+import com.example.codesandbox.execution.support.CodeHasher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 数据库里的 blob 存储（blobs 表），所有节点共享，多节点部署的默认后端
+ *
+ * 内容按 {@link BlobCodec} 编码后存进 LONGBLOB；哈希是主键，重复写入由 INSERT IGNORE 吸收。
+ * 写入跟随调用方的事务，事务回滚时 blob 一起回滚，不会留下没有引用方的孤儿
+ */
+public class JdbcBlobStore implements BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO blobs (hash, content) VALUES (?, ?)";
+    private static final String SELECT_SQL = "SELECT content FROM blobs WHERE hash = ?";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM blobs WHERE hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int compressThresholdBytes;
+
+    public JdbcBlobStore(JdbcTemplate jdbcTemplate, int compressThresholdBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    @Override
+    public String put(byte[] content) {
+        String hash = CodeHasher.sha256(content);
+        jdbcTemplate.update(INSERT_SQL, hash, BlobCodec.encode(content, compressThresholdBytes));
+        return hash;
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        List<byte[]> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> rs.getBytes(1), hash);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(BlobCodec.decode(ByteBuffer.wrap(rows.get(0)), hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取 blob 失败: " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, hash);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.codesandbox.storage.blob;
+
+import com.example.codesandbox.execution.support.CodeHasher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 本地文件系统上的 blob 存储
+ *
+ * 布局：root/ab/cd/abcd...（按哈希前缀分两级目录，避免单目录文件过多）
+ * 文件格式见 {@link BlobCodec}
+ *
+ * 写入先落临时文件、fsync 后再原子改名，崩溃后不会在合法哈希下留下截断的文件；
+ * 并发写同一内容时后到的直接复用。读取通过内存映射，解压直接从映射区读，不经过额外的堆上拷贝
+ *
+ * 目录只在本节点可见，任务会被分发到任意节点执行，只能用于单节点部署；多节点部署用 {@link JdbcBlobStore}
+ */
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final int compressThresholdBytes;
+
+    public LocalFileBlobStore(Path root, int compressThresholdBytes) {
+        this.root = root;
+        this.compressThresholdBytes = compressThresholdBytes;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建 blob 目录: " + root, e);
+        }
+    }
+
+    @Override
+    public String put(byte[] content) {
+        String hash = CodeHasher.sha256(content);
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(BlobCodec.encode(content, compressThresholdBytes));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                forceDirectory(target.getParent());
+            } catch (FileAlreadyExistsException e) {
+                // 另一个线程刚写入了相同内容
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入 blob 失败: " + hash, e);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(BlobCodec.decode(mapped, hash));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取 blob 失败: " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return HASH.matcher(hash).matches() && Files.exists(pathOf(hash));
+    }
+
+    /**
+     * 改名本身也要落盘，否则崩溃后目录项可能丢失；不支持打开目录的平台（Windows）上跳过
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 目录 fsync 只是加固，失败不影响已经写好的内容
+        }
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+}
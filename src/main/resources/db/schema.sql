@@ -2,6 +2,8 @@
 -- CodeSandbox Database Schema
 -- Database: codesandbox
 -- Created: 2025-11-09
+--
+-- 新库直接执行本文件；已有数据库的列变更见 upgrade.sql
 -- ============================================================================
 
 -- Drop existing tables (optional - use with caution)
@@ -103,16 +105,25 @@ CREATE TABLE IF NOT EXISTS code_snippets (
   description TEXT COMMENT '代码片段描述',
   language VARCHAR(50) NOT NULL COMMENT '编程语言',
   visibility ENUM('PRIVATE', 'SHARED', 'PUBLIC') DEFAULT 'PRIVATE' COMMENT '可见性',
-  tags VARCHAR(500) COMMENT '标签（逗号分隔）',
+  tags VARCHAR(500) COMMENT '标签（逗号分隔，保存时规范化为小写）',
   view_count INT DEFAULT 0 COMMENT '浏览次数',
   fork_count INT DEFAULT 0 COMMENT '分叉次数',
+  forked_from_id BIGINT COMMENT '复刻来源片段ID',
+  fork_version_number INT COMMENT '复刻点：1..N 号版本与来源片段共享',
+  head_version_id BIGINT COMMENT '最新版本所在的版本行ID（可能属于来源片段）',
+  head_version_number INT COMMENT '最新版本号',
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   FOREIGN KEY (owner_id) REFERENCES users(id) ON DELETE CASCADE,
-  INDEX idx_owner_id (owner_id),
+  -- 复刻与来源共享版本，来源不能直接删除；删除片段或用户前先由 SnippetForkService.detachForks 把共享的版本复制到复刻名下
+  FOREIGN KEY (forked_from_id) REFERENCES code_snippets(id) ON DELETE RESTRICT,
+  INDEX idx_owner_created (owner_id, created_at, id),
+  INDEX idx_forked_from (forked_from_id),
+  INDEX idx_head_version (head_version_id),
   INDEX idx_language (language),
-  INDEX idx_visibility (visibility),
   INDEX idx_created_at (created_at),
+  INDEX idx_visibility_views (visibility, view_count),
+  INDEX idx_visibility_language_views (visibility, language, view_count),
   FULLTEXT INDEX ft_title_description (title, description)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='代码片段表';
 
@@ -123,8 +134,9 @@ CREATE TABLE IF NOT EXISTS code_versions (
   id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '版本ID',
   snippet_id BIGINT NOT NULL COMMENT '代码片段ID',
   version_number INT NOT NULL COMMENT '版本号',
-  content LONGTEXT NOT NULL COMMENT '代码内容',
-  delta_content LONGTEXT COMMENT '增量编码内容（用于存储差异）',
+  content LONGTEXT COMMENT '代码内容（最新版本和旧数据；关键帧存在 blob 存储中）',
+  content_hash CHAR(64) COMMENT '关键帧内容 SHA256（blob 存储的 key）',
+  delta_content LONGTEXT COMMENT '相对下一个版本的反向增量，NULL 表示存有完整内容',
   author_id BIGINT NOT NULL COMMENT '作者ID',
   commit_message VARCHAR(500) COMMENT '提交信息',
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
@@ -190,6 +202,44 @@ CREATE TABLE IF NOT EXISTS code_shares (
   INDEX idx_shared_with (shared_with)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='代码分享表';
 
+-- ============================================================================
+-- Blobs Table
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS blobs (
+  hash CHAR(64) PRIMARY KEY COMMENT '内容的 SHA-256',
+  content LONGBLOB NOT NULL COMMENT '编码后的内容：1 字节编码（0 原文 / 1 deflate） + 4 字节原始长度 + 数据',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='内容寻址的大字段存储（codesandbox.storage.blob.backend=jdbc）';
+
+-- ============================================================================
+-- Execution Batches Table
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS execution_batches (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '批量执行ID',
+  snippet_id BIGINT COMMENT '代码片段ID',
+  executor_id BIGINT NOT NULL COMMENT '执行者ID',
+  language VARCHAR(50) NOT NULL COMMENT '编程语言',
+  code_hash VARCHAR(64) NOT NULL COMMENT '代码哈希值（SHA256，blob 存储的 key）',
+  case_count INT NOT NULL COMMENT '测试用例数量',
+  parallelism INT NOT NULL DEFAULT 1 COMMENT '同一沙箱中同时运行的用例数',
+  abort_on_failure BOOLEAN NOT NULL DEFAULT FALSE COMMENT '有用例失败后是否跳过剩余用例',
+  status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'ABORTED') DEFAULT 'PENDING' COMMENT '批量状态',
+  passed_count INT COMMENT '成功的用例数',
+  failed_count INT COMMENT '失败的用例数',
+  error_message LONGTEXT COMMENT '批量级别的错误（编译失败等）',
+  execution_time_ms INT COMMENT '总耗时（毫秒，含编译）',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  completed_at TIMESTAMP COMMENT '完成时间',
+  worker_id VARCHAR(100) COMMENT '持有租约的执行节点',
+  lease_expires_at TIMESTAMP NULL COMMENT '租约到期时间，过期后批量和未结束的用例被标记为失败',
+  FOREIGN KEY (snippet_id) REFERENCES code_snippets(id) ON DELETE SET NULL,
+  FOREIGN KEY (executor_id) REFERENCES users(id) ON DELETE RESTRICT,
+  INDEX idx_executor_id (executor_id),
+  INDEX idx_status (status),
+  INDEX idx_status_lease (status, lease_expires_at),
+  INDEX idx_worker_id (worker_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='批量执行表';
+
 -- ============================================================================
 -- Execution Tasks Table
 -- ============================================================================
@@ -198,26 +248,74 @@ CREATE TABLE IF NOT EXISTS execution_tasks (
   snippet_id BIGINT COMMENT '代码片段ID',
   executor_id BIGINT NOT NULL COMMENT '执行者ID',
   language VARCHAR(50) NOT NULL COMMENT '编程语言',
-  code_content LONGTEXT NOT NULL COMMENT '执行的代码',
-  code_hash VARCHAR(64) COMMENT '代码哈希值（SHA256），用于缓存同一段代码的执行结果',
-  input_data LONGTEXT COMMENT '输入数据',
-  output_data LONGTEXT COMMENT '输出结果',
+  code_content LONGTEXT COMMENT '执行的代码（旧数据，新任务存在 blob 存储中）',
+  code_hash VARCHAR(64) COMMENT '代码哈希值（SHA256），用于缓存同一段代码的执行结果，也是代码在 blob 存储中的 key',
+  input_data LONGTEXT COMMENT '输入数据（旧数据）',
+  input_hash CHAR(64) COMMENT '输入数据 SHA256（blob 存储的 key）',
+  output_data LONGTEXT COMMENT '输出结果（旧数据）',
+  output_hash CHAR(64) COMMENT '输出结果 SHA256（blob 存储的 key）',
   error_message LONGTEXT COMMENT '错误信息',
-  status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'TIMEOUT') DEFAULT 'PENDING' COMMENT '执行状态',
+  status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'TIMEOUT', 'CANCELLED') DEFAULT 'PENDING' COMMENT '执行状态',
   execution_time_ms INT COMMENT '执行耗时（毫秒）',
   memory_used_mb INT COMMENT '内存使用（MB）',
+  queue_wait_ms INT COMMENT '排队耗时（毫秒），创建到开始执行',
+  compile_time_ms INT COMMENT '编译耗时（毫秒）',
   container_id VARCHAR(100) COMMENT '容器ID',
+  batch_id BIGINT COMMENT '所属批量执行ID',
+  case_index INT COMMENT '测试用例在批量中的序号',
+  coalesced_with BIGINT COMMENT '合并到的领头任务ID（跟随者），随领头任务一起结束',
+  worker_id VARCHAR(100) COMMENT '持有租约的执行节点',
+  lease_expires_at TIMESTAMP NULL COMMENT '租约到期时间，过期后任务被回收',
+  heartbeat_at TIMESTAMP NULL COMMENT '最近一次心跳时间',
+  started_at TIMESTAMP NULL COMMENT '开始执行时间',
+  attempt_count INT NOT NULL DEFAULT 0 COMMENT '已开始执行的次数',
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   completed_at TIMESTAMP COMMENT '完成时间',
   FOREIGN KEY (snippet_id) REFERENCES code_snippets(id) ON DELETE SET NULL,
   FOREIGN KEY (executor_id) REFERENCES users(id) ON DELETE RESTRICT,
+  FOREIGN KEY (batch_id) REFERENCES execution_batches(id) ON DELETE CASCADE,
   INDEX idx_snippet_id (snippet_id),
-  INDEX idx_executor_id (executor_id),
+  INDEX idx_executor_created (executor_id, created_at, id),
+  INDEX idx_batch_case (batch_id, case_index),
   INDEX idx_code_hash (code_hash),
   INDEX idx_status (status),
-  INDEX idx_created_at (created_at)
+  INDEX idx_status_lease (status, lease_expires_at),
+  INDEX idx_worker_id (worker_id),
+  INDEX idx_coalesced_with (coalesced_with, status),
+  INDEX idx_created_at (created_at),
+  INDEX idx_completed_at (completed_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='代码执行任务表';
 
+-- ============================================================================
+-- Execution Stats Daily Table
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS execution_stats_daily (
+  dimension VARCHAR(16) NOT NULL COMMENT '维度：all / language / user',
+  dim_key VARCHAR(64) NOT NULL COMMENT '维度值：语言名或用户ID，all 维度为空字符串',
+  stat_date DATE NOT NULL COMMENT '日期（按任务完成时间）',
+  total_count BIGINT NOT NULL DEFAULT 0 COMMENT '结束的任务数',
+  completed_count BIGINT NOT NULL DEFAULT 0 COMMENT '成功数',
+  failed_count BIGINT NOT NULL DEFAULT 0 COMMENT '失败数',
+  timeout_count BIGINT NOT NULL DEFAULT 0 COMMENT '超时数',
+  total_time_ms BIGINT NOT NULL DEFAULT 0 COMMENT '执行耗时之和（毫秒）',
+  timed_count BIGINT NOT NULL DEFAULT 0 COMMENT '有执行耗时的任务数',
+  PRIMARY KEY (dimension, dim_key, stat_date),
+  INDEX idx_dimension_date (dimension, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='执行统计日汇总表';
+
+-- ============================================================================
+-- Execution Latency Daily Table
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS execution_latency_daily (
+  dimension VARCHAR(16) NOT NULL COMMENT '维度：all / language / user',
+  dim_key VARCHAR(64) NOT NULL COMMENT '维度值',
+  stat_date DATE NOT NULL COMMENT '日期（按任务完成时间）',
+  bucket INT NOT NULL COMMENT '耗时分桶：0 为 [0, 1) 毫秒，i 为 [2^(i-1), 2^i) 毫秒',
+  sample_count BIGINT NOT NULL DEFAULT 0 COMMENT '落在该桶的任务数',
+  PRIMARY KEY (dimension, dim_key, stat_date, bucket),
+  INDEX idx_dimension_date (dimension, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='执行耗时分布日汇总表';
+
 -- ============================================================================
 -- Audit Logs Table
 -- ============================================================================
@@ -233,10 +331,10 @@ CREATE TABLE IF NOT EXISTS audit_logs (
   user_agent VARCHAR(500) COMMENT '用户代理',
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL,
-  INDEX idx_user_id (user_id),
+  INDEX idx_user_created (user_id, created_at, id),
   INDEX idx_action (action),
   INDEX idx_resource_type (resource_type),
-  INDEX idx_created_at (created_at)
+  INDEX idx_created_id (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计日志表';
 
 -- ============================================================================
@@ -0,0 +1,90 @@
+-- ============================================================================
+-- CodeSandbox Database Upgrade
+-- Database: codesandbox
+--
+-- 已有数据库升级到当前 schema.sql 需要执行的语句，按变更顺序排列。
+-- schema.sql 只用 CREATE TABLE IF NOT EXISTS，对已存在的表不生效；
+-- ddl-auto: update 会补新增的列，但不会修改列类型、可空性和 ENUM 取值，这些变更都在这里。
+-- ============================================================================
+
+-- ----------------------------------------------------------------------------
+-- 代码和输入输出移到 blob 存储：新数据只写哈希，旧的 LONGTEXT 列改为可空
+-- ----------------------------------------------------------------------------
+ALTER TABLE execution_tasks
+  MODIFY code_content LONGTEXT NULL COMMENT '执行的代码（旧数据，新任务存在 blob 存储中）';
+
+ALTER TABLE code_versions
+  MODIFY content LONGTEXT NULL COMMENT '代码内容（最新版本和旧数据；关键帧存在 blob 存储中）';
+
+-- blob 默认存在数据库里，所有节点共享（没有实体，ddl-auto 不会建这张表）。
+-- 之前用本地目录（data/blobs）存储的单节点部署可以继续配置 codesandbox.storage.blob.backend=local；
+-- 改用 jdbc 前需要把目录中的文件按哈希原样导入 content 列（文件格式与列格式相同）
+CREATE TABLE IF NOT EXISTS blobs (
+  hash CHAR(64) PRIMARY KEY COMMENT '内容的 SHA-256',
+  content LONGBLOB NOT NULL COMMENT '编码后的内容：1 字节编码（0 原文 / 1 deflate） + 4 字节原始长度 + 数据',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='内容寻址的大字段存储（codesandbox.storage.blob.backend=jdbc）';
+
+-- ----------------------------------------------------------------------------
+-- 任务租约和跟随者：回收器按 (status, lease_expires_at) 分块 UPDATE，心跳按 worker_id 续租，
+-- 领头任务结束时按 coalesced_with 找跟随者（列由 ddl-auto 补上，索引需要手动创建）
+-- ----------------------------------------------------------------------------
+ALTER TABLE execution_tasks
+  ADD INDEX idx_status_lease (status, lease_expires_at),
+  ADD INDEX idx_worker_id (worker_id),
+  ADD INDEX idx_coalesced_with (coalesced_with, status);
+
+-- ----------------------------------------------------------------------------
+-- 批量执行：被跳过的用例记为 CANCELLED；批量带租约，执行节点宕机后由回收器标记为失败
+-- （worker_id、lease_expires_at 两列由 ddl-auto 补上，索引需要手动创建）
+-- ----------------------------------------------------------------------------
+ALTER TABLE execution_tasks
+  MODIFY status ENUM('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'TIMEOUT', 'CANCELLED') DEFAULT 'PENDING' COMMENT '执行状态';
+
+ALTER TABLE execution_batches
+  ADD INDEX idx_status_lease (status, lease_expires_at),
+  ADD INDEX idx_worker_id (worker_id);
+
+-- ----------------------------------------------------------------------------
+-- 游标分页：按 (过滤列, created_at, id) 定位，替换原来的单列索引。
+-- 外键需要以 owner_id / executor_id / user_id 开头的索引，先建新索引再删旧索引
+-- ----------------------------------------------------------------------------
+ALTER TABLE code_snippets
+  ADD INDEX idx_owner_created (owner_id, created_at, id);
+ALTER TABLE code_snippets
+  DROP INDEX idx_owner_id;
+
+ALTER TABLE execution_tasks
+  ADD INDEX idx_executor_created (executor_id, created_at, id);
+ALTER TABLE execution_tasks
+  DROP INDEX idx_executor_id;
+
+ALTER TABLE audit_logs
+  ADD INDEX idx_user_created (user_id, created_at, id),
+  ADD INDEX idx_created_id (created_at, id);
+ALTER TABLE audit_logs
+  DROP INDEX idx_user_id,
+  DROP INDEX idx_created_at;
+
+-- ----------------------------------------------------------------------------
+-- 执行统计：按天重建汇总（REBUILD_STATS_SQL）和找出可归档的日期（FIND_ARCHIVABLE_SQL）按 completed_at 范围扫描，
+-- 准入控制按最近一段时间内完成的任务数估算集群消化速度，同样按 completed_at 过滤
+-- ----------------------------------------------------------------------------
+ALTER TABLE execution_tasks
+  ADD INDEX idx_completed_at (completed_at);
+
+-- ----------------------------------------------------------------------------
+-- 排行榜：启动时的种子查询和 Redis 不可用时的数据库回退按 (visibility, [language,] view_count) 取前 N，
+-- 替换原来的 visibility 单列索引
+-- ----------------------------------------------------------------------------
+ALTER TABLE code_snippets
+  ADD INDEX idx_visibility_views (visibility, view_count),
+  ADD INDEX idx_visibility_language_views (visibility, language, view_count),
+  DROP INDEX idx_visibility;
+
+-- ----------------------------------------------------------------------------
+-- 写时复制的复刻：保存版本时检查是否有复刻仍以上一个版本行作为最新版本
+-- （head_version_id 由 ddl-auto 补上，索引需要手动创建）
+-- ----------------------------------------------------------------------------
+ALTER TABLE code_snippets
+  ADD INDEX idx_head_version (head_version_id);
@@ -0,0 +1,172 @@
+package com.example.codesandbox;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.storage.blob.BlobStore;
+import com.example.codesandbox.user.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LONGTEXT 列的加载方式：普通查询和摘要投影不选出这些列，@EntityGraph 的 findWith* 方法一条查询带上它们
+ *
+ * 依赖字节码增强（hibernate-enhance-maven-plugin），通过 StatementInspector 记录实际执行的 SQL
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.codesandbox.LazyColumnLoadingTests$RecordingInspector")
+class LazyColumnLoadingTests {
+
+    // content_hash 也包含 content，版本内容列按带别名前缀的 .content 匹配
+    private static final List<String> TASK_LARGE_COLUMNS =
+            List.of("code_content", "input_data", "output_data", "error_message");
+
+    @MockitoBean
+    private BlobStore blobStore;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ExecutionTaskRepository taskRepository;
+
+    @Autowired
+    private CodeVersionRepository versionRepository;
+
+    private User owner;
+    private Long taskId;
+    private CodeSnippet snippet;
+    private Long versionId;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("owner");
+        owner.setEmail("owner@example.com");
+        owner.setPasswordHash("hash");
+        entityManager.persist(owner);
+
+        ExecutionTask task = new ExecutionTask();
+        task.setExecutor(owner);
+        task.setLanguage("python");
+        task.setCodeContent("print(1)");
+        task.setInputData("input");
+        task.setOutputData("1");
+        task.setErrorMessage("error");
+        taskId = entityManager.persistAndGetId(task, Long.class);
+
+        snippet = new CodeSnippet();
+        snippet.setOwner(owner);
+        snippet.setTitle("snippet");
+        snippet.setLanguage("python");
+        entityManager.persist(snippet);
+
+        CodeVersion version = new CodeVersion();
+        version.setSnippet(snippet);
+        version.setAuthor(owner);
+        version.setVersionNumber(1);
+        version.setContent("print(1)");
+        version.setDeltaContent("delta");
+        versionId = entityManager.persistAndGetId(version, Long.class);
+
+        entityManager.flush();
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void plainTaskLoadsAndSummariesSkipLargeColumns() {
+        ExecutionTask task = taskRepository.findById(taskId).orElseThrow();
+        // toString / equals / hashCode 不读取延迟加载的列
+        assertThat(task.toString()).doesNotContain("print(1)");
+        assertThat(task).isEqualTo(task);
+        task.hashCode();
+        taskRepository.findSummariesByExecutorOrderByCreatedAtDescIdDesc(owner, ScrollPosition.keyset(), Limit.of(10));
+        taskRepository.findTop10Summaries(owner);
+
+        assertThat(taskStatements()).isNotEmpty().allSatisfy(sql ->
+                assertThat(sql).doesNotContain(TASK_LARGE_COLUMNS));
+    }
+
+    @Test
+    void taskEntityGraphsSelectTheirLargeColumnsInOneQuery() {
+        ExecutionTask payload = taskRepository.findWithPayloadById(taskId).orElseThrow();
+        assertThat(taskStatements()).singleElement().satisfies(sql ->
+                assertThat(sql).contains("code_content", "input_data"));
+        assertThat(payload.getCodeContent()).isEqualTo("print(1)");
+        assertThat(payload.getInputData()).isEqualTo("input");
+        assertThat(taskStatements()).hasSize(1);
+
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+        ExecutionTask output = taskRepository.findWithOutputById(taskId).orElseThrow();
+        assertThat(taskStatements()).singleElement().satisfies(sql ->
+                assertThat(sql).contains("output_data", "error_message"));
+        assertThat(output.getOutputData()).isEqualTo("1");
+        assertThat(output.getErrorMessage()).isEqualTo("error");
+        assertThat(taskStatements()).hasSize(1);
+    }
+
+    @Test
+    void plainVersionLoadsAndSummariesSkipLargeColumns() {
+        CodeVersion version = versionRepository.findById(versionId).orElseThrow();
+        assertThat(version.toString()).doesNotContain("print(1)");
+        version.hashCode();
+        versionRepository.findSummariesBySnippet(snippet);
+
+        assertThat(versionStatements()).isNotEmpty().allSatisfy(sql ->
+                assertThat(sql).doesNotContain("delta_content").doesNotContainPattern("\\.content\\b"));
+    }
+
+    @Test
+    void versionEntityGraphSelectsLargeColumnsInOneQuery() {
+        CodeVersion version = versionRepository.findWithContentById(versionId).orElseThrow();
+
+        assertThat(versionStatements()).singleElement().satisfies(sql ->
+                assertThat(sql).contains("delta_content").containsPattern("\\.content\\b"));
+        assertThat(version.getContent()).isEqualTo("print(1)");
+        assertThat(version.getDeltaContent()).isEqualTo("delta");
+        assertThat(versionStatements()).hasSize(1);
+    }
+
+    private static List<String> taskStatements() {
+        return statementsOn("execution_tasks");
+    }
+
+    private static List<String> versionStatements() {
+        return statementsOn("code_versions");
+    }
+
+    private static List<String> statementsOn(String table) {
+        return RecordingInspector.STATEMENTS.stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.contains(" from " + table))
+                .toList();
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.codesandbox.execution.admission;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dispatcher.ExecutionDispatcher;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.metrics.ExecutionMetrics;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.scheduler.FairShareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControllerTests {
+
+    private ExecutionProperties properties;
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionDispatcher dispatcher;
+    private FairShareScheduler scheduler;
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExecutionProperties();
+        properties.getScheduler().getLaneWeights().put("ADMIN", 4);
+        properties.getAdmission().setMaxQueueDepth(100);
+        properties.getAdmission().getLaneThresholds().put("ADMIN", 2.0);
+        taskRepository = mock(ExecutionTaskRepository.class);
+        dispatcher = mock(ExecutionDispatcher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = mock(FairShareScheduler.class);
+        controller = new AdmissionController(taskRepository, scheduler, dispatcher, meterRegistry, properties);
+    }
+
+    @Test
+    void shedsDefaultLaneBeforeHigherPriorityLanes() {
+        when(taskRepository.countByStatusAndCoalescedWithIsNull(ExecutionTask.Status.PENDING)).thenReturn(150L);
+        controller.refresh();
+
+        assertThatThrownBy(() -> controller.admit(List.of("USER"), "python"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getDecision().pressure()).isEqualTo(1.5);
+                    // 还没有完成速率，按上限给出重试时间
+                    assertThat(e.getDecision().retryAfterMs()).isEqualTo(60_000);
+                });
+        assertThat(controller.admit(List.of("USER", "ADMIN"), "python").admitted()).isTrue();
+        assertThat(meterRegistry.get("execution.admission").tags("result", "rejected").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void estimatesRetryAfterFromClusterThroughput() {
+        when(taskRepository.countByStatusAndCoalescedWithIsNull(ExecutionTask.Status.PENDING)).thenReturn(150L);
+        // 30 秒窗口内整个集群完成 300 个任务：每秒 10 个
+        when(taskRepository.countByCompletedAtGreaterThanEqualAndStartedAtIsNotNull(any())).thenReturn(300L);
+        controller.refresh();
+
+        // 超出阈值的 50 个积压按集群速率 5 秒消化完，而不是按本节点的速率
+        assertThat(controller.evaluate("default", "python").retryAfterMs()).isEqualTo(5_000);
+    }
+
+    @Test
+    void fallsBackToLocalQueueTogetherWithLocalThroughput() {
+        when(taskRepository.countByStatusAndCoalescedWithIsNull(ExecutionTask.Status.PENDING))
+                .thenThrow(new IllegalStateException("db down"));
+        when(scheduler.queuedCount()).thenReturn(150);
+        controller.refresh();
+
+        AdmissionDecision decision = controller.evaluate("default", "python");
+        assertThat(decision.pressure()).isEqualTo(1.5);
+        // 本节点还没有完成速率，按上限给出重试时间
+        assertThat(decision.retryAfterMs()).isEqualTo(60_000);
+    }
+
+    @Test
+    void countsQueueLatencyOnlyWhenWorkersAreSaturated() {
+        when(taskRepository.countByStatusAndCoalescedWithIsNull(ExecutionTask.Status.PENDING)).thenReturn(10L);
+        ExecutionMetrics metrics = new ExecutionMetrics(meterRegistry);
+        for (int i = 0; i < 100; i++) {
+            metrics.recordQueueWait("python", 30_000);
+        }
+        controller.refresh();
+        assertThat(controller.evaluate("default", "python").admitted()).isTrue();
+
+        when(dispatcher.getRunningCount(anyString())).thenAnswer(invocation ->
+                properties.concurrencyFor(invocation.getArgument(0)));
+        controller.refresh();
+        AdmissionDecision python = controller.evaluate("ADMIN", "python");
+        assertThat(python.admitted()).isFalse();
+        assertThat(python.retryAfterMs()).isBetween(1_000L, 60_000L);
+        assertThat(controller.evaluate("default", "go").admitted()).isTrue();
+    }
+}
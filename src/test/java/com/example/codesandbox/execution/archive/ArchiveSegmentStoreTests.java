@@ -0,0 +1,78 @@
+package com.example.codesandbox.execution.archive;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveSegmentStoreTests {
+
+    @TempDir
+    Path dir;
+
+    private ObjectMapper objectMapper;
+    private ArchiveSegmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        store = new ArchiveSegmentStore(dir, 10, objectMapper);
+    }
+
+    @Test
+    void findsArchivedTaskByIdThroughSparseIndex() {
+        store.write(tasks(1, 95));
+
+        ArchivedTask task = store.findById(42).orElseThrow();
+        assertThat(task.executorId()).isEqualTo(42 % 3L);
+        assertThat(task.outputData()).isEqualTo("output 42");
+        assertThat(task.status()).isEqualTo(ExecutionTask.Status.COMPLETED);
+        assertThat(task.completedAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(42));
+        assertThat(store.findById(95)).isPresent();
+        assertThat(store.findById(96)).isEmpty();
+    }
+
+    @Test
+    void findsTasksByExecutorNewestFirst() {
+        store.write(tasks(1, 30));
+        store.write(tasks(31, 60));
+
+        List<ArchivedTask> found = store.findByExecutor(1, 5);
+
+        assertThat(found).extracting(ArchivedTask::id).containsExactly(58L, 55L, 52L, 49L, 46L);
+        assertThat(store.findByExecutor(7, 5)).isEmpty();
+    }
+
+    @Test
+    void reloadsCompletedSegmentsAndIgnoresUnfinishedOnes() throws IOException {
+        store.write(tasks(1, 20));
+        // 写了数据文件但还没写索引就宕机的段
+        Files.write(dir.resolve("9999999999999-100.seg"), new byte[]{1, 2, 3});
+
+        ArchiveSegmentStore reopened = new ArchiveSegmentStore(dir, 10, objectMapper);
+
+        assertThat(reopened.getSegmentCount()).isEqualTo(1);
+        assertThat(reopened.findById(20)).isPresent();
+    }
+
+    private static List<ArchivedTask> tasks(long fromId, long toId) {
+        List<ArchivedTask> tasks = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(id);
+            tasks.add(new ArchivedTask(id, id % 3, null, null, null, "python", ExecutionTask.Status.COMPLETED,
+                    "code-hash", null, null, null, null, "output " + id, null, 12, 8, 1, null, 1,
+                    createdAt, createdAt, createdAt));
+        }
+        return tasks;
+    }
+}
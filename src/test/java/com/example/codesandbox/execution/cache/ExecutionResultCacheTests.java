@@ -0,0 +1,81 @@
+package com.example.codesandbox.execution.cache;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionResultCacheTests {
+
+    private ExecutionProperties properties;
+    private RedisResultCache redis;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExecutionProperties();
+        redis = mock(RedisResultCache.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ExecutionResultCache(properties, redis, meterRegistry);
+    }
+
+    @Test
+    void backfillsL1FromL2AndCountsEachTier() {
+        ExecutionCacheKey key = cache.keyFor("code", "python", "in");
+        CachedExecutionResult result = LocalResultCacheTests.result(10);
+        when(redis.get(key.asString())).thenReturn(result);
+
+        assertThat(cache.get(key)).contains(result);
+        assertThat(cache.get(key)).contains(result);
+        assertThat(cache.get(cache.keyFor("other", "python", "in"))).isEmpty();
+
+        verify(redis, times(1)).get(key.asString());
+        assertThat(cache.getL2HitCount()).isEqualTo(1);
+        assertThat(cache.getL1HitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("execution.cache.requests").tag("result", "l1_hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("execution.cache.requests").tag("result", "l2_hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("execution.cache.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void cachesOnlyCompletedResults() {
+        ExecutionCacheKey failed = cache.keyFor("code", "python", "a");
+        ExecutionCacheKey completed = cache.keyFor("code", "python", "b");
+
+        cache.put(failed, new CachedExecutionResult(ExecutionTask.Status.FAILED, null, "boom", 5, 1));
+        cache.put(completed, LocalResultCacheTests.result(10));
+
+        verify(redis, never()).put(eq(failed.asString()), any());
+        verify(redis).put(anyString(), any());
+        assertThat(cache.get(failed)).isEmpty();
+        assertThat(cache.get(completed)).isPresent();
+    }
+
+    @Test
+    void bypassesBothTiersWhenDisabled() {
+        properties.getCache().setEnabled(false);
+        ExecutionCacheKey key = cache.keyFor("code", "python", "in");
+
+        cache.put(key, LocalResultCacheTests.result(10));
+
+        assertThat(cache.get(key)).isEmpty();
+        verify(redis, never()).put(anyString(), any());
+        verify(redis, never()).get(anyString());
+    }
+}
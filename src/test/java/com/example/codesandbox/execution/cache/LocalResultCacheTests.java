@@ -0,0 +1,89 @@
+package com.example.codesandbox.execution.cache;
+
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalResultCacheTests {
+
+    /**
+     * 每段 1000 字节
+     */
+    private static final long MAX_BYTES = 16 * 1000;
+
+    @Test
+    void evictsLeastRecentlyUsedByBytesWithinSegment() {
+        LocalResultCache cache = new LocalResultCache(MAX_BYTES, MAX_BYTES);
+        List<String> keys = sameSegmentKeys(3);
+
+        // 每条约 400 字节，一段只放得下两条
+        cache.put(keys.get(0), result(150));
+        cache.put(keys.get(1), result(150));
+        assertThat(cache.get(keys.get(0))).isNotNull();
+        cache.put(keys.get(2), result(150));
+
+        assertThat(cache.get(keys.get(1))).isNull();
+        assertThat(cache.get(keys.get(0))).isNotNull();
+        assertThat(cache.get(keys.get(2))).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.getSizeBytes()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void skipsEntriesOverEntryLimitOrSegmentBudget() {
+        LocalResultCache cache = new LocalResultCache(MAX_BYTES, 500);
+        List<String> keys = sameSegmentKeys(2);
+
+        cache.put(keys.get(0), result(300));
+        assertThat(cache.get(keys.get(0))).isNull();
+
+        LocalResultCache unbounded = new LocalResultCache(MAX_BYTES, Long.MAX_VALUE);
+        unbounded.put(keys.get(0), result(150));
+        // 比整段还大的条目不放入，也不挤掉已有的条目
+        unbounded.put(keys.get(1), result(600));
+        assertThat(unbounded.get(keys.get(1))).isNull();
+        assertThat(unbounded.get(keys.get(0))).isNotNull();
+        assertThat(unbounded.getEvictionCount()).isZero();
+        assertThat(unbounded.getSizeBytes()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void replacingAnEntryKeepsByteAccountingExact() {
+        LocalResultCache cache = new LocalResultCache(MAX_BYTES, MAX_BYTES);
+        String key = sameSegmentKeys(1).get(0);
+
+        cache.put(key, result(150));
+        long single = cache.getSizeBytes();
+        cache.put(key, result(150));
+        assertThat(cache.getSizeBytes()).isEqualTo(single);
+
+        cache.invalidate(key);
+        assertThat(cache.getSizeBytes()).isZero();
+        assertThat(cache.getEntryCount()).isZero();
+    }
+
+    static CachedExecutionResult result(int outputChars) {
+        return new CachedExecutionResult(ExecutionTask.Status.COMPLETED, "x".repeat(outputChars), null, 5, 1);
+    }
+
+    /**
+     * 落在同一段的 key（与 LocalResultCache.segmentFor 的散列一致）
+     */
+    private static List<String> sameSegmentKeys(int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "k" + i;
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            if ((h & 15) == 0) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
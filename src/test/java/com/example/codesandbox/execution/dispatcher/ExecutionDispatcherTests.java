@@ -0,0 +1,495 @@
+package com.example.codesandbox.execution.dispatcher;
+
+import com.example.codesandbox.execution.cache.CachedExecutionResult;
+import com.example.codesandbox.execution.cache.ExecutionResultCache;
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.coalescing.LocalInFlightRegistry;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.ExecutionMessage;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionBatch;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.lease.WorkerIdentity;
+import com.example.codesandbox.execution.metrics.ExecutionMetrics;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.sandbox.LocalProcessSandboxFactory;
+import com.example.codesandbox.execution.sandbox.OutputListener;
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import com.example.codesandbox.execution.sandbox.Sandbox;
+import com.example.codesandbox.execution.sandbox.SandboxFactory;
+import com.example.codesandbox.execution.sandbox.SandboxResult;
+import com.example.codesandbox.execution.service.ExecutionPayloadStore;
+import com.example.codesandbox.execution.service.ExecutionQueuePublisher;
+import com.example.codesandbox.execution.stats.ExecutionStatsRollup;
+import com.example.codesandbox.execution.stream.ExecutionOutputStreams;
+import com.example.codesandbox.execution.stream.OutputChunk;
+import com.example.codesandbox.execution.stream.OutputSubscriber;
+import com.example.codesandbox.storage.blob.LocalFileBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionDispatcherTests {
+
+    @TempDir
+    Path workDir;
+
+    private ExecutionProperties properties;
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionBatchRepository batchRepository;
+    private ExecutionResultCache resultCache;
+    private ExecutionOutputStreams outputStreams;
+    private ExecutionPayloadStore payloadStore;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionMetrics metrics;
+    private final List<TaskStateChange> written = Collections.synchronizedList(new ArrayList<>());
+    private final List<TaskStateChange> claimed = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExecutionProperties();
+        properties.getSandbox().setWorkDir(workDir.toString());
+        properties.setStateBatchSize(1000);
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ExecutionMetrics(meterRegistry);
+        resultCache = new ExecutionResultCache(properties, null, new SimpleMeterRegistry());
+        outputStreams = new ExecutionOutputStreams(properties);
+        payloadStore = new ExecutionPayloadStore(new LocalFileBlobStore(workDir.resolve("blobs"), 512));
+
+        taskRepository = mock(ExecutionTaskRepository.class);
+        batchRepository = mock(ExecutionBatchRepository.class);
+        when(taskRepository.findWithPayloadById(any())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            ExecutionTask task = new ExecutionTask();
+            task.setId(id);
+            task.setLanguage("python");
+            task.setCodeContent("print(input())");
+            task.setInputData("task-" + id);
+            task.setStatus(ExecutionTask.Status.PENDING);
+            task.setCreatedAt(LocalDateTime.now());
+            return Optional.of(task);
+        });
+        when(taskRepository.claim(any())).thenAnswer(invocation -> {
+            claimed.add(invocation.getArgument(0));
+            return 1;
+        });
+        doAnswer(invocation -> {
+            List<TaskStateChange> changes = invocation.getArgument(0);
+            written.addAll(changes);
+            return changes;
+        }).when(taskRepository).applyStateChanges(anyList());
+    }
+
+    @Test
+    void respectsPerLanguageConcurrencyAndBatchesStateChanges() throws Exception {
+        properties.getLanguageConcurrency().put("python", 2);
+        ConcurrencyTrackingSandboxFactory sandboxFactory = new ConcurrencyTrackingSandboxFactory();
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository, sandboxFactory,
+                stateWriter, resultCache, coalescer(stateWriter), outputStreams, payloadStore, new WorkerIdentity(),
+                metrics, properties);
+
+        InMemoryBroker broker = new InMemoryBroker(dispatcher);
+        for (long id = 1; id <= 10; id++) {
+            broker.publish(new ExecutionMessage(id));
+        }
+        broker.drain();
+
+        assertThat(broker.awaitAcks(10, 5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sandboxFactory.maxConcurrent.get()).isLessThanOrEqualTo(2);
+        assertThat(written).isEmpty();
+
+        stateWriter.flush();
+        assertThat(claimed).hasSize(10)
+                .allSatisfy(change -> assertThat(change.getQueueWaitMs()).isNotNull());
+        assertThat(written).hasSize(10)
+                .allSatisfy(change -> {
+                    assertThat(change.getStatus()).isEqualTo(ExecutionTask.Status.COMPLETED);
+                    assertThat(change.getOutputData()).isEqualTo("task-" + change.getTaskId());
+                    // 认领过的任务按执行节点 fencing
+                    assertThat(change.getWorkerId()).isNotNull();
+                });
+        for (String phase : List.of(ExecutionMetrics.QUEUE, ExecutionMetrics.RUN, ExecutionMetrics.PERSIST)) {
+            assertThat(meterRegistry.get(ExecutionMetrics.PHASE_TIMER).tags("phase", phase, "language", "python")
+                    .timer().count()).isEqualTo(10);
+        }
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void skipsTaskClaimedByAnotherNode() throws Exception {
+        when(taskRepository.claim(any())).thenReturn(0);
+        ExecutionStatsRollup statsRollup = mock(ExecutionStatsRollup.class);
+        ConcurrencyTrackingSandboxFactory sandboxFactory = new ConcurrencyTrackingSandboxFactory();
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, statsRollup, properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository, sandboxFactory,
+                stateWriter, resultCache, coalescer(stateWriter), outputStreams, payloadStore, new WorkerIdentity(),
+                metrics, properties);
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch(3L, done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        stateWriter.flush();
+
+        assertThat(sandboxFactory.compiles.get()).isZero();
+        assertThat(written).isEmpty();
+        verify(statsRollup, never()).record(any(TaskStateChange.class));
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void countsOnlyAppliedChangesInRollup() {
+        ExecutionStatsRollup statsRollup = mock(ExecutionStatsRollup.class);
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, statsRollup, properties);
+        TaskStateChange applied = TaskStateChange.finished(1L, ExecutionTask.Status.COMPLETED, "ok", null, 5, null);
+        TaskStateChange fenced = TaskStateChange.finished(2L, ExecutionTask.Status.COMPLETED, "ok", null, 5, null);
+        // 任务 2 已被回收并由其他节点完成，迟到的结果没有生效
+        doAnswer(invocation -> List.of(applied)).when(taskRepository).applyStateChanges(anyList());
+
+        stateWriter.submit(applied);
+        stateWriter.submit(fenced);
+        stateWriter.flush();
+
+        verify(statsRollup).record(applied);
+        verify(statsRollup, never()).record(fenced);
+    }
+
+    @Test
+    void runsPythonInLocalProcessSandbox() throws Exception {
+        assumeTrue(Files.isExecutable(Paths.get("/usr/bin/python3")), "需要 python3");
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository,
+                new LocalProcessSandboxFactory(properties, null), stateWriter, resultCache, coalescer(stateWriter),
+                outputStreams, payloadStore, new WorkerIdentity(), metrics, properties);
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch(42L, done::countDown);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        stateWriter.flush();
+
+        assertThat(written).last().satisfies(change -> {
+            assertThat(change.getStatus()).isEqualTo(ExecutionTask.Status.COMPLETED);
+            assertThat(change.getOutputData()).isEqualTo("task-42\n");
+        });
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void fansOutLeaderResultToCoalescedFollowers() throws Exception {
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionCoalescer coalescer = coalescer(stateWriter);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository,
+                new ConcurrencyTrackingSandboxFactory(), stateWriter, resultCache, coalescer,
+                outputStreams, payloadStore, new WorkerIdentity(), metrics, properties);
+
+        String key = resultCache.keyFor(taskRepository.findWithPayloadById(7L).orElseThrow()).asString();
+        assertThat(coalescer.attach(key, 7L)).isFalse();
+        assertThat(coalescer.attach(key, 8L)).isTrue();
+        assertThat(coalescer.attach(key, 9L)).isTrue();
+        verify(taskRepository).attachFollower(8L, 7L);
+        // 其他节点挂上来的跟随者只在数据库中
+        when(taskRepository.findPendingFollowers(7L)).thenReturn(List.of(8L, 11L));
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatch(7L, done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        stateWriter.flush();
+
+        assertThat(written).filteredOn(change -> change.getStatus() == ExecutionTask.Status.COMPLETED)
+                .extracting(TaskStateChange::getTaskId, TaskStateChange::getOutputData)
+                .containsExactlyInAnyOrder(tuple(7L, "task-7"), tuple(8L, "task-7"), tuple(9L, "task-7"),
+                        tuple(11L, "task-7"));
+        assertThat(coalescer.attach(key, 10L)).isFalse();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void streamsOutputToSubscribersWhileRunning() throws Exception {
+        assumeTrue(Files.isExecutable(Paths.get("/usr/bin/python3")), "需要 python3");
+        properties.getSandbox().setMaxOutputBytes(16);
+        outputStreams = new ExecutionOutputStreams(properties);
+        when(taskRepository.findWithPayloadById(5L)).thenAnswer(invocation -> {
+            ExecutionTask task = new ExecutionTask();
+            task.setId(5L);
+            task.setLanguage("python");
+            task.setCodeContent("import time\nprint('a')\ntime.sleep(0.3)\nprint('b' * 40)");
+            task.setStatus(ExecutionTask.Status.PENDING);
+            return Optional.of(task);
+        });
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository,
+                new LocalProcessSandboxFactory(properties, null), stateWriter, resultCache, coalescer(stateWriter),
+                outputStreams, payloadStore, new WorkerIdentity(), metrics, properties);
+
+        List<OutputChunk> chunks = new CopyOnWriteArrayList<>();
+        CountDownLatch ended = new CountDownLatch(1);
+        outputStreams.subscribe(5L, 1, new OutputSubscriber() {
+            @Override
+            public void onChunk(OutputChunk chunk) {
+                chunks.add(chunk);
+            }
+
+            @Override
+            public void onGap(long requestedSeq, long oldestSeq) {
+            }
+
+            @Override
+            public void onComplete(ExecutionTask.Status status, long lastSeq) {
+                ended.countDown();
+            }
+
+            @Override
+            public void onExpired(long lastSeq) {
+            }
+        });
+        dispatcher.dispatch(5L, () -> { });
+        assertThat(ended.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(chunks.get(0).data()).isEqualTo("a\n");
+        assertThat(chunks).extracting(OutputChunk::seq).isSorted();
+        assertThat(chunks).last().satisfies(chunk -> {
+            assertThat(chunk.stream()).isEqualTo(OutputStreamType.STDERR);
+            assertThat(chunk.data()).contains("已截断");
+        });
+        stateWriter.flush();
+        assertThat(written).last().satisfies(change -> assertThat(change.getOutputData())
+                .startsWith("a\n" + "b".repeat(14)).contains("已截断"));
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void compilesBatchOnceAndAbortsAfterFirstFailure() throws Exception {
+        ExecutionBatch batch = new ExecutionBatch();
+        batch.setId(1L);
+        batch.setLanguage("python");
+        batch.setCaseCount(5);
+        batch.setParallelism(1);
+        batch.setAbortOnFailure(true);
+        batch.setStatus(ExecutionBatch.Status.PENDING);
+        when(batchRepository.findById(1L)).thenReturn(Optional.of(batch));
+        when(batchRepository.claim(eq(1L), anyString(), any())).thenReturn(1);
+        when(batchRepository.finish(eq(1L), anyString(), any(), anyInt(), anyInt(), any(), anyInt(), any())).thenReturn(1);
+        List<String> inputs = List.of("ok-0", "ok-1", "fail-2", "ok-3", "ok-4");
+        List<ExecutionTask> cases = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            ExecutionTask task = new ExecutionTask();
+            task.setId(200L + i);
+            task.setLanguage("python");
+            task.setCodeContent("print(input())");
+            task.setInputData(inputs.get(i));
+            task.setCaseIndex(i);
+            task.setStatus(ExecutionTask.Status.PENDING);
+            cases.add(task);
+        }
+        when(taskRepository.findWithPayloadByBatchIdOrderByCaseIndexAsc(1L)).thenReturn(cases);
+
+        ConcurrencyTrackingSandboxFactory sandboxFactory = new ConcurrencyTrackingSandboxFactory();
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository, sandboxFactory,
+                stateWriter, resultCache, coalescer(stateWriter), outputStreams, payloadStore, new WorkerIdentity(),
+                metrics, properties);
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatchBatch(1L, done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        stateWriter.flush();
+
+        assertThat(sandboxFactory.compiles.get()).isEqualTo(1);
+        assertThat(written)
+                .extracting(TaskStateChange::getTaskId, TaskStateChange::getStatus)
+                .containsExactly(
+                        tuple(200L, ExecutionTask.Status.COMPLETED),
+                        tuple(201L, ExecutionTask.Status.COMPLETED),
+                        tuple(202L, ExecutionTask.Status.FAILED),
+                        tuple(203L, ExecutionTask.Status.CANCELLED),
+                        tuple(204L, ExecutionTask.Status.CANCELLED));
+        verify(batchRepository).finish(eq(1L), anyString(), eq(ExecutionBatch.Status.ABORTED), eq(2), eq(1), isNull(), anyInt(), any());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void servesCachedBatchCasesWithoutClaimingOrRunningThem() throws Exception {
+        ExecutionBatch batch = new ExecutionBatch();
+        batch.setId(2L);
+        batch.setLanguage("python");
+        batch.setCaseCount(2);
+        batch.setParallelism(1);
+        batch.setStatus(ExecutionBatch.Status.PENDING);
+        when(batchRepository.findById(2L)).thenReturn(Optional.of(batch));
+        when(batchRepository.claim(eq(2L), anyString(), any())).thenReturn(1);
+        when(batchRepository.finish(eq(2L), anyString(), any(), anyInt(), anyInt(), any(), anyInt(), any())).thenReturn(1);
+        List<ExecutionTask> cases = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ExecutionTask task = new ExecutionTask();
+            task.setId(300L + i);
+            task.setLanguage("python");
+            task.setCodeContent("print(input())");
+            task.setInputData("in-" + i);
+            task.setCaseIndex(i);
+            task.setStatus(ExecutionTask.Status.PENDING);
+            cases.add(task);
+        }
+        when(taskRepository.findWithPayloadByBatchIdOrderByCaseIndexAsc(2L)).thenReturn(cases);
+        resultCache.put(resultCache.keyFor(cases.get(0)),
+                new CachedExecutionResult(ExecutionTask.Status.COMPLETED, "cached", null, 1, 1));
+
+        ConcurrencyTrackingSandboxFactory sandboxFactory = new ConcurrencyTrackingSandboxFactory();
+        TaskStateWriter stateWriter = new TaskStateWriter(taskRepository, metrics, mock(ExecutionStatsRollup.class), properties);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository, sandboxFactory,
+                stateWriter, resultCache, coalescer(stateWriter), outputStreams, payloadStore, new WorkerIdentity(),
+                metrics, properties);
+
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.dispatchBatch(2L, done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        stateWriter.flush();
+
+        assertThat(claimed).extracting(TaskStateChange::getTaskId).containsExactly(301L);
+        assertThat(sandboxFactory.runs.get()).isEqualTo(1);
+        assertThat(written)
+                .extracting(TaskStateChange::getTaskId, TaskStateChange::getOutputData)
+                .containsExactly(tuple(300L, "cached"), tuple(301L, "in-1"));
+        assertThat(resultCache.getL1HitCount()).isEqualTo(1);
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void batchReservesPermitsByParallelismNotCaseCount() {
+        properties.getLanguageConcurrency().put("python", 8);
+        properties.getBatch().setMaxParallelism(4);
+        ExecutionDispatcher dispatcher = new ExecutionDispatcher(taskRepository, batchRepository,
+                new ConcurrencyTrackingSandboxFactory(), mock(TaskStateWriter.class), resultCache,
+                mock(ExecutionCoalescer.class), outputStreams, payloadStore, new WorkerIdentity(), metrics, properties);
+
+        assertThat(dispatcher.batchParallelismCap("python", 1, 50)).isEqualTo(1);
+        assertThat(dispatcher.batchParallelismCap("python", 16, 50)).isEqualTo(4);
+        assertThat(dispatcher.batchParallelismCap("python", 4, 2)).isEqualTo(2);
+        dispatcher.shutdown();
+    }
+
+    private ExecutionCoalescer coalescer(TaskStateWriter stateWriter) {
+        return new ExecutionCoalescer(new LocalInFlightRegistry(), stateWriter, mock(ExecutionQueuePublisher.class),
+                taskRepository, outputStreams, properties);
+    }
+
+    /**
+     * RabbitMQ 的替身：内存队列 + ack 计数
+     */
+    private static class InMemoryBroker {
+
+        private final BlockingQueue<ExecutionMessage> queue = new LinkedBlockingQueue<>();
+        private final ExecutionDispatcher dispatcher;
+        private final AtomicInteger acks = new AtomicInteger();
+
+        InMemoryBroker(ExecutionDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        void publish(ExecutionMessage message) {
+            queue.add(message);
+        }
+
+        void drain() {
+            ExecutionMessage message;
+            while ((message = queue.poll()) != null) {
+                dispatcher.dispatch(message.getTaskId(), acks::incrementAndGet);
+            }
+        }
+
+        boolean awaitAcks(int expected, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (acks.get() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return acks.get() >= expected;
+        }
+    }
+
+    /**
+     * 回显输入的沙箱，记录同时运行的最大数量
+     */
+    private static class ConcurrencyTrackingSandboxFactory implements SandboxFactory {
+
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger ids = new AtomicInteger();
+        private final AtomicInteger compiles = new AtomicInteger();
+        private final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public Sandbox create(String language) {
+            String id = "fake-" + ids.incrementAndGet();
+            return new Sandbox() {
+                @Override
+                public String getId() {
+                    return id;
+                }
+
+                @Override
+                public String getLanguage() {
+                    return language;
+                }
+
+                @Override
+                public SandboxResult compile(String code) {
+                    compiles.incrementAndGet();
+                    return SandboxResult.skipped();
+                }
+
+                @Override
+                public SandboxResult run(String input, OutputListener listener) {
+                    runs.incrementAndGet();
+                    int running = current.incrementAndGet();
+                    maxConcurrent.accumulateAndGet(running, Math::max);
+                    try {
+                        Thread.sleep(30);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        current.decrementAndGet();
+                    }
+                    byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                    listener.onOutput(OutputStreamType.STDOUT, bytes, 0, bytes.length);
+                    return new SandboxResult(input.startsWith("fail") ? 1 : 0, input, "", false, 30, null);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
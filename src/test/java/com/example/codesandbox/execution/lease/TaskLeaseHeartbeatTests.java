@@ -0,0 +1,100 @@
+package com.example.codesandbox.execution.lease;
+
+import com.example.codesandbox.execution.coalescing.ExecutionCoalescer;
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepositoryCustomImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TaskLeaseHeartbeatTests {
+
+    private static final LocalDateTime OLD_LEASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionBatchRepository batchRepository;
+    private ExecutionCoalescer coalescer;
+    private WorkerIdentity workerIdentity;
+    private TaskLeaseHeartbeat heartbeat;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:heartbeat;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS execution_tasks");
+        jdbcTemplate.execute("""
+                CREATE TABLE execution_tasks (
+                  id BIGINT PRIMARY KEY,
+                  status VARCHAR(20) NOT NULL,
+                  worker_id VARCHAR(128),
+                  heartbeat_at TIMESTAMP,
+                  lease_expires_at TIMESTAMP
+                )
+                """);
+        taskRepository = mock(ExecutionTaskRepository.class,
+                delegatesTo(new ExecutionTaskRepositoryCustomImpl(jdbcTemplate, null)));
+        batchRepository = mock(ExecutionBatchRepository.class);
+        coalescer = mock(ExecutionCoalescer.class);
+        workerIdentity = new WorkerIdentity();
+        heartbeat = new TaskLeaseHeartbeat(taskRepository, batchRepository, workerIdentity, coalescer,
+                new ExecutionProperties());
+    }
+
+    @Test
+    void renewsOnlyRunningTasksOwnedByThisWorker() {
+        insert(1, "RUNNING", workerIdentity.getId());
+        insert(2, "RUNNING", "other-node");
+        // 已结束、或被回收后重新排队的任务不能被续租，否则回收器永远等不到它过期
+        insert(3, "COMPLETED", workerIdentity.getId());
+        insert(4, "PENDING", workerIdentity.getId());
+
+        LocalDateTime before = LocalDateTime.now();
+        heartbeat.heartbeat();
+
+        Map<String, Object> own = row(1);
+        assertThat(((Timestamp) own.get("lease_expires_at")).toLocalDateTime()).isAfter(before);
+        assertThat(own.get("heartbeat_at")).isNotNull();
+        for (long id = 2; id <= 4; id++) {
+            Map<String, Object> untouched = row(id);
+            assertThat(untouched.get("lease_expires_at")).isEqualTo(Timestamp.valueOf(OLD_LEASE));
+            assertThat(untouched.get("heartbeat_at")).isNull();
+        }
+        verify(batchRepository).renewLeases(eq(workerIdentity.getId()), any());
+        verify(coalescer).renewLeaders();
+    }
+
+    @Test
+    void stillRenewsCoalescingLeadersWhenLeaseRenewalFails() {
+        doThrow(new IllegalStateException("db down")).when(taskRepository).renewLeases(any(), any(), any());
+
+        heartbeat.heartbeat();
+
+        verify(coalescer).renewLeaders();
+    }
+
+    private void insert(long id, String status, String workerId) {
+        jdbcTemplate.update("INSERT INTO execution_tasks (id, status, worker_id, lease_expires_at) VALUES (?, ?, ?, ?)",
+                id, status, workerId, Timestamp.valueOf(OLD_LEASE));
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT heartbeat_at, lease_expires_at FROM execution_tasks WHERE id = ?", id);
+    }
+}
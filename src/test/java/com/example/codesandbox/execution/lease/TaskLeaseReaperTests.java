@@ -0,0 +1,190 @@
+package com.example.codesandbox.execution.lease;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.repository.ExecutionBatchRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepositoryCustomImpl;
+import com.example.codesandbox.execution.service.ExecutionQueuePublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TaskLeaseReaperTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionBatchRepository batchRepository;
+    private ExecutionQueuePublisher publisher;
+    private ExecutionProperties properties;
+    private TaskLeaseReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:leases;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS execution_tasks");
+        jdbcTemplate.execute("""
+                CREATE TABLE execution_tasks (
+                  id BIGINT PRIMARY KEY,
+                  executor_id BIGINT NOT NULL,
+                  language VARCHAR(50) NOT NULL,
+                  status VARCHAR(20) NOT NULL,
+                  worker_id VARCHAR(128),
+                  container_id VARCHAR(128),
+                  batch_id BIGINT,
+                  attempt_count INT NOT NULL DEFAULT 0,
+                  heartbeat_at TIMESTAMP,
+                  lease_expires_at TIMESTAMP,
+                  error_message VARCHAR(255),
+                  completed_at TIMESTAMP
+                )
+                """);
+        // 多表 UPDATE（合并跟随者补齐）是 MySQL 专有语法，这里只验证租约相关的语句
+        taskRepository = mock(ExecutionTaskRepository.class,
+                delegatesTo(new ExecutionTaskRepositoryCustomImpl(jdbcTemplate, null)));
+        doReturn(0).when(taskRepository).resolveFinishedFollowers(any());
+        batchRepository = mock(ExecutionBatchRepository.class);
+        publisher = mock(ExecutionQueuePublisher.class);
+        properties = new ExecutionProperties();
+        properties.getLease().setMaxAttempts(3);
+        reaper = new TaskLeaseReaper(taskRepository, batchRepository, publisher, new WorkerIdentity(), properties);
+    }
+
+    @Test
+    void requeuesExpiredLeasesAndReleasesThemAfterRepublishing() {
+        LocalDateTime now = LocalDateTime.now();
+        insert(1, "RUNNING", "dead-node", null, 1, now.minusMinutes(1));
+        insert(2, "RUNNING", "live-node", null, 1, now.plusMinutes(1));
+        // 批量中的用例跟随批量的租约回收，不单独重新投递
+        insert(3, "RUNNING", "dead-node", 9L, 1, now.minusMinutes(1));
+        // 之前的回收者没来得及重新投递、临时租约已经过期的任务
+        insert(4, "PENDING", "reaper:other", null, 1, now.minusMinutes(1));
+        List<Map<String, Object>> atPublish = new ArrayList<>();
+        doAnswer(invocation -> {
+            atPublish.add(row(invocation.<TaskAttribution>getArgument(0).id()));
+            return null;
+        }).when(publisher).publish(any(TaskAttribution.class));
+
+        reaper.reap();
+
+        InOrder order = inOrder(taskRepository, publisher);
+        order.verify(taskRepository).reclaimExpiredLeases(any(), any(), any(), eq(3), eq(500));
+        order.verify(taskRepository).findReclaimedTasks(any());
+        // 重新投递的消息带上执行者和语言，公平调度器不需要再查数据库
+        order.verify(publisher).publish(new TaskAttribution(1L, 101L, "python"));
+        order.verify(publisher).publish(new TaskAttribution(4L, 104L, "python"));
+        order.verify(taskRepository).releaseReclaimed(any());
+        verify(publisher, times(2)).publish(any(TaskAttribution.class));
+
+        // 投递时任务由回收者临时持有（PENDING + 回收标识 + 临时租约），投递后才释放
+        assertThat(atPublish).allSatisfy(task -> {
+            assertThat(task.get("status")).isEqualTo("PENDING");
+            assertThat((String) task.get("worker_id")).startsWith("reaper:");
+            assertThat(task.get("lease_expires_at")).isNotNull();
+        });
+        for (long id : new long[]{1, 4}) {
+            Map<String, Object> task = row(id);
+            assertThat(task.get("status")).isEqualTo("PENDING");
+            assertThat(task.get("worker_id")).isNull();
+            assertThat(task.get("lease_expires_at")).isNull();
+        }
+        assertThat(row(2).get("worker_id")).isEqualTo("live-node");
+        assertThat(row(3).get("status")).isEqualTo("RUNNING");
+    }
+
+    @Test
+    void reclaimsInChunksUntilFewerThanChunkSizeAreUpdated() {
+        properties.getLease().setReapChunkSize(2);
+        reaper = new TaskLeaseReaper(taskRepository, batchRepository, publisher, new WorkerIdentity(), properties);
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        for (long id = 1; id <= 5; id++) {
+            insert(id, "RUNNING", "dead-node", null, 1, expired);
+        }
+
+        reaper.reap();
+
+        // 2 + 2 + 1：每块回收后立即投递并释放，最后一块不足 2 个时结束
+        verify(taskRepository, times(3)).releaseReclaimed(any());
+        for (long id = 1; id <= 5; id++) {
+            verify(publisher).publish(new TaskAttribution(id, 100 + id, "python"));
+            assertThat(row(id).get("worker_id")).isNull();
+        }
+    }
+
+    @Test
+    void marksTasksThatExhaustedTheirAttemptsAsTimedOut() {
+        LocalDateTime now = LocalDateTime.now();
+        insert(1, "RUNNING", "dead-node", null, 3, now.minusMinutes(1));
+        insert(2, "RUNNING", "dead-node", null, 2, now.minusMinutes(1));
+
+        reaper.reap();
+
+        Map<String, Object> exhausted = row(1);
+        assertThat(exhausted.get("status")).isEqualTo("TIMEOUT");
+        assertThat(exhausted.get("error_message")).isEqualTo(TaskLeaseReaper.LOST_WORKER_MESSAGE);
+        assertThat(exhausted.get("completed_at")).isNotNull();
+        assertThat(exhausted.get("lease_expires_at")).isNull();
+        verify(publisher).publish(new TaskAttribution(2L, 102L, "python"));
+        verify(publisher, times(1)).publish(any(TaskAttribution.class));
+    }
+
+    @Test
+    void failsCasesOfExpiredBatchesBeforeTheBatchItself() {
+        reaper.reap();
+
+        InOrder order = inOrder(batchRepository);
+        order.verify(batchRepository).failCasesOfExpired(any(), eq(TaskLeaseReaper.LOST_BATCH_MESSAGE));
+        order.verify(batchRepository).failExpired(any(), eq(TaskLeaseReaper.LOST_BATCH_MESSAGE));
+    }
+
+    @Test
+    void leavesReclaimedTasksHeldWhenRepublishFailsSoTheNextRoundRetries() {
+        LocalDateTime now = LocalDateTime.now();
+        insert(1, "RUNNING", "dead-node", null, 1, now.minusMinutes(1));
+        doThrow(new IllegalStateException("broker down")).when(publisher).publish(any(TaskAttribution.class));
+
+        reaper.reap();
+
+        // 没有释放：临时租约过期后会被再次回收
+        verify(taskRepository, never()).releaseReclaimed(any());
+        Map<String, Object> task = row(1);
+        assertThat(task.get("status")).isEqualTo("PENDING");
+        assertThat((String) task.get("worker_id")).startsWith("reaper:");
+        assertThat(((Timestamp) task.get("lease_expires_at")).toLocalDateTime()).isAfter(now);
+    }
+
+    private void insert(long id, String status, String workerId, Long batchId, int attempts, LocalDateTime leaseExpiresAt) {
+        jdbcTemplate.update("INSERT INTO execution_tasks "
+                        + "(id, executor_id, language, status, worker_id, batch_id, attempt_count, lease_expires_at) "
+                        + "VALUES (?, ?, 'python', ?, ?, ?, ?, ?)",
+                id, 100 + id, status, workerId, batchId, attempts, Timestamp.valueOf(leaseExpiresAt));
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT status, worker_id, lease_expires_at, error_message, completed_at FROM execution_tasks WHERE id = ?",
+                id);
+    }
+}
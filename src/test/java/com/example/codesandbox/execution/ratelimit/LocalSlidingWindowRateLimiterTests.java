@@ -0,0 +1,71 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalSlidingWindowRateLimiterTests {
+
+    private static final RateLimitRule RULE = new RateLimitRule(3, Duration.ofSeconds(1));
+
+    private final AtomicLong now = new AtomicLong(10_000);
+    private final LocalSlidingWindowRateLimiter limiter = new LocalSlidingWindowRateLimiter(now::get);
+
+    @Test
+    void allowsBurstUpToLimitThenRejects() {
+        for (int i = 2; i >= 0; i--) {
+            RateLimitDecision decision = limiter.tryAcquire("user:1", RULE);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.remaining()).isEqualTo(i);
+        }
+
+        RateLimitDecision rejected = limiter.tryAcquire("user:1", RULE);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.retryAfterMs()).isPositive();
+        // 其他 key 不受影响
+        assertThat(limiter.tryAcquire("user:2", RULE).allowed()).isTrue();
+    }
+
+    @Test
+    void retryAfterPointsToWhenQuotaIsBack() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user:1", RULE);
+        }
+        long retryAfter = limiter.tryAcquire("user:1", RULE).retryAfterMs();
+
+        now.addAndGet(retryAfter - 1);
+        assertThat(limiter.tryAcquire("user:1", RULE).allowed()).isFalse();
+        now.addAndGet(1);
+        assertThat(limiter.tryAcquire("user:1", RULE).allowed()).isTrue();
+    }
+
+    @Test
+    void refillsGraduallyAsPreviousWindowSlidesOut() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user:1", RULE);
+        }
+
+        // 下一个窗口过半：上个窗口的 3 次按一半计入，还能再放行 1 次
+        now.set(11_500);
+        assertThat(limiter.tryAcquire("user:1", RULE).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("user:1", RULE).allowed()).isFalse();
+
+        // 隔一个完整窗口后配额全部恢复
+        now.set(13_000);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user:1", RULE).allowed()).isTrue();
+        }
+    }
+
+    @Test
+    void zeroLimitAlwaysRejects() {
+        RateLimitDecision decision = limiter.tryAcquire("user:1", new RateLimitRule(0, Duration.ofSeconds(1)));
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.retryAfterMs()).isEqualTo(1_000);
+    }
+}
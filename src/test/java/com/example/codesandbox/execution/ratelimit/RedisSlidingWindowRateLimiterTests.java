@@ -0,0 +1,39 @@
+package com.example.codesandbox.execution.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisSlidingWindowRateLimiterTests {
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void scriptOnlyTouchesKeysPassedThroughKeys() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any()))
+                .thenReturn(List.of(0L, 0L, 250L));
+
+        RateLimitDecision decision = new RedisSlidingWindowRateLimiter(redisTemplate)
+                .tryAcquire("user:1", new RateLimitRule(3, Duration.ofSeconds(1)));
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(redisTemplate).execute(script.capture(), eq(List.of("codesandbox:ratelimit:user:1")),
+                eq("3"), eq("1000"));
+        // Redis Cluster 要求脚本访问的 key 都经 KEYS 传入，不能在脚本里拼接
+        assertThat(script.getValue().getScriptAsString()).doesNotContain("KEYS[1] ..", "KEYS[2]");
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.retryAfterMs()).isEqualTo(250);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledArtifactCacheTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void copiesCachedArtifactsAndEvictsLeastRecentlyUsedBySize() throws Exception {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.getArtifactCache().setDir(tmp.resolve("cache").toString());
+        properties.getArtifactCache().setMaxBytes(250);
+        CompiledArtifactCache cache = new CompiledArtifactCache(properties, new SimpleMeterRegistry());
+
+        cache.store("a", workDirWith("a", 100), List.of("main"));
+        cache.store("b", workDirWith("b", 100), List.of("main"));
+        Path sandbox = Files.createDirectory(tmp.resolve("sandbox"));
+        assertTrue(cache.copyInto("a", sandbox));
+        assertEquals(100, Files.size(sandbox.resolve("main")));
+
+        // 沙箱改写自己的副本不影响缓存
+        sandbox.resolve("main").toFile().setWritable(true);
+        Files.write(sandbox.resolve("main"), new byte[1]);
+        Path next = Files.createDirectory(tmp.resolve("next"));
+        assertTrue(cache.copyInto("a", next));
+        assertEquals(100, Files.size(next.resolve("main")));
+
+        // a 刚被使用过，放入 c 后淘汰的是 b
+        cache.store("c", workDirWith("c", 100), List.of("main"));
+        assertEquals(200, cache.getTotalBytes());
+        assertFalse(cache.copyInto("b", Files.createDirectory(tmp.resolve("other"))));
+
+        CompiledArtifactCache reloaded = new CompiledArtifactCache(properties, new SimpleMeterRegistry());
+        assertEquals(2, reloaded.size());
+        assertEquals(200, reloaded.getTotalBytes());
+    }
+
+    @Test
+    void treatsPartialArtifactSetAsMissAndDropsTheEntry() throws Exception {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.getArtifactCache().setDir(tmp.resolve("cache").toString());
+        CompiledArtifactCache cache = new CompiledArtifactCache(properties, new SimpleMeterRegistry());
+
+        Path work = workDirWith("a", 100);
+        Files.write(work.resolve("helper"), new byte[10]);
+        cache.store("a", work, List.of("main", "helper"));
+        Files.delete(tmp.resolve("cache").resolve("a").resolve("helper"));
+
+        Path sandbox = Files.createDirectory(tmp.resolve("sandbox"));
+        assertFalse(cache.copyInto("a", sandbox));
+        assertFalse(Files.exists(sandbox.resolve("main")));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    private Path workDirWith(String name, int size) throws Exception {
+        Path dir = Files.createDirectory(tmp.resolve("work-" + name));
+        Files.write(dir.resolve("main"), new byte[size]);
+        Files.writeString(dir.resolve("main.cpp"), "int main() {}");
+        return dir;
+    }
+}
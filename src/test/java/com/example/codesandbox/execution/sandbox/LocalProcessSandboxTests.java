@@ -0,0 +1,89 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LocalProcessSandboxTests {
+
+    @TempDir
+    Path workDir;
+
+    private LocalProcessSandboxFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(Files.isExecutable(Paths.get("/usr/bin/python3")), "需要 python3");
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.getSandbox().setWorkDir(workDir.toString());
+        factory = new LocalProcessSandboxFactory(properties, null);
+    }
+
+    @Test
+    void reportsPeakMemoryOfRun() {
+        assumeTrue(Files.isReadable(Paths.get("/proc/self/status")), "需要 /proc");
+        try (Sandbox sandbox = factory.create("python")) {
+            sandbox.compile("import time\nblock = bytearray(64 * 1024 * 1024)\ntime.sleep(0.3)");
+            SandboxResult result = sandbox.run("", OutputListener.NONE);
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getMemoryUsedMb()).isGreaterThanOrEqualTo(64);
+        }
+    }
+
+    @Test
+    void killsBackgroundChildrenLeftByRun() {
+        assumeTrue(ProcessGroups.supported(), "需要 setsid 和 /proc");
+        LocalProcessSandbox sandbox = (LocalProcessSandbox) factory.create("python");
+        try {
+            // 父进程立即退出，子进程被 init 接管，不再是它的子孙进程
+            sandbox.compile("import subprocess\nprint(subprocess.Popen(['sleep', '30']).pid)");
+            SandboxResult result = sandbox.run("", OutputListener.NONE);
+            long child = Long.parseLong(result.getStdout().trim());
+
+            assertThat(running(child)).isFalse();
+            assertThat(sandbox.reset()).isTrue();
+        } finally {
+            sandbox.close();
+        }
+    }
+
+    @Test
+    void resetKillsDetachedProcessesAndRefusesReuse() {
+        assumeTrue(ProcessGroups.supported(), "需要 setsid 和 /proc");
+        LocalProcessSandbox sandbox = (LocalProcessSandbox) factory.create("python");
+        try {
+            // 子进程开新会话脱离了进程组，只能按工作目录找到
+            sandbox.compile("import subprocess\n"
+                    + "print(subprocess.Popen(['sleep', '30'], start_new_session=True).pid)");
+            SandboxResult result = sandbox.run("", OutputListener.NONE);
+            long child = Long.parseLong(result.getStdout().trim());
+
+            assertThat(sandbox.reset()).isFalse();
+            assertThat(running(child)).isFalse();
+        } finally {
+            sandbox.close();
+        }
+    }
+
+    /**
+     * 被结束的孤儿进程可能暂时是僵尸进程（容器里的 init 不一定及时回收）
+     */
+    private static boolean running(long pid) {
+        try {
+            String stat = Files.readString(Paths.get("/proc", Long.toString(pid), "stat"));
+            return stat.charAt(stat.lastIndexOf(')') + 2) != 'Z';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
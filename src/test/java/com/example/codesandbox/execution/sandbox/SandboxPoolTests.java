@@ -0,0 +1,94 @@
+package com.example.codesandbox.execution.sandbox;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SandboxPoolTests {
+
+    @TempDir
+    Path workDir;
+
+    private ExecutionProperties properties;
+    private SandboxPool pool;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExecutionProperties();
+        properties.getSandbox().setWorkDir(workDir.toString());
+        properties.getSandbox().setTimeout(Duration.ofMillis(500));
+        properties.getSandbox().getPool().setMinIdle(1);
+        properties.getSandbox().getPool().setMaxUses(3);
+        pool = new SandboxPool(new LocalProcessSandboxFactory(properties, null), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reusesResetSandboxAndRecyclesAfterMaxUses() {
+        pool.prewarm();
+        assertThat(pool.getStats("python").idle()).isEqualTo(1);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            try (Sandbox sandbox = pool.create("python")) {
+                // 上一个任务写的文件已被清空
+                assertThat(workDir.resolve(sandbox.getId().substring("local-".length()))).isEmptyDirectory();
+                sandbox.compile("print(1)");
+                ids.add(sandbox.getId());
+            }
+        }
+
+        // 前 3 次是同一个预热沙箱，用满 maxUses 后销毁，第 4 次新建
+        assertThat(ids.subList(0, 3)).containsOnly(ids.get(0));
+        assertThat(ids.get(3)).isNotEqualTo(ids.get(0));
+        SandboxPool.Stats stats = pool.getStats("python");
+        assertThat(stats.hits()).isEqualTo(3);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.recycled()).isEqualTo(1);
+        assertThat(stats.inUse()).isZero();
+    }
+
+    @Test
+    void recyclesSandboxAfterTimeout() {
+        assumeTrue(Files.isExecutable(Paths.get("/usr/bin/python3")), "需要 python3");
+        String id;
+        try (Sandbox sandbox = pool.create("python")) {
+            sandbox.compile("import time\ntime.sleep(5)");
+            assertThat(sandbox.run("", OutputListener.NONE).isTimedOut()).isTrue();
+            id = sandbox.getId();
+        }
+        assertThat(pool.getStats("python").recycled()).isEqualTo(1);
+        try (Sandbox sandbox = pool.create("python")) {
+            assertThat(sandbox.getId()).isNotEqualTo(id);
+        }
+    }
+
+    @Test
+    void scalesIdleSandboxesWithDemand() {
+        List<Sandbox> borrowed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            borrowed.add(pool.create("go"));
+        }
+        borrowed.forEach(Sandbox::close);
+        pool.rebalance();
+        assertThat(pool.getStats("go").targetIdle()).isEqualTo(5);
+        assertThat(pool.getStats("go").idle()).isEqualTo(5);
+
+        // 之后没有请求，目标空闲数逐渐回落到 minIdle
+        for (int i = 0; i < 20; i++) {
+            pool.rebalance();
+        }
+        assertThat(pool.getStats("go").idle()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.codesandbox.execution.scheduler;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CostEstimatorTests {
+
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionProperties properties;
+    private CostEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(ExecutionTaskRepository.class);
+        properties = new ExecutionProperties();
+        properties.getScheduler().setMaxCostEntries(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        estimator.shutdown();
+    }
+
+    @Test
+    void answersWithDefaultAndFillsHistoricalAverageInBackground() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskRepository.averageExecutionTimeMs(eq(7L), eq("python"), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 250.0;
+        });
+        estimator = new CostEstimator(taskRepository, properties);
+
+        assertThat(estimator.estimate(7L, "python")).isEqualTo(1_000);
+        release.countDown();
+        verify(taskRepository, timeout(5_000)).averageExecutionTimeMs(eq(7L), eq("python"), any());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (estimator.estimate(7L, "python") != 250 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(estimator.estimate(7L, "python")).isEqualTo(250);
+    }
+
+    @Test
+    void keepsObservedSamplesOverLateHistoryAndEvictsLeastRecentlyUsed() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskRepository.averageExecutionTimeMs(any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 9_000.0;
+        });
+        estimator = new CostEstimator(taskRepository, properties);
+
+        estimator.estimate(7L, "python");
+        estimator.record(7L, "python", 2_000);
+        release.countDown();
+        verify(taskRepository, timeout(5_000)).averageExecutionTimeMs(eq(7L), eq("python"), any());
+        Thread.sleep(50);
+        assertThat(estimator.estimate(7L, "python")).isEqualTo(1_200);
+
+        estimator.record(8L, "java", 300);
+        estimator.record(9L, "go", 400);
+        assertThat(estimator.estimate(7L, "python")).isEqualTo(1_000);
+    }
+}
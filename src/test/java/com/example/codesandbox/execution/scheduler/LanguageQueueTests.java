@@ -0,0 +1,58 @@
+package com.example.codesandbox.execution.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LanguageQueueTests {
+
+    private static final Long HEAVY_USER = 1L;
+    private static final Long LIGHT_USER = 2L;
+
+    @Test
+    void lightUserDoesNotWaitBehindHeavyBacklog() {
+        LanguageQueue queue = new LanguageQueue(1);
+        for (long id = 1; id <= 50; id++) {
+            queue.offer(task(id, HEAVY_USER, 5_000, 1));
+        }
+        // 第一个重任务开始执行后，轻任务用户才提交
+        PendingTask first = queue.poll();
+        assertThat(first.executorId()).isEqualTo(HEAVY_USER);
+        queue.offer(task(100L, LIGHT_USER, 100, 1));
+
+        List<Long> order = new ArrayList<>();
+        while (queue.size() > 0) {
+            queue.release(1);
+            order.add(queue.poll().taskId());
+        }
+        assertThat(order.indexOf(100L)).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void respectsCapacityAndLaneWeights() {
+        LanguageQueue queue = new LanguageQueue(2);
+        for (long id = 1; id <= 30; id++) {
+            queue.offer(task(id, HEAVY_USER, 1_000, 1));
+            queue.offer(task(100 + id, LIGHT_USER, 1_000, 2));
+        }
+        List<PendingTask> started = new ArrayList<>();
+        started.add(queue.poll());
+        started.add(queue.poll());
+        assertThat(queue.poll()).isNull();
+
+        for (int i = 0; i < 28; i++) {
+            queue.release(1);
+            started.add(queue.poll());
+        }
+        long weighted = started.stream().filter(task -> task.executorId().equals(LIGHT_USER)).count();
+        assertThat(weighted).isBetween(19L, 21L);
+    }
+
+    private static PendingTask task(Long taskId, Long executorId, long costMs, int weight) {
+        return new PendingTask(taskId, null, executorId, "cpp", "default", 1, costMs, weight, 1,
+                System.currentTimeMillis(), () -> { });
+    }
+}
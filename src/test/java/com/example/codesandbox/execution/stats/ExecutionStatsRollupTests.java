@@ -0,0 +1,144 @@
+package com.example.codesandbox.execution.stats;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.dto.TaskAttribution;
+import com.example.codesandbox.execution.dto.TaskStateChange;
+import com.example.codesandbox.execution.entity.ExecutionStatsDaily;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionStatsRepository;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionStatsRollupTests {
+
+    private static final LocalDateTime COMPLETED_AT = LocalDateTime.of(2025, 11, 20, 10, 0);
+
+    private ExecutionStatsRepository statsRepository;
+    private ExecutionTaskRepository taskRepository;
+    private ExecutionStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        statsRepository = mock(ExecutionStatsRepository.class);
+        taskRepository = mock(ExecutionTaskRepository.class);
+        rollup = new ExecutionStatsRollup(statsRepository, taskRepository, new ExecutionProperties());
+    }
+
+    @Test
+    void aggregatesCompletionsPerDimensionAndDay() {
+        rollup.record(finished(1L, 7L, "python", ExecutionTask.Status.COMPLETED, 3));
+        rollup.record(finished(2L, 7L, "python", ExecutionTask.Status.FAILED, 100));
+        rollup.record(finished(3L, 8L, "java", ExecutionTask.Status.TIMEOUT, null));
+        rollup.record(TaskStateChange.running(4L, "c", "w", Duration.ofSeconds(1)));
+
+        rollup.flush();
+
+        List<ExecutionStatsDelta> deltas = captureDeltas();
+        assertThat(deltas)
+                .extracting(ExecutionStatsDelta::getDimension, ExecutionStatsDelta::getDimKey,
+                        ExecutionStatsDelta::getTotalCount, ExecutionStatsDelta::getCompletedCount,
+                        ExecutionStatsDelta::getFailedCount, ExecutionStatsDelta::getTimeoutCount,
+                        ExecutionStatsDelta::getTotalTimeMs, ExecutionStatsDelta::getTimedCount)
+                .containsExactlyInAnyOrder(
+                        tuple(ExecutionStatsDaily.ALL, "", 3L, 1L, 1L, 1L, 103L, 2L),
+                        tuple(ExecutionStatsDaily.LANGUAGE, "python", 2L, 1L, 1L, 0L, 103L, 2L),
+                        tuple(ExecutionStatsDaily.LANGUAGE, "java", 1L, 0L, 0L, 1L, 0L, 0L),
+                        tuple(ExecutionStatsDaily.USER, "7", 2L, 1L, 1L, 0L, 103L, 2L),
+                        tuple(ExecutionStatsDaily.USER, "8", 1L, 0L, 0L, 1L, 0L, 0L));
+        assertThat(deltas).allMatch(delta -> delta.getStatDate().equals(LocalDate.of(2025, 11, 20)));
+        ExecutionStatsDelta python = deltas.stream()
+                .filter(delta -> delta.getDimKey().equals("python")).findFirst().orElseThrow();
+        assertThat(python.getLatency().count(LatencyHistogram.bucketOf(3))).isEqualTo(1);
+        assertThat(python.getLatency().count(LatencyHistogram.bucketOf(100))).isEqualTo(1);
+    }
+
+    @Test
+    void resolvesMissingAttributionWithOneQuery() {
+        rollup.record(finished(1L, null, null, ExecutionTask.Status.COMPLETED, 5));
+        rollup.record(finished(2L, 9L, "go", ExecutionTask.Status.COMPLETED, 5));
+        when(taskRepository.findAttributions(List.of(1L))).thenReturn(List.of(new TaskAttribution(1L, 9L, "go")));
+
+        rollup.flush();
+
+        assertThat(captureDeltas())
+                .filteredOn(delta -> delta.getDimension().equals(ExecutionStatsDaily.USER))
+                .extracting(ExecutionStatsDelta::getDimKey, ExecutionStatsDelta::getTotalCount)
+                .containsExactly(tuple("9", 2L));
+    }
+
+    @Test
+    void keepsCompletionsWhenWriteFails() {
+        doThrow(new IllegalStateException("db down")).doNothing().when(statsRepository).applyDeltas(any());
+        rollup.record(finished(1L, 7L, "python", ExecutionTask.Status.COMPLETED, 5));
+
+        rollup.flush();
+        assertThat(rollup.getPendingCount()).isEqualTo(1);
+        rollup.flush();
+
+        assertThat(rollup.getPendingCount()).isZero();
+        verify(statsRepository, times(2)).applyDeltas(any());
+    }
+
+    @Test
+    void neverRebuildsDaysThatMayAlreadyBeArchived() {
+        LocalDate today = LocalDate.now();
+        LocalDate earliest = LocalDateTime.now().minusDays(30).toLocalDate().plusDays(1);
+
+        rollup.rebuild(today.minusDays(365), today);
+        rollup.rebuild(today.minusDays(365), today.minusDays(60));
+
+        verify(statsRepository).rebuild(earliest, today);
+        verify(statsRepository, times(1)).rebuild(any(), any());
+    }
+
+    @Test
+    void estimatesPercentilesFromBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_000);
+        }
+
+        assertThat(LatencyHistogram.bucketOf(0)).isZero();
+        assertThat(LatencyHistogram.bucketOf(1)).isEqualTo(1);
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+        assertThat(histogram.percentile(0.5)).isEqualTo(16);
+        assertThat(histogram.percentile(0.95)).isEqualTo(1024);
+        assertThat(new LatencyHistogram().percentile(0.5)).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ExecutionStatsDelta> captureDeltas() {
+        ArgumentCaptor<Collection<ExecutionStatsDelta>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(statsRepository).applyDeltas(captor.capture());
+        return List.copyOf(captor.getValue());
+    }
+
+    private static TaskStateChange finished(Long taskId, Long executorId, String language,
+                                            ExecutionTask.Status status, Integer timeMs) {
+        TaskStateChange change = TaskStateChange.finished(taskId, status, null, null, timeMs, null);
+        change.setExecutorId(executorId);
+        change.setLanguage(language);
+        change.setCompletedAt(COMPLETED_AT);
+        return change;
+    }
+}
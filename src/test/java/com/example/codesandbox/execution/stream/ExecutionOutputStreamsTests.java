@@ -0,0 +1,227 @@
+package com.example.codesandbox.execution.stream;
+
+import com.example.codesandbox.execution.config.ExecutionProperties;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.sandbox.OutputStreamType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionOutputStreamsTests {
+
+    private ExecutionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExecutionProperties();
+        properties.getStream().setRingBufferBytes(1024);
+    }
+
+    @Test
+    void truncatesOnCharacterBoundary() {
+        properties.getSandbox().setMaxOutputBytes(4);
+        ExecutionOutputStreams streams = new ExecutionOutputStreams(properties);
+        streams.open(1L);
+        byte[] bytes = "a中文".getBytes(StandardCharsets.UTF_8);
+        streams.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        streams.subscribe(1L, 1, subscriber);
+
+        // 上限 4 字节落在"文"的中间，只保留 "a中"
+        assertThat(subscriber.chunks.get(0).data()).isEqualTo("a中");
+        assertThat(subscriber.chunks.get(1).data()).contains("已截断");
+    }
+
+    @Test
+    void stopsBufferingOnceBudgetIsExhausted() {
+        properties.getStream().setMaxTotalBufferBytes(1024);
+        ExecutionOutputStreams streams = new ExecutionOutputStreams(properties);
+        byte[] bytes = "out".getBytes(StandardCharsets.UTF_8);
+        streams.open(1L);
+        streams.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+        streams.open(2L);
+        RecordingSubscriber live = new RecordingSubscriber();
+        streams.subscribe(2L, 1, live);
+        streams.append(2L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+
+        assertThat(streams.reservedBufferBytes()).isEqualTo(1024);
+        // 没有缓冲的会话照常推给已连接的订阅者，迟到的订阅者收到缺口
+        assertThat(live.chunks).extracting(OutputChunk::seq).containsExactly(1L);
+        RecordingSubscriber late = new RecordingSubscriber();
+        streams.subscribe(2L, 1, late);
+        assertThat(late.chunks).isEmpty();
+        assertThat(late.gapOldestSeq).isEqualTo(2);
+    }
+
+    @Test
+    void evictionSendsTerminalFrameAndReleasesBudget() throws InterruptedException {
+        properties.getStream().setIdleTimeout(Duration.ZERO);
+        ExecutionOutputStreams streams = new ExecutionOutputStreams(properties);
+        streams.open(1L);
+        byte[] bytes = "out".getBytes(StandardCharsets.UTF_8);
+        streams.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        streams.subscribe(1L, 2, subscriber);
+
+        Thread.sleep(5);
+        streams.evictExpired();
+
+        assertThat(subscriber.expiredAt).isEqualTo(1);
+        assertThat(streams.hasSession(1L)).isFalse();
+        assertThat(streams.reservedBufferBytes()).isZero();
+    }
+
+    @Test
+    void listsOnlySubscriptionsWithoutLocalProducer() {
+        ExecutionOutputStreams streams = new ExecutionOutputStreams(properties);
+        streams.subscribe(1L, 1, new RecordingSubscriber());
+        streams.subscribe(2L, 1, new RecordingSubscriber());
+        streams.open(2L);
+
+        assertThat(streams.awaitingRemote()).containsExactly(1L);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        streams.subscribe(1L, 1, subscriber);
+        streams.completeWithOutput(1L, ExecutionTask.Status.COMPLETED, "done");
+        assertThat(subscriber.chunks).extracting(OutputChunk::data).containsExactly("done");
+        assertThat(subscriber.completed).isEqualTo(ExecutionTask.Status.COMPLETED);
+        assertThat(streams.awaitingRemote()).isEmpty();
+    }
+
+    @Test
+    void relaysLiveChunksWithSequenceNumbersToOtherNodes() {
+        LoopbackRelay relay = new LoopbackRelay();
+        ExecutionOutputStreams running = new ExecutionOutputStreams(properties, relay);
+        ExecutionOutputStreams other = new ExecutionOutputStreams(properties, relay);
+        byte[] bytes = "out".getBytes(StandardCharsets.UTF_8);
+        running.open(1L);
+        running.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        other.subscribe(1L, 1, subscriber);
+        running.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+        running.append(1L, OutputStreamType.STDERR, bytes, 0, bytes.length);
+
+        // 监听开始前的块通过缺口告知，之后的块保持运行节点上的序号
+        assertThat(subscriber.gapOldestSeq).isEqualTo(2);
+        assertThat(subscriber.chunks).extracting(OutputChunk::seq).containsExactly(2L, 3L);
+        assertThat(subscriber.chunks).extracting(OutputChunk::stream)
+                .containsExactly(OutputStreamType.STDOUT, OutputStreamType.STDERR);
+        assertThat(other.awaitingRemote()).containsExactly(1L);
+
+        running.complete(1L, ExecutionTask.Status.COMPLETED);
+        assertThat(subscriber.completed).isEqualTo(ExecutionTask.Status.COMPLETED);
+        assertThat(subscriber.lastSeq).isEqualTo(3);
+        assertThat(other.hasSession(1L)).isFalse();
+        assertThat(running.hasSession(1L)).isTrue();
+        assertThat(relay.listeners).isEmpty();
+    }
+
+    @Test
+    void relaysFollowerOutputWithoutLocalSession() {
+        LoopbackRelay relay = new LoopbackRelay();
+        ExecutionOutputStreams leader = new ExecutionOutputStreams(properties, relay);
+        ExecutionOutputStreams other = new ExecutionOutputStreams(properties, relay);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        other.subscribe(2L, 1, subscriber);
+
+        leader.completeWithOutput(2L, ExecutionTask.Status.COMPLETED, "done");
+
+        assertThat(subscriber.chunks).extracting(OutputChunk::data).containsExactly("done");
+        assertThat(subscriber.completed).isEqualTo(ExecutionTask.Status.COMPLETED);
+        assertThat(leader.hasSession(2L)).isFalse();
+    }
+
+    @Test
+    void storedResultOnlyEndsSessionsThatAlreadyReceivedRelayedOutput() {
+        LoopbackRelay relay = new LoopbackRelay();
+        ExecutionOutputStreams running = new ExecutionOutputStreams(properties, relay);
+        ExecutionOutputStreams other = new ExecutionOutputStreams(properties, relay);
+        byte[] bytes = "out".getBytes(StandardCharsets.UTF_8);
+        running.open(1L);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        other.subscribe(1L, 1, subscriber);
+        running.append(1L, OutputStreamType.STDOUT, bytes, 0, bytes.length);
+
+        // 结束事件丢失，兜底用保存的结果结束会话时不再重复推送已经收到的输出
+        other.completeFromStore(1L, ExecutionTask.Status.COMPLETED, "out");
+
+        assertThat(subscriber.chunks).extracting(OutputChunk::seq).containsExactly(1L);
+        assertThat(subscriber.completed).isEqualTo(ExecutionTask.Status.COMPLETED);
+        assertThat(other.hasSession(1L)).isFalse();
+        assertThat(relay.listeners).isEmpty();
+    }
+
+    /**
+     * 同步投递的进程内转发，模拟多个节点共用一个 Redis
+     */
+    private static final class LoopbackRelay implements OutputRelay {
+
+        private final Map<Long, OutputSubscriber> listeners = new HashMap<>();
+
+        @Override
+        public void publishChunk(Long taskId, OutputChunk chunk) {
+            OutputSubscriber listener = listeners.get(taskId);
+            if (listener != null) {
+                listener.onChunk(chunk);
+            }
+        }
+
+        @Override
+        public void publishComplete(Long taskId, ExecutionTask.Status status, long lastSeq) {
+            OutputSubscriber listener = listeners.get(taskId);
+            if (listener != null) {
+                listener.onComplete(status, lastSeq);
+            }
+        }
+
+        @Override
+        public void listen(Long taskId, OutputSubscriber listener) {
+            listeners.put(taskId, listener);
+        }
+
+        @Override
+        public void unlisten(Long taskId) {
+            listeners.remove(taskId);
+        }
+    }
+
+    private static final class RecordingSubscriber implements OutputSubscriber {
+
+        private final List<OutputChunk> chunks = new ArrayList<>();
+        private long gapOldestSeq = -1;
+        private long expiredAt = -1;
+        private ExecutionTask.Status completed;
+        private long lastSeq = -1;
+
+        @Override
+        public void onChunk(OutputChunk chunk) {
+            chunks.add(chunk);
+        }
+
+        @Override
+        public void onGap(long requestedSeq, long oldestSeq) {
+            gapOldestSeq = oldestSeq;
+        }
+
+        @Override
+        public void onComplete(ExecutionTask.Status status, long lastSeq) {
+            completed = status;
+            this.lastSeq = lastSeq;
+        }
+
+        @Override
+        public void onExpired(long lastSeq) {
+            expiredAt = lastSeq;
+        }
+    }
+}
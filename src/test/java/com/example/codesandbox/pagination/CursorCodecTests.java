@@ -0,0 +1,51 @@
+package com.example.codesandbox.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTests {
+
+    @Test
+    void roundTripsKeysetPosition() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+        String cursor = CursorCodec.encode(ScrollPosition.forward(Map.of("createdAt", createdAt, "id", 42L)));
+
+        KeysetScrollPosition position = CursorCodec.decode(cursor);
+        assertThat(position.getKeys()).containsEntry("createdAt", createdAt).containsEntry("id", 42L);
+        assertThat(position.scrollsForward()).isTrue();
+        assertThat(CursorCodec.decode(null).isInitial()).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedCursor() {
+        assertThatThrownBy(() -> CursorCodec.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorCodec.decode("djJ8eHx5")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildsPageWithNextCursorFromLastRow() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Row> rows = List.of(new Row(3L, now), new Row(2L, now.minusSeconds(1)));
+        Window<Row> window = Window.from(rows,
+                index -> ScrollPosition.forward(Map.of("createdAt", rows.get(index).createdAt(), "id", rows.get(index).id())),
+                true);
+
+        CursorPage<Long> page = CursorPage.of(window, Row::id);
+        assertThat(page.items()).containsExactly(3L, 2L);
+        assertThat(CursorCodec.decode(page.nextCursor()).getKeys()).containsEntry("id", 2L);
+
+        assertThat(CursorPage.of(Window.from(rows, index -> ScrollPosition.keyset(), false)).hasNext()).isFalse();
+    }
+
+    private record Row(Long id, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.codesandbox.pagination;
+
+import com.example.codesandbox.audit.entity.AuditLog;
+import com.example.codesandbox.audit.repository.AuditLogRepository;
+import com.example.codesandbox.execution.dto.ExecutionTaskSummary;
+import com.example.codesandbox.execution.entity.ExecutionTask;
+import com.example.codesandbox.execution.repository.ExecutionTaskRepository;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.storage.blob.BlobStore;
+import com.example.codesandbox.user.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 游标分页（created_at DESC, id DESC）的端到端翻页：游标经过 CursorCodec 编码、解码后再取下一页
+ */
+@DataJpaTest
+class KeysetPaginationRepositoryTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @MockitoBean
+    private BlobStore blobStore;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExecutionTaskRepository taskRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private CodeSnippetRepository snippetRepository;
+
+    private User owner;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("owner"));
+        other = entityManager.persist(user("other"));
+    }
+
+    @Test
+    void scrollsTaskSummariesWithoutGapsOrDuplicatesAcrossEqualTimestamps() {
+        // 7 个任务只有 3 个不同的创建时间，页大小 2 让翻页边界落在相同时间的行中间
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(persistTask(owner, BASE.plusMinutes(i / 3)));
+        }
+        persistTask(other, BASE.plusMinutes(1));
+        entityManager.clear();
+
+        List<ExecutionTaskSummary> rows = scrollAll(position ->
+                taskRepository.findSummariesByExecutorOrderByCreatedAtDescIdDesc(owner, position, Limit.of(2)));
+
+        assertThat(rows).extracting(ExecutionTaskSummary::id).containsExactlyElementsOf(newestFirst(ids, rows,
+                ExecutionTaskSummary::id, ExecutionTaskSummary::createdAt));
+        assertThat(rows).extracting(ExecutionTaskSummary::id).doesNotHaveDuplicates().hasSize(7);
+    }
+
+    @Test
+    void scrollsTaskEntitiesInTheSameOrderAsSummaries() {
+        for (int i = 0; i < 5; i++) {
+            persistTask(owner, BASE);
+        }
+        entityManager.clear();
+
+        List<Long> entities = scrollAll(position ->
+                taskRepository.findByExecutorOrderByCreatedAtDescIdDesc(owner, position, Limit.of(2)))
+                .stream().map(ExecutionTask::getId).toList();
+        List<Long> summaries = scrollAll(position ->
+                taskRepository.findSummariesByExecutorOrderByCreatedAtDescIdDesc(owner, position, Limit.of(3)))
+                .stream().map(ExecutionTaskSummary::id).toList();
+
+        // 创建时间全部相同：完全按 id 倒序
+        assertThat(entities).hasSize(5).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(summaries).isEqualTo(entities);
+    }
+
+    @Test
+    void scrollsAuditLogsOfOneUser() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(persistAuditLog(owner, BASE.plusSeconds(i % 2)));
+        }
+        persistAuditLog(other, BASE);
+        entityManager.clear();
+
+        List<AuditLog> rows = scrollAll(position ->
+                auditLogRepository.findByUserOrderByCreatedAtDescIdDesc(owner, position, Limit.of(4)));
+
+        assertThat(rows).extracting(AuditLog::getId).containsExactlyElementsOf(
+                newestFirst(ids, rows, AuditLog::getId, AuditLog::getCreatedAt));
+    }
+
+    @Test
+    void scrollsAuditLogsInTimeRange() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(persistAuditLog(i % 2 == 0 ? owner : other, BASE.plusSeconds(i / 2)));
+        }
+        persistAuditLog(owner, BASE.plusHours(1));
+        entityManager.clear();
+
+        List<AuditLog> rows = scrollAll(position -> auditLogRepository.findByCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+                BASE, BASE.plusMinutes(1), position, Limit.of(2)));
+
+        assertThat(rows).extracting(AuditLog::getId).containsExactlyElementsOf(
+                newestFirst(ids, rows, AuditLog::getId, AuditLog::getCreatedAt));
+    }
+
+    @Test
+    void scrollsSnippetsOfOneOwner() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(persistSnippet(owner, BASE));
+        }
+        persistSnippet(other, BASE);
+        entityManager.clear();
+
+        List<CodeSnippet> rows = scrollAll(position ->
+                snippetRepository.findByOwnerOrderByCreatedAtDescIdDesc(owner, position, Limit.of(2)));
+
+        Collections.reverse(ids);
+        assertThat(rows).extracting(CodeSnippet::getId).containsExactlyElementsOf(ids);
+    }
+
+    /**
+     * 按游标翻到最后一页；每页的游标都经过编码、解码，与接口上的行为一致
+     */
+    private static <T> List<T> scrollAll(Function<ScrollPosition, Window<T>> query) {
+        List<T> rows = new ArrayList<>();
+        ScrollPosition position = CursorCodec.decode(null);
+        for (int page = 0; page < 100; page++) {
+            Window<T> window = query.apply(position);
+            rows.addAll(window.getContent());
+            if (!window.hasNext()) {
+                return rows;
+            }
+            position = CursorCodec.decode(CursorCodec.encode(window.positionAt(window.size() - 1)));
+        }
+        throw new AssertionError("翻页没有结束");
+    }
+
+    /**
+     * 期望的顺序：created_at 倒序，相同时按 id 倒序
+     */
+    private static <T> List<Long> newestFirst(List<Long> ids, List<T> rows, ToLongFunction<T> id,
+                                              Function<T, LocalDateTime> createdAt) {
+        assertThat(rows).extracting(row -> id.applyAsLong(row)).containsExactlyInAnyOrderElementsOf(ids);
+        return rows.stream()
+                .sorted(Comparator.comparing(createdAt).thenComparingLong(id).reversed())
+                .map(row -> id.applyAsLong(row))
+                .toList();
+    }
+
+    private Long persistTask(User executor, LocalDateTime createdAt) {
+        ExecutionTask task = new ExecutionTask();
+        task.setExecutor(executor);
+        task.setLanguage("python");
+        Long id = entityManager.persistAndGetId(task, Long.class);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE execution_tasks SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    private Long persistAuditLog(User user, LocalDateTime createdAt) {
+        AuditLog log = new AuditLog();
+        log.setUser(user);
+        log.setAction("UPDATE");
+        log.setIpAddress("127.0.0.1");
+        Long id = entityManager.persistAndGetId(log, Long.class);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE audit_logs SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    private Long persistSnippet(User snippetOwner, LocalDateTime createdAt) {
+        CodeSnippet snippet = new CodeSnippet();
+        snippet.setOwner(snippetOwner);
+        snippet.setTitle("snippet");
+        snippet.setLanguage("python");
+        Long id = entityManager.persistAndGetId(snippet, Long.class);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE code_snippets SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+        return id;
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPasswordHash("hash");
+        return user;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void intersectsPostingsAndOverridesUpdatedSnippets() throws Exception {
+        try (TrigramIndex index = new TrigramIndex(dir, 2)) {
+            index.update(1, "import java.util.List;\nclass A {}");
+            index.update(2, "from collections import deque");
+            index.update(3, "def parse_args(): pass");
+
+            assertThat(index.candidates(TrigramQuery.literal("import"))).containsExactly(2, 1);
+            assertThat(index.candidates(TrigramQuery.literal("IMPORT java"))).containsExactly(1);
+            assertThat(index.candidates(TrigramQuery.literal("parse_args"))).containsExactly(3);
+
+            index.update(1, "class A {}");
+            index.remove(2);
+            assertThat(index.candidates(TrigramQuery.literal("import"))).isEmpty();
+        }
+    }
+
+    @Test
+    void survivesRestartBeforeAndAfterMerge() throws Exception {
+        try (TrigramIndex index = new TrigramIndex(dir, 2)) {
+            for (long id = 1; id <= 10; id++) {
+                index.update(id, "def handler_" + id + "(event): return event");
+            }
+            index.mergeIfNeeded(1, Integer.MAX_VALUE, Long.MAX_VALUE);
+            assertThat(index.getPendingCount()).isZero();
+            index.update(4, "nothing here");
+            index.update(11, "def handler_11(event): pass");
+        }
+
+        try (TrigramIndex reopened = new TrigramIndex(dir, 2)) {
+            assertThat(reopened.isEmpty()).isFalse();
+            assertThat(reopened.getPendingCount()).isEqualTo(2);
+            assertThat(reopened.candidates(TrigramQuery.literal("handler_")))
+                    .containsExactly(11, 10, 9, 8, 7, 6, 5, 3, 2, 1);
+            assertThat(reopened.candidates(TrigramQuery.literal("handler_1"))).containsExactly(11, 10, 1);
+
+            reopened.mergeIfNeeded(1, Integer.MAX_VALUE, Long.MAX_VALUE);
+            assertThat(reopened.candidates(TrigramQuery.literal("(event)")))
+                    .containsExactly(11, 10, 9, 8, 7, 6, 5, 3, 2, 1);
+            assertThat(reopened.candidates(TrigramQuery.literal("nothing"))).containsExactly(4);
+        }
+    }
+
+    @Test
+    void mergesWhenJournalGrowsFromRepeatedUpdates() throws Exception {
+        try (TrigramIndex index = new TrigramIndex(dir, 1)) {
+            for (int i = 0; i < 5; i++) {
+                index.update(1, "def handler_" + i + "(event): return event");
+            }
+            // 反复保存同一片段：增量只有 1 个片段，日志有 5 条记录
+            index.mergeIfNeeded(2, Integer.MAX_VALUE, Long.MAX_VALUE);
+            assertThat(index.getPendingCount()).isEqualTo(1);
+
+            index.mergeIfNeeded(2, 5, Long.MAX_VALUE);
+            assertThat(index.getPendingCount()).isZero();
+            assertThat(Files.size(dir.resolve("shard-0.journal"))).isZero();
+
+            index.update(1, "def handler_5(event): return event");
+            index.mergeIfNeeded(2, Integer.MAX_VALUE, 1);
+            assertThat(index.getPendingCount()).isZero();
+            assertThat(index.candidates(TrigramQuery.literal("handler_5"))).containsExactly(1);
+        }
+    }
+
+    @Test
+    void regexBranchesAreUnioned() throws Exception {
+        try (TrigramIndex index = new TrigramIndex(dir, 1)) {
+            index.update(1, "fn quick_sort(v: &mut Vec<i32>)");
+            index.update(2, "def merge_sort(xs): ...");
+            index.update(3, "def bubble(xs): ...");
+
+            assertThat(index.candidates(TrigramQuery.regex("quick_sort|merge_sort\\(")))
+                    .containsExactly(2, 1);
+            assertThat(index.candidates(TrigramQuery.regex("def \\w+_sort"))).containsExactly(2);
+        }
+    }
+}
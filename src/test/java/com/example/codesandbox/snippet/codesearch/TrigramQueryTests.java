@@ -0,0 +1,44 @@
+package com.example.codesandbox.snippet.codesearch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramQueryTests {
+
+    @Test
+    void extractsOnlyLiteralsThatMustAppear() {
+        assertThat(branch("import\\s+java\\.util")).isEqualTo(trigrams("import", "java.util"));
+        assertThat(branch("colou?r_name")).isEqualTo(trigrams("colo", "r_name"));
+        assertThat(branch("get[A-Z]\\w*Value")).isEqualTo(trigrams("get", "Value"));
+        assertThat(branch("(foo|bar)baz\\x41ab")).isEqualTo(trigrams("baz"));
+        assertThat(branch("a{2,3}bcd")).isEqualTo(trigrams("bcd"));
+    }
+
+    @Test
+    void queriesWithoutFixedTextCannotUseIndex() {
+        assertThat(TrigramQuery.regex("\\w+\\s*=\\s*\\d+").matchesAll()).isTrue();
+        assertThat(TrigramQuery.regex("printf|\\d+").matchesAll()).isTrue();
+        assertThat(TrigramQuery.regex("(?x) p r i n t f").matchesAll()).isTrue();
+        assertThat(TrigramQuery.literal("ab").matchesAll()).isTrue();
+        assertThat(TrigramQuery.regex("printf|go").matchesAll()).isTrue();
+        assertThat(TrigramQuery.regex("printf|fputs").matchesAll()).isFalse();
+    }
+
+    private static long[] branch(String regex) {
+        TrigramQuery query = TrigramQuery.regex(regex);
+        assertThat(query.branches()).hasSize(1);
+        return query.branches().get(0);
+    }
+
+    private static long[] trigrams(String... literals) {
+        return Arrays.stream(literals)
+                .map(Trigrams::of)
+                .flatMapToLong(Arrays::stream)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+}
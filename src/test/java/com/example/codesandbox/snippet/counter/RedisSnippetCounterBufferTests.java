@@ -0,0 +1,81 @@
+package com.example.codesandbox.snippet.counter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisSnippetCounterBufferTests {
+
+    private static final String LOCK_KEY = "codesandbox:snippet:counters:flush-lock";
+    private static final String FLUSHING_KEY = "codesandbox:snippet:counters:flushing";
+
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hash;
+    private RedisSnippetCounterBuffer buffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> value = mock(ValueOperations.class);
+        hash = mock(HashOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(value);
+        when(redisTemplate.opsForHash()).thenReturn(hash);
+        when(value.setIfAbsent(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        Iterator<Map.Entry<Object, Object>> fields = List.<Map.Entry<Object, Object>>of(
+                Map.entry("7:v", "3"), Map.entry("7:f", "1")).iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> fields.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> fields.next());
+        when(hash.scan(eq(FLUSHING_KEY), any())).thenReturn(cursor);
+        buffer = new RedisSnippetCounterBuffer(redisTemplate, Duration.ofSeconds(60));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void acknowledgeChecksLockOwnerAndDeletesFieldsInOneScript() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L, 1L);
+        List<SnippetCounterDelta> deltas = buffer.drain(10);
+        assertThat(deltas).containsExactly(new SnippetCounterDelta(7L, 3, 1));
+
+        buffer.acknowledge(deltas);
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(script.capture(), eq(List.of(LOCK_KEY, FLUSHING_KEY)), args.capture());
+        assertThat(script.getValue().getScriptAsString()).contains("GET", "HDEL", "DEL");
+        assertThat(args.getValue()).hasSize(3).contains("7:v", "7:f");
+        // 不能在锁归属未知时直接 HDEL
+        verify(hash, never()).delete(any(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void retainFailsOnceAnotherNodeHoldsTheLock() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L, 0L);
+        buffer.drain(10);
+
+        assertThat(buffer.retain()).isFalse();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), anyString(), eq("60000"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.codesandbox.snippet.counter;
+
+import com.example.codesandbox.snippet.config.SnippetCounterProperties;
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SnippetCountersTests {
+
+    private final Map<Long, long[]> persisted = new HashMap<>();
+    private final List<Integer> flushSizes = new ArrayList<>();
+    private CodeSnippetRepository snippetRepository;
+    private SnippetCounterProperties properties;
+    private SnippetCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        snippetRepository = mock(CodeSnippetRepository.class);
+        doAnswer(invocation -> {
+            List<SnippetCounterDelta> deltas = invocation.getArgument(0);
+            flushSizes.add(deltas.size());
+            synchronized (persisted) {
+                for (SnippetCounterDelta delta : deltas) {
+                    long[] values = persisted.computeIfAbsent(delta.snippetId(), id -> new long[2]);
+                    values[0] += delta.views();
+                    values[1] += delta.forks();
+                }
+            }
+            return null;
+        }).when(snippetRepository).addCounters(anyList(), anyInt());
+        properties = new SnippetCounterProperties();
+        counters = new SnippetCounters(new LocalSnippetCounterBuffer(), snippetRepository, properties, null);
+    }
+
+    @Test
+    void aggregatesIncrementsIntoOneUpdatePerSnippet() {
+        for (int i = 0; i < 100; i++) {
+            counters.recordView(1L);
+        }
+        counters.recordFork(1L);
+        counters.recordView(2L);
+
+        counters.flush();
+
+        assertThat(flushSizes).containsExactly(2);
+        assertThat(persisted.get(1L)).containsExactly(100, 1);
+        assertThat(persisted.get(2L)).containsExactly(1, 0);
+    }
+
+    @Test
+    void boundsRowsPerFlush() {
+        properties.setMaxRowsPerFlush(3);
+        for (long id = 1; id <= 7; id++) {
+            counters.recordView(id);
+        }
+
+        counters.flush();
+        counters.flush();
+        counters.flush();
+
+        assertThat(flushSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void readsMergePendingAndRestoreOnFailure() {
+        CodeSnippetResponse response = new CodeSnippetResponse();
+        response.setId(1L);
+        response.setViewCount(10);
+        response.setForkCount(2);
+        counters.recordView(1L);
+        counters.recordFork(1L);
+        doThrow(new IllegalStateException("db down")).when(snippetRepository).addCounters(anyList(), anyInt());
+
+        counters.flush();
+        counters.withPending(response);
+
+        assertThat(response.getViewCount()).isEqualTo(11);
+        assertThat(response.getForkCount()).isEqualTo(3);
+    }
+
+    @Test
+    void skipsWriteWhenBufferNoLongerRetainsTheBatch() {
+        LocalSnippetCounterBuffer local = new LocalSnippetCounterBuffer();
+        SnippetCounterBuffer expired = new SnippetCounterBuffer() {
+            @Override
+            public void add(Long snippetId, long views, long forks) {
+                local.add(snippetId, views, forks);
+            }
+
+            @Override
+            public List<SnippetCounterDelta> drain(int maxRows) {
+                return local.drain(maxRows);
+            }
+
+            @Override
+            public boolean retain() {
+                return false;
+            }
+
+            @Override
+            public void acknowledge(List<SnippetCounterDelta> deltas) {
+                local.acknowledge(deltas);
+            }
+
+            @Override
+            public void restore(List<SnippetCounterDelta> deltas) {
+                local.restore(deltas);
+            }
+
+            @Override
+            public Map<Long, SnippetCounterDelta> pending(Collection<Long> snippetIds) {
+                return local.pending(snippetIds);
+            }
+        };
+        counters = new SnippetCounters(expired, snippetRepository, properties, null);
+        counters.recordView(1L);
+
+        counters.flush();
+
+        verify(snippetRepository, never()).addCounters(anyList(), anyInt());
+        assertThat(local.pending(List.of(1L))).containsEntry(1L, new SnippetCounterDelta(1L, 1, 0));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLostWhileFlushing() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counters.recordView(i % 4L);
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) {
+            counters.flush();
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        counters.shutdown();
+
+        long total = persisted.values().stream().mapToLong(values -> values[0]).sum();
+        assertThat(total).isEqualTo((long) threads * perThread);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.codesandbox.snippet.leaderboard;
+
+import com.example.codesandbox.snippet.dto.CodeSnippetResponse;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LocalLeaderboardStoreTests {
+
+    private final LocalLeaderboardStore store = new LocalLeaderboardStore(3);
+
+    @Test
+    void keepsHighestViewCountsPerLanguageAndOverall() {
+        store.offerViews(snippet(1L, "java"), 10);
+        store.offerViews(snippet(2L, "java"), 30);
+        store.offerViews(snippet(3L, "python"), 20);
+        store.offerViews(snippet(4L, "java"), 5);
+        store.offerViews(snippet(5L, "java"), 1);
+
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, "java", 10))).containsExactly(2L, 1L, 4L);
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, null, 10))).containsExactly(2L, 3L, 1L);
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, "java", 2))).containsExactly(2L, 1L);
+        assertThat(store.top(LeaderboardKind.VIEWS, "java", 1).get(0).getViewCount()).isEqualTo(30);
+    }
+
+    @Test
+    void viewCountsOnlyGrowAndEvictTheLowest() {
+        store.offerViews(snippet(1L, "java"), 10);
+        store.offerViews(snippet(2L, "java"), 20);
+        store.offerViews(snippet(3L, "java"), 30);
+        store.offerViews(snippet(1L, "java"), 8);
+        store.offerViews(snippet(4L, "java"), 15);
+
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, "java", 10))).containsExactly(3L, 2L, 4L);
+
+        store.remove(2L);
+        store.remove(3L);
+        store.remove(4L);
+        assertThat(store.isEmpty()).isTrue();
+    }
+
+    @Test
+    void recentEventsOutrankOlderHeavierOnes() {
+        // 对数分数：时间每过一个半衰期加 1
+        store.addTrending(snippet(1L, "java"), log2(1.5) + 10);
+        store.addTrending(snippet(2L, "java"), 11);
+
+        assertThat(ids(store.top(LeaderboardKind.TRENDING, "java", 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void repeatedEventsAccumulate() {
+        store.addTrending(snippet(1L, "java"), 10);
+        store.addTrending(snippet(1L, "java"), 10);
+        store.addTrending(snippet(2L, "java"), log2(1.9) + 10);
+
+        assertThat(ids(store.top(LeaderboardKind.TRENDING, "java", 10))).containsExactly(1L, 2L);
+        assertThat(LeaderboardStore.logAdd(10, 10)).isCloseTo(11, within(1e-9));
+    }
+
+    @Test
+    void steadyNewcomerEntersFullTrendingBoard() {
+        store.addTrending(snippet(1L, "java"), 20);
+        store.addTrending(snippet(2L, "java"), 20);
+        store.addTrending(snippet(3L, "java"), 20);
+
+        // 每次都比榜尾小，但继承榜尾分数后持续累加，最终排到第一
+        for (int i = 0; i < 3; i++) {
+            store.addTrending(snippet(4L, "java"), 18);
+        }
+
+        assertThat(ids(store.top(LeaderboardKind.TRENDING, "java", 1))).containsExactly(4L);
+    }
+
+    @Test
+    void refreshUpdatesSnapshotAndDropsNonPublicSnippets() {
+        store.offerViews(snippet(1L, "java"), 10);
+        store.offerViews(snippet(2L, "java"), 20);
+
+        CodeSnippetResponse renamed = snippet(1L, "java");
+        renamed.setTitle("renamed");
+        renamed.setViewCount(3);
+        store.refresh(renamed);
+        CodeSnippetResponse hidden = snippet(2L, "java");
+        hidden.setVisibility(CodeSnippet.Visibility.PRIVATE);
+        store.refresh(hidden);
+
+        List<CodeSnippetResponse> top = store.top(LeaderboardKind.VIEWS, null, 10);
+        assertThat(ids(top)).containsExactly(1L);
+        assertThat(top.get(0).getTitle()).isEqualTo("renamed");
+        assertThat(top.get(0).getViewCount()).isEqualTo(10);
+    }
+
+    @Test
+    void languageChangeMovesSnippetToNewGroup() {
+        store.offerViews(snippet(1L, "java"), 10);
+
+        store.refresh(snippet(1L, "kotlin"));
+
+        assertThat(store.top(LeaderboardKind.VIEWS, "java", 10)).isEmpty();
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, "kotlin", 10))).containsExactly(1L);
+        assertThat(ids(store.top(LeaderboardKind.VIEWS, null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void returnedSnapshotsAreCopies() {
+        store.offerViews(snippet(1L, "java"), 10);
+
+        store.top(LeaderboardKind.VIEWS, "java", 1).get(0).setTitle("changed");
+
+        assertThat(store.top(LeaderboardKind.VIEWS, "java", 1).get(0).getTitle()).isEqualTo("snippet-1");
+    }
+
+    private static CodeSnippetResponse snippet(Long id, String language) {
+        CodeSnippetResponse snippet = new CodeSnippetResponse();
+        snippet.setId(id);
+        snippet.setTitle("snippet-" + id);
+        snippet.setLanguage(language);
+        snippet.setVisibility(CodeSnippet.Visibility.PUBLIC);
+        snippet.setViewCount(0);
+        return snippet;
+    }
+
+    private static List<Long> ids(List<CodeSnippetResponse> snippets) {
+        return snippets.stream().map(CodeSnippetResponse::getId).toList();
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
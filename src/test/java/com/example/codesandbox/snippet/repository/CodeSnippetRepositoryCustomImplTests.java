@@ -0,0 +1,51 @@
+package com.example.codesandbox.snippet.repository;
+
+import com.example.codesandbox.snippet.counter.SnippetCounterDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodeSnippetRepositoryCustomImplTests {
+
+    private static final Timestamp UPDATED_AT = Timestamp.valueOf("2024-01-01 00:00:00");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:counters;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS code_snippets");
+        // 与 schema.sql 一致：updated_at 在任何 UPDATE 时自动刷新
+        jdbcTemplate.execute("""
+                CREATE TABLE code_snippets (
+                  id BIGINT PRIMARY KEY,
+                  view_count INT DEFAULT 0,
+                  fork_count INT DEFAULT 0,
+                  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                )
+                """);
+        jdbcTemplate.update("INSERT INTO code_snippets (id, view_count, fork_count, updated_at) VALUES (1, 5, NULL, ?)",
+                UPDATED_AT);
+    }
+
+    @Test
+    void addsCountersWithoutTouchingUpdatedAt() {
+        new CodeSnippetRepositoryCustomImpl(jdbcTemplate)
+                .addCounters(List.of(new SnippetCounterDelta(1L, 3, 2)), 100);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT view_count, fork_count, updated_at FROM code_snippets WHERE id = 1");
+        assertThat(row.get("view_count")).isEqualTo(8);
+        assertThat(row.get("fork_count")).isEqualTo(2);
+        // 浏览、复刻计数不算内容修改，不能刷新"最近更新"
+        assertThat(row.get("updated_at")).isEqualTo(UPDATED_AT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LuceneSnippetSearchEngineTests {
+
+    @TempDir
+    Path dir;
+
+    private LuceneSnippetSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new LuceneSnippetSearchEngine(dir, new SnippetSearchProperties());
+        engine.index(List.of(
+                document(1L, "Quick sort", "classic divide and conquer", "sort,algorithm", "java", 100),
+                document(2L, "Hello world", "prints hello, then sorts nothing", "", "python", 200),
+                document(3L, "Merge sort in Python", "stable sort", "sort", "python", 300),
+                document(4L, "Private sort", "not visible", "sort", "java", 400, CodeSnippet.Visibility.PRIVATE),
+                document(5L, "Binary search", "needs a sorted array", "search,algorithm", "go", 500)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        engine.close();
+    }
+
+    @Test
+    void ranksTitleAndTagMatchesAboveDescriptionMatches() {
+        SnippetSearchHits hits = engine.search(publicQuery("sort", null, 0, 10));
+
+        assertThat(hits.ids()).containsExactly(3L, 1L);
+        assertThat(hits.totalHits()).isEqualTo(2);
+    }
+
+    @Test
+    void requiresEveryTermAcrossFields() {
+        assertThat(engine.search(publicQuery("sort python", null, 0, 10)).ids()).containsExactly(3L);
+        assertThat(engine.search(publicQuery("algorithm go", null, 0, 10)).ids()).containsExactly(5L);
+        assertThat(engine.search(publicQuery("sort haskell", null, 0, 10)).ids()).isEmpty();
+    }
+
+    @Test
+    void filtersByLanguageAndPaginates() {
+        assertThat(engine.search(publicQuery("sort", "Java", 0, 10)).ids()).containsExactly(1L);
+
+        SnippetSearchHits newest = engine.search(publicQuery(null, null, 0, 2));
+        assertThat(newest.ids()).containsExactly(5L, 3L);
+        assertThat(newest.totalHits()).isEqualTo(4);
+        assertThat(engine.search(publicQuery(null, null, 2, 2)).ids()).containsExactly(2L, 1L);
+        assertThat(engine.search(publicQuery(null, null, 4, 2)).ids()).isEmpty();
+    }
+
+    @Test
+    void updatesAndDeletesById() {
+        engine.index(List.of(document(2L, "Hello sort", "", "", "python", 600)));
+        engine.delete(List.of(1L, 99L));
+
+        assertThat(engine.search(publicQuery("sort", null, 0, 10)).ids()).containsExactly(3L, 2L);
+        assertThat(engine.count()).isEqualTo(4);
+    }
+
+    private static SnippetSearchQuery publicQuery(String keyword, String language, int offset, int size) {
+        return new SnippetSearchQuery(keyword, language, CodeSnippet.Visibility.PUBLIC, offset, size);
+    }
+
+    private static SnippetDocument document(Long id, String title, String description, String tags,
+                                            String language, long updatedAt) {
+        return document(id, title, description, tags, language, updatedAt, CodeSnippet.Visibility.PUBLIC);
+    }
+
+    private static SnippetDocument document(Long id, String title, String description, String tags,
+                                            String language, long updatedAt, CodeSnippet.Visibility visibility) {
+        List<String> tagList = tags.isEmpty() ? List.of() : List.of(tags.split(","));
+        return new SnippetDocument(id, 1L, title, description, tagList, language, visibility, updatedAt);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.codesandbox.snippet.search;
+
+import com.example.codesandbox.snippet.config.SnippetSearchProperties;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SnippetIndexerTests {
+
+    private CodeSnippetRepository snippetRepository;
+    private SnippetSearchEngine searchEngine;
+    private SnippetIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        snippetRepository = mock(CodeSnippetRepository.class);
+        searchEngine = mock(SnippetSearchEngine.class);
+        SnippetSearchProperties properties = new SnippetSearchProperties();
+        properties.setBatchSize(2);
+        indexer = new SnippetIndexer(snippetRepository, searchEngine, properties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexesLatestStateOncePerChangeAndDeletesMissing() {
+        when(snippetRepository.findAllById(any())).thenReturn(List.of(snippet(1L)));
+
+        indexer.snippetChanged(1L);
+        indexer.snippetChanged(1L);
+        indexer.snippetChanged(2L);
+        indexer.flush();
+
+        ArgumentCaptor<List<SnippetDocument>> documents = ArgumentCaptor.forClass(List.class);
+        verify(searchEngine).index(documents.capture());
+        assertThat(documents.getValue()).extracting(SnippetDocument::id).containsExactly(1L);
+        ArgumentCaptor<Collection<Long>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(searchEngine).delete(deleted.capture());
+        assertThat(deleted.getValue()).containsExactly(2L);
+        assertThat(indexer.getPendingCount()).isZero();
+    }
+
+    @Test
+    void requeuesBatchWhenEngineFails() {
+        when(snippetRepository.findAllById(any())).thenReturn(List.of(snippet(1L)));
+        doThrow(new IllegalStateException("down")).doNothing().when(searchEngine).index(anyList());
+
+        indexer.snippetChanged(1L);
+        indexer.flush();
+        assertThat(indexer.getPendingCount()).isEqualTo(1);
+
+        indexer.flush();
+        assertThat(indexer.getPendingCount()).isZero();
+        verify(searchEngine, times(2)).index(anyList());
+    }
+
+    @Test
+    void backfillsByIdCursorWhenIdle() {
+        when(snippetRepository.findIdsAfter(eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(snippetRepository.findIdsAfter(eq(2L), any())).thenReturn(List.of(3L));
+        when(snippetRepository.findIdsAfter(eq(3L), any())).thenReturn(List.of());
+        when(snippetRepository.findAllById(any())).thenReturn(List.of());
+
+        indexer.reindexAll();
+        indexer.flush();
+        indexer.flush();
+        assertThat(indexer.isBackfilling()).isTrue();
+        indexer.flush();
+
+        assertThat(indexer.isBackfilling()).isFalse();
+        verify(snippetRepository, times(2)).findAllById(any());
+        verify(snippetRepository, never()).findIdsAfter(eq(1L), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listenerEnqueuesOnlyAfterCommit() {
+        ObjectProvider<SnippetIndexer> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(indexer);
+        SnippetIndexListener listener = new SnippetIndexListener(provider);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.changed(snippet(1L));
+            listener.changed(snippet(2L));
+            assertThat(indexer.getPendingCount()).isZero();
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(0).afterCommit();
+            // 回滚的事务不会调用 afterCommit
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(indexer.getPendingCount()).isEqualTo(1);
+    }
+
+    private static CodeSnippet snippet(Long id) {
+        CodeSnippet snippet = new CodeSnippet();
+        snippet.setId(id);
+        snippet.setTitle("t" + id);
+        snippet.setLanguage("java");
+        return snippet;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.codesandbox.snippet.service;
+
+import com.example.codesandbox.snippet.codesearch.CodeIndexer;
+import com.example.codesandbox.snippet.config.VersionStorageProperties;
+import com.example.codesandbox.snippet.dto.SnippetForkLink;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import com.example.codesandbox.snippet.entity.CodeVersion;
+import com.example.codesandbox.snippet.repository.CodeSnippetRepository;
+import com.example.codesandbox.snippet.repository.CodeVersionRepository;
+import com.example.codesandbox.storage.blob.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CodeVersionStoreTests {
+
+    private final List<CodeVersion> rows = new ArrayList<>();
+    private final Map<String, byte[]> blobs = new HashMap<>();
+    private final Map<Long, CodeSnippet> snippets = new HashMap<>();
+    private CodeSnippet snippet;
+    private VersionStorageProperties config;
+    private CodeVersionRepository repository;
+    private CodeSnippetRepository snippetRepository;
+    private CodeVersionContentStore contentStore;
+    private CodeVersionStore store;
+
+    @BeforeEach
+    void setUp() {
+        snippet = snippet(1L, null, null);
+        config = new VersionStorageProperties();
+        config.setMinKeyframeInterval(4);
+        config.setMaxKeyframeInterval(4);
+
+        repository = mock(CodeVersionRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            CodeVersion version = invocation.getArgument(0);
+            if (version.getId() == null) {
+                version.setId((long) rows.size() + 1);
+                rows.add(version);
+            }
+            return version;
+        });
+        when(repository.findLatestVersion(any())).thenAnswer(invocation -> rowsOf(invocation.<CodeSnippet>getArgument(0).getId())
+                .max(Comparator.comparing(CodeVersion::getVersionNumber)));
+        when(repository.findWithContentById(anyLong())).thenAnswer(invocation -> rows.stream()
+                .filter(v -> v.getId().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(repository.findLastFullVersionBefore(any(), anyInt())).thenAnswer(invocation -> {
+            int before = invocation.getArgument(1);
+            return rowsOf(invocation.<CodeSnippet>getArgument(0).getId())
+                    .filter(v -> v.getVersionNumber() < before && v.getDeltaContent() == null)
+                    .map(CodeVersion::getVersionNumber)
+                    .max(Integer::compare)
+                    .orElse(null);
+        });
+        when(repository.findBySnippetIdAndVersionNumberGreaterThanEqualOrderByVersionNumberAsc(anyLong(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    int from = invocation.getArgument(1);
+                    Limit limit = invocation.getArgument(2);
+                    return rowsOf(invocation.getArgument(0))
+                            .filter(v -> v.getVersionNumber() >= from)
+                            .sorted(Comparator.comparing(CodeVersion::getVersionNumber))
+                            .limit(limit.max())
+                            .toList();
+                });
+
+        BlobStore blobStore = mock(BlobStore.class);
+        when(blobStore.putText(any())).thenAnswer(invocation -> {
+            String hash = "h" + blobs.size();
+            blobs.put(hash, invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8));
+            return hash;
+        });
+        when(blobStore.getText(any())).thenAnswer(invocation -> Optional.ofNullable(blobs.get(invocation.<String>getArgument(0)))
+                .map(bytes -> new String(bytes, StandardCharsets.UTF_8)));
+
+        snippetRepository = mock(CodeSnippetRepository.class);
+        when(snippetRepository.findForkLink(anyLong())).thenAnswer(invocation -> Optional.ofNullable(snippets.get(invocation.<Long>getArgument(0)))
+                .map(s -> new SnippetForkLink(s.getId(), s.getForkedFrom() == null ? null : s.getForkedFrom().getId(),
+                        s.getForkVersionNumber())));
+        when(repository.findBySnippetIdAndVersionNumberLessThanEqualOrderByVersionNumberAsc(anyLong(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int max = invocation.getArgument(1);
+                    return rowsOf(invocation.getArgument(0))
+                            .filter(v -> v.getVersionNumber() <= max)
+                            .sorted(Comparator.comparing(CodeVersion::getVersionNumber))
+                            .toList();
+                });
+        when(snippetRepository.findPinnedHeadVersionIds(any())).thenAnswer(invocation -> snippets.values().stream()
+                .map(CodeSnippet::getHeadVersionId)
+                .filter(invocation.<Collection<Long>>getArgument(0)::contains)
+                .distinct()
+                .toList());
+        when(snippetRepository.repointHead(anyLong(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            snippets.values().stream()
+                    .filter(s -> Objects.equals(s.getHeadVersionId(), invocation.getArgument(0))
+                            && !s.getId().equals(invocation.getArgument(2)))
+                    .forEach(s -> s.setHeadVersionId(invocation.getArgument(1)));
+            return 1;
+        });
+        when(snippetRepository.existsByHeadVersionIdAndIdNot(anyLong(), anyLong())).thenAnswer(invocation -> snippets.values().stream()
+                .anyMatch(s -> Objects.equals(s.getHeadVersionId(), invocation.getArgument(0))
+                        && !s.getId().equals(invocation.getArgument(1))));
+
+        contentStore = new CodeVersionContentStore(blobStore);
+        store = newStore();
+    }
+
+    @Test
+    void storesDeltasBetweenKeyframesAndKeepsHeadInline() {
+        List<String> contents = autosave(10);
+
+        assertThat(rows).extracting(CodeVersion::getVersionNumber).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        CodeVersion head = rows.get(9);
+        assertThat(head.getContent()).isEqualTo(contents.get(9));
+        assertThat(head.getDeltaContent()).isNull();
+        // 间隔 4：版本 4、8 是关键帧，其余历史版本只存增量
+        assertThat(rows.stream().filter(v -> v.getContentHash() != null).map(CodeVersion::getVersionNumber))
+                .containsExactly(4, 8);
+        assertThat(rows.stream().filter(v -> v.getDeltaContent() != null).count()).isEqualTo(7);
+        assertThat(store.latestContent(snippet)).contains(contents.get(9));
+    }
+
+    @Test
+    void reconstructsEveryVersion() {
+        List<String> contents = autosave(10);
+        // 新实例没有缓存，必须真正沿增量链还原
+        store = newStore();
+
+        for (int i = 0; i < contents.size(); i++) {
+            assertThat(store.content(snippet, i + 1)).contains(contents.get(i));
+        }
+        assertThat(store.content(snippet, 11)).isEmpty();
+    }
+
+    @Test
+    void refusesToReadDeltaRowsDirectly() {
+        List<String> contents = autosave(3);
+        CodeVersion delta = rows.get(1);
+
+        assertThat(delta.getDeltaContent()).isNotNull();
+        assertThatThrownBy(() -> contentStore.content(delta)).isInstanceOf(IllegalStateException.class);
+        assertThat(store.content(snippet, 2)).contains(contents.get(1));
+    }
+
+    @Test
+    void indexesNewContentOnlyAfterCommit() {
+        CodeIndexer indexer = mock(CodeIndexer.class);
+        ObjectProvider<CodeIndexer> provider = mock();
+        when(provider.getIfAvailable()).thenReturn(indexer);
+        store = new CodeVersionStore(repository, snippetRepository, contentStore, config, provider);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.append(snippet, null, "print(1)\n", "v1");
+            verifyNoInteractions(indexer);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(indexer).versionSaved(1L, "print(1)\n");
+    }
+
+    @Test
+    void storesLargeRewriteAsKeyframe() {
+        store.append(snippet, null, "a\nb\nc\nd\n", "v1");
+        store.append(snippet, null, "completely\ndifferent\n", "v2");
+
+        assertThat(rows.get(0).getDeltaContent()).isNull();
+        assertThat(rows.get(0).getContentHash()).isNotNull();
+        assertThat(store.content(snippet, 1)).contains("a\nb\nc\nd\n");
+    }
+
+    @Test
+    void forkSharesHistoryUntilForkPoint() {
+        List<String> contents = autosave(6);
+        int rowCount = rows.size();
+        CodeSnippet fork = fork(2L, snippet);
+        CodeSnippet forkOfFork = fork(3L, fork);
+
+        // 复刻不复制版本，最新版本指向来源片段的行
+        assertThat(rows).hasSize(rowCount);
+        assertThat(fork.getHeadVersionId()).isEqualTo(snippet.getHeadVersionId());
+        assertThat(store.latestContent(fork)).contains(contents.get(5));
+
+        store.append(fork, null, "forked\n", "fork v7");
+        store.append(snippet, null, "source\n", "source v7");
+        store = newStore();
+
+        assertThat(store.content(fork, 7)).contains("forked\n");
+        assertThat(store.content(snippet, 7)).contains("source\n");
+        for (int i = 0; i < contents.size(); i++) {
+            assertThat(store.content(fork, i + 1)).contains(contents.get(i));
+            assertThat(store.content(forkOfFork, i + 1)).contains(contents.get(i));
+        }
+        assertThat(store.content(forkOfFork, 7)).isEmpty();
+        assertThat(store.latestContent(forkOfFork)).contains(contents.get(5));
+    }
+
+    @Test
+    void pinsSharedHeadAsKeyframe() {
+        List<String> contents = autosave(2);
+        CodeSnippet fork = fork(2L, snippet);
+
+        store.append(snippet, null, contents.get(1) + "// more\n", "v3");
+
+        CodeVersion shared = rows.get(1);
+        assertThat(shared.getDeltaContent()).isNull();
+        assertThat(shared.getContentHash()).isNotNull();
+        assertThat(store.latestContent(fork)).contains(contents.get(1));
+        // 来源片段已有复刻之外的版本 1 照常存增量
+        assertThat(rows.get(0).getDeltaContent()).isNotNull();
+    }
+
+    @Test
+    void detachedForksKeepSharedHistoryAfterSourceIsDeleted() {
+        List<String> contents = autosave(6);
+        CodeSnippet fork = fork(2L, snippet);
+        store.append(fork, null, "forked\n", "fork v7");
+        CodeSnippet forkOfFork = fork(3L, fork);
+        for (int i = 7; i <= 8; i++) {
+            contents.add(contents.get(i - 2).replace("}\n", "    int v" + i + " = " + i + ";\n}\n"));
+            store.append(snippet, null, contents.get(i - 1), "autosave");
+        }
+        CodeSnippet idleFork = fork(4L, snippet);
+        CodeSnippet forkOfIdleFork = fork(5L, idleFork);
+        // 复刻点 6 在来源片段名下已转为增量（相对来源自己的版本 7）
+        assertThat(rows.get(5).getDeltaContent()).isNotNull();
+
+        store.detach(fork);
+        store.detach(idleFork);
+        rows.removeIf(v -> v.getSnippet().getId().equals(1L));
+        snippets.remove(1L);
+        store = newStore();
+
+        assertThat(fork.getForkedFrom()).isNull();
+        assertThat(idleFork.getForkedFrom()).isNull();
+        for (int i = 0; i < 6; i++) {
+            assertThat(store.content(fork, i + 1)).contains(contents.get(i));
+            assertThat(store.content(forkOfFork, i + 1)).contains(contents.get(i));
+        }
+        assertThat(store.content(fork, 7)).contains("forked\n");
+        assertThat(store.latestContent(fork)).contains("forked\n");
+        assertThat(store.latestContent(forkOfFork)).contains("forked\n");
+        for (int i = 0; i < 8; i++) {
+            assertThat(store.content(idleFork, i + 1)).contains(contents.get(i));
+        }
+        // 没有自己版本的复刻和它的下游复刻改指向副本
+        assertThat(store.latestContent(idleFork)).contains(contents.get(7));
+        assertThat(forkOfIdleFork.getHeadVersionId()).isEqualTo(idleFork.getHeadVersionId());
+        assertThat(store.latestContent(forkOfIdleFork)).contains(contents.get(7));
+    }
+
+    private CodeVersionStore newStore() {
+        ObjectProvider<CodeIndexer> codeIndexer = mock();
+        return new CodeVersionStore(repository, snippetRepository, contentStore, config, codeIndexer);
+    }
+
+    private CodeSnippet snippet(Long id, CodeSnippet forkedFrom, Integer forkVersionNumber) {
+        CodeSnippet created = new CodeSnippet();
+        created.setId(id);
+        created.setForkedFrom(forkedFrom);
+        created.setForkVersionNumber(forkVersionNumber);
+        snippets.put(id, created);
+        return created;
+    }
+
+    private CodeSnippet fork(Long id, CodeSnippet source) {
+        CodeVersionStore.Head head = store.head(source).orElseThrow();
+        CodeSnippet fork = snippet(id, source, head.versionNumber());
+        store.pointHead(fork, head);
+        return fork;
+    }
+
+    private Stream<CodeVersion> rowsOf(Long snippetId) {
+        return rows.stream().filter(v -> v.getSnippet().getId().equals(snippetId));
+    }
+
+    private List<String> autosave(int count) {
+        List<String> contents = new ArrayList<>();
+        StringBuilder code = new StringBuilder("public class Main {\n");
+        for (int i = 0; i < 40; i++) {
+            code.append("    // line ").append(i).append('\n');
+        }
+        for (int i = 1; i <= count; i++) {
+            code.append("    int v").append(i).append(" = ").append(i).append(";\n");
+            String content = code + "}\n";
+            contents.add(content);
+            store.append(snippet, null, content, "autosave");
+        }
+        return contents;
+    }
+}
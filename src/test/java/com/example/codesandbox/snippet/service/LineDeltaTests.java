@@ -0,0 +1,56 @@
+package com.example.codesandbox.snippet.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineDeltaTests {
+
+    @Test
+    void roundTripsEdits() {
+        String base = "import a;\n\nclass A {\n    int x;\n    void f() {}\n}\n";
+        String target = "import a;\nimport b;\n\nclass A {\n    void f() {}\n    int y;\n}\n";
+
+        assertRoundTrip(base, target);
+        assertRoundTrip(target, base);
+    }
+
+    @Test
+    void roundTripsEdgeCases() {
+        assertRoundTrip("", "");
+        assertRoundTrip("", "a\nb");
+        assertRoundTrip("a\nb", "");
+        assertRoundTrip("a\nb", "a\nb\n");
+        assertRoundTrip("a\nb\n", "a\nb");
+        assertRoundTrip("x\nx\nx\n", "x\nx\nx\nx\nx\n");
+        assertRoundTrip("one\ntwo\nthree\n", "three\none\ntwo\n");
+        assertRoundTrip("中文\n注释\n", "中文\n新的注释\n");
+    }
+
+    @Test
+    void unchangedLinesAreCopiedNotStored() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            base.append("    System.out.println(").append(i).append(");\n");
+        }
+        String target = base + "    return;\n";
+
+        String delta = LineDelta.encode(base.toString(), target);
+
+        assertThat(delta.length()).isLessThan(40);
+        assertThat(LineDelta.apply(base.toString(), delta)).isEqualTo(target);
+    }
+
+    @Test
+    void rejectsDeltaForAnotherBase() {
+        String delta = LineDelta.encode("a\nb\nc\n", "a\nc\n");
+
+        assertThatThrownBy(() -> LineDelta.apply("a\n", delta)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LineDelta.apply("a\n", "garbage")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertRoundTrip(String base, String target) {
+        assertThat(LineDelta.apply(base, LineDelta.encode(base, target))).isEqualTo(target);
+    }
+}
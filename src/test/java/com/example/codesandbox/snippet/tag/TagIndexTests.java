@@ -0,0 +1,95 @@
+package com.example.codesandbox.snippet.tag;
+
+import com.example.codesandbox.snippet.config.SnippetTagProperties;
+import com.example.codesandbox.snippet.dto.TagFacet;
+import com.example.codesandbox.snippet.entity.CodeSnippet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static com.example.codesandbox.snippet.entity.CodeSnippet.Visibility.PRIVATE;
+import static com.example.codesandbox.snippet.entity.CodeSnippet.Visibility.PUBLIC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TagIndexTests {
+
+    private SnippetTagProperties properties;
+    private TagIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SnippetTagProperties();
+        properties.setFacetCacheTtl(Duration.ZERO);
+        index = new TagIndex(properties);
+        index.update(row(1, "python", PUBLIC, "ML, #Python"));
+        index.update(row(2, "python", PUBLIC, "web,python"));
+        index.update(row(3, "java", PUBLIC, "web, spring boot"));
+        index.update(row(4, "python", PRIVATE, "ml"));
+        index.update(row(5, "java", PUBLIC, "ml,web"));
+    }
+
+    @Test
+    void normalizesTags() {
+        assertThat(Tags.normalize(" Python, #python ,Machine   Learning,,")).containsExactly("python", "machine-learning");
+        assertThat(Tags.normalizeColumn(" , ")).isNull();
+    }
+
+    @Test
+    void combinesAndOrWithLanguageAndVisibility() {
+        assertThat(index.search(query(Set.of("ml"), Set.of(), null, null), 0, 10, 0).snippetIds())
+                .containsExactly(5L, 4L, 1L);
+        assertThat(index.search(query(Set.of("ML"), Set.of(), "python", PUBLIC), 0, 10, 0).snippetIds())
+                .containsExactly(1L);
+        assertThat(index.search(query(Set.of(), Set.of("ml", "spring-boot"), "java", PUBLIC), 0, 10, 0).snippetIds())
+                .containsExactly(5L, 3L);
+        assertThat(index.search(query(Set.of("web", "missing"), Set.of(), null, null), 0, 10, 0).total())
+                .isZero();
+    }
+
+    @Test
+    void pagesNewestFirst() {
+        TagSearchResult page = index.search(query(Set.of(), Set.of(), null, PUBLIC), 1, 2, 0);
+
+        assertThat(page.total()).isEqualTo(4);
+        assertThat(page.snippetIds()).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void publicFacetCountsFollowUpdates() {
+        assertThat(index.search(TagQuery.publicSnippets(Set.of(), Set.of(), null), 0, 0, 3).facets())
+                .containsExactly(new TagFacet("web", 3), new TagFacet("ml", 2), new TagFacet("python", 2));
+
+        index.update(row(2, "python", PRIVATE, "web,python"));
+        index.update(row(3, "java", PUBLIC, "spring-boot"));
+        index.remove(5);
+
+        assertThat(index.search(TagQuery.publicSnippets(Set.of(), Set.of(), null), 0, 0, 10).facets())
+                .containsExactly(new TagFacet("ml", 1), new TagFacet("python", 1), new TagFacet("spring-boot", 1));
+        assertThat(index.search(TagQuery.publicSnippets(Set.of(), Set.of(), "java"), 0, 0, 10).facets())
+                .containsExactly(new TagFacet("spring-boot", 1));
+        assertThat(index.search(query(Set.of("web"), Set.of(), null, null), 0, 10, 0).snippetIds())
+                .containsExactly(2L);
+    }
+
+    @Test
+    void facetsOfFilteredResults() {
+        TagSearchResult scanned = index.search(TagQuery.publicSnippets(Set.of("web"), Set.of(), null), 0, 10, 10);
+        assertThat(scanned.facets()).containsExactly(
+                new TagFacet("web", 3), new TagFacet("ml", 1), new TagFacet("python", 1), new TagFacet("spring-boot", 1));
+
+        properties.setFacetScanLimit(0);
+        TagSearchResult intersected = index.search(TagQuery.publicSnippets(Set.of("web"), Set.of(), null), 0, 10, 10);
+        assertThat(intersected.facets()).isEqualTo(scanned.facets());
+    }
+
+    private static TagQuery query(Set<String> allOf, Set<String> anyOf, String language,
+                                  CodeSnippet.Visibility visibility) {
+        return new TagQuery(allOf, anyOf, language, visibility);
+    }
+
+    private static SnippetTagRow row(long id, String language, CodeSnippet.Visibility visibility, String tags) {
+        return new SnippetTagRow(id, language, visibility, tags);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.codesandbox.storage.blob;
+
+import com.example.codesandbox.execution.support.CodeHasher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileBlobStoreTests {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesEachContentOnceAndCompressesLargeText() throws IOException {
+        LocalFileBlobStore store = new LocalFileBlobStore(root, 512);
+        String code = "print('hello')\n".repeat(200);
+
+        String hash = store.putText(code);
+        assertThat(hash).isEqualTo(CodeHasher.sha256(code));
+        assertThat(store.putText(code)).isEqualTo(hash);
+        assertThat(store.getText(hash)).contains(code);
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).toList()).singleElement()
+                    .satisfies(file -> assertThat(Files.size(file)).isLessThan(code.length() / 4));
+        }
+    }
+
+    @Test
+    void roundTripsSmallAndEmptyContent() {
+        LocalFileBlobStore store = new LocalFileBlobStore(root, 512);
+
+        String small = store.putText("你好");
+        String empty = store.putText("");
+
+        assertThat(store.getText(small)).contains("你好");
+        assertThat(store.getText(empty)).contains("");
+        assertThat(store.get(CodeHasher.sha256("missing"))).isEmpty();
+        assertThat(store.get("../etc/passwd")).isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedBlobInsteadOfReturningPartialContent() throws IOException {
+        LocalFileBlobStore store = new LocalFileBlobStore(root, 1 << 20);
+        String hash = store.putText("x".repeat(100));
+
+        Path file;
+        try (Stream<Path> files = Files.walk(root)) {
+            file = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertThatThrownBy(() -> store.get(hash)).isInstanceOf(UncheckedIOException.class);
+    }
+}